@@ -0,0 +1,19 @@
+package de.prokyo.network.client;
+
+/**
+ * Defines how a {@link ProkyoClientPool} spreads the packets sent without a key across its connections.<br>
+ * Packets sent with a key always use the connection the key is mapped to, see
+ * {@link ProkyoClientPool#sendPacket(Object, de.prokyo.network.common.packet.Packet)}.
+ */
+public enum LoadBalancingStrategy {
+
+	/**
+	 * Uses all active connections one after another.
+	 */
+	ROUND_ROBIN,
+	/**
+	 * Uses the active connection with the least bytes waiting to be written.
+	 */
+	LEAST_PENDING_BYTES
+
+}
@@ -1,21 +1,44 @@
 package de.prokyo.network.client;
 
 import de.prokyo.network.common.connection.Connection;
+import de.prokyo.network.common.connection.LogicalStream;
+import de.prokyo.network.common.connection.PacketPriority;
+import de.prokyo.network.common.connection.ReliableSession;
+import de.prokyo.network.common.connection.RequestManager;
+import de.prokyo.network.common.connection.SlowConsumerPolicy;
+import de.prokyo.network.common.connection.SocketOptions;
+import de.prokyo.network.common.connection.TimeSync;
+import de.prokyo.network.common.connection.Transport;
 import de.prokyo.network.common.event.EventManager;
 import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.common.packet.PrioritizedPacket;
+import de.prokyo.network.common.pipeline.HeartbeatHandler;
+import de.prokyo.network.common.pipeline.OutboundQueue;
+import de.prokyo.network.common.pipeline.PacketDecoder;
 import de.prokyo.network.common.pipeline.ProkyoCompressor;
 import de.prokyo.network.common.pipeline.ProkyoDecompressor;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.epoll.Epoll;
-import io.netty.channel.epoll.EpollEventLoopGroup;
-import io.netty.channel.epoll.EpollSocketChannel;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
 import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.ScheduledFuture;
+import java.io.File;
+import java.io.InputStream;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import lombok.Getter;
+import lombok.Setter;
 
 /**
  * Represents a client connection to a remote host.
@@ -23,19 +46,158 @@ import lombok.Getter;
 public class ProkyoClient implements Connection {
 
 	public static final AttributeKey<ProkyoClient> ATTRIBUTE_KEY = AttributeKey.newInstance("prokyoClient");
-	@Getter private final EventManager eventManager = new EventManager();
-	private Channel channel;
+	@Getter private final EventManager eventManager;
+	private volatile Channel channel;
+	private volatile OutboundQueue outboundQueue;
+	/**
+	 * The tcp address of the remote host.<br>
+	 * It is null, if the client was connected to a unix domain socket, see {@link #getRemoteAddress()}.
+	 */
 	@Getter private InetSocketAddress remoteHost;
+	/**
+	 * The path of the unix domain socket the client is connected to, if it was connected by {@link #connectUnix(Path)}.
+	 */
+	@Getter private Path unixSocketPath;
+	/**
+	 * The address the client is connected to, either an {@link InetSocketAddress} or a
+	 * {@link DomainSocketAddress}.
+	 */
+	@Getter private SocketAddress remoteAddress;
+	/**
+	 * Whether all packets decoded in one socket read shall be delivered at once as a
+	 * {@link de.prokyo.network.common.event.PacketBatchEvent} instead of firing the handlers of every packet.<br>
+	 * The {@link de.prokyo.network.common.event.PacketIncomingEvent} is still fired for every packet and cancelled packets
+	 * are left out of the batch.<br>
+	 * It has to be set before connecting.
+	 */
+	@Getter @Setter private boolean inboundBatching;
+	/**
+	 * The transport of the connection or null to use the preferred available transport, see {@link Transport#best()}.<br>
+	 * It has to be set before connecting and is ignored, if the client was created by a {@link ProkyoClientFactory}.
+	 */
+	@Getter @Setter private Transport transport;
+	/**
+	 * The socket and channel options of the connection, including the write buffer watermarks.<br>
+	 * They have to be set before connecting. The allocator of a {@link ProkyoClientFactory} is used unless the
+	 * options set another one.
+	 */
+	@Getter @Setter private SocketOptions socketOptions = new SocketOptions();
+	/**
+	 * The maximum size of a received frame in bytes, larger frames are discarded and raise a
+	 * {@link io.netty.handler.codec.TooLongFrameException}.<br>
+	 * It has to be set before connecting.
+	 */
+	@Getter @Setter private int maxFrameSize = PacketDecoder.DEFAULT_MAX_FRAME_SIZE;
+	/**
+	 * The policy applied if the server doesn't read the packets fast enough.<br>
+	 * It has to be set before connecting, afterwards it can be changed using {@link #getOutboundQueue()}.
+	 */
+	@Getter @Setter private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.UNBOUNDED;
+	/**
+	 * The amount of packets queued while the connection is unwritable before the {@link #slowConsumerPolicy} is applied.
+	 */
+	@Getter @Setter private int maxQueuedPackets = OutboundQueue.DEFAULT_MAX_QUEUED_PACKETS;
+	/**
+	 * The time in milliseconds the connection may stay unwritable before it is closed by the
+	 * {@link SlowConsumerPolicy#DISCONNECT} policy (0 = unlimited).
+	 */
+	@Getter @Setter private long maxUnwritableMillis;
+	/**
+	 * The time in milliseconds without receiving anything after which a heartbeat is sent to the server (0 = disabled).<br>
+	 * It has to be set before connecting, see {@link HeartbeatHandler}.
+	 */
+	@Getter @Setter private long heartbeatIntervalMillis = HeartbeatHandler.DEFAULT_INTERVAL_MILLIS;
+	/**
+	 * The time in milliseconds without receiving anything after which the connection is closed.<br>
+	 * It has to be set before connecting and is ignored while heartbeats are disabled.
+	 */
+	@Getter @Setter private long heartbeatTimeoutMillis = HeartbeatHandler.DEFAULT_TIMEOUT_MILLIS;
+	/**
+	 * The time in milliseconds between two samples of the clock offset to the server (0 = disabled).<br>
+	 * It has to be set before connecting, see {@link TimeSync}.
+	 */
+	@Getter @Setter private long timeSyncIntervalMillis = TimeSync.DEFAULT_INTERVAL_MILLIS;
+	/**
+	 * The policy used to reconnect after the connection was closed unexpectedly or null to not reconnect.<br>
+	 * It has to be set before connecting. The new connection is not compressed, see {@link #enableCompression()}.
+	 */
+	@Getter @Setter private ReconnectPolicy reconnectPolicy;
+	/**
+	 * Whether the packets shall be sent within a {@link ReliableSession}, which is resumed after reconnecting,
+	 * so no packet is lost. The server has to enable reliable sessions as well.<br>
+	 * It has to be set before connecting.
+	 */
+	@Getter @Setter private boolean reliableSession;
+	/**
+	 * The maximum amount of packets the reliable session keeps until the server acknowledged them.<br>
+	 * It has to be set before connecting.
+	 */
+	@Getter @Setter private int maxUnacknowledgedPackets = ReliableSession.DEFAULT_MAX_UNACKNOWLEDGED_PACKETS;
+	private final ProkyoClientFactory factory;
 	private EventLoopGroup workerGroup;
-	private boolean connected;
+	@Getter private volatile boolean connecting;
+	@Getter private volatile boolean compressionEnabled;
+	/**
+	 * The estimated clock offset to the server, which is kept across reconnects.
+	 */
+	@Getter private final TimeSync timeSync = new TimeSync();
+	/**
+	 * The reliable session kept across all connections of this client or null if reliable sessions are disabled.
+	 */
+	@Getter private ReliableSession session;
+	/**
+	 * Whether the connection was closed and the client is trying to reconnect.
+	 */
+	@Getter private volatile boolean reconnecting;
+	/**
+	 * The amount of times the client reconnected successfully.
+	 */
+	@Getter private volatile int reconnects;
+	/**
+	 * The time in milliseconds between losing the connection and being connected again of the last reconnect.
+	 */
+	@Getter private volatile long lastReconnectLatencyMillis;
+	/**
+	 * The amount of packets dropped, because the buffer was full while reconnecting.
+	 */
+	@Getter private volatile long droppedPackets;
+	private final Deque<Object> bufferedPackets = new ArrayDeque<>();
+	private Bootstrap bootstrap;
+	private volatile boolean shuttingDown;
+	private ScheduledFuture<?> reconnectTask;
+	private int reconnectAttempts;
+	private long disconnectedNanos;
 
 	/**
-	 * Add the {@link ProkyoCompressor} and the {@link ProkyoDecompressor} to the channel pipeline.
+	 * Constructor.<br>
+	 * The client starts its own threads when connecting, use a {@link ProkyoClientFactory} to share them.
+	 */
+	public ProkyoClient() {
+		this(null, new EventManager());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param factory The factory whose event loop group and allocator are used or null to use an own event loop group
+	 * @param eventManager The event manager of the client, which may be shared with other clients
+	 */
+	ProkyoClient(ProkyoClientFactory factory, EventManager eventManager) {
+		this.factory = factory;
+		this.eventManager = eventManager;
+	}
+
+	/**
+	 * Add the {@link ProkyoCompressor} and the {@link ProkyoDecompressor} to the channel pipeline.<br>
+	 * Compression is enabled per connection on both ends, so it is disabled again after the client reconnected
+	 * (see {@link #setReconnectPolicy(ReconnectPolicy)}). It has to be enabled on both ends again, e.g. when the
+	 * {@link de.prokyo.network.client.event.ConnectionEstablishedEvent} is fired for the new connection.
 	 */
 	public void enableCompression() {
 		this.channel.pipeline()
 				.addBefore("prokyoEncoder", "prokyoCompressor", new ProkyoCompressor())
 				.addBefore("prokyoDecoder", "prokyoDecompressor", new ProkyoDecompressor());
+		this.compressionEnabled = true;
 	}
 
 	/**
@@ -44,6 +206,7 @@ public class ProkyoClient implements Connection {
 	public void disableCompression() {
 		this.channel.pipeline().remove(ProkyoCompressor.class);
 		this.channel.pipeline().remove(ProkyoDecompressor.class);
+		this.compressionEnabled = false;
 	}
 
 	/**
@@ -61,7 +224,8 @@ public class ProkyoClient implements Connection {
 
 	/**
 	 * Connects to the given host and port with given amount of threads.<br>
-	 * This method <b>will block</b> the current thread.
+	 * This method <b>will block</b> the current thread.<br>
+	 * The amount of threads is ignored, if the client was created by a {@link ProkyoClientFactory}.
 	 *
 	 * @param host The remote host
 	 * @param port The port of the remote server
@@ -69,46 +233,398 @@ public class ProkyoClient implements Connection {
 	 * @throws InterruptedException If the thread is interrupted by another thread.
 	 */
 	public void connect(String host, int port, int threads) throws InterruptedException {
-		this.remoteHost = new InetSocketAddress(host, port);
-		boolean epoll = Epoll.isAvailable();
-		this.workerGroup = epoll ? new EpollEventLoopGroup(threads) : new NioEventLoopGroup(threads);
+		this.setChannel(this.startConnect(new InetSocketAddress(host, port), threads).sync().channel());
+	}
+
+	/**
+	 * Connects to the given host and port without blocking the current thread.<br>
+	 * The amount of threads will evaluated by netty.
+	 *
+	 * @param host The remote host
+	 * @param port The port of the remote server
+	 * @return A future completed with this client once it is connected.
+	 */
+	public CompletableFuture<Connection> connectAsync(String host, int port) {
+		return this.connectAsync(host, port, 0);
+	}
+
+	/**
+	 * Connects to the given host and port with given amount of threads without blocking the current thread.<br>
+	 * The amount of threads is ignored, if the client was created by a {@link ProkyoClientFactory}.
+	 *
+	 * @param host The remote host
+	 * @param port The port of the remote server
+	 * @param threads The amount of threads netty should use
+	 * @return A future completed with this client once it is connected or failed if the connection can't be established.
+	 */
+	public CompletableFuture<Connection> connectAsync(String host, int port, int threads) {
+		CompletableFuture<Connection> future = new CompletableFuture<>();
+		this.startConnect(new InetSocketAddress(host, port), threads).addListener((ChannelFutureListener) connectFuture -> {
+			// the channel is already set by the listener added first
+			if (connectFuture.isSuccess()) future.complete(this);
+			else future.completeExceptionally(connectFuture.cause());
+		});
+		return future;
+	}
 
-		Bootstrap bootstrap = new Bootstrap()
-				.group(this.workerGroup)
-				.channel(epoll ? EpollSocketChannel.class : NioSocketChannel.class)
-				.handler(new ProkyoClientInitializer(this));
+	/**
+	 * Connects to the unix domain socket of a server on the same machine at the given path.<br>
+	 * This method <b>will block</b> the current thread.<br>
+	 * The amount of threads will evaluated by netty.
+	 *
+	 * @param path The path of the socket file
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	public void connectUnix(Path path) throws InterruptedException {
+		this.connectUnix(path, 0);
+	}
 
-		this.channel = bootstrap.connect(this.remoteHost).sync().channel();
-		this.connected = true;
+	/**
+	 * Connects to the unix domain socket of a server on the same machine at the given path.<br>
+	 * This method <b>will block</b> the current thread.<br>
+	 * Unix domain sockets are only supported by the epoll transport. The amount of threads is ignored, if the client
+	 * was created by a {@link ProkyoClientFactory}, whose transport has to be epoll then.
+	 *
+	 * @param path The path of the socket file
+	 * @param threads The amount of threads netty should use
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	public void connectUnix(Path path, int threads) throws InterruptedException {
+		if (path == null) throw new IllegalArgumentException("The path cannot be null");
+
+		this.setChannel(this.startConnect(new DomainSocketAddress(path.toFile()), threads).sync().channel());
+	}
+
+	/**
+	 * Returns whether the client is connected and the connection wasn't closed in the meantime.
+	 *
+	 * @return Whether the connection is active.
+	 */
+	public boolean isActive() {
+		Channel channel = this.channel;
+		return channel != null && channel.isActive();
+	}
+
+	/**
+	 * Returns the queue holding back outgoing packets while the server doesn't read them fast enough.<br>
+	 * It allows changing the slow consumer policy of the connection and provides the queue metrics.
+	 *
+	 * @return The outbound queue or null if the client is not connected.
+	 */
+	public OutboundQueue getOutboundQueue() {
+		return this.outboundQueue;
+	}
+
+	/**
+	 * Returns the requests waiting for their response.
+	 *
+	 * @return The request manager or null if the client is not connected.
+	 */
+	public RequestManager getRequestManager() {
+		ProkyoDuplexHandler handler = this.channel != null ? (ProkyoDuplexHandler) this.channel.pipeline().get("prokyoPacketHandler") : null;
+		return handler != null ? handler.getRequestManager() : null;
+	}
+
+	@Override
+	public long getRttNanos() {
+		HeartbeatHandler handler = this.channel != null ? (HeartbeatHandler) this.channel.pipeline().get("prokyoHeartbeat") : null;
+		return handler != null ? handler.getRttNanos() : -1;
+	}
+
+	@Override
+	public long getRttJitterNanos() {
+		HeartbeatHandler handler = this.channel != null ? (HeartbeatHandler) this.channel.pipeline().get("prokyoHeartbeat") : null;
+		return handler != null ? handler.getRttJitterNanos() : -1;
+	}
+
+	/**
+	 * Opens a new logical stream multiplexed over this connection.<br>
+	 * The stream has its own ordering and flow control window, see {@link LogicalStream}.
+	 *
+	 * @return The stream.
+	 */
+	public LogicalStream openLogicalStream() {
+		ProkyoDuplexHandler handler = this.channel != null ? (ProkyoDuplexHandler) this.channel.pipeline().get("prokyoPacketHandler") : null;
+		if (handler == null) throw new IllegalStateException("The channel has no packet handler.");
+
+		return handler.getLogicalStreamManager().openStream();
 	}
 
 	@Override
 	public void sendPacket(Packet packet) {
-		this.channel.writeAndFlush(packet);
+		if (this.reconnecting && this.buffer(packet)) return;
+
+		OutboundQueue outboundQueue = this.getOutboundQueue();
+		if (outboundQueue != null) outboundQueue.awaitWritable();
+
+		this.write(this.channel, packet);
+	}
+
+	@Override
+	public void sendPacket(Packet packet, PacketPriority priority) {
+		if (priority == PacketPriority.NORMAL) {
+			this.sendPacket(packet);
+			return;
+		}
+
+		PrioritizedPacket prioritizedPacket = new PrioritizedPacket(packet, priority);
+		if (this.reconnecting && this.buffer(prioritizedPacket)) return;
+
+		OutboundQueue outboundQueue = this.getOutboundQueue();
+		if (outboundQueue != null) outboundQueue.awaitWritable();
+
+		this.write(this.channel, prioritizedPacket);
+	}
+
+	@Override
+	public <R extends Packet> CompletableFuture<R> request(Packet request, Class<R> responseType, long timeout, TimeUnit unit) {
+		RequestManager requestManager = this.getRequestManager();
+		if (requestManager == null) throw new IllegalStateException("The channel has no packet handler.");
+
+		return requestManager.request(request, responseType, timeout, unit);
+	}
+
+	@Override
+	public CompletableFuture<Void> sendStream(InputStream input) {
+		OutboundQueue outboundQueue = this.getOutboundQueue();
+		if (outboundQueue == null) throw new IllegalStateException("The channel has no outbound queue.");
+
+		return outboundQueue.sendStream(input);
+	}
+
+	@Override
+	public CompletableFuture<Void> sendFile(Path file, long offset, long length) {
+		OutboundQueue outboundQueue = this.getOutboundQueue();
+		if (outboundQueue == null) throw new IllegalStateException("The channel has no outbound queue.");
+
+		return outboundQueue.sendFile(file, offset, length);
 	}
 
 	/**
-	 * Closes the connection synchronously.
+	 * Returns the amount of packets buffered while reconnecting.
+	 *
+	 * @return The amount of buffered packets.
+	 */
+	public int getBufferedPackets() {
+		synchronized (this.bufferedPackets) {
+			return this.bufferedPackets.size();
+		}
+	}
+
+	/**
+	 * Closes the connection synchronously and stops reconnecting.<br>
+	 * The threads of the client are stopped as well, unless it was created by a {@link ProkyoClientFactory}.
 	 */
 	public void shutdown() {
-		if (this.connected) {
-			try {
-				this.workerGroup.shutdownGracefully().sync();
-				this.connected = false;
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
+		this.stopReconnecting();
+		// the own threads are stopped even if the connection was lost, e.g. after giving up to reconnect
+		try {
+			if (this.workerGroup != null) this.workerGroup.shutdownGracefully().sync();
+			else if (this.channel != null) this.channel.close().sync();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
 		}
 	}
 
 	/**
-	 * Closes the connections asynchronously.
+	 * Closes the connections asynchronously and stops reconnecting.<br>
+	 * The threads of the client are stopped as well, unless it was created by a {@link ProkyoClientFactory}.
 	 */
 	public void shutdownAsync() {
-		if (this.connected) {
-			this.workerGroup.shutdownGracefully();
-			this.connected = false;
+		this.stopReconnecting();
+		if (this.workerGroup != null) this.workerGroup.shutdownGracefully();
+		else if (this.channel != null) this.channel.close();
+	}
+
+	/**
+	 * Called by the packet handler once the given channel was closed.<br>
+	 * Starts reconnecting, if a {@link ReconnectPolicy} is set and the client isn't shut down.
+	 *
+	 * @param closedChannel The closed channel
+	 */
+	void channelClosed(Channel closedChannel) {
+		if (closedChannel != this.channel || this.shuttingDown || this.reconnectPolicy == null) return;
+
+		synchronized (this.bufferedPackets) {
+			this.reconnecting = true;
+			this.reconnectAttempts = 0;
+			this.disconnectedNanos = System.nanoTime();
+		}
+		this.scheduleReconnect(closedChannel.eventLoop());
+	}
+
+	/**
+	 * Starts connecting to the given host and port.<br>
+	 * The channel of the client is set as soon as the connection is established. Its own event loop group is shut
+	 * down again, if the connection can't be established.
+	 *
+	 * @param remoteAddress The address of the remote server, either an inet or a unix domain socket address
+	 * @param threads The amount of threads netty should use
+	 * @return The future of the connect operation.
+	 */
+	private ChannelFuture startConnect(SocketAddress remoteAddress, int threads) {
+		boolean domainSocket = remoteAddress instanceof DomainSocketAddress;
+		Transport transport;
+		if (this.factory != null) transport = this.factory.getTransport();
+		else transport = Transport.resolve(domainSocket && this.transport == null ? Transport.EPOLL : this.transport);
+		if (domainSocket && transport != Transport.EPOLL) throw new IllegalStateException("Unix domain sockets require the epoll transport.");
+
+		this.remoteAddress = remoteAddress;
+		this.remoteHost = domainSocket ? null : (InetSocketAddress) remoteAddress;
+		this.unixSocketPath = domainSocket ? new File(((DomainSocketAddress) remoteAddress).path()).toPath() : null;
+
+		this.shuttingDown = false;
+		if (this.reliableSession && this.session == null) this.session = new ReliableSession(this.maxUnacknowledgedPackets);
+		Bootstrap bootstrap = new Bootstrap().handler(new ProkyoClientInitializer(this));
+		if (this.factory != null) {
+			bootstrap.group(this.factory.getEventLoopGroup()).option(ChannelOption.ALLOCATOR, this.factory.getAllocator());
+		} else {
+			this.workerGroup = transport.newEventLoopGroup(threads);
+			bootstrap.group(this.workerGroup);
+		}
+		if (domainSocket) {
+			bootstrap.channel(EpollDomainSocketChannel.class);
+			this.socketOptions.applyToDomainSocket(bootstrap);
+		} else {
+			bootstrap.channel(transport.getSocketChannelClass());
+			this.socketOptions.applyTo(bootstrap, transport);
+		}
+
+		this.bootstrap = bootstrap;
+		EventLoopGroup ownGroup = this.workerGroup;
+		this.connecting = true;
+		ChannelFuture connectFuture = bootstrap.connect(this.remoteAddress);
+		connectFuture.addListener((ChannelFutureListener) future -> {
+			if (future.isSuccess()) {
+				this.setChannel(future.channel());
+			} else if (ownGroup != null) {
+				ownGroup.shutdownGracefully();
+			}
+			this.connecting = false;
+		});
+		return connectFuture;
+	}
+
+	/**
+	 * Schedules the next attempt to reconnect on the given event loop.
+	 *
+	 * @param eventLoop The event loop
+	 */
+	private void scheduleReconnect(EventLoop eventLoop) {
+		long delay = this.reconnectPolicy.getDelayMillis(this.reconnectAttempts++);
+		synchronized (this.bufferedPackets) {
+			if (this.shuttingDown) return;
+
+			this.reconnectTask = eventLoop.schedule(() -> this.bootstrap.connect(this.remoteAddress).addListener((ChannelFutureListener) future -> {
+				if (future.isSuccess()) {
+					this.reconnected(future.channel());
+					return;
+				}
+				if (this.shuttingDown) return;
+
+				int maxAttempts = this.reconnectPolicy.getMaxAttempts();
+				if (maxAttempts > 0 && this.reconnectAttempts >= maxAttempts) this.giveUp();
+				else this.scheduleReconnect(eventLoop);
+			}), delay, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Switches to the given new channel and sends the packets buffered in the meantime.<br>
+	 * The server doesn't know that the new connection was compressed before, so compression is left disabled.
+	 *
+	 * @param newChannel The new channel
+	 */
+	private void reconnected(Channel newChannel) {
+		synchronized (this.bufferedPackets) {
+			if (this.shuttingDown) {
+				newChannel.close();
+				return;
+			}
+
+			this.compressionEnabled = false;
+			this.setChannel(newChannel);
+			// the state is updated first, so it is visible once the remote host received the buffered packets
+			this.lastReconnectLatencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.disconnectedNanos);
+			this.reconnects++;
+			this.reconnecting = false;
+
+			while (!this.bufferedPackets.isEmpty()) newChannel.write(this.bufferedPackets.poll());
+			newChannel.flush();
+		}
+	}
+
+	/**
+	 * Stops reconnecting after too many failed attempts and drops the buffered packets.
+	 */
+	private void giveUp() {
+		synchronized (this.bufferedPackets) {
+			this.droppedPackets += this.bufferedPackets.size();
+			this.bufferedPackets.clear();
+			this.reconnecting = false;
 		}
 	}
 
+	/**
+	 * Cancels a scheduled attempt to reconnect and drops the buffered packets.
+	 */
+	private void stopReconnecting() {
+		synchronized (this.bufferedPackets) {
+			this.shuttingDown = true;
+			this.reconnecting = false;
+			if (this.reconnectTask != null) this.reconnectTask.cancel(false);
+			this.bufferedPackets.clear();
+		}
+	}
+
+	/**
+	 * Buffers the given packet while reconnecting, applying the drop policy of the {@link ReconnectPolicy}.
+	 *
+	 * @param msg The packet or prioritized packet
+	 * @return Whether the packet was buffered or dropped, false if the client isn't reconnecting anymore.
+	 */
+	private boolean buffer(Object msg) {
+		synchronized (this.bufferedPackets) {
+			if (!this.reconnecting) return false;
+
+			if (this.bufferedPackets.size() >= this.reconnectPolicy.getMaxBufferedPackets()) {
+				this.droppedPackets++;
+				if (this.reconnectPolicy.getDropPolicy() == SlowConsumerPolicy.DROP_NEWEST || this.bufferedPackets.isEmpty()) return true;
+				this.bufferedPackets.poll();
+			}
+			this.bufferedPackets.add(msg);
+			return true;
+		}
+	}
+
+	/**
+	 * Writes and flushes the given packet to the given channel.<br>
+	 * Within a reliable session the packet is buffered for the next connection instead, if the channel was closed
+	 * and its pipeline was torn down before the write reached the session.
+	 *
+	 * @param target The channel
+	 * @param msg The packet or prioritized packet
+	 */
+	private void write(Channel target, Object msg) {
+		if (this.session == null || target.eventLoop().inEventLoop()) {
+			target.writeAndFlush(msg);
+			return;
+		}
+
+		target.eventLoop().execute(() -> {
+			if (target.pipeline().get("prokyoSession") == null && this.reconnecting && this.buffer(msg)) return;
+			target.writeAndFlush(msg);
+		});
+	}
+
+	/**
+	 * Switches to the given channel and looks up its outbound queue once, as it is needed for every packet sent.
+	 *
+	 * @param newChannel The channel
+	 */
+	private void setChannel(Channel newChannel) {
+		this.outboundQueue = (OutboundQueue) newChannel.pipeline().get("prokyoOutboundQueue");
+		this.channel = newChannel;
+	}
+
 }
@@ -0,0 +1,106 @@
+package de.prokyo.network.client;
+
+import de.prokyo.network.common.connection.Transport;
+import de.prokyo.network.common.event.EventManager;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.EventLoopGroup;
+import lombok.Getter;
+
+/**
+ * Creates clients sharing one event loop group and one allocator.<br>
+ * A client created by a factory is cheap, as it doesn't start threads of its own. Shutting it down only closes its
+ * channel, the threads are stopped by {@link #shutdown()} of the factory.
+ *
+ * <p>Request timeouts of all clients are driven by a single timer anyway, see
+ * {@link de.prokyo.network.common.connection.RequestManager}.</p>
+ */
+public class ProkyoClientFactory {
+
+	@Getter private final EventLoopGroup eventLoopGroup;
+	@Getter private final ByteBufAllocator allocator;
+	@Getter private final Transport transport;
+
+	/**
+	 * Constructor.<br>
+	 * The amount of threads will evaluated by netty.
+	 */
+	public ProkyoClientFactory() {
+		this(0);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param threads The amount of threads shared by all clients
+	 */
+	public ProkyoClientFactory(int threads) {
+		this(threads, PooledByteBufAllocator.DEFAULT);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param threads The amount of threads shared by all clients
+	 * @param allocator The allocator shared by all clients
+	 */
+	public ProkyoClientFactory(int threads, ByteBufAllocator allocator) {
+		this(threads, allocator, null);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param threads The amount of threads shared by all clients
+	 * @param allocator The allocator shared by all clients
+	 * @param transport The transport of all clients or null to use the preferred available transport
+	 */
+	public ProkyoClientFactory(int threads, ByteBufAllocator allocator, Transport transport) {
+		if (allocator == null) throw new IllegalArgumentException("The allocator cannot be null");
+
+		this.transport = Transport.resolve(transport);
+		this.eventLoopGroup = this.transport.newEventLoopGroup(threads);
+		this.allocator = allocator;
+	}
+
+	/**
+	 * Creates a new client using the event loop group and the allocator of this factory.
+	 *
+	 * @return The client.
+	 */
+	public ProkyoClient newClient() {
+		return new ProkyoClient(this, new EventManager());
+	}
+
+	/**
+	 * Creates a new client using the event loop group and the allocator of this factory, which fires its events
+	 * with the given event manager.
+	 *
+	 * @param eventManager The event manager, which may be shared by multiple clients
+	 * @return The client.
+	 */
+	public ProkyoClient newClient(EventManager eventManager) {
+		if (eventManager == null) throw new IllegalArgumentException("The event manager cannot be null");
+
+		return new ProkyoClient(this, eventManager);
+	}
+
+	/**
+	 * Closes the connections of all clients and stops the threads synchronously.
+	 */
+	public void shutdown() {
+		try {
+			this.eventLoopGroup.shutdownGracefully().sync();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Closes the connections of all clients and stops the threads asynchronously.
+	 */
+	public void shutdownAsync() {
+		this.eventLoopGroup.shutdownGracefully();
+	}
+
+}
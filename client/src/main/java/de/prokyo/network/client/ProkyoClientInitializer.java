@@ -1,12 +1,15 @@
 package de.prokyo.network.client;
 
+import de.prokyo.network.common.pipeline.HeartbeatHandler;
+import de.prokyo.network.common.pipeline.OutboundQueue;
 import de.prokyo.network.common.pipeline.PacketDecoder;
 import de.prokyo.network.common.pipeline.PacketEncoder;
+import de.prokyo.network.common.pipeline.ReliableSessionHandler;
+import de.prokyo.network.common.pipeline.TimeSyncHandler;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
-import io.netty.handler.timeout.ReadTimeoutHandler;
 import lombok.RequiredArgsConstructor;
 
 /**
@@ -20,12 +23,25 @@ public class ProkyoClientInitializer extends ChannelInitializer {
 	@Override
 	protected void initChannel(Channel channel) throws Exception {
 		channel.pipeline()
-				.addLast("timeout", new ReadTimeoutHandler(30))
-				.addLast("frame-decoder", new LengthFieldBasedFrameDecoder(Integer.MAX_VALUE, 0, 4, 0, 4))
+				.addLast("frame-decoder", new LengthFieldBasedFrameDecoder(this.client.getMaxFrameSize(), 0, 4, 0, 4))
 				.addLast("prokyoDecoder", new PacketDecoder())
 				.addLast("frame-prepender", new LengthFieldPrepender(4))
 				.addLast("prokyoEncoder", new PacketEncoder())
+				.addLast("prokyoOutboundQueue", new OutboundQueue(this.client.getSlowConsumerPolicy(),
+						this.client.getMaxQueuedPackets(), this.client.getMaxUnwritableMillis()))
+				.addLast("prokyoTimeSync", new TimeSyncHandler(this.client.getTimeSync(), this.client.getTimeSyncIntervalMillis()))
 				.addLast("prokyoPacketHandler", new ProkyoDuplexHandler(this.client));
+		long heartbeatInterval = this.client.getHeartbeatIntervalMillis();
+		if (heartbeatInterval > 0) {
+			channel.pipeline()
+					.addFirst("timeout", HeartbeatHandler.newIdleStateHandler(heartbeatInterval))
+					.addBefore("prokyoPacketHandler", "prokyoHeartbeat",
+							new HeartbeatHandler(heartbeatInterval, this.client.getHeartbeatTimeoutMillis()));
+		}
+		if (this.client.getSession() != null) {
+			channel.pipeline().addBefore("prokyoOutboundQueue", "prokyoSession",
+					new ReliableSessionHandler(this.client.getSession(), this.client, this.client.getEventManager()));
+		}
 
 		channel.attr(ProkyoClient.ATTRIBUTE_KEY).set(this.client);
 	}
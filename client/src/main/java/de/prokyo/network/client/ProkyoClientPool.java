@@ -0,0 +1,277 @@
+package de.prokyo.network.client;
+
+import de.prokyo.network.common.connection.Connection;
+import de.prokyo.network.common.connection.PacketPriority;
+import de.prokyo.network.common.event.EventManager;
+import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.common.pipeline.OutboundQueue;
+import io.netty.util.concurrent.ScheduledFuture;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A connection spreading its packets across multiple clients connected to one or more endpoints.<br>
+ * A single connection is limited to the encoding throughput of one event loop, a pool uses as many event loops as it
+ * has connections. Packets which have to keep their order have to be sent with the same key, see
+ * {@link #sendPacket(Object, Packet)}.
+ *
+ * <p>All clients of the pool share the {@link EventManager} of the pool, the incoming packets are fired with the
+ * client which received them. Closed connections are replaced by the periodic health check.</p>
+ */
+public class ProkyoClientPool implements Connection {
+
+	public static final long DEFAULT_HEALTH_CHECK_INTERVAL_MILLIS = 1000;
+
+	@Getter private final EventManager eventManager = new EventManager();
+	private final ProkyoClientFactory factory;
+	private final AtomicReferenceArray<ProkyoClient> clients;
+	private final InetSocketAddress[] endpoints;
+	private final AtomicInteger nextClient = new AtomicInteger();
+	private final boolean ownFactory;
+	/**
+	 * The strategy selecting the connection of packets sent without a key.
+	 */
+	@Getter @Setter private volatile LoadBalancingStrategy strategy = LoadBalancingStrategy.ROUND_ROBIN;
+	/**
+	 * Configures every new client of the pool before it connects (e.g. its frame size or slow consumer policy).<br>
+	 * It has to be set before connecting.
+	 */
+	@Getter @Setter private Consumer<ProkyoClient> clientConfigurer;
+	/**
+	 * The interval in milliseconds closed connections are replaced in.<br>
+	 * It has to be set before connecting.
+	 */
+	@Getter @Setter private long healthCheckIntervalMillis = DEFAULT_HEALTH_CHECK_INTERVAL_MILLIS;
+	private ScheduledFuture<?> healthCheck;
+	private boolean shutdown;
+
+	/**
+	 * Constructor.<br>
+	 * The pool uses an own {@link ProkyoClientFactory}, which is shut down together with the pool.
+	 *
+	 * @param size The amount of connections
+	 * @param endpoints The endpoints the connections are spread across
+	 */
+	public ProkyoClientPool(int size, InetSocketAddress... endpoints) {
+		this(new ProkyoClientFactory(), true, size, endpoints);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param factory The factory creating the clients
+	 * @param size The amount of connections
+	 * @param endpoints The endpoints the connections are spread across
+	 */
+	public ProkyoClientPool(ProkyoClientFactory factory, int size, InetSocketAddress... endpoints) {
+		this(factory, false, size, endpoints);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param factory The factory creating the clients
+	 * @param ownFactory Whether the factory shall be shut down together with the pool
+	 * @param size The amount of connections
+	 * @param endpoints The endpoints the connections are spread across
+	 */
+	private ProkyoClientPool(ProkyoClientFactory factory, boolean ownFactory, int size, InetSocketAddress... endpoints) {
+		if (factory == null) throw new IllegalArgumentException("The factory cannot be null");
+		if (size <= 0) throw new IllegalArgumentException("The size has to be positive.");
+		if (endpoints == null || endpoints.length == 0) throw new IllegalArgumentException("At least one endpoint is required.");
+
+		this.factory = factory;
+		this.ownFactory = ownFactory;
+		this.clients = new AtomicReferenceArray<>(size);
+		this.endpoints = endpoints.clone();
+	}
+
+	/**
+	 * Connects all connections of the pool and starts the health check without blocking the current thread.<br>
+	 * The connections are assigned to the endpoints one after another.
+	 *
+	 * @return A future completed with this pool once every connection either is connected or failed to connect.
+	 * It fails only if no connection could be established, failed connections are retried by the health check.
+	 */
+	public CompletableFuture<ProkyoClientPool> connectAsync() {
+		List<CompletableFuture<Connection>> futures = new ArrayList<>();
+		synchronized (this.clients) {
+			if (this.shutdown) throw new IllegalStateException("The pool was shut down.");
+
+			for (int i = 0; i < this.clients.length(); i++) futures.add(this.connect(i));
+			this.healthCheck = this.factory.getEventLoopGroup().next().scheduleAtFixedRate(this::checkHealth,
+					this.healthCheckIntervalMillis, this.healthCheckIntervalMillis, TimeUnit.MILLISECONDS);
+		}
+
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).handle((ignored, cause) -> {
+			for (CompletableFuture<Connection> future : futures) {
+				if (!future.isCompletedExceptionally()) return this;
+			}
+			throw new IllegalStateException("No connection of the pool could be established.", cause);
+		});
+	}
+
+	/**
+	 * Returns the amount of connections of the pool which are currently active.
+	 *
+	 * @return The amount of active connections.
+	 */
+	public int getActiveConnections() {
+		int active = 0;
+		for (int i = 0; i < this.clients.length(); i++) {
+			ProkyoClient client = this.clients.get(i);
+			if (client != null && client.isActive()) active++;
+		}
+		return active;
+	}
+
+	@Override
+	public void sendPacket(Packet packet) {
+		this.select().sendPacket(packet);
+	}
+
+	@Override
+	public void sendPacket(Packet packet, PacketPriority priority) {
+		this.select().sendPacket(packet, priority);
+	}
+
+	/**
+	 * Sends the given packet over the connection the given key is mapped to.<br>
+	 * All packets sent with the same key keep their order as long as that connection stays active. If it is closed,
+	 * the key is mapped to the next active connection until the connection is replaced.
+	 *
+	 * @param key The key, which has to implement {@link Object#hashCode()}
+	 * @param packet The packet which shall be sent to the remote host.
+	 */
+	public void sendPacket(Object key, Packet packet) {
+		if (key == null) throw new IllegalArgumentException("The key cannot be null");
+
+		int size = this.clients.length();
+		int index = (key.hashCode() & Integer.MAX_VALUE) % size;
+		for (int i = 0; i < size; i++) {
+			ProkyoClient client = this.clients.get((index + i) % size);
+			if (client != null && client.isActive()) {
+				client.sendPacket(packet);
+				return;
+			}
+		}
+		throw new IllegalStateException("No connection of the pool is active.");
+	}
+
+	@Override
+	public <R extends Packet> CompletableFuture<R> request(Packet request, Class<R> responseType, long timeout, TimeUnit unit) {
+		return this.select().request(request, responseType, timeout, unit);
+	}
+
+	@Override
+	public CompletableFuture<Void> sendStream(InputStream input) {
+		return this.select().sendStream(input);
+	}
+
+	@Override
+	public CompletableFuture<Void> sendFile(Path file, long offset, long length) {
+		return this.select().sendFile(file, offset, length);
+	}
+
+	/**
+	 * Closes all connections of the pool synchronously and stops the health check, so no connection is replaced
+	 * afterwards.<br>
+	 * The threads are stopped as well, if the pool uses its own factory.
+	 */
+	public void shutdown() {
+		List<ProkyoClient> clients = new ArrayList<>();
+		synchronized (this.clients) {
+			this.shutdown = true;
+			if (this.healthCheck != null) this.healthCheck.cancel(false);
+
+			for (int i = 0; i < this.clients.length(); i++) {
+				ProkyoClient client = this.clients.getAndSet(i, null);
+				if (client != null) clients.add(client);
+			}
+		}
+
+		for (ProkyoClient client : clients) client.shutdown();
+
+		if (this.ownFactory) this.factory.shutdown();
+	}
+
+	/**
+	 * Selects the active connection a packet without a key is sent over.
+	 *
+	 * @return The connection.
+	 */
+	private ProkyoClient select() {
+		int size = this.clients.length();
+		ProkyoClient selected = null;
+
+		if (this.strategy == LoadBalancingStrategy.LEAST_PENDING_BYTES) {
+			long selectedBytes = Long.MAX_VALUE;
+			for (int i = 0; i < size; i++) {
+				ProkyoClient client = this.clients.get(i);
+				if (client == null || !client.isActive()) continue;
+
+				OutboundQueue outboundQueue = client.getOutboundQueue();
+				long pendingBytes = outboundQueue != null ? outboundQueue.getPendingWriteBytes() : 0;
+				if (pendingBytes < selectedBytes) {
+					selected = client;
+					selectedBytes = pendingBytes;
+				}
+			}
+		} else {
+			int start = this.nextClient.getAndIncrement() & Integer.MAX_VALUE;
+			for (int i = 0; i < size && selected == null; i++) {
+				ProkyoClient client = this.clients.get((start + i) % size);
+				if (client != null && client.isActive()) selected = client;
+			}
+		}
+
+		if (selected == null) throw new IllegalStateException("No connection of the pool is active.");
+		return selected;
+	}
+
+	/**
+	 * Creates a new client for the given slot and connects it to the endpoint of the slot.<br>
+	 * The lock of the clients has to be held, so no client is created after the pool was shut down.
+	 *
+	 * @param index The index of the slot
+	 * @return A future completed once the client is connected.
+	 */
+	private CompletableFuture<Connection> connect(int index) {
+		ProkyoClient client = this.factory.newClient(this.eventManager);
+		if (this.clientConfigurer != null) this.clientConfigurer.accept(client);
+		this.clients.set(index, client);
+
+		InetSocketAddress endpoint = this.endpoints[index % this.endpoints.length];
+		return client.connectAsync(endpoint.getHostString(), endpoint.getPort());
+	}
+
+	/**
+	 * Replaces the clients whose connection was closed or couldn't be established.<br>
+	 * Clients which are still connecting or reconnecting on their own (see {@link ProkyoClient#setReconnectPolicy(ReconnectPolicy)})
+	 * are left alone.
+	 */
+	private void checkHealth() {
+		synchronized (this.clients) {
+			if (this.shutdown) return;
+
+			for (int i = 0; i < this.clients.length(); i++) {
+				ProkyoClient client = this.clients.get(i);
+				if (client == null || client.isActive() || client.isConnecting() || client.isReconnecting()) continue;
+
+				client.shutdownAsync();
+				this.connect(i);
+			}
+		}
+	}
+
+}
@@ -2,21 +2,49 @@ package de.prokyo.network.client;
 
 import de.prokyo.network.client.event.ConnectionClosedEvent;
 import de.prokyo.network.client.event.ConnectionEstablishedEvent;
+import de.prokyo.network.client.event.ConnectionWritabilityChangedEvent;
+import de.prokyo.network.common.connection.LogicalStreamManager;
+import de.prokyo.network.common.connection.RequestManager;
 import de.prokyo.network.common.event.OutgoingPacketEvent;
+import de.prokyo.network.common.event.PacketBatchEvent;
 import de.prokyo.network.common.event.PacketIncomingEvent;
+import de.prokyo.network.common.packet.DecodedPacket;
 import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.common.packet.PrioritizedPacket;
+import de.prokyo.network.common.stream.StreamReceiver;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
-import lombok.RequiredArgsConstructor;
+import lombok.AccessLevel;
+import lombok.Getter;
 
 /**
  * Represents a packet handler for triggering events.
  */
-@RequiredArgsConstructor
 public class ProkyoDuplexHandler extends ChannelDuplexHandler {
 
 	private final ProkyoClient prokyoClient;
+	private final PacketBatchEvent batchEvent;
+	private StreamReceiver streamReceiver;
+	@Getter(AccessLevel.PACKAGE) private RequestManager requestManager;
+	@Getter(AccessLevel.PACKAGE) private LogicalStreamManager logicalStreamManager;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param prokyoClient The client this handler handles
+	 */
+	public ProkyoDuplexHandler(ProkyoClient prokyoClient) {
+		this.prokyoClient = prokyoClient;
+		this.batchEvent = prokyoClient.isInboundBatching() ? new PacketBatchEvent(prokyoClient) : null;
+	}
+
+	@Override
+	public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+		this.streamReceiver = new StreamReceiver(ctx.channel(), this.prokyoClient, this.prokyoClient.getEventManager());
+		this.requestManager = new RequestManager(ctx.channel(), this.prokyoClient, this.prokyoClient.getEventManager());
+		this.logicalStreamManager = new LogicalStreamManager(ctx.channel(), this.prokyoClient, this.prokyoClient.getEventManager(), true);
+	}
 
 	@Override
 	public void channelActive(ChannelHandlerContext ctx) throws Exception {
@@ -25,29 +53,78 @@ public class ProkyoDuplexHandler extends ChannelDuplexHandler {
 
 	@Override
 	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		this.fireBatch();
+		this.streamReceiver.close();
+		this.requestManager.close();
+		this.logicalStreamManager.close();
 		this.prokyoClient.getEventManager().fire(new ConnectionClosedEvent(this.prokyoClient));
+		this.prokyoClient.channelClosed(ctx.channel());
 	}
 
 	@Override
 	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-		if (!(msg instanceof Packet)) return;
+		if (!(msg instanceof DecodedPacket)) return;
 
+		DecodedPacket decodedPacket = (DecodedPacket) msg;
 		try {
-			this.prokyoClient.getEventManager().fire((Packet) msg);
-			this.prokyoClient.getEventManager().fire(new PacketIncomingEvent((Packet) msg, this.prokyoClient));
+			if (this.streamReceiver.receive(decodedPacket.getPacket())) return;
+			if (this.requestManager.receive(decodedPacket.getPacket())) return;
+			if (this.logicalStreamManager.receive(decodedPacket.getPacket())) return;
+
+			PacketIncomingEvent event = new PacketIncomingEvent(decodedPacket.getPacket(), this.prokyoClient);
+			this.prokyoClient.getEventManager().fire(event);
+			if (event.isCancelled()) return;
+
+			if (this.batchEvent != null) this.batchEvent.getPackets().add(decodedPacket.getPacket());
+			else this.prokyoClient.getEventManager().getPacketDispatcher().dispatch(decodedPacket.getPacketId(), decodedPacket.getPacket());
 		} finally {
 			super.channelRead(ctx, msg);
 		}
 	}
 
+	@Override
+	public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+		try {
+			this.fireBatch();
+		} finally {
+			super.channelReadComplete(ctx);
+		}
+	}
+
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+		try {
+			this.prokyoClient.getEventManager().fire(new ConnectionWritabilityChangedEvent(this.prokyoClient, ctx.channel().isWritable()));
+		} finally {
+			super.channelWritabilityChanged(ctx);
+		}
+	}
+
 	@Override
 	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
-		if (!(msg instanceof Packet)) return;
+		Packet packet = msg instanceof PrioritizedPacket ? ((PrioritizedPacket) msg).getPacket() : null;
+		if (packet == null && msg instanceof Packet) packet = (Packet) msg;
+		if (packet == null) return;
+
+		OutgoingPacketEvent event = new OutgoingPacketEvent(packet, this.prokyoClient);
+		try {
+			this.prokyoClient.getEventManager().fire(event);
+		} finally {
+			if (event.isCancelled()) promise.cancel(false);
+			else super.write(ctx, msg, promise);
+		}
+	}
+
+	/**
+	 * Fires the {@link PacketBatchEvent} containing all packets collected since the last call, if there are any.
+	 */
+	private void fireBatch() {
+		if (this.batchEvent == null || this.batchEvent.getPackets().isEmpty()) return;
 
 		try {
-			this.prokyoClient.getEventManager().fire(new OutgoingPacketEvent((Packet) msg, this.prokyoClient));
+			this.prokyoClient.getEventManager().fire(this.batchEvent);
 		} finally {
-			super.write(ctx, msg, promise);
+			this.batchEvent.getPackets().clear();
 		}
 	}
 
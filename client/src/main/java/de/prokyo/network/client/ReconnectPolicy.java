@@ -0,0 +1,76 @@
+package de.prokyo.network.client;
+
+import de.prokyo.network.common.connection.SlowConsumerPolicy;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.Getter;
+
+/**
+ * Defines how a {@link ProkyoClient} reconnects after its connection was closed unexpectedly.<br>
+ * The delay between two attempts grows exponentially from {@link #initialDelayMillis} up to {@link #maxDelayMillis}.
+ * Every delay is randomized between half and the full value, so clients losing their connection at the same time
+ * don't reconnect at the same time.
+ *
+ * <p>Packets sent while reconnecting are buffered and sent in order once the client is connected again. If more
+ * than {@link #maxBufferedPackets} are buffered, either the oldest or the newest packet is dropped.</p>
+ */
+@Getter
+public class ReconnectPolicy {
+
+	public static final long DEFAULT_INITIAL_DELAY_MILLIS = 100;
+	public static final long DEFAULT_MAX_DELAY_MILLIS = 30_000;
+	public static final int DEFAULT_MAX_BUFFERED_PACKETS = 8192;
+
+	private final long initialDelayMillis;
+	private final long maxDelayMillis;
+	private final int maxAttempts;
+	private final int maxBufferedPackets;
+	private final SlowConsumerPolicy dropPolicy;
+
+	/**
+	 * Constructor.<br>
+	 * The client reconnects forever, starting with a delay of {@value #DEFAULT_INITIAL_DELAY_MILLIS} ms up to
+	 * {@value #DEFAULT_MAX_DELAY_MILLIS} ms, and buffers up to {@value #DEFAULT_MAX_BUFFERED_PACKETS} packets
+	 * dropping the oldest ones.
+	 */
+	public ReconnectPolicy() {
+		this(DEFAULT_INITIAL_DELAY_MILLIS, DEFAULT_MAX_DELAY_MILLIS, 0, DEFAULT_MAX_BUFFERED_PACKETS, SlowConsumerPolicy.DROP_OLDEST);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param initialDelayMillis The delay before the first attempt in milliseconds
+	 * @param maxDelayMillis The maximum delay between two attempts in milliseconds
+	 * @param maxAttempts The amount of failed attempts after which the client gives up (0 = unlimited)
+	 * @param maxBufferedPackets The maximum amount of packets buffered while reconnecting
+	 * @param dropPolicy Either {@link SlowConsumerPolicy#DROP_OLDEST} or {@link SlowConsumerPolicy#DROP_NEWEST}
+	 */
+	public ReconnectPolicy(long initialDelayMillis, long maxDelayMillis, int maxAttempts, int maxBufferedPackets, SlowConsumerPolicy dropPolicy) {
+		if (initialDelayMillis <= 0) throw new IllegalArgumentException("The initial delay has to be positive.");
+		if (maxDelayMillis < initialDelayMillis) throw new IllegalArgumentException("The maximum delay cannot be less than the initial delay.");
+		if (maxAttempts < 0) throw new IllegalArgumentException("The maximum amount of attempts cannot be negative.");
+		if (maxBufferedPackets < 0) throw new IllegalArgumentException("The maximum amount of buffered packets cannot be negative.");
+		if (dropPolicy != SlowConsumerPolicy.DROP_OLDEST && dropPolicy != SlowConsumerPolicy.DROP_NEWEST) {
+			throw new IllegalArgumentException("Only DROP_OLDEST and DROP_NEWEST are supported as drop policy.");
+		}
+
+		this.initialDelayMillis = initialDelayMillis;
+		this.maxDelayMillis = maxDelayMillis;
+		this.maxAttempts = maxAttempts;
+		this.maxBufferedPackets = maxBufferedPackets;
+		this.dropPolicy = dropPolicy;
+	}
+
+	/**
+	 * Returns the randomized delay before the given attempt.
+	 *
+	 * @param attempt The attempt, starting at 0
+	 * @return The delay in milliseconds.
+	 */
+	public long getDelayMillis(int attempt) {
+		long delay = attempt < 30 ? Math.min(this.maxDelayMillis, this.initialDelayMillis << attempt) : this.maxDelayMillis;
+
+		return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+	}
+
+}
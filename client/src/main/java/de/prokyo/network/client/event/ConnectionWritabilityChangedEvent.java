@@ -0,0 +1,17 @@
+package de.prokyo.network.client.event;
+
+import de.prokyo.network.client.ProkyoClient;
+import de.prokyo.network.common.event.Event;
+import lombok.Data;
+
+/**
+ * Event that will be called when the writability of the connection changed, i.e. the bytes waiting to be sent crossed
+ * the high write buffer watermark (not writable) or fell below the low write buffer watermark (writable again).
+ */
+@Data
+public class ConnectionWritabilityChangedEvent implements Event {
+
+	private final ProkyoClient prokyoClient;
+	private final boolean writable;
+
+}
@@ -3,6 +3,14 @@ package de.prokyo.network.common.connection;
 import de.prokyo.network.common.packet.Packet;
 import de.prokyo.network.common.packet.PacketRegistry;
 import de.prokyo.network.common.packet.VersionPacket;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Represents a connection over the internet.<br>
@@ -17,6 +25,137 @@ public interface Connection {
 	 */
 	void sendPacket(Packet packet);
 
+	/**
+	 * Sends the given packet to the remote host using the given priority lane.<br>
+	 * The priority only matters while the connection is not writable and packets are queued,
+	 * see {@link PacketPriority}.
+	 *
+	 * @param packet The packet which shall be sent to the remote host.
+	 * @param priority The priority of the packet
+	 */
+	default void sendPacket(Packet packet, PacketPriority priority) {
+		this.sendPacket(packet);
+	}
+
+	/**
+	 * Sends the given request to the remote host and returns a future completed with its response.<br>
+	 * The remote host receives the request as {@link de.prokyo.network.common.event.IncomingRequestEvent}.
+	 * Any amount of requests can be in flight at the same time, see {@link RequestManager}.
+	 *
+	 * @param request The request
+	 * @param responseType The type of the expected response
+	 * @param timeout The time to wait for the response
+	 * @param unit The unit of the timeout
+	 * @param <R> The type of the expected response
+	 * @return A future completed with the response or failed if the request times out.
+	 * @throws UnsupportedOperationException If the connection doesn't support requests.
+	 */
+	default <R extends Packet> CompletableFuture<R> request(Packet request, Class<R> responseType, long timeout, TimeUnit unit) {
+		throw new UnsupportedOperationException("The connection doesn't support requests.");
+	}
+
+	/**
+	 * Sends the content of the given input stream to the remote host split into chunks.<br>
+	 * The chunks are sent in the bulk lane and interleave with all other packets, so a large payload neither has to be
+	 * held in memory nor blocks the connection. The remote host receives it as
+	 * {@link de.prokyo.network.common.event.IncomingStreamEvent}.
+	 *
+	 * @param input The input stream, which is closed after it was sent completely
+	 * @return A future completed after the last chunk was written.
+	 * @throws UnsupportedOperationException If the connection doesn't support streams.
+	 */
+	default CompletableFuture<Void> sendStream(InputStream input) {
+		throw new UnsupportedOperationException("The connection doesn't support streams.");
+	}
+
+	/**
+	 * Sends the readable bytes of the given buffer as stream, see {@link #sendStream(InputStream)}.
+	 *
+	 * @param buffer The buffer, which is released after it was sent completely
+	 * @return A future completed after the last chunk was written.
+	 */
+	default CompletableFuture<Void> sendStream(ByteBuf buffer) {
+		return this.sendStream(new ByteBufInputStream(buffer, true));
+	}
+
+	/**
+	 * Sends the content of the given file as stream, see {@link #sendStream(InputStream)}.
+	 *
+	 * @param file The file
+	 * @return A future completed after the last chunk was written.
+	 * @throws IOException If the file can't be opened.
+	 */
+	default CompletableFuture<Void> sendStream(Path file) throws IOException {
+		return this.sendStream(Files.newInputStream(file));
+	}
+
+	/**
+	 * Sends the given region of a file to the remote host, which receives it as
+	 * {@link de.prokyo.network.common.event.IncomingFileEvent} and can write it straight to a file channel.<br>
+	 * The file is sent by the kernel without copying it into the heap, unless the connection is compressed or
+	 * encrypted. In that case its chunks are read into pooled buffers off the event loop instead. Like streams, files
+	 * are sent in the bulk lane.
+	 *
+	 * @param file The file
+	 * @param offset The position of the first byte to send
+	 * @param length The amount of bytes to send
+	 * @return A future completed after the last chunk was written.
+	 * @throws UnsupportedOperationException If the connection doesn't support files.
+	 */
+	default CompletableFuture<Void> sendFile(Path file, long offset, long length) {
+		throw new UnsupportedOperationException("The connection doesn't support files.");
+	}
+
+	/**
+	 * Sends the whole given file, see {@link #sendFile(Path, long, long)}.
+	 *
+	 * @param file The file
+	 * @return A future completed after the last chunk was written.
+	 * @throws IOException If the size of the file can't be read.
+	 */
+	default CompletableFuture<Void> sendFile(Path file) throws IOException {
+		return this.sendFile(file, 0, Files.size(file));
+	}
+
+	/**
+	 * Returns the smoothed round trip time measured by the heartbeats of the connection.<br>
+	 * Heartbeats are only sent while nothing is received, see {@link de.prokyo.network.common.pipeline.HeartbeatHandler}.
+	 *
+	 * @return The round trip time in nanoseconds or -1 if it wasn't measured yet.
+	 */
+	default long getRttNanos() {
+		return -1;
+	}
+
+	/**
+	 * Returns the jitter of the round trip time, which is the smoothed mean deviation of the measured round trip times.
+	 *
+	 * @return The jitter in nanoseconds or -1 if it wasn't measured yet.
+	 */
+	default long getRttJitterNanos() {
+		return -1;
+	}
+
+	/**
+	 * Returns the estimate of the offset between the local clock and the clock of the remote host.
+	 *
+	 * @return The estimate or null if the connection doesn't synchronize the clocks.
+	 */
+	default TimeSync getTimeSync() {
+		return null;
+	}
+
+	/**
+	 * Returns the current time of the remote host according to the estimated clock offset, see {@link TimeSync}.<br>
+	 * It is cheap enough to be called for every packet.
+	 *
+	 * @return The time of the remote host in nanoseconds since the epoch or the local time if the offset isn't known.
+	 */
+	default long estimatedRemoteTimeNanos() {
+		TimeSync timeSync = this.getTimeSync();
+		return timeSync != null ? timeSync.estimatedRemoteTimeNanos() : TimeSync.currentTimeNanos();
+	}
+
 	/**
 	 * Sends the version of the currently used ProkyoNet protocol (reserved packets).
 	 */
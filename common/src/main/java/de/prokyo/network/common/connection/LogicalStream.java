@@ -0,0 +1,254 @@
+package de.prokyo.network.common.connection;
+
+import de.prokyo.network.common.event.PacketIncomingEvent;
+import de.prokyo.network.common.packet.LogicalStreamControlPacket;
+import de.prokyo.network.common.packet.LogicalStreamPacket;
+import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.common.packet.PacketRegistry;
+import de.prokyo.network.common.packet.PrioritizedPacket;
+import io.netty.channel.Channel;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import lombok.Getter;
+
+/**
+ * A lightweight logical stream multiplexed over a single connection.<br>
+ * Packets sent over a stream are wrapped into a {@link LogicalStreamPacket} carrying the id of the stream, so every
+ * stream is ordered on its own and the remote host handles them as if they were sent over an own connection.
+ *
+ * <p>Every stream has its own flow control window of {@value #INITIAL_WINDOW} packets. The sender may only have that
+ * many packets in flight, which haven't been handled by the remote host yet. The remote host returns the credits
+ * after handling the packets, so a stream whose packets are not handled (e.g. because it is {@link #setPaused(boolean)
+ * paused}) stalls on its own without blocking any other stream or the connection. Packets exceeding the window
+ * are queued by the stream.</p>
+ *
+ * <p>The packets of a stream are handled by the event loop of the connection and are fired as
+ * {@link PacketIncomingEvent} with the stream as connection. They are neither batched nor put into a packet inbox.
+ * Streams and files sent over a logical stream are sent over the parent connection.</p>
+ */
+public class LogicalStream implements Connection {
+
+	public static final int INITIAL_WINDOW = 256;
+
+	private final LogicalStreamManager manager;
+	private final Channel channel;
+	@Getter private final int streamId;
+	private final RequestManager requestManager;
+	private final Deque<Object> queuedPackets = new ArrayDeque<>();
+	private final Deque<Packet> pausedPackets = new ArrayDeque<>();
+	private int sendCredits = INITIAL_WINDOW;
+	private int consumedPackets;
+	private boolean paused;
+	@Getter private volatile boolean closed;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param manager The manager of the streams of the connection
+	 * @param streamId The id of the stream
+	 */
+	LogicalStream(LogicalStreamManager manager, int streamId) {
+		this.manager = manager;
+		this.channel = manager.getChannel();
+		this.streamId = streamId;
+		this.requestManager = new RequestManager(this.channel, this, manager.getEventManager());
+	}
+
+	/**
+	 * Returns the connection this stream is multiplexed over.
+	 *
+	 * @return The parent connection.
+	 */
+	public Connection getParent() {
+		return this.manager.getParent();
+	}
+
+	/**
+	 * Pauses or resumes handling the incoming packets of this stream.<br>
+	 * While the stream is paused, its packets are buffered and no credits are returned to the remote host, so it
+	 * stops sending over this stream after at most {@value #INITIAL_WINDOW} packets. Other streams are not affected.
+	 *
+	 * @param paused Whether the stream shall be paused
+	 */
+	public void setPaused(boolean paused) {
+		this.execute(() -> {
+			this.paused = paused;
+			while (!this.paused && !this.pausedPackets.isEmpty()) this.handle(this.pausedPackets.poll());
+		});
+	}
+
+	@Override
+	public void sendPacket(Packet packet) {
+		this.sendPacket(packet, PacketPriority.NORMAL);
+	}
+
+	@Override
+	public void sendPacket(Packet packet, PacketPriority priority) {
+		if (packet == null) throw new IllegalArgumentException("The packet cannot be null");
+
+		Packet wrapped = new LogicalStreamPacket(this.streamId, packet);
+		Object msg = priority == PacketPriority.NORMAL ? wrapped : new PrioritizedPacket(wrapped, priority);
+
+		if (!this.channel.eventLoop().inEventLoop()) this.manager.awaitWritable();
+		this.execute(() -> {
+			if (this.closed) return;
+
+			this.queuedPackets.add(msg);
+			this.flushQueue();
+		});
+	}
+
+	@Override
+	public <R extends Packet> CompletableFuture<R> request(Packet request, Class<R> responseType, long timeout, TimeUnit unit) {
+		return this.requestManager.request(request, responseType, timeout, unit);
+	}
+
+	/**
+	 * {@inheritDoc}<br>
+	 * The stream is sent over the parent connection, as it has a flow control of its own.
+	 */
+	@Override
+	public CompletableFuture<Void> sendStream(InputStream input) {
+		return this.getParent().sendStream(input);
+	}
+
+	/**
+	 * {@inheritDoc}<br>
+	 * The file is sent over the parent connection, as it has a flow control of its own.
+	 */
+	@Override
+	public CompletableFuture<Void> sendFile(Path file, long offset, long length) {
+		return this.getParent().sendFile(file, offset, length);
+	}
+
+	@Override
+	public long getRttNanos() {
+		return this.getParent().getRttNanos();
+	}
+
+	@Override
+	public long getRttJitterNanos() {
+		return this.getParent().getRttJitterNanos();
+	}
+
+	@Override
+	public TimeSync getTimeSync() {
+		return this.getParent().getTimeSync();
+	}
+
+	/**
+	 * Closes this stream.<br>
+	 * Packets which are still queued because the window of the stream is exhausted are discarded.
+	 */
+	public void close() {
+		this.execute(() -> {
+			if (this.closed) return;
+
+			// sent in the normal lane, so it doesn't overtake the last packets of the stream
+			this.channel.writeAndFlush(new LogicalStreamControlPacket(this.streamId, LogicalStreamControlPacket.CLOSE, 0));
+			this.manager.closed(this);
+		});
+	}
+
+	/**
+	 * Returns the amount of packets queued, because the window of the stream is exhausted.<br>
+	 * This method has to be called by the event loop of the connection.
+	 *
+	 * @return The amount of queued packets.
+	 */
+	public int getQueuedPackets() {
+		return this.queuedPackets.size();
+	}
+
+	/**
+	 * Adds the given amount of packets the remote host allows this stream to send and sends the queued packets.
+	 *
+	 * @param credits The amount of packets
+	 */
+	void addCredits(int credits) {
+		this.sendCredits += credits;
+		this.flushQueue();
+	}
+
+	/**
+	 * Handles the given packet sent by the remote host over this stream or buffers it, while the stream is paused.
+	 *
+	 * @param packet The packet
+	 */
+	void receive(Packet packet) {
+		if (this.paused) this.pausedPackets.add(packet);
+		else this.handle(packet);
+	}
+
+	/**
+	 * Marks this stream as closed and fails its pending requests.
+	 */
+	void closed() {
+		this.closed = true;
+		this.queuedPackets.clear();
+		this.pausedPackets.clear();
+		this.requestManager.close();
+	}
+
+	/**
+	 * Fires the given packet and returns credits to the remote host once half of the window is consumed.
+	 *
+	 * @param packet The packet
+	 */
+	private void handle(Packet packet) {
+		try {
+			if (this.requestManager.receive(packet)) return;
+
+			PacketIncomingEvent event = new PacketIncomingEvent(packet, this);
+			this.manager.getEventManager().fire(event);
+			if (!event.isCancelled()) {
+				this.manager.getEventManager().getPacketDispatcher().dispatch(PacketRegistry.INSTANCE.getPacketId(packet.getClass()), packet);
+			}
+		} finally {
+			if (++this.consumedPackets >= INITIAL_WINDOW / 2 && !this.closed) {
+				this.writeWindowUpdate(this.consumedPackets);
+				this.consumedPackets = 0;
+			}
+		}
+	}
+
+	/**
+	 * Writes the queued packets as long as the window allows it.
+	 */
+	private void flushQueue() {
+		boolean written = false;
+		while (this.sendCredits > 0 && !this.queuedPackets.isEmpty()) {
+			this.channel.write(this.queuedPackets.poll());
+			this.sendCredits--;
+			written = true;
+		}
+
+		if (written) this.channel.flush();
+	}
+
+	/**
+	 * Returns the given amount of credits to the remote host in the high priority lane.
+	 *
+	 * @param credits The amount of packets the remote host may send additionally
+	 */
+	private void writeWindowUpdate(int credits) {
+		LogicalStreamControlPacket packet = new LogicalStreamControlPacket(this.streamId, LogicalStreamControlPacket.WINDOW_UPDATE, credits);
+		this.channel.writeAndFlush(new PrioritizedPacket(packet, PacketPriority.HIGH));
+	}
+
+	/**
+	 * Runs the given task by the event loop of the connection, which confines the state of the stream.<br>
+	 * Tasks submitted by the same thread keep their order.
+	 *
+	 * @param task The task
+	 */
+	private void execute(Runnable task) {
+		if (this.channel.eventLoop().inEventLoop()) task.run();
+		else this.channel.eventLoop().execute(task);
+	}
+
+}
@@ -0,0 +1,206 @@
+package de.prokyo.network.common.connection;
+
+import de.prokyo.network.common.event.EventManager;
+import de.prokyo.network.common.event.LogicalStreamClosedEvent;
+import de.prokyo.network.common.event.LogicalStreamOpenedEvent;
+import de.prokyo.network.common.packet.LogicalStreamControlPacket;
+import de.prokyo.network.common.packet.LogicalStreamPacket;
+import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.common.pipeline.OutboundQueue;
+import io.netty.channel.Channel;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Keeps track of the logical streams multiplexed over a connection.<br>
+ * The client opens streams with odd ids and the server with even ids, so both sides can open streams without
+ * agreeing on an id first. A stream is opened implicitly by the first packet sent over it, so streams of the remote
+ * host may be opened in any order. The ids of closed remote streams are remembered, so late packets don't open them
+ * again.
+ */
+public class LogicalStreamManager {
+
+	@Getter(AccessLevel.PACKAGE) private final Channel channel;
+	@Getter(AccessLevel.PACKAGE) private final Connection parent;
+	@Getter(AccessLevel.PACKAGE) private final EventManager eventManager;
+	private final IntObjectMap<LogicalStream> streams = new IntObjectHashMap<>();
+	private final AtomicInteger lastStreamId;
+	private final boolean clientSide;
+	private final Set<Integer> closedRemoteStreams = new HashSet<>();
+	private int closedRemoteStreamsBelow;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param channel The channel of the connection
+	 * @param parent The connection the streams are multiplexed over
+	 * @param eventManager The event manager the stream events and the packets of the streams are fired with
+	 * @param clientSide Whether this is the client side of the connection
+	 */
+	public LogicalStreamManager(Channel channel, Connection parent, EventManager eventManager, boolean clientSide) {
+		this.channel = channel;
+		this.parent = parent;
+		this.eventManager = eventManager;
+		this.clientSide = clientSide;
+		this.lastStreamId = new AtomicInteger(clientSide ? -1 : 0);
+		this.closedRemoteStreamsBelow = clientSide ? 2 : 1;
+	}
+
+	/**
+	 * Opens a new logical stream.<br>
+	 * The remote host is notified with the first packet sent over the stream.
+	 *
+	 * @return The stream.
+	 */
+	public LogicalStream openStream() {
+		LogicalStream stream = new LogicalStream(this, this.lastStreamId.addAndGet(2));
+		synchronized (this.streams) {
+			this.streams.put(stream.getStreamId(), stream);
+		}
+		return stream;
+	}
+
+	/**
+	 * Returns the open stream with the given id.
+	 *
+	 * @param streamId The id of the stream
+	 * @return The stream or null if there is no such open stream.
+	 */
+	public LogicalStream getStream(int streamId) {
+		synchronized (this.streams) {
+			return this.streams.get(streamId);
+		}
+	}
+
+	/**
+	 * Returns all open streams.
+	 *
+	 * @return A copy of the open streams.
+	 */
+	public List<LogicalStream> getStreams() {
+		synchronized (this.streams) {
+			return new ArrayList<>(this.streams.values());
+		}
+	}
+
+	/**
+	 * Handles the given packet, if it belongs to a logical stream.<br>
+	 * This method has to be called by the event loop of the channel.
+	 *
+	 * @param packet The packet
+	 * @return Whether the packet was handled.
+	 */
+	public boolean receive(Packet packet) {
+		if (packet instanceof LogicalStreamControlPacket) {
+			LogicalStreamControlPacket control = (LogicalStreamControlPacket) packet;
+			LogicalStream stream = this.getStream(control.getStreamId());
+			if (stream == null) {
+				// a stream closed before its first packet arrived mustn't be opened by late packets
+				if (control.getType() == LogicalStreamControlPacket.CLOSE && this.isRemoteId(control.getStreamId())) {
+					synchronized (this.streams) {
+						this.markClosed(control.getStreamId());
+					}
+				}
+				return true;
+			}
+
+			if (control.getType() == LogicalStreamControlPacket.WINDOW_UPDATE) stream.addCredits(control.getCredits());
+			else if (control.getType() == LogicalStreamControlPacket.CLOSE) this.closed(stream);
+			return true;
+		}
+
+		if (!(packet instanceof LogicalStreamPacket)) return false;
+
+		LogicalStreamPacket streamPacket = (LogicalStreamPacket) packet;
+		LogicalStream stream = this.getStream(streamPacket.getStreamId());
+		if (stream == null) {
+			stream = this.accept(streamPacket.getStreamId());
+			// the stream was closed already
+			if (stream == null) return true;
+		}
+
+		stream.receive(streamPacket.getPacket());
+		return true;
+	}
+
+	/**
+	 * Closes all streams, because the connection was closed.
+	 */
+	public void close() {
+		for (LogicalStream stream : this.getStreams()) this.closed(stream);
+	}
+
+	/**
+	 * Blocks the current thread until the channel is writable, see {@link OutboundQueue#awaitWritable()}.
+	 */
+	void awaitWritable() {
+		OutboundQueue outboundQueue = (OutboundQueue) this.channel.pipeline().get("prokyoOutboundQueue");
+		if (outboundQueue != null) outboundQueue.awaitWritable();
+	}
+
+	/**
+	 * Removes the given stream and fires the {@link LogicalStreamClosedEvent}, if it was still open.
+	 *
+	 * @param stream The stream
+	 */
+	void closed(LogicalStream stream) {
+		synchronized (this.streams) {
+			if (this.streams.remove(stream.getStreamId()) == null) return;
+			if (this.isRemoteId(stream.getStreamId())) this.markClosed(stream.getStreamId());
+		}
+
+		stream.closed();
+		this.eventManager.fire(new LogicalStreamClosedEvent(stream));
+	}
+
+	/**
+	 * Creates the stream with the given id opened by the remote host and fires the {@link LogicalStreamOpenedEvent}.
+	 *
+	 * @param streamId The id of the stream
+	 * @return The stream or null if the id belongs to a stream which was closed already.
+	 */
+	private LogicalStream accept(int streamId) {
+		if (!this.isRemoteId(streamId)) return null;
+
+		LogicalStream stream = new LogicalStream(this, streamId);
+		synchronized (this.streams) {
+			if (streamId < this.closedRemoteStreamsBelow || this.closedRemoteStreams.contains(streamId)) return null;
+			this.streams.put(streamId, stream);
+		}
+
+		this.eventManager.fire(new LogicalStreamOpenedEvent(this.parent, stream));
+		return stream;
+	}
+
+	/**
+	 * Returns whether the given id belongs to a stream opened by the remote host.
+	 *
+	 * @param streamId The id of the stream
+	 * @return Whether the remote host opened the stream.
+	 */
+	private boolean isRemoteId(int streamId) {
+		return streamId > 0 && (streamId % 2 == 0) == this.clientSide;
+	}
+
+	/**
+	 * Remembers that the stream with the given id opened by the remote host was closed, so it isn't opened again by
+	 * late packets. The ids are compacted into a lower bound as soon as all streams below it were closed.<br>
+	 * The lock of the streams has to be held.
+	 *
+	 * @param streamId The id of the stream
+	 */
+	private void markClosed(int streamId) {
+		if (streamId < this.closedRemoteStreamsBelow) return;
+
+		this.closedRemoteStreams.add(streamId);
+		while (this.closedRemoteStreams.remove(this.closedRemoteStreamsBelow)) this.closedRemoteStreamsBelow += 2;
+	}
+
+}
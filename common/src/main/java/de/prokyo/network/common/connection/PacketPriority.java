@@ -0,0 +1,32 @@
+package de.prokyo.network.common.connection;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The priority lane an outgoing packet is queued in while the connection is not writable.<br>
+ * The lanes are drained by a weighted round robin, so every lane sends up to its weight of packets per round.
+ * This keeps latency critical packets in front of bulk transfers without starving them.
+ */
+@RequiredArgsConstructor
+public enum PacketPriority {
+
+	/**
+	 * For latency critical packets, e.g. input acknowledgements or keep alive packets.
+	 */
+	HIGH(16),
+	/**
+	 * The default priority.
+	 */
+	NORMAL(4),
+	/**
+	 * For bulk transfers, e.g. map chunks or files.
+	 */
+	BULK(1);
+
+	/**
+	 * The amount of packets sent from this lane per round.
+	 */
+	@Getter private final int weight;
+
+}
@@ -0,0 +1,185 @@
+package de.prokyo.network.common.connection;
+
+import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.common.packet.SequencedPacket;
+import io.netty.channel.Channel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * The state of a reliable session, which outlives the connections it is sent over.<br>
+ * Every packet sent within the session gets a sequence number and is kept until the remote host acknowledged it.
+ * When a client reconnects, it presents the id and the token of its session and both sides send the packets the
+ * other side didn't receive yet, so no packet is lost or handled twice.
+ *
+ * <p>Acknowledgements are cumulative. They are attached to every sent packet and sent on their own
+ * ({@link de.prokyo.network.common.packet.SessionAckPacket}) if there is no traffic to attach them to.
+ * At most {@link #getMaxUnacknowledgedPackets()} packets are kept. If more packets are unacknowledged, the oldest
+ * ones are dropped and the session can't be resumed anymore if the remote host didn't receive them.</p>
+ *
+ * <p>The session is shared by the event loops of the connections it was sent over, so all methods are synchronized.</p>
+ */
+public class ReliableSession {
+
+	public static final int DEFAULT_MAX_UNACKNOWLEDGED_PACKETS = 8192;
+
+	@Getter private long sessionId;
+	@Getter private long token;
+	@Getter private final int maxUnacknowledgedPackets;
+	private final Deque<SequencedPacket> unacknowledged = new ArrayDeque<>();
+	private long lastSentSequence;
+	private long lastReceivedSequence;
+	private long lastSentAcknowledgement;
+	/**
+	 * The server side channel the session is currently sent over.<br>
+	 * Only that channel assigns sequence numbers, see {@link #sequence(Packet, Channel)}.
+	 */
+	@Getter private volatile Channel channel;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxUnacknowledgedPackets The maximum amount of packets kept until they are acknowledged
+	 */
+	public ReliableSession(int maxUnacknowledgedPackets) {
+		if (maxUnacknowledgedPackets <= 0) throw new IllegalArgumentException("The maximum amount of unacknowledged packets has to be positive.");
+
+		this.maxUnacknowledgedPackets = maxUnacknowledgedPackets;
+	}
+
+	/**
+	 * Resets this session to a new session with the given id and token assigned by the server.
+	 *
+	 * @param sessionId The id of the session
+	 * @param token The secret token needed to resume the session
+	 */
+	public synchronized void reset(long sessionId, long token) {
+		this.sessionId = sessionId;
+		this.token = token;
+		this.unacknowledged.clear();
+		this.lastSentSequence = 0;
+		this.lastReceivedSequence = 0;
+		this.lastSentAcknowledgement = 0;
+	}
+
+	/**
+	 * Assigns the next sequence number to the given packet and keeps it until it is acknowledged.
+	 *
+	 * @param packet The packet
+	 * @return The packet wrapped together with its sequence number and the current acknowledgement.
+	 */
+	public synchronized SequencedPacket sequence(Packet packet) {
+		SequencedPacket sequenced = new SequencedPacket(++this.lastSentSequence, this.lastReceivedSequence, packet);
+		this.lastSentAcknowledgement = this.lastReceivedSequence;
+
+		if (this.unacknowledged.size() >= this.maxUnacknowledgedPackets) this.unacknowledged.poll();
+		this.unacknowledged.add(sequenced);
+		return sequenced;
+	}
+
+	/**
+	 * Assigns the next sequence number to the given packet written to the given channel, unless the session was
+	 * moved to another channel in the meantime. The packets resent to resume the session were determined already in
+	 * that case, so a sequence number assigned afterwards would never be sent.
+	 *
+	 * @param packet The packet
+	 * @param channel The channel the packet was written to
+	 * @return The packet wrapped together with its sequence number and the current acknowledgement or null if the
+	 * session belongs to another channel.
+	 */
+	public synchronized SequencedPacket sequence(Packet packet, Channel channel) {
+		if (this.channel != channel) return null;
+
+		return this.sequence(packet);
+	}
+
+	/**
+	 * Marks the packet with the given sequence number as received.<br>
+	 * Packets have to be received in order. The next acknowledgement would release skipped packets from the buffer
+	 * of the remote host, so they would be lost.
+	 *
+	 * @param sequence The sequence number
+	 * @return Whether the packet is new, false if it was received already.
+	 * @throws IllegalStateException If packets before the given sequence number are missing.
+	 */
+	public synchronized boolean receive(long sequence) {
+		if (sequence <= this.lastReceivedSequence) return false;
+		if (sequence != this.lastReceivedSequence + 1) {
+			throw new IllegalStateException("Missing packets " + (this.lastReceivedSequence + 1) + " to " + (sequence - 1) + ".");
+		}
+
+		this.lastReceivedSequence = sequence;
+		return true;
+	}
+
+	/**
+	 * Drops all kept packets up to the given sequence number, because the remote host received them.
+	 *
+	 * @param sequence The acknowledged sequence number
+	 */
+	public synchronized void acknowledge(long sequence) {
+		while (!this.unacknowledged.isEmpty() && this.unacknowledged.peek().getSequence() <= sequence) this.unacknowledged.poll();
+	}
+
+	/**
+	 * Returns the acknowledgement which has to be sent on its own, because no packet was sent since the last packet
+	 * was received.
+	 *
+	 * @return The sequence number to acknowledge or -1 if the remote host already knows the latest acknowledgement.
+	 */
+	public synchronized long takeAcknowledgement() {
+		if (this.lastReceivedSequence == this.lastSentAcknowledgement) return -1;
+
+		this.lastSentAcknowledgement = this.lastReceivedSequence;
+		return this.lastReceivedSequence;
+	}
+
+	/**
+	 * Moves the session to the given channel.
+	 *
+	 * @param channel The channel or null if the session isn't sent over any channel anymore
+	 */
+	synchronized void setChannel(Channel channel) {
+		this.channel = channel;
+	}
+
+	/**
+	 * Returns the sequence number of the last packet received.
+	 *
+	 * @return The sequence number.
+	 */
+	public synchronized long getLastReceivedSequence() {
+		return this.lastReceivedSequence;
+	}
+
+	/**
+	 * Returns the amount of packets kept until they are acknowledged.
+	 *
+	 * @return The amount of unacknowledged packets.
+	 */
+	public synchronized int getUnacknowledgedPackets() {
+		return this.unacknowledged.size();
+	}
+
+	/**
+	 * Returns the packets the remote host has to receive again to resume the session.
+	 *
+	 * @param remoteLastReceived The sequence number of the last packet the remote host received
+	 * @return The packets in order or null if some of them were dropped already and the session can't be resumed.
+	 */
+	public synchronized List<SequencedPacket> getPacketsToResend(long remoteLastReceived) {
+		if (remoteLastReceived > this.lastSentSequence) return null;
+
+		this.acknowledge(remoteLastReceived);
+		if (remoteLastReceived < this.lastSentSequence
+				&& (this.unacknowledged.isEmpty() || this.unacknowledged.peek().getSequence() > remoteLastReceived + 1)) {
+			return null;
+		}
+
+		return new ArrayList<>(this.unacknowledged);
+	}
+
+}
@@ -0,0 +1,200 @@
+package de.prokyo.network.common.connection;
+
+import de.prokyo.network.common.event.EventManager;
+import de.prokyo.network.common.event.IncomingRequestEvent;
+import de.prokyo.network.common.exception.RequestFailedException;
+import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.common.packet.RequestPacket;
+import de.prokyo.network.common.packet.ResponsePacket;
+import io.netty.channel.Channel;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.collection.LongObjectHashMap;
+import io.netty.util.collection.LongObjectMap;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Keeps track of the requests of a connection waiting for their response.<br>
+ * Every request gets an id, which is sent in the header of its {@link RequestPacket} and returned in the header of the
+ * {@link ResponsePacket}, so any amount of requests can be in flight at the same time.
+ *
+ * <p>The pending requests are kept in a map keyed by primitive longs. Their timeouts are driven by a single
+ * {@link HashedWheelTimer} shared by all connections, so a request doesn't allocate a scheduled task.
+ * The timer has a resolution of {@value #TIMER_TICK_MILLIS} ms.</p>
+ */
+public class RequestManager {
+
+	public static final long TIMER_TICK_MILLIS = 10;
+	private static final Timer TIMER = new HashedWheelTimer(new DefaultThreadFactory("prokyo-request-timer", true),
+			TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS);
+
+	private final Channel channel;
+	private final Connection connection;
+	private final EventManager eventManager;
+	private final LongObjectMap<PendingRequest> pendingRequests = new LongObjectHashMap<>();
+	private long lastRequestId;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param channel The channel of the connection
+	 * @param connection The connection
+	 * @param eventManager The event manager the {@link IncomingRequestEvent} is fired with
+	 */
+	public RequestManager(Channel channel, Connection connection, EventManager eventManager) {
+		this.channel = channel;
+		this.connection = connection;
+		this.eventManager = eventManager;
+	}
+
+	/**
+	 * Sends the given request and returns a future completed with the response.<br>
+	 * The future fails with a {@link TimeoutException} if the response doesn't arrive in time, with a
+	 * {@link RequestFailedException} if the remote host failed to handle the request and with a
+	 * {@link ClassCastException} if the response has another type.
+	 *
+	 * @param request The request
+	 * @param responseType The type of the expected response
+	 * @param timeout The time to wait for the response
+	 * @param unit The unit of the timeout
+	 * @param <R> The type of the expected response
+	 * @return A future completed with the response.
+	 */
+	public <R extends Packet> CompletableFuture<R> request(Packet request, Class<R> responseType, long timeout, TimeUnit unit) {
+		if (request == null) throw new IllegalArgumentException("The request cannot be null");
+		if (responseType == null) throw new IllegalArgumentException("The response type cannot be null");
+		if (timeout <= 0) throw new IllegalArgumentException("The timeout has to be positive.");
+
+		CompletableFuture<R> future = new CompletableFuture<>();
+		long requestId;
+		synchronized (this.pendingRequests) {
+			requestId = ++this.lastRequestId;
+			Timeout task = TIMER.newTimeout(expired -> this.fail(requestId, new TimeoutException("The request timed out.")), timeout, unit);
+			this.pendingRequests.put(requestId, new PendingRequest(future, responseType, task));
+		}
+
+		// the channel may have been closed and cleaned up in the meantime
+		if (!this.channel.isActive()) this.fail(requestId, new ClosedChannelException());
+		else this.connection.sendPacket(new RequestPacket(requestId, request));
+
+		return future;
+	}
+
+	/**
+	 * Returns the amount of requests waiting for their response.
+	 *
+	 * @return The amount of pending requests.
+	 */
+	public int getPendingRequests() {
+		synchronized (this.pendingRequests) {
+			return this.pendingRequests.size();
+		}
+	}
+
+	/**
+	 * Handles the given packet, if it is a request or a response.
+	 *
+	 * @param packet The packet
+	 * @return Whether the packet was handled.
+	 */
+	public boolean receive(Packet packet) {
+		if (packet instanceof RequestPacket) {
+			RequestPacket request = (RequestPacket) packet;
+			this.eventManager.fire(new IncomingRequestEvent(this.connection, request.getRequestId(), request.getPacket()));
+			return true;
+		}
+
+		if (!(packet instanceof ResponsePacket)) return false;
+
+		ResponsePacket response = (ResponsePacket) packet;
+		PendingRequest request = this.remove(response.getRequestId());
+		if (request == null) return true;
+
+		if (response.getError() != null) {
+			request.future.completeExceptionally(new RequestFailedException(response.getError()));
+		} else if (!request.responseType.isInstance(response.getPacket())) {
+			request.future.completeExceptionally(new ClassCastException("The response " + response.getPacket().getClass()
+					+ " is not an instance of " + request.responseType + "."));
+		} else {
+			request.future.complete(response.getPacket());
+		}
+		return true;
+	}
+
+	/**
+	 * Fails all pending requests, because the connection was closed.
+	 */
+	public void close() {
+		List<PendingRequest> requests;
+		synchronized (this.pendingRequests) {
+			requests = new ArrayList<>(this.pendingRequests.values());
+			this.pendingRequests.clear();
+		}
+
+		ClosedChannelException cause = new ClosedChannelException();
+		for (PendingRequest request : requests) {
+			request.timeout.cancel();
+			request.future.completeExceptionally(cause);
+		}
+	}
+
+	/**
+	 * Fails the given request, if it is still pending.
+	 *
+	 * @param requestId The id of the request
+	 * @param cause The reason
+	 */
+	private void fail(long requestId, Throwable cause) {
+		PendingRequest request = this.remove(requestId);
+		if (request != null) request.future.completeExceptionally(cause);
+	}
+
+	/**
+	 * Removes the given request and cancels its timeout.
+	 *
+	 * @param requestId The id of the request
+	 * @return The removed request or null if it isn't pending anymore.
+	 */
+	private PendingRequest remove(long requestId) {
+		PendingRequest request;
+		synchronized (this.pendingRequests) {
+			request = this.pendingRequests.remove(requestId);
+		}
+
+		if (request != null) request.timeout.cancel();
+		return request;
+	}
+
+	/**
+	 * A request waiting for its response.
+	 */
+	private static class PendingRequest {
+
+		private final CompletableFuture<Packet> future;
+		private final Class<?> responseType;
+		private final Timeout timeout;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param future The future completed with the response
+		 * @param responseType The type of the expected response
+		 * @param timeout The timeout of the request
+		 */
+		@SuppressWarnings("unchecked")
+		PendingRequest(CompletableFuture<? extends Packet> future, Class<?> responseType, Timeout timeout) {
+			this.future = (CompletableFuture<Packet>) future;
+			this.responseType = responseType;
+			this.timeout = timeout;
+		}
+
+	}
+
+}
@@ -0,0 +1,105 @@
+package de.prokyo.network.common.connection;
+
+import io.netty.channel.Channel;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the reliable sessions of a server, so clients can resume them after reconnecting.<br>
+ * A session is removed, if no client resumed it within the session timeout after its connection was closed.
+ */
+public class SessionRegistry {
+
+	public static final long DEFAULT_SESSION_TIMEOUT_MILLIS = 60_000;
+
+	private final Map<Long, ReliableSession> sessions = new ConcurrentHashMap<>();
+	private final SecureRandom random = new SecureRandom();
+	private final int maxUnacknowledgedPackets;
+	private final long sessionTimeoutMillis;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxUnacknowledgedPackets The maximum amount of packets a session keeps until they are acknowledged
+	 * @param sessionTimeoutMillis The time in milliseconds a session can be resumed after its connection was closed
+	 */
+	public SessionRegistry(int maxUnacknowledgedPackets, long sessionTimeoutMillis) {
+		if (sessionTimeoutMillis <= 0) throw new IllegalArgumentException("The session timeout has to be positive.");
+
+		this.maxUnacknowledgedPackets = maxUnacknowledgedPackets;
+		this.sessionTimeoutMillis = sessionTimeoutMillis;
+	}
+
+	/**
+	 * Creates a new session for the given channel.
+	 *
+	 * @param channel The channel
+	 * @return The session.
+	 */
+	public ReliableSession create(Channel channel) {
+		ReliableSession session = new ReliableSession(this.maxUnacknowledgedPackets);
+		long sessionId;
+		do {
+			sessionId = this.random.nextLong();
+		} while (sessionId == 0 || this.sessions.containsKey(sessionId));
+
+		session.reset(sessionId, this.random.nextLong());
+		session.setChannel(channel);
+		this.sessions.put(sessionId, session);
+		return session;
+	}
+
+	/**
+	 * Moves the session with the given id to the given channel, if the token matches.
+	 *
+	 * @param sessionId The id of the session
+	 * @param token The token of the session
+	 * @param channel The new channel of the session
+	 * @return The session or null if there is no such session or the token doesn't match.
+	 */
+	public ReliableSession resume(long sessionId, long token, Channel channel) {
+		ReliableSession session = this.sessions.get(sessionId);
+		if (session == null || session.getToken() != token) return null;
+
+		// the old connection may not have noticed yet that the client is gone
+		Channel previous = session.getChannel();
+		session.setChannel(channel);
+		if (previous != null && previous != channel) previous.close();
+		return session;
+	}
+
+	/**
+	 * Removes the given session after the session timeout, unless it was resumed in the meantime.
+	 *
+	 * @param session The session
+	 * @param channel The closed channel of the session
+	 */
+	public void detach(ReliableSession session, Channel channel) {
+		channel.eventLoop().schedule(() -> {
+			if (session.getChannel() == channel) this.sessions.remove(session.getSessionId(), session);
+		}, this.sessionTimeoutMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Removes the given session immediately.<br>
+	 * Packets still written to its previous channel are dropped afterwards.
+	 *
+	 * @param session The session
+	 */
+	public void remove(ReliableSession session) {
+		this.sessions.remove(session.getSessionId(), session);
+		session.setChannel(null);
+	}
+
+	/**
+	 * Returns the amount of sessions which can be resumed.
+	 *
+	 * @return The amount of sessions.
+	 */
+	public int getSessions() {
+		return this.sessions.size();
+	}
+
+}
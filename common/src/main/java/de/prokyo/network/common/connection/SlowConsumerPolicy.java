@@ -0,0 +1,39 @@
+package de.prokyo.network.common.connection;
+
+/**
+ * Defines how outgoing packets are handled if the remote host doesn't read them as fast as they are sent.<br>
+ * Packets are queued as soon as the channel exceeds its high write buffer watermark, the policy is applied once the
+ * queue is full or, for {@link #DISCONNECT}, the channel stays unwritable for too long.
+ */
+public enum SlowConsumerPolicy {
+
+	/**
+	 * Queues the packets without any limit, so the memory used by a connection that stopped reading keeps growing.<br>
+	 * This is the default, as it matches writing directly to the channel.
+	 */
+	UNBOUNDED,
+	/**
+	 * Blocks the thread sending the packet until the channel is writable again.<br>
+	 * The netty threads can't be blocked, so packets sent from them are queued without any limit.
+	 */
+	BLOCK,
+	/**
+	 * Drops the oldest queued packet of the lowest priority to make room for the new one.
+	 */
+	DROP_OLDEST,
+	/**
+	 * Drops the new packet.
+	 */
+	DROP_NEWEST,
+	/**
+	 * Replaces a queued packet of the same type with the new one, so only the newest value is sent.
+	 * {@link de.prokyo.network.common.packet.Conflatable} packets are always replaced by their conflation key instead.<br>
+	 * The oldest packet is dropped if there is nothing to replace and the queue is full.
+	 */
+	CONFLATE,
+	/**
+	 * Closes the connection.
+	 */
+	DISCONNECT
+
+}
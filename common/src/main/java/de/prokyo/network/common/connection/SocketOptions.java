@@ -0,0 +1,282 @@
+package de.prokyo.network.common.connection;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * The socket and channel options of the connections of a server or a client.<br>
+ * The setters return this instance, so the options can be chained. Options set to 0 or null keep the defaults of
+ * the operating system and netty. By default, Nagle's algorithm is disabled, so small packets are sent immediately.
+ *
+ * <p>The options starting with tcp fast open are only supported by epoll and ignored by the other transports.
+ * Any other option can be set using {@link #option(ChannelOption, Object)}, which overrides the typed options.
+ * The options have to be set before starting the server or connecting the client.</p>
+ */
+@Getter
+public class SocketOptions {
+
+	private boolean tcpNoDelay = true;
+	private int sendBufferSize;
+	private int receiveBufferSize;
+	private int backlog;
+	private WriteBufferWaterMark writeBufferWaterMark;
+	private ByteBufAllocator allocator;
+	private int tcpFastOpen;
+	private boolean tcpQuickAck;
+	private int busyPollMicros;
+	private EpollMode epollMode;
+	@Getter(AccessLevel.NONE) private final Map<ChannelOption<?>, Object> options = new LinkedHashMap<>();
+
+	/**
+	 * Sets whether Nagle's algorithm is disabled (TCP_NODELAY), so small packets aren't delayed to be coalesced.
+	 *
+	 * @param tcpNoDelay Whether Nagle's algorithm is disabled
+	 * @return This instance.
+	 */
+	public SocketOptions tcpNoDelay(boolean tcpNoDelay) {
+		this.tcpNoDelay = tcpNoDelay;
+		return this;
+	}
+
+	/**
+	 * Sets the size of the send buffer of the sockets (SO_SNDBUF).
+	 *
+	 * @param sendBufferSize The size in bytes (0 = default of the operating system)
+	 * @return This instance.
+	 */
+	public SocketOptions sendBufferSize(int sendBufferSize) {
+		if (sendBufferSize < 0) throw new IllegalArgumentException("The send buffer size cannot be negative.");
+
+		this.sendBufferSize = sendBufferSize;
+		return this;
+	}
+
+	/**
+	 * Sets the size of the receive buffer of the sockets (SO_RCVBUF).
+	 *
+	 * @param receiveBufferSize The size in bytes (0 = default of the operating system)
+	 * @return This instance.
+	 */
+	public SocketOptions receiveBufferSize(int receiveBufferSize) {
+		if (receiveBufferSize < 0) throw new IllegalArgumentException("The receive buffer size cannot be negative.");
+
+		this.receiveBufferSize = receiveBufferSize;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum amount of connections waiting to be accepted by a server (SO_BACKLOG).
+	 *
+	 * @param backlog The amount of connections (0 = default of netty)
+	 * @return This instance.
+	 */
+	public SocketOptions backlog(int backlog) {
+		if (backlog < 0) throw new IllegalArgumentException("The backlog cannot be negative.");
+
+		this.backlog = backlog;
+		return this;
+	}
+
+	/**
+	 * Sets the write buffer watermarks.<br>
+	 * A connection becomes unwritable as soon as more bytes than the high watermark are waiting to be sent and
+	 * writable again once they fell below the low watermark.
+	 *
+	 * @param writeBufferWaterMark The watermarks or null to use the defaults of netty
+	 * @return This instance.
+	 */
+	public SocketOptions writeBufferWaterMark(WriteBufferWaterMark writeBufferWaterMark) {
+		this.writeBufferWaterMark = writeBufferWaterMark;
+		return this;
+	}
+
+	/**
+	 * Sets the allocator of the buffers of the connections.
+	 *
+	 * @param allocator The allocator or null to use the default allocator
+	 * @return This instance.
+	 */
+	public SocketOptions allocator(ByteBufAllocator allocator) {
+		this.allocator = allocator;
+		return this;
+	}
+
+	/**
+	 * Enables tcp fast open (TCP_FASTOPEN), which sends the first data already with the handshake of a connection.<br>
+	 * Clients only check whether the value is positive.
+	 *
+	 * @param tcpFastOpen The maximum amount of pending fast open requests of a server (0 = disabled)
+	 * @return This instance.
+	 */
+	public SocketOptions tcpFastOpen(int tcpFastOpen) {
+		if (tcpFastOpen < 0) throw new IllegalArgumentException("The tcp fast open queue length cannot be negative.");
+
+		this.tcpFastOpen = tcpFastOpen;
+		return this;
+	}
+
+	/**
+	 * Sets whether received data is acknowledged immediately instead of delaying the acknowledgement (TCP_QUICKACK).<br>
+	 * The flag isn't permanent: Linux clears it again once it sent acknowledgements, so only the acknowledgements right
+	 * after the connection was established are sent immediately. It is disabled by default.
+	 *
+	 * @param tcpQuickAck Whether acknowledgements are sent immediately
+	 * @return This instance.
+	 */
+	public SocketOptions tcpQuickAck(boolean tcpQuickAck) {
+		this.tcpQuickAck = tcpQuickAck;
+		return this;
+	}
+
+	/**
+	 * Sets the time the kernel busy polls the network device for new data before sleeping (SO_BUSY_POLL).<br>
+	 * It lowers the latency at the expense of cpu time.
+	 *
+	 * @param busyPollMicros The time in microseconds (0 = disabled)
+	 * @return This instance.
+	 */
+	public SocketOptions busyPollMicros(int busyPollMicros) {
+		if (busyPollMicros < 0) throw new IllegalArgumentException("The busy poll time cannot be negative.");
+
+		this.busyPollMicros = busyPollMicros;
+		return this;
+	}
+
+	/**
+	 * Sets whether epoll notifies about the sockets edge or level triggered.
+	 *
+	 * @param epollMode The mode or null to use the default of netty
+	 * @return This instance.
+	 */
+	public SocketOptions epollMode(EpollMode epollMode) {
+		this.epollMode = epollMode;
+		return this;
+	}
+
+	/**
+	 * Sets any other option of the connections, which are the accepted child channels of a server.
+	 *
+	 * @param option The option
+	 * @param value The value or null to remove the option
+	 * @param <T> The type of the value
+	 * @return This instance.
+	 */
+	public <T> SocketOptions option(ChannelOption<T> option, T value) {
+		if (option == null) throw new IllegalArgumentException("The option cannot be null");
+
+		if (value == null) this.options.remove(option);
+		else this.options.put(option, value);
+		return this;
+	}
+
+	/**
+	 * Applies the options to the given server bootstrap.
+	 *
+	 * @param bootstrap The bootstrap
+	 * @param transport The transport of the bootstrap
+	 */
+	public void applyTo(ServerBootstrap bootstrap, Transport transport) {
+		this.applyTo(bootstrap, transport == Transport.EPOLL, true);
+	}
+
+	/**
+	 * Applies the options supported by unix domain sockets to the given server bootstrap using the epoll transport.<br>
+	 * The tcp options and the buffer sizes are skipped.
+	 *
+	 * @param bootstrap The bootstrap
+	 */
+	public void applyToDomainSocket(ServerBootstrap bootstrap) {
+		this.applyTo(bootstrap, true, false);
+	}
+
+	/**
+	 * Applies the options to the given client bootstrap.
+	 *
+	 * @param bootstrap The bootstrap
+	 * @param transport The transport of the bootstrap
+	 */
+	public void applyTo(Bootstrap bootstrap, Transport transport) {
+		this.applyTo(bootstrap, transport == Transport.EPOLL, true);
+	}
+
+	/**
+	 * Applies the options supported by unix domain sockets to the given client bootstrap using the epoll transport.<br>
+	 * The tcp options and the buffer sizes are skipped.
+	 *
+	 * @param bootstrap The bootstrap
+	 */
+	public void applyToDomainSocket(Bootstrap bootstrap) {
+		this.applyTo(bootstrap, true, false);
+	}
+
+	/**
+	 * Applies the options to the given server bootstrap.
+	 *
+	 * @param bootstrap The bootstrap
+	 * @param epoll Whether the epoll transport is used
+	 * @param tcp Whether the channels are tcp sockets instead of unix domain sockets
+	 */
+	private void applyTo(ServerBootstrap bootstrap, boolean epoll, boolean tcp) {
+		if (this.backlog > 0) bootstrap.option(ChannelOption.SO_BACKLOG, this.backlog);
+		if (this.allocator != null) bootstrap.option(ChannelOption.ALLOCATOR, this.allocator);
+		if (epoll && tcp && this.tcpFastOpen > 0) bootstrap.option(EpollChannelOption.TCP_FASTOPEN, this.tcpFastOpen);
+		if (epoll && this.epollMode != null) bootstrap.option(EpollChannelOption.EPOLL_MODE, this.epollMode);
+
+		for (Map.Entry<ChannelOption<Object>, Object> entry : this.getOptions(epoll, tcp).entrySet()) {
+			bootstrap.childOption(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Applies the options to the given client bootstrap.
+	 *
+	 * @param bootstrap The bootstrap
+	 * @param epoll Whether the epoll transport is used
+	 * @param tcp Whether the channel is a tcp socket instead of a unix domain socket
+	 */
+	private void applyTo(Bootstrap bootstrap, boolean epoll, boolean tcp) {
+		if (epoll && tcp && this.tcpFastOpen > 0) bootstrap.option(EpollChannelOption.TCP_FASTOPEN_CONNECT, true);
+
+		for (Map.Entry<ChannelOption<Object>, Object> entry : this.getOptions(epoll, tcp).entrySet()) {
+			bootstrap.option(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * Collects the options of the connections supported by the given transport.<br>
+	 * Unix domain sockets of netty only support the generic options and the epoll mode.
+	 *
+	 * @param epoll Whether the epoll transport is used
+	 * @param tcp Whether the connections are tcp sockets instead of unix domain sockets
+	 * @return The options and their values.
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<ChannelOption<Object>, Object> getOptions(boolean epoll, boolean tcp) {
+		Map<ChannelOption<?>, Object> result = new LinkedHashMap<>();
+		if (tcp) {
+			result.put(ChannelOption.TCP_NODELAY, this.tcpNoDelay);
+			if (this.sendBufferSize > 0) result.put(ChannelOption.SO_SNDBUF, this.sendBufferSize);
+			if (this.receiveBufferSize > 0) result.put(ChannelOption.SO_RCVBUF, this.receiveBufferSize);
+		}
+		if (this.writeBufferWaterMark != null) result.put(ChannelOption.WRITE_BUFFER_WATER_MARK, this.writeBufferWaterMark);
+		if (this.allocator != null) result.put(ChannelOption.ALLOCATOR, this.allocator);
+		if (epoll) {
+			if (tcp && this.tcpQuickAck) result.put(EpollChannelOption.TCP_QUICKACK, true);
+			if (tcp && this.busyPollMicros > 0) result.put(EpollChannelOption.SO_BUSY_POLL, this.busyPollMicros);
+			if (this.epollMode != null) result.put(EpollChannelOption.EPOLL_MODE, this.epollMode);
+		}
+		result.putAll(this.options);
+
+		return (Map<ChannelOption<Object>, Object>) (Map<?, ?>) result;
+	}
+
+}
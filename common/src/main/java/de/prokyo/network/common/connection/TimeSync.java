@@ -0,0 +1,94 @@
+package de.prokyo.network.common.connection;
+
+/**
+ * Estimates the offset between the local clock and the clock of the remote host.<br>
+ * Every sample is taken like NTP by a {@link de.prokyo.network.common.packet.TimeSyncPacket} sent to the remote host
+ * and its answer. Queueing delays make the way there and back asymmetric and distort the offset, so only the sample
+ * with the lowest round trip time of the last {@value #SAMPLES} samples is used.
+ *
+ * <p>Both clocks are {@link #currentTimeNanos()}, which counts nanoseconds since the epoch and never jumps like the
+ * wall clock does. The estimate is kept in a volatile field, so {@link #estimatedRemoteTimeNanos()} is as cheap as
+ * {@link System#nanoTime()} and can be called for every packet.</p>
+ */
+public class TimeSync {
+
+	public static final int SAMPLES = 8;
+	public static final long DEFAULT_INTERVAL_MILLIS = 10_000;
+	private static final long EPOCH_NANOS = System.currentTimeMillis() * 1_000_000 - System.nanoTime();
+
+	private final long[] offsets = new long[SAMPLES];
+	private final long[] rtts = new long[SAMPLES];
+	private int samples;
+	private volatile long offsetNanos;
+	private volatile long rttNanos = -1;
+
+	/**
+	 * Returns the local time the remote host compares its time with.<br>
+	 * It is based on {@link System#nanoTime()} and anchored to the wall clock once, when this class is loaded.
+	 *
+	 * @return The local time in nanoseconds since the epoch.
+	 */
+	public static long currentTimeNanos() {
+		return EPOCH_NANOS + System.nanoTime();
+	}
+
+	/**
+	 * Returns the current time of the remote host according to the estimated offset.
+	 *
+	 * @return The time of the remote host in nanoseconds since the epoch or the local time if no sample was taken yet.
+	 */
+	public long estimatedRemoteTimeNanos() {
+		return currentTimeNanos() + this.offsetNanos;
+	}
+
+	/**
+	 * Returns the estimated offset, which has to be added to the local time to get the time of the remote host.
+	 *
+	 * @return The offset in nanoseconds.
+	 */
+	public long getOffsetNanos() {
+		return this.offsetNanos;
+	}
+
+	/**
+	 * Returns the round trip time of the sample the offset was taken from.<br>
+	 * The error of the offset is at most half of it.
+	 *
+	 * @return The round trip time in nanoseconds or -1 if no sample was taken yet.
+	 */
+	public long getRttNanos() {
+		return this.rttNanos;
+	}
+
+	/**
+	 * Returns whether a sample was taken already.
+	 *
+	 * @return Whether the offset is estimated.
+	 */
+	public boolean isSynchronized() {
+		return this.rttNanos >= 0;
+	}
+
+	/**
+	 * Adds the sample of the given answer and updates the estimate.
+	 *
+	 * @param originateTime The local time the request was sent at
+	 * @param receiveTime The remote time the request was received at
+	 * @param transmitTime The remote time the answer was sent at
+	 * @param destinationTime The local time the answer was received at
+	 */
+	public synchronized void sample(long originateTime, long receiveTime, long transmitTime, long destinationTime) {
+		long rtt = Math.max(0, (destinationTime - originateTime) - (transmitTime - receiveTime));
+		long offset = ((receiveTime - originateTime) + (transmitTime - destinationTime)) / 2;
+
+		int index = this.samples++ % SAMPLES;
+		this.offsets[index] = offset;
+		this.rtts[index] = rtt;
+
+		int best = 0;
+		for (int i = 1; i < Math.min(this.samples, SAMPLES); i++) if (this.rtts[i] < this.rtts[best]) best = i;
+		this.offsetNanos = this.offsets[best];
+		this.rttNanos = this.rtts[best];
+	}
+
+}
@@ -0,0 +1,197 @@
+package de.prokyo.network.common.connection;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The native or java transports the event loops and channels of servers and clients are created by.<br>
+ * By default the first available transport in the order of declaration is used, see {@link #best()}.
+ *
+ * <p>io_uring is provided by the separate netty incubator module {@code netty-incubator-transport-io_uring}. It is
+ * not a dependency of ProkyoNet, so it is looked up by reflection and only available if the module is on the class
+ * path, the kernel supports io_uring and the module is compatible with the netty version in use. The module is built
+ * against a specific netty version, so an event loop group is created once on detection to rule out linkage
+ * errors.</p>
+ */
+public enum Transport {
+
+	/**
+	 * Linux io_uring, which submits and completes many small writes with less system calls than epoll.
+	 */
+	IO_URING {
+		private static final String PACKAGE = "io.netty.incubator.channel.uring.";
+		private final boolean available = this.detect();
+
+		@Override
+		public boolean isAvailable() {
+			return this.available;
+		}
+
+		@Override
+		public EventLoopGroup newEventLoopGroup(int threads) {
+			try {
+				return (EventLoopGroup) Class.forName(PACKAGE + "IOUringEventLoopGroup").getConstructor(int.class).newInstance(threads);
+			} catch (ReflectiveOperationException | LinkageError e) {
+				throw new IllegalStateException("io_uring is not available.", e);
+			}
+		}
+
+		@Override
+		public Class<? extends SocketChannel> getSocketChannelClass() {
+			return this.loadClass("IOUringSocketChannel", SocketChannel.class);
+		}
+
+		@Override
+		public Class<? extends ServerSocketChannel> getServerSocketChannelClass() {
+			return this.loadClass("IOUringServerSocketChannel", ServerSocketChannel.class);
+		}
+
+		/**
+		 * Checks once whether the io_uring module is on the class path, supported by the kernel and linkable against
+		 * the netty version in use. The latter is checked by loading the channel classes and creating an event loop
+		 * group, which doesn't start any thread yet.
+		 *
+		 * @return Whether io_uring is available.
+		 */
+		private boolean detect() {
+			try {
+				if (!(boolean) Class.forName(PACKAGE + "IOUring").getMethod("isAvailable").invoke(null)) return false;
+
+				this.getSocketChannelClass();
+				this.getServerSocketChannelClass();
+				this.newEventLoopGroup(1).shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+				return true;
+			} catch (ReflectiveOperationException | LinkageError | IllegalStateException e) {
+				return false;
+			}
+		}
+
+		/**
+		 * Loads the given class of the io_uring module.
+		 *
+		 * @param name The simple name of the class
+		 * @param type The type the class has to implement
+		 * @param <T> The type the class has to implement
+		 * @return The class.
+		 */
+		private <T> Class<? extends T> loadClass(String name, Class<T> type) {
+			try {
+				return Class.forName(PACKAGE + name).asSubclass(type);
+			} catch (ClassNotFoundException | ClassCastException | LinkageError e) {
+				throw new IllegalStateException("io_uring is not available.", e);
+			}
+		}
+	},
+
+	/**
+	 * Linux epoll.
+	 */
+	EPOLL {
+		@Override
+		public boolean isAvailable() {
+			return Epoll.isAvailable();
+		}
+
+		@Override
+		public EventLoopGroup newEventLoopGroup(int threads) {
+			return new EpollEventLoopGroup(threads);
+		}
+
+		@Override
+		public Class<? extends SocketChannel> getSocketChannelClass() {
+			return EpollSocketChannel.class;
+		}
+
+		@Override
+		public Class<? extends ServerSocketChannel> getServerSocketChannelClass() {
+			return EpollServerSocketChannel.class;
+		}
+	},
+
+	/**
+	 * The java NIO selector, which is available everywhere.
+	 */
+	NIO {
+		@Override
+		public boolean isAvailable() {
+			return true;
+		}
+
+		@Override
+		public EventLoopGroup newEventLoopGroup(int threads) {
+			return new NioEventLoopGroup(threads);
+		}
+
+		@Override
+		public Class<? extends SocketChannel> getSocketChannelClass() {
+			return NioSocketChannel.class;
+		}
+
+		@Override
+		public Class<? extends ServerSocketChannel> getServerSocketChannelClass() {
+			return NioServerSocketChannel.class;
+		}
+	};
+
+	/**
+	 * Returns whether this transport can be used on this machine.
+	 *
+	 * @return Whether the transport is available.
+	 */
+	public abstract boolean isAvailable();
+
+	/**
+	 * Creates a new event loop group of this transport.
+	 *
+	 * @param threads The amount of threads (0 = evaluated by netty)
+	 * @return The event loop group.
+	 */
+	public abstract EventLoopGroup newEventLoopGroup(int threads);
+
+	/**
+	 * Returns the class of the client channels of this transport.
+	 *
+	 * @return The channel class.
+	 */
+	public abstract Class<? extends SocketChannel> getSocketChannelClass();
+
+	/**
+	 * Returns the class of the server channels of this transport.
+	 *
+	 * @return The channel class.
+	 */
+	public abstract Class<? extends ServerSocketChannel> getServerSocketChannelClass();
+
+	/**
+	 * Returns the preferred available transport: io_uring, then epoll and NIO otherwise.
+	 *
+	 * @return The transport.
+	 */
+	public static Transport best() {
+		for (Transport transport : values()) if (transport.isAvailable()) return transport;
+		return NIO;
+	}
+
+	/**
+	 * Returns the given transport, if it is available, or the preferred available transport if it is null.
+	 *
+	 * @param transport The explicitly chosen transport or null
+	 * @return The transport.
+	 */
+	public static Transport resolve(Transport transport) {
+		if (transport == null) return best();
+		if (!transport.isAvailable()) throw new IllegalStateException("The transport " + transport + " is not available.");
+
+		return transport;
+	}
+
+}
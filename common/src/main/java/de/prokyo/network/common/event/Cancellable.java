@@ -0,0 +1,23 @@
+package de.prokyo.network.common.event;
+
+/**
+ * Represents an event which can be cancelled by its handlers.<br>
+ * As soon as the event is cancelled the {@link EventManager} stops calling the remaining (lower priority) handlers.
+ */
+public interface Cancellable {
+
+	/**
+	 * Returns whether the event is cancelled or not.
+	 *
+	 * @return Whether the event is cancelled or not.
+	 */
+	boolean isCancelled();
+
+	/**
+	 * Sets whether the event is cancelled or not.
+	 *
+	 * @param cancelled Whether the event shall be cancelled
+	 */
+	void setCancelled(boolean cancelled);
+
+}
@@ -1,24 +1,38 @@
 package de.prokyo.network.common.event;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.Getter;
 
 /**
  * Manages all kind of stuff related to events.<br>
  * This class is completely thread safe, but blocking while (un-)registering handlers.
+ *
+ * <p>The handlers of every event class are kept in an array sorted by their {@link EventPriority}.
+ * The array is rebuilt while (un-)registering, so firing an event never has to sort or lock anything.
+ * Incoming packets should be dispatched via the {@link PacketDispatcher} of this event manager, which looks up
+ * the same handlers by their packet id instead of their class.</p>
  */
 public class EventManager {
 
-	private final Map<Class<? extends Event>, List<EventHandler<? extends Event>>> eventClassToEventHandler
-			= new HashMap<>();
-	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	private final Map<Class<? extends Event>, HandlerList> eventClassToEventHandler = new ConcurrentHashMap<>();
+	private final Map<Object, List<EventHandler>> listenerToEventHandlers = new IdentityHashMap<>();
+	private final Lock lock = new ReentrantLock();
+	@Getter private final PacketDispatcher packetDispatcher = new PacketDispatcher(this);
 
 	/**
-	 * Registers the given event.
+	 * Registers the given event handler with the priority {@link EventPriority#NORMAL}.
 	 * This method is blocking the complete event manager while executing.
 	 *
 	 * @param clazz The class of the event
@@ -26,12 +40,30 @@ public class EventManager {
 	 * @param <T> The type of the event
 	 */
 	public <T extends Event> void register(Class<T> clazz, EventHandler<T> eventHandler) {
-		lock.writeLock().lock();
+		this.register(clazz, eventHandler, EventPriority.NORMAL);
+	}
+
+	/**
+	 * Registers the given event handler with the given priority.
+	 * This method is blocking the complete event manager while executing.
+	 *
+	 * @param clazz The class of the event
+	 * @param eventHandler The event handler
+	 * @param priority The priority of the event handler
+	 * @param <T> The type of the event
+	 */
+	public <T extends Event> void register(Class<T> clazz, EventHandler<T> eventHandler, EventPriority priority) {
+		if (priority == null) throw new IllegalArgumentException("The priority cannot be null");
+
+		this.lock.lock();
 
 		try {
-			this.eventClassToEventHandler.computeIfAbsent(clazz, c -> new ArrayList<>()).add(eventHandler);
+			HandlerList handlers = this.eventClassToEventHandler.get(clazz);
+			if (handlers == null) handlers = HandlerList.empty(clazz);
+			this.eventClassToEventHandler.put(clazz, handlers.with(eventHandler, priority));
+			this.packetDispatcher.invalidate();
 		} finally {
-			lock.writeLock().unlock();
+			this.lock.unlock();
 		}
 	}
 
@@ -42,27 +74,143 @@ public class EventManager {
 	 * @param eventHandler The event handler
 	 */
 	public void unregister(EventHandler eventHandler) {
-		lock.writeLock().lock();
+		this.lock.lock();
+
+		try {
+			for (Map.Entry<Class<? extends Event>, HandlerList> entry : this.eventClassToEventHandler.entrySet()) {
+				HandlerList handlers = entry.getValue().without(eventHandler);
+				if (handlers == entry.getValue()) continue;
+
+				if (handlers.isEmpty()) this.eventClassToEventHandler.remove(entry.getKey());
+				else entry.setValue(handlers);
+				this.packetDispatcher.invalidate();
+				return;
+			}
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Registers all methods of the given listener annotated with {@link Subscribe}.<br>
+	 * Every method is bound once to an {@link EventHandler} implementation generated by the
+	 * {@link java.lang.invoke.LambdaMetafactory}, so firing an event calls the method directly without any reflection.
+	 * The methods and their classes have to be public, use {@link #registerListener(Object, MethodHandles.Lookup)}
+	 * to register listeners with non-public methods.
+	 * This method is blocking the complete event manager while executing.
+	 *
+	 * @param listener The listener
+	 */
+	public void registerListener(Object listener) {
+		this.registerListener(listener, LOOKUP);
+	}
+
+	/**
+	 * Registers all methods of the given listener annotated with {@link Subscribe}.<br>
+	 * The given lookup is used to access the methods, so passing <i>MethodHandles.lookup()</i> from within the listener
+	 * class allows binding private methods and listeners loaded by other class loaders.
+	 * This method is blocking the complete event manager while executing.
+	 *
+	 * @param listener The listener
+	 * @param lookup A lookup with access to the annotated methods of the listener
+	 */
+	public void registerListener(Object listener, MethodHandles.Lookup lookup) {
+		if (listener == null) throw new IllegalArgumentException("The listener cannot be null");
+
+		List<Method> methods = new ArrayList<>();
+		Set<String> signatures = new HashSet<>();
+		for (Class<?> clazz = listener.getClass(); clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+			for (Method method : clazz.getDeclaredMethods()) {
+				if (method.isBridge() || method.isSynthetic() || !method.isAnnotationPresent(Subscribe.class)) continue;
+				// overridden methods are only bound once
+				if (signatures.add(method.getName() + ListenerMethodBinder.getEventClass(method).getName())) methods.add(method);
+			}
+		}
+
+		// bind everything before registering anything, so a broken listener doesn't get registered partially
+		List<EventHandler> handlers = new ArrayList<>(methods.size());
+		for (Method method : methods) handlers.add(ListenerMethodBinder.bind(lookup, listener, method));
+
+		this.lock.lock();
 
 		try {
-			for (Map.Entry<Class<? extends Event>, List<EventHandler<? extends Event>>> entry : this.eventClassToEventHandler.entrySet())
-				if (entry.getValue().remove(eventHandler)) return;
+			if (this.listenerToEventHandlers.containsKey(listener))
+				throw new IllegalArgumentException("The listener " + listener + " is already registered.");
+
+			for (int i = 0; i < methods.size(); i++) {
+				Method method = methods.get(i);
+				this.registerUnchecked(ListenerMethodBinder.getEventClass(method), handlers.get(i),
+						method.getAnnotation(Subscribe.class).priority());
+			}
+			this.listenerToEventHandlers.put(listener, handlers);
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Unregisters all event handlers of the given listener.
+	 * This method is blocking the complete event manager while executing.
+	 *
+	 * @param listener The listener
+	 */
+	public void unregisterListener(Object listener) {
+		this.lock.lock();
+
+		try {
+			List<EventHandler> handlers = this.listenerToEventHandlers.remove(listener);
+			if (handlers == null) return;
+
+			for (EventHandler handler : handlers) this.unregister(handler);
 		} finally {
-			lock.writeLock().unlock();
+			this.lock.unlock();
 		}
 	}
 
 	/**
-	 * Fires an event and calls all corresponding event handlers.
+	 * Fires an event and calls all corresponding event handlers in order of their priority.<br>
+	 * If the event is {@link Cancellable}, the remaining handlers will be skipped as soon as one handler cancels it.
 	 *
 	 * @param event The event to fire
 	 */
 	public void fire(Event event) {
-		List<EventHandler<? extends Event>> handlers = this.eventClassToEventHandler.get(event.getClass());
-		if (handlers == null) return;
-		for (int i = 0; i < handlers.size(); i++) {
-			((EventHandler) handlers.get(i)).handle(event);
-		}
+		HandlerList handlers = this.eventClassToEventHandler.get(event.getClass());
+		if (handlers != null) handlers.call(event);
+	}
+
+	/**
+	 * Returns whether any handler is registered for the given event class.<br>
+	 * This allows skipping the creation of events nobody listens to.
+	 *
+	 * @param clazz The class of the event
+	 * @return Whether any handler is registered for the event class.
+	 */
+	public boolean hasHandlers(Class<? extends Event> clazz) {
+		return this.eventClassToEventHandler.containsKey(clazz);
+	}
+
+	/**
+	 * Returns the handlers of the given event class.
+	 *
+	 * @param clazz The event class
+	 * @return The handlers of the event class, never null.
+	 */
+	HandlerList getHandlerList(Class<?> clazz) {
+		HandlerList handlers = this.eventClassToEventHandler.get(clazz);
+		return handlers != null ? handlers : HandlerList.empty(clazz);
+	}
+
+	/**
+	 * Registers the given event handler for the given event class without any compile time type checks.
+	 *
+	 * @param clazz The class of the event
+	 * @param eventHandler The event handler
+	 * @param priority The priority of the event handler
+	 * @param <T> The type of the event
+	 */
+	@SuppressWarnings("unchecked")
+	private <T extends Event> void registerUnchecked(Class<T> clazz, EventHandler eventHandler, EventPriority priority) {
+		this.register(clazz, (EventHandler<T>) eventHandler, priority);
 	}
 
 }
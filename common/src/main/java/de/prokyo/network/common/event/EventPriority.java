@@ -0,0 +1,14 @@
+package de.prokyo.network.common.event;
+
+/**
+ * The priority of an {@link EventHandler}.<br>
+ * Handlers with a higher priority are called before handlers with a lower priority.
+ * Handlers with the same priority are called in the order they were registered.
+ */
+public enum EventPriority {
+	LOWEST,
+	LOW,
+	NORMAL,
+	HIGH,
+	HIGHEST
+}
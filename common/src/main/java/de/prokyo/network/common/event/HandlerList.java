@@ -0,0 +1,112 @@
+package de.prokyo.network.common.event;
+
+/**
+ * An immutable, priority sorted list of event handlers for one event class.<br>
+ * The list is rebuilt whenever a handler is (un-)registered, so calling the handlers is just a loop over an array.
+ */
+final class HandlerList {
+
+	private final EventHandler[] handlers;
+	private final EventPriority[] priorities;
+	private final boolean cancellable;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param handlers The handlers sorted by their priority
+	 * @param priorities The priorities of the handlers
+	 * @param cancellable Whether the event class of this list implements {@link Cancellable}
+	 */
+	private HandlerList(EventHandler[] handlers, EventPriority[] priorities, boolean cancellable) {
+		this.handlers = handlers;
+		this.priorities = priorities;
+		this.cancellable = cancellable;
+	}
+
+	/**
+	 * Creates an empty handler list for the given event class.
+	 *
+	 * @param clazz The event class
+	 * @return An empty handler list.
+	 */
+	static HandlerList empty(Class<?> clazz) {
+		return new HandlerList(new EventHandler[0], new EventPriority[0], Cancellable.class.isAssignableFrom(clazz));
+	}
+
+	/**
+	 * Returns a copy of this list containing the given handler.<br>
+	 * The handler is inserted behind all handlers with the same or a higher priority.
+	 *
+	 * @param handler The handler to add
+	 * @param priority The priority of the handler
+	 * @return A new handler list.
+	 */
+	HandlerList with(EventHandler handler, EventPriority priority) {
+		int index = 0;
+		while (index < this.priorities.length && this.priorities[index].compareTo(priority) >= 0) index++;
+
+		EventHandler[] newHandlers = new EventHandler[this.handlers.length + 1];
+		EventPriority[] newPriorities = new EventPriority[this.priorities.length + 1];
+		System.arraycopy(this.handlers, 0, newHandlers, 0, index);
+		System.arraycopy(this.priorities, 0, newPriorities, 0, index);
+		newHandlers[index] = handler;
+		newPriorities[index] = priority;
+		System.arraycopy(this.handlers, index, newHandlers, index + 1, this.handlers.length - index);
+		System.arraycopy(this.priorities, index, newPriorities, index + 1, this.priorities.length - index);
+
+		return new HandlerList(newHandlers, newPriorities, this.cancellable);
+	}
+
+	/**
+	 * Returns a copy of this list without the given handler.
+	 *
+	 * @param handler The handler to remove
+	 * @return A new handler list or <i>this</i> if the handler is not part of this list.
+	 */
+	HandlerList without(EventHandler handler) {
+		for (int i = 0; i < this.handlers.length; i++) {
+			if (!this.handlers[i].equals(handler)) continue;
+
+			EventHandler[] newHandlers = new EventHandler[this.handlers.length - 1];
+			EventPriority[] newPriorities = new EventPriority[this.priorities.length - 1];
+			System.arraycopy(this.handlers, 0, newHandlers, 0, i);
+			System.arraycopy(this.priorities, 0, newPriorities, 0, i);
+			System.arraycopy(this.handlers, i + 1, newHandlers, i, this.handlers.length - i - 1);
+			System.arraycopy(this.priorities, i + 1, newPriorities, i, this.priorities.length - i - 1);
+			return new HandlerList(newHandlers, newPriorities, this.cancellable);
+		}
+
+		return this;
+	}
+
+	/**
+	 * Returns whether this list contains no handlers.
+	 *
+	 * @return Whether this list contains no handlers.
+	 */
+	boolean isEmpty() {
+		return this.handlers.length == 0;
+	}
+
+	/**
+	 * Calls all handlers of this list in order of their priority.<br>
+	 * If the event is {@link Cancellable} the remaining handlers are skipped as soon as it is cancelled.
+	 *
+	 * @param event The event to pass to the handlers
+	 */
+	void call(Event event) {
+		EventHandler[] handlers = this.handlers;
+
+		if (this.cancellable) {
+			Cancellable cancellable = (Cancellable) event;
+			for (int i = 0; i < handlers.length && !cancellable.isCancelled(); i++) {
+				handlers[i].handle(event);
+			}
+		} else {
+			for (int i = 0; i < handlers.length; i++) {
+				handlers[i].handle(event);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,18 @@
+package de.prokyo.network.common.event;
+
+import de.prokyo.network.common.connection.Connection;
+import de.prokyo.network.common.stream.IncomingFile;
+import lombok.Data;
+
+/**
+ * Event that will be called when the remote host starts sending a file.<br>
+ * A handler has to transfer the file to a channel using {@link IncomingFile#transferTo(java.nio.file.Path)}
+ * or {@link IncomingFile#transferTo(java.nio.channels.FileChannel, long)}, otherwise the file is discarded.
+ */
+@Data
+public class IncomingFileEvent implements Event {
+
+	private final Connection connection;
+	private final IncomingFile file;
+
+}
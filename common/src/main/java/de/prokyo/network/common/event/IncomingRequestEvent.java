@@ -0,0 +1,42 @@
+package de.prokyo.network.common.event;
+
+import de.prokyo.network.common.connection.Connection;
+import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.common.packet.ResponsePacket;
+import lombok.Data;
+
+/**
+ * Event that will be called when the remote host sends a request.<br>
+ * A handler has to answer it using {@link #respond(Packet)} or {@link #fail(String)}, either directly or later on
+ * from any thread. Otherwise the request times out on the remote host.
+ */
+@Data
+public class IncomingRequestEvent implements Event {
+
+	private final Connection connection;
+	private final long requestId;
+	private final Packet request;
+
+	/**
+	 * Sends the given response to the remote host.
+	 *
+	 * @param response The response
+	 */
+	public void respond(Packet response) {
+		if (response == null) throw new IllegalArgumentException("The response cannot be null");
+
+		this.connection.sendPacket(new ResponsePacket(this.requestId, response, null));
+	}
+
+	/**
+	 * Fails the request on the remote host with the given error message.
+	 *
+	 * @param error The error message
+	 */
+	public void fail(String error) {
+		if (error == null) throw new IllegalArgumentException("The error cannot be null");
+
+		this.connection.sendPacket(new ResponsePacket(this.requestId, null, error));
+	}
+
+}
@@ -0,0 +1,18 @@
+package de.prokyo.network.common.event;
+
+import de.prokyo.network.common.connection.Connection;
+import de.prokyo.network.common.stream.IncomingStream;
+import lombok.Data;
+
+/**
+ * Event that will be called when the remote host starts sending a stream.<br>
+ * A handler has to consume the stream by either setting a {@link de.prokyo.network.common.stream.StreamListener} or
+ * by reading its {@link IncomingStream#getInputStream()}, otherwise the stream is discarded.
+ */
+@Data
+public class IncomingStreamEvent implements Event {
+
+	private final Connection connection;
+	private final IncomingStream stream;
+
+}
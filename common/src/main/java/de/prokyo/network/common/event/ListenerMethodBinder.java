@@ -0,0 +1,95 @@
+package de.prokyo.network.common.event;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import lombok.SneakyThrows;
+
+/**
+ * Binds methods annotated with {@link Subscribe} to real {@link EventHandler} implementations.<br>
+ * The implementations are spun by the {@link LambdaMetafactory}, so they are exactly what the compiler generates for
+ * a method reference like <i>listener::onEvent</i> and calling them involves no reflection at all.
+ */
+final class ListenerMethodBinder {
+
+	private static final MethodType HANDLE_TYPE = MethodType.methodType(void.class, Event.class);
+
+	/**
+	 * Constructor.
+	 */
+	private ListenerMethodBinder() {
+	}
+
+	/**
+	 * Returns the event class the given listener method listens to.
+	 *
+	 * @param method The listener method
+	 * @return The event class.
+	 * @throws IllegalArgumentException If the method doesn't take exactly one event as parameter.
+	 */
+	static Class<? extends Event> getEventClass(Method method) {
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		if (parameterTypes.length != 1 || !Event.class.isAssignableFrom(parameterTypes[0]))
+			throw new IllegalArgumentException("The method " + method + " has to take exactly one event as parameter.");
+
+		return parameterTypes[0].asSubclass(Event.class);
+	}
+
+	/**
+	 * Creates an event handler calling the given method.
+	 *
+	 * @param lookup A lookup with access to the method
+	 * @param listener The listener instance or null if the method is static
+	 * @param method The listener method
+	 * @return The event handler.
+	 * @throws IllegalArgumentException If the method cannot be accessed with the given lookup.
+	 */
+	static EventHandler bind(MethodHandles.Lookup lookup, Object listener, Method method) {
+		Class<? extends Event> eventClass = getEventClass(method);
+		boolean isStatic = Modifier.isStatic(method.getModifiers());
+
+		MethodType factoryType = isStatic
+				? MethodType.methodType(EventHandler.class)
+				: MethodType.methodType(EventHandler.class, method.getDeclaringClass());
+
+		try {
+			MethodHandle implementation = lookup.unreflect(method);
+			CallSite callSite = LambdaMetafactory.metafactory(lookup, "handle", factoryType, HANDLE_TYPE,
+					implementation, MethodType.methodType(void.class, eventClass));
+
+			return isStatic ? newInstance(callSite.getTarget()) : newInstance(callSite.getTarget(), listener);
+		} catch (IllegalAccessException | LambdaConversionException e) {
+			throw new IllegalArgumentException("The method " + method + " is not accessible from "
+					+ lookup.lookupClass() + ". Register the listener with a lookup of its own class.", e);
+		}
+	}
+
+	/**
+	 * Invokes the given lambda factory without captured arguments.
+	 *
+	 * @param factory The factory returned by the lambda meta factory
+	 * @return The event handler.
+	 */
+	@SneakyThrows
+	private static EventHandler newInstance(MethodHandle factory) {
+		return (EventHandler) factory.invoke();
+	}
+
+	/**
+	 * Invokes the given lambda factory capturing the given listener.
+	 *
+	 * @param factory The factory returned by the lambda meta factory
+	 * @param listener The listener instance
+	 * @return The event handler.
+	 */
+	@SneakyThrows
+	private static EventHandler newInstance(MethodHandle factory, Object listener) {
+		return (EventHandler) factory.invoke(listener);
+	}
+
+}
@@ -0,0 +1,14 @@
+package de.prokyo.network.common.event;
+
+import de.prokyo.network.common.connection.LogicalStream;
+import lombok.Data;
+
+/**
+ * Event that will be called when a logical stream is closed by the remote host or because the connection was closed.
+ */
+@Data
+public class LogicalStreamClosedEvent implements Event {
+
+	private final LogicalStream stream;
+
+}
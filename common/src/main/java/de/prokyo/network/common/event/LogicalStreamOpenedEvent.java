@@ -0,0 +1,17 @@
+package de.prokyo.network.common.event;
+
+import de.prokyo.network.common.connection.Connection;
+import de.prokyo.network.common.connection.LogicalStream;
+import lombok.Data;
+
+/**
+ * Event that will be called when the remote host sends the first packet over a new logical stream.<br>
+ * It is fired before the packet is handled, so the stream can be paused or remembered by the handlers.
+ */
+@Data
+public class LogicalStreamOpenedEvent implements Event {
+
+	private final Connection connection;
+	private final LogicalStream stream;
+
+}
@@ -5,12 +5,14 @@ import de.prokyo.network.common.packet.Packet;
 import lombok.Data;
 
 /**
- * Event that will be called when a packet is written to the pipeline. (flushing ignored)
+ * Event that will be called when a packet is written to the pipeline. (flushing ignored)<br>
+ * Cancelling this event suppresses the write and cancels its future.
  */
 @Data
-public class OutgoingPacketEvent implements Event {
+public class OutgoingPacketEvent implements Event, Cancellable {
 
 	private final Packet packet;
 	private final Connection connection;
+	private boolean cancelled;
 
 }
@@ -0,0 +1,21 @@
+package de.prokyo.network.common.event;
+
+import de.prokyo.network.common.connection.Connection;
+import de.prokyo.network.common.packet.Packet;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Event that will be called once per socket read in batch mode, containing all packets decoded in this read.<br>
+ * Packets whose {@link PacketIncomingEvent} was cancelled are not contained.<br>
+ * The event and its list are reused for every read of the connection, so handlers must not keep references to them.
+ */
+@RequiredArgsConstructor
+public class PacketBatchEvent implements Event {
+
+	@Getter private final Connection connection;
+	@Getter private final List<Packet> packets = new ArrayList<>();
+
+}
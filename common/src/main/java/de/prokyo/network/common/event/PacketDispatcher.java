@@ -0,0 +1,81 @@
+package de.prokyo.network.common.event;
+
+import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.common.packet.PacketRegistry;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Dispatches incoming packets to the handlers registered at its {@link EventManager} by their packet id.<br>
+ * The handlers are kept in a table indexed by the packet id, so dispatching a packet is an array access instead of
+ * a hash lookup of the packet class.
+ *
+ * <p>The table is filled lazily from the handlers of the event manager and cleared whenever a handler is
+ * (un-)registered, so packets and handlers may be registered in any order.
+ * Packet ids above {@link #MAX_TABLE_SIZE} are dispatched via {@link EventManager#fire(Event)}.</p>
+ */
+@RequiredArgsConstructor
+public class PacketDispatcher {
+
+	public static final int MAX_TABLE_SIZE = 1 << 16;
+
+	private final EventManager eventManager;
+	private volatile HandlerList[] handlers = new HandlerList[0];
+	private volatile HandlerList[] reservedHandlers = new HandlerList[0];
+
+	/**
+	 * Calls all handlers of the given packet in order of their priority.
+	 *
+	 * @param packetId The id of the packet
+	 * @param packet The packet
+	 */
+	public void dispatch(int packetId, Packet packet) {
+		// reserved packets have negative ids, so they get a table on their own
+		HandlerList[] table = packetId >= 0 ? this.handlers : this.reservedHandlers;
+		int index = packetId >= 0 ? packetId : -packetId - 1;
+
+		HandlerList handlerList = index < table.length ? table[index] : null;
+		if (handlerList == null) {
+			if (index >= MAX_TABLE_SIZE) {
+				this.eventManager.fire(packet);
+				return;
+			}
+			handlerList = this.resolve(packetId, index);
+		}
+
+		handlerList.call(packet);
+	}
+
+	/**
+	 * Clears the table, so the handlers will be resolved again on the next dispatch.
+	 */
+	synchronized void invalidate() {
+		this.handlers = new HandlerList[0];
+		this.reservedHandlers = new HandlerList[0];
+	}
+
+	/**
+	 * Looks up the handlers of the given packet id and stores them in the table.
+	 *
+	 * @param packetId The packet id
+	 * @param index The index of the packet id in its table
+	 * @return The handlers of the packet id.
+	 */
+	private synchronized HandlerList resolve(int packetId, int index) {
+		Class<? extends Packet> clazz = PacketRegistry.INSTANCE.getPacketClass(packetId);
+		HandlerList handlerList = this.eventManager.getHandlerList(clazz != null ? clazz : Packet.class);
+
+		HandlerList[] table = packetId >= 0 ? this.handlers : this.reservedHandlers;
+		if (index >= table.length) {
+			HandlerList[] newTable = new HandlerList[Math.min(MAX_TABLE_SIZE, Math.max(index + 1, table.length * 2))];
+			System.arraycopy(table, 0, newTable, 0, table.length);
+			table = newTable;
+		}
+
+		table[index] = handlerList;
+		if (packetId >= 0) this.handlers = table;
+		else this.reservedHandlers = table;
+
+		return handlerList;
+	}
+
+}
@@ -2,15 +2,17 @@ package de.prokyo.network.common.event;
 
 import de.prokyo.network.common.connection.Connection;
 import de.prokyo.network.common.packet.Packet;
-import lombok.RequiredArgsConstructor;
+import lombok.Data;
 
 /**
- * Event that will be called when an packet is read.
+ * Event that will be called when an packet is read.<br>
+ * It is fired before the handlers of the packet itself, so cancelling this event drops the packet.
  */
-@RequiredArgsConstructor
-public class PacketIncomingEvent implements Event {
+@Data
+public class PacketIncomingEvent implements Event, Cancellable {
 
 	private final Packet packet;
 	private final Connection connection;
+	private boolean cancelled;
 
 }
@@ -0,0 +1,18 @@
+package de.prokyo.network.common.event;
+
+import de.prokyo.network.common.connection.Connection;
+import de.prokyo.network.common.connection.ReliableSession;
+import lombok.Data;
+
+/**
+ * Event that will be called when a reliable session was started or resumed on a new connection.<br>
+ * If the session wasn't resumed, the remote host lost all previous state and has to be synchronized again.
+ */
+@Data
+public class SessionEstablishedEvent implements Event {
+
+	private final Connection connection;
+	private final ReliableSession session;
+	private final boolean resumed;
+
+}
@@ -0,0 +1,25 @@
+package de.prokyo.network.common.event;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method of a listener as an event handler.<br>
+ * The method has to take exactly one parameter, the event it listens to.
+ *
+ * @see EventManager#registerListener(Object)
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Subscribe {
+
+	/**
+	 * The priority of the event handler.
+	 *
+	 * @return The priority of the event handler.
+	 */
+	EventPriority priority() default EventPriority.NORMAL;
+
+}
@@ -0,0 +1,17 @@
+package de.prokyo.network.common.exception;
+
+/**
+ * Used if the remote host failed to handle a request.
+ */
+public class RequestFailedException extends RuntimeException {
+
+	/**
+	 * Constructor.
+	 *
+	 * @param msg The error message sent by the remote host
+	 */
+	public RequestFailedException(String msg) {
+		super(msg);
+	}
+
+}
@@ -0,0 +1,19 @@
+package de.prokyo.network.common.packet;
+
+/**
+ * A packet of which only the newest value matters, e.g. the position or the health of an entity.<br>
+ * While a connection can't keep up, a queued packet which is not sent yet is replaced by a newer packet of the same
+ * type with the same conflation key, so outdated values are neither encoded nor sent.
+ */
+public interface Conflatable extends Packet {
+
+	/**
+	 * Returns the key identifying the value this packet contains, e.g. the id of the entity.<br>
+	 * Packets of different types never replace each other, so the key only has to be unique per packet type.
+	 * It has to implement {@link Object#equals(Object)} and {@link Object#hashCode()}.
+	 *
+	 * @return The conflation key or null if this packet shall never be replaced.
+	 */
+	Object getConflationKey();
+
+}
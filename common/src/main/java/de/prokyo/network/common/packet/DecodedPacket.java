@@ -0,0 +1,16 @@
+package de.prokyo.network.common.packet;
+
+import lombok.Data;
+
+/**
+ * A packet read from the network together with the packet id it was received with.<br>
+ * The {@link de.prokyo.network.common.pipeline.PacketDecoder} already knows the id, so passing it on saves
+ * the handlers from looking it up again.
+ */
+@Data
+public class DecodedPacket {
+
+	private final int packetId;
+	private final Packet packet;
+
+}
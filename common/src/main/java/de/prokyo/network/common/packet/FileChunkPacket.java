@@ -0,0 +1,34 @@
+package de.prokyo.network.common.packet;
+
+import de.prokyo.network.common.buffer.PacketBuffer;
+import io.netty.buffer.ByteBuf;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A chunk of a file transfer (reserved packet).<br>
+ * The data isn't prefixed with its length, it simply fills the rest of the frame. This allows the sender to write the
+ * header of the packet followed by a {@link io.netty.channel.FileRegion}, so the file is sent without being copied
+ * into the heap. The decoded data is a retained slice of the frame and has to be released by the receiver.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+public class FileChunkPacket implements Packet {
+
+	@Getter private int transferId;
+	@Getter private ByteBuf data;
+
+	@Override
+	public void encode(PacketBuffer buffer) {
+		buffer.writeVarInt(this.transferId);
+		buffer.writeBytes(this.data, this.data.readerIndex(), this.data.readableBytes());
+	}
+
+	@Override
+	public void decode(PacketBuffer buffer) {
+		this.transferId = buffer.readVarInt();
+		this.data = buffer.readRetainedSlice(buffer.readableBytes());
+	}
+
+}
@@ -0,0 +1,44 @@
+package de.prokyo.network.common.packet;
+
+import de.prokyo.network.common.buffer.PacketBuffer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * The header of a file transfer (reserved packet).<br>
+ * It announces the length of the file region, whose bytes follow as {@link FileChunkPacket}s with the same transfer id.
+ * A header with the length {@link #ABORTED} aborts a running transfer. See
+ * {@link de.prokyo.network.common.stream.OutgoingFile}.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+public class FileTransferPacket implements Packet {
+
+	public static final long ABORTED = -1;
+
+	@Getter private int transferId;
+	@Getter private long length;
+
+	@Override
+	public void encode(PacketBuffer buffer) {
+		buffer.writeVarInt(this.transferId);
+		buffer.writeLong(this.length);
+	}
+
+	@Override
+	public void decode(PacketBuffer buffer) {
+		this.transferId = buffer.readVarInt();
+		this.length = buffer.readLong();
+	}
+
+	/**
+	 * Returns whether the sender aborted the transfer, e.g. because reading the file failed.
+	 *
+	 * @return Whether the transfer was aborted.
+	 */
+	public boolean isAborted() {
+		return this.length == ABORTED;
+	}
+
+}
@@ -1,18 +1,34 @@
 package de.prokyo.network.common.packet;
 
 import de.prokyo.network.common.buffer.PacketBuffer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
 
 /**
- * Packet for keeping the connection alive.
+ * Packet for keeping the connection alive and measuring its round trip time (reserved packet).<br>
+ * A heartbeat consists of up to three keep alive packets: the ping carries the send time of its sender, the
+ * answer echoes it and carries the send time of the answering side, which is echoed by the last packet. So both
+ * sides measure the round trip time with a single heartbeat. The times are taken from {@link System#nanoTime()} and
+ * are only compared with the clock of the side which took them. A time of 0 means there is no such time.
  */
+@AllArgsConstructor
+@NoArgsConstructor
 public class KeepAlivePacket implements Packet {
 
+	@Getter private long sendTime;
+	@Getter private long echoedTime;
+
 	@Override
 	public void encode(PacketBuffer buffer) {
+		buffer.writeLong(this.sendTime);
+		buffer.writeLong(this.echoedTime);
 	}
 
 	@Override
 	public void decode(PacketBuffer buffer) {
+		this.sendTime = buffer.readLong();
+		this.echoedTime = buffer.readLong();
 	}
 
 }
@@ -0,0 +1,38 @@
+package de.prokyo.network.common.packet;
+
+import de.prokyo.network.common.buffer.PacketBuffer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Controls a logical stream (reserved packet).<br>
+ * It either grants the remote host the given amount of additional packets it may send over the stream
+ * or closes the stream. See {@link de.prokyo.network.common.connection.LogicalStream}.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+public class LogicalStreamControlPacket implements Packet {
+
+	public static final byte WINDOW_UPDATE = 0x01;
+	public static final byte CLOSE = 0x02;
+
+	@Getter private int streamId;
+	@Getter private byte type;
+	@Getter private int credits;
+
+	@Override
+	public void encode(PacketBuffer buffer) {
+		buffer.writeVarInt(this.streamId);
+		buffer.writeByte(this.type);
+		buffer.writeVarInt(this.credits);
+	}
+
+	@Override
+	public void decode(PacketBuffer buffer) {
+		this.streamId = buffer.readVarInt();
+		this.type = buffer.readByte();
+		this.credits = buffer.readVarInt();
+	}
+
+}
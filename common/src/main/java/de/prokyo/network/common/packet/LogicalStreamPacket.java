@@ -0,0 +1,34 @@
+package de.prokyo.network.common.packet;
+
+import de.prokyo.network.common.buffer.PacketBuffer;
+import de.prokyo.network.common.pipeline.PacketDecoder;
+import de.prokyo.network.common.pipeline.PacketEncoder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A packet sent over a logical stream (reserved packet).<br>
+ * The id of the stream is written in front of the nested packet. See
+ * {@link de.prokyo.network.common.connection.LogicalStream}.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+public class LogicalStreamPacket implements Packet {
+
+	@Getter private int streamId;
+	@Getter private Packet packet;
+
+	@Override
+	public void encode(PacketBuffer buffer) {
+		buffer.writeVarInt(this.streamId);
+		PacketEncoder.writePacket(this.packet, buffer);
+	}
+
+	@Override
+	public void decode(PacketBuffer buffer) {
+		this.streamId = buffer.readVarInt();
+		this.packet = PacketDecoder.readPacket(buffer.readInt(), buffer);
+	}
+
+}
@@ -5,6 +5,8 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 /**
  * The packet registry handles all kinds of mapping between the java class (via reflections) and the packet ids.
@@ -13,6 +15,7 @@ public class PacketRegistry {
 
 	public static final PacketRegistry INSTANCE = new PacketRegistry();
 	public static final byte PROKYO_PROTOCOL_VERSION = 0x01;
+	private static final Logger LOGGER = LogManager.getLogger(PacketRegistry.class);
 
 	static {
 		/*
@@ -22,6 +25,17 @@ public class PacketRegistry {
 		 */
 		INSTANCE.registerPacket(KeepAlivePacket.class, -0x01);
 		INSTANCE.registerPacket(VersionPacket.class, -0x02);
+		INSTANCE.registerPacket(StreamChunkPacket.class, -0x03);
+		INSTANCE.registerPacket(FileTransferPacket.class, -0x04);
+		INSTANCE.registerPacket(FileChunkPacket.class, -0x05);
+		INSTANCE.registerPacket(RequestPacket.class, -0x06);
+		INSTANCE.registerPacket(ResponsePacket.class, -0x07);
+		INSTANCE.registerPacket(LogicalStreamPacket.class, -0x08);
+		INSTANCE.registerPacket(LogicalStreamControlPacket.class, -0x09);
+		INSTANCE.registerPacket(SessionHandshakePacket.class, -0x0A);
+		INSTANCE.registerPacket(SequencedPacket.class, -0x0B);
+		INSTANCE.registerPacket(SessionAckPacket.class, -0x0C);
+		INSTANCE.registerPacket(TimeSyncPacket.class, -0x0D);
 	}
 
 	private final Map<Class<? extends Packet>, Integer> classToPacketId;
@@ -48,7 +62,9 @@ public class PacketRegistry {
 	}
 
 	/**
-	 * Registers the given packet including its class and packet id.
+	 * Registers the given packet including its class and packet id.<br>
+	 * If the id already belongs to another class or the class already has another id, the old mapping is replaced
+	 * and a warning is logged, as both sides of a connection would disagree about the packet otherwise.
 	 *
 	 * @param clazz The class of the packet
 	 * @param packetId The packet id
@@ -67,8 +83,18 @@ public class PacketRegistry {
 	 * @param packetId The packet id
 	 */
 	private void registerPacket(Class<? extends Packet> clazz, Integer packetId) {
-		this.classToPacketId.put(clazz, packetId);
-		this.packetIdToClass.put(packetId, clazz);
+		Integer previousId = this.classToPacketId.put(clazz, packetId);
+		Class<? extends Packet> previousClass = this.packetIdToClass.put(packetId, clazz);
+
+		// remove the stale reverse mappings, so neither class is encoded with an id decoded as the other one
+		if (previousClass != null && previousClass != clazz) {
+			this.classToPacketId.remove(previousClass, packetId);
+			LOGGER.warn("The packet id {} of {} is replaced by {}.", packetId, previousClass.getName(), clazz.getName());
+		}
+		if (previousId != null && !previousId.equals(packetId)) {
+			this.packetIdToClass.remove(previousId, clazz);
+			LOGGER.warn("The packet {} is registered again with the id {} instead of {}.", clazz.getName(), packetId, previousId);
+		}
 
 		if (packetId < 0) { // Should be a reserved packet
 			this.reservedPacketClasses.add(clazz);
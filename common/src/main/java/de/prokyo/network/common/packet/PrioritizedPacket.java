@@ -0,0 +1,16 @@
+package de.prokyo.network.common.packet;
+
+import de.prokyo.network.common.connection.PacketPriority;
+import lombok.Data;
+
+/**
+ * A packet written to the channel together with the priority lane it shall be queued in.<br>
+ * It is unwrapped by the {@link de.prokyo.network.common.pipeline.OutboundQueue}, so the encoders never see it.
+ */
+@Data
+public class PrioritizedPacket {
+
+	private final Packet packet;
+	private final PacketPriority priority;
+
+}
@@ -0,0 +1,34 @@
+package de.prokyo.network.common.packet;
+
+import de.prokyo.network.common.buffer.PacketBuffer;
+import de.prokyo.network.common.pipeline.PacketDecoder;
+import de.prokyo.network.common.pipeline.PacketEncoder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A packet sent as request (reserved packet).<br>
+ * The request id is written in front of the nested packet, so the remote host can send its response with the same id.
+ * See {@link de.prokyo.network.common.connection.Connection#request(Packet, Class, long, java.util.concurrent.TimeUnit)}.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+public class RequestPacket implements Packet {
+
+	@Getter private long requestId;
+	@Getter private Packet packet;
+
+	@Override
+	public void encode(PacketBuffer buffer) {
+		buffer.writeLong(this.requestId);
+		PacketEncoder.writePacket(this.packet, buffer);
+	}
+
+	@Override
+	public void decode(PacketBuffer buffer) {
+		this.requestId = buffer.readLong();
+		this.packet = PacketDecoder.readPacket(buffer.readInt(), buffer);
+	}
+
+}
@@ -0,0 +1,37 @@
+package de.prokyo.network.common.packet;
+
+import de.prokyo.network.common.buffer.PacketBuffer;
+import de.prokyo.network.common.pipeline.PacketDecoder;
+import de.prokyo.network.common.pipeline.PacketEncoder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * The response to a {@link RequestPacket} (reserved packet).<br>
+ * It either contains the response packet or an error message, if the remote host failed to handle the request.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+public class ResponsePacket implements Packet {
+
+	@Getter private long requestId;
+	@Getter private Packet packet;
+	@Getter private String error;
+
+	@Override
+	public void encode(PacketBuffer buffer) {
+		buffer.writeLong(this.requestId);
+		buffer.writeBoolean(this.error != null);
+		if (this.error != null) buffer.writeString(this.error);
+		else PacketEncoder.writePacket(this.packet, buffer);
+	}
+
+	@Override
+	public void decode(PacketBuffer buffer) {
+		this.requestId = buffer.readLong();
+		if (buffer.readBoolean()) this.error = buffer.readString();
+		else this.packet = PacketDecoder.readPacket(buffer.readInt(), buffer);
+	}
+
+}
@@ -0,0 +1,37 @@
+package de.prokyo.network.common.packet;
+
+import de.prokyo.network.common.buffer.PacketBuffer;
+import de.prokyo.network.common.pipeline.PacketDecoder;
+import de.prokyo.network.common.pipeline.PacketEncoder;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A packet sent within a reliable session (reserved packet).<br>
+ * The sequence number of the packet and the cumulative acknowledgement of the packets received by the sender are
+ * written in front of the nested packet. See {@link de.prokyo.network.common.connection.ReliableSession}.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+public class SequencedPacket implements Packet {
+
+	@Getter private long sequence;
+	@Getter private long acknowledged;
+	@Getter private Packet packet;
+
+	@Override
+	public void encode(PacketBuffer buffer) {
+		buffer.writeLong(this.sequence);
+		buffer.writeLong(this.acknowledged);
+		PacketEncoder.writePacket(this.packet, buffer);
+	}
+
+	@Override
+	public void decode(PacketBuffer buffer) {
+		this.sequence = buffer.readLong();
+		this.acknowledged = buffer.readLong();
+		this.packet = PacketDecoder.readPacket(buffer.readInt(), buffer);
+	}
+
+}
@@ -0,0 +1,28 @@
+package de.prokyo.network.common.packet;
+
+import de.prokyo.network.common.buffer.PacketBuffer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Acknowledges all packets of a reliable session up to the given sequence number (reserved packet).<br>
+ * It is only sent if there is no outgoing {@link SequencedPacket} the acknowledgement can be attached to.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+public class SessionAckPacket implements Packet {
+
+	@Getter private long acknowledged;
+
+	@Override
+	public void encode(PacketBuffer buffer) {
+		buffer.writeLong(this.acknowledged);
+	}
+
+	@Override
+	public void decode(PacketBuffer buffer) {
+		this.acknowledged = buffer.readLong();
+	}
+
+}
@@ -0,0 +1,39 @@
+package de.prokyo.network.common.packet;
+
+import de.prokyo.network.common.buffer.PacketBuffer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Starts or resumes a reliable session (reserved packet).<br>
+ * The client sends the id and the token of its previous session (0 for a new session) together with the sequence
+ * number of the last packet it received. The server answers with the session it assigned and whether it was resumed.
+ * See {@link de.prokyo.network.common.connection.ReliableSession}.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+public class SessionHandshakePacket implements Packet {
+
+	@Getter private long sessionId;
+	@Getter private long token;
+	@Getter private long lastReceivedSequence;
+	@Getter private boolean resumed;
+
+	@Override
+	public void encode(PacketBuffer buffer) {
+		buffer.writeLong(this.sessionId);
+		buffer.writeLong(this.token);
+		buffer.writeLong(this.lastReceivedSequence);
+		buffer.writeBoolean(this.resumed);
+	}
+
+	@Override
+	public void decode(PacketBuffer buffer) {
+		this.sessionId = buffer.readLong();
+		this.token = buffer.readLong();
+		this.lastReceivedSequence = buffer.readLong();
+		this.resumed = buffer.readBoolean();
+	}
+
+}
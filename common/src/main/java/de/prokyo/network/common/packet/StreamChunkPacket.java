@@ -0,0 +1,66 @@
+package de.prokyo.network.common.packet;
+
+import de.prokyo.network.common.buffer.PacketBuffer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * A chunk of a payload sent as stream (reserved packet).<br>
+ * The chunks of a stream are sent in order, but they may be interleaved with other packets and with the chunks of
+ * other streams. See {@link de.prokyo.network.common.stream.OutgoingStream}.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+public class StreamChunkPacket implements Packet {
+
+	public static final byte FLAG_FIRST = 0x01;
+	public static final byte FLAG_LAST = 0x02;
+	public static final byte FLAG_ABORT = 0x04;
+
+	@Getter private int streamId;
+	@Getter private byte flags;
+	@Getter private byte[] data;
+
+	@Override
+	public void encode(PacketBuffer buffer) {
+		buffer.writeVarInt(this.streamId);
+		buffer.writeByte(this.flags);
+		buffer.writeByteArray(this.data);
+	}
+
+	@Override
+	public void decode(PacketBuffer buffer) {
+		this.streamId = buffer.readVarInt();
+		this.flags = buffer.readByte();
+		this.data = buffer.readByteArray();
+	}
+
+	/**
+	 * Returns whether this chunk starts a new stream.
+	 *
+	 * @return Whether this is the first chunk of the stream.
+	 */
+	public boolean isFirst() {
+		return (this.flags & FLAG_FIRST) != 0;
+	}
+
+	/**
+	 * Returns whether this chunk completes the stream.
+	 *
+	 * @return Whether this is the last chunk of the stream.
+	 */
+	public boolean isLast() {
+		return (this.flags & FLAG_LAST) != 0;
+	}
+
+	/**
+	 * Returns whether the sender aborted the stream, e.g. because reading the source failed.
+	 *
+	 * @return Whether the stream was aborted.
+	 */
+	public boolean isAborted() {
+		return (this.flags & FLAG_ABORT) != 0;
+	}
+
+}
@@ -0,0 +1,45 @@
+package de.prokyo.network.common.packet;
+
+import de.prokyo.network.common.buffer.PacketBuffer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Packet sampling the offset between the clocks of both sides like NTP (reserved packet).<br>
+ * The request only carries the time it was sent at. The answer echoes it and adds the times the request was received
+ * and the answer was sent by the remote host. All times are taken from
+ * {@link de.prokyo.network.common.connection.TimeSync#currentTimeNanos()}.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+public class TimeSyncPacket implements Packet {
+
+	@Getter private long originateTime;
+	@Getter private long receiveTime;
+	@Getter private long transmitTime;
+
+	/**
+	 * Returns whether this packet is the answer to a request.
+	 *
+	 * @return Whether the packet is an answer.
+	 */
+	public boolean isAnswer() {
+		return this.transmitTime != 0;
+	}
+
+	@Override
+	public void encode(PacketBuffer buffer) {
+		buffer.writeLong(this.originateTime);
+		buffer.writeLong(this.receiveTime);
+		buffer.writeLong(this.transmitTime);
+	}
+
+	@Override
+	public void decode(PacketBuffer buffer) {
+		this.originateTime = buffer.readLong();
+		this.receiveTime = buffer.readLong();
+		this.transmitTime = buffer.readLong();
+	}
+
+}
@@ -0,0 +1,135 @@
+package de.prokyo.network.common.pipeline;
+
+import de.prokyo.network.common.connection.PacketPriority;
+import de.prokyo.network.common.packet.DecodedPacket;
+import de.prokyo.network.common.packet.KeepAlivePacket;
+import de.prokyo.network.common.packet.PrioritizedPacket;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends heartbeats while nothing is received and closes the connection, if the remote host stays silent.<br>
+ * It handles the {@link IdleStateEvent}s of an {@link IdleStateHandler}, which has to be added in front of the
+ * decoders with a reader idle time of the heartbeat interval (see {@link #newIdleStateHandler(long)}). Every received
+ * byte counts as sign of life, so busy connections never send heartbeats. The heartbeat is sent in the high lane of
+ * the {@link OutboundQueue}.
+ *
+ * <p>Each heartbeat measures the round trip time on both sides (see {@link KeepAlivePacket}). It is smoothed like the
+ * retransmission timer of TCP: the smoothed round trip time moves by 1/8 and the jitter, the mean deviation of the
+ * samples, by 1/4 of the difference to a new sample.</p>
+ */
+public class HeartbeatHandler extends ChannelDuplexHandler {
+
+	public static final long DEFAULT_INTERVAL_MILLIS = 5_000;
+	public static final long DEFAULT_TIMEOUT_MILLIS = 15_000;
+
+	private final long intervalMillis;
+	private final long timeoutMillis;
+	private int idleIntervals;
+	private volatile long rttNanos = -1;
+	private volatile long rttJitterNanos = -1;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param intervalMillis The time in milliseconds without receiving anything after which a heartbeat is sent
+	 * @param timeoutMillis The time in milliseconds without receiving anything after which the connection is closed
+	 */
+	public HeartbeatHandler(long intervalMillis, long timeoutMillis) {
+		if (intervalMillis <= 0) throw new IllegalArgumentException("The heartbeat interval has to be positive.");
+		if (timeoutMillis < intervalMillis) throw new IllegalArgumentException("The timeout cannot be shorter than the heartbeat interval.");
+
+		this.intervalMillis = intervalMillis;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	/**
+	 * Creates the idle state handler firing the events this handler is waiting for.
+	 *
+	 * @param intervalMillis The heartbeat interval in milliseconds
+	 * @return The idle state handler.
+	 */
+	public static IdleStateHandler newIdleStateHandler(long intervalMillis) {
+		return new IdleStateHandler(intervalMillis, 0, 0, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns the smoothed round trip time of the connection.
+	 *
+	 * @return The round trip time in nanoseconds or -1 if no heartbeat was answered yet.
+	 */
+	public long getRttNanos() {
+		return this.rttNanos;
+	}
+
+	/**
+	 * Returns the jitter of the round trip time, which is the smoothed mean deviation of the samples.
+	 *
+	 * @return The jitter in nanoseconds or -1 if no heartbeat was answered yet.
+	 */
+	public long getRttJitterNanos() {
+		return this.rttJitterNanos;
+	}
+
+	@Override
+	public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+		if (!(evt instanceof IdleStateEvent) || ((IdleStateEvent) evt).state() != IdleState.READER_IDLE) {
+			ctx.fireUserEventTriggered(evt);
+			return;
+		}
+
+		if (((IdleStateEvent) evt).isFirst()) this.idleIntervals = 0;
+		this.idleIntervals++;
+
+		if (this.idleIntervals * this.intervalMillis >= this.timeoutMillis) ctx.close();
+		else this.send(ctx, new KeepAlivePacket(System.nanoTime(), 0));
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+		if (!(msg instanceof DecodedPacket) || !(((DecodedPacket) msg).getPacket() instanceof KeepAlivePacket)) {
+			ctx.fireChannelRead(msg);
+			return;
+		}
+
+		KeepAlivePacket packet = (KeepAlivePacket) ((DecodedPacket) msg).getPacket();
+		if (packet.getEchoedTime() != 0) this.sample(System.nanoTime() - packet.getEchoedTime());
+
+		// the remote host measures its round trip time once its time is echoed
+		if (packet.getSendTime() != 0) {
+			this.send(ctx, new KeepAlivePacket(packet.getEchoedTime() == 0 ? System.nanoTime() : 0, packet.getSendTime()));
+		}
+	}
+
+	/**
+	 * Updates the smoothed round trip time and the jitter with the given sample.
+	 *
+	 * @param sampleNanos The measured round trip time in nanoseconds
+	 */
+	private void sample(long sampleNanos) {
+		long rtt = this.rttNanos;
+		if (rtt < 0) {
+			this.rttNanos = sampleNanos;
+			this.rttJitterNanos = sampleNanos / 2;
+			return;
+		}
+
+		this.rttJitterNanos += (Math.abs(rtt - sampleNanos) - this.rttJitterNanos) / 4;
+		this.rttNanos = rtt + (sampleNanos - rtt) / 8;
+	}
+
+	/**
+	 * Sends the given keep alive packet in the high lane.
+	 *
+	 * @param ctx The context of this handler
+	 * @param packet The packet
+	 */
+	private void send(ChannelHandlerContext ctx, KeepAlivePacket packet) {
+		ctx.writeAndFlush(new PrioritizedPacket(packet, PacketPriority.HIGH), ctx.voidPromise());
+	}
+
+}
@@ -0,0 +1,658 @@
+package de.prokyo.network.common.pipeline;
+
+import de.prokyo.network.common.connection.PacketPriority;
+import de.prokyo.network.common.connection.SlowConsumerPolicy;
+import de.prokyo.network.common.packet.Conflatable;
+import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.common.packet.PrioritizedPacket;
+import de.prokyo.network.common.stream.OutgoingFile;
+import de.prokyo.network.common.stream.OutgoingStream;
+import de.prokyo.network.common.stream.OutgoingTransfer;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import java.io.InputStream;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Holds back outgoing packets while the channel is not writable, which is the case as long as more bytes than the
+ * high write buffer watermark are waiting to be sent.<br>
+ * Packets are passed through directly as long as the channel is writable. Otherwise they are queued before being
+ * encoded and the {@link SlowConsumerPolicy} is applied once the queue is full. The queue is drained as soon as the
+ * channel becomes writable again.
+ *
+ * <p>Every {@link PacketPriority} has its own lane. The lanes are drained by a weighted round robin at packet
+ * boundaries, so latency critical packets overtake queued bulk transfers without starving them.
+ * {@link OutgoingTransfer}s like streams and files are part of the bulk lane: whenever a transfer is scheduled, its
+ * next chunk is written and the following one is read ahead from its source, so transfers interleave with all other
+ * packets and never occupy more than two chunks of memory. A transfer is only scheduled once its next chunk is
+ * ready, so a slow source never holds back the queue.</p>
+ *
+ * <p>A queued {@link Conflatable} packet is replaced in place by a newer packet of the same type with the same
+ * conflation key, so the queue holds at most one packet per key and outdated values are never encoded.</p>
+ *
+ * <p>The queue itself is only accessed by the event loop of the channel, the settings and metrics can be accessed
+ * by any thread.</p>
+ */
+public class OutboundQueue extends ChannelDuplexHandler {
+
+	public static final int DEFAULT_MAX_QUEUED_PACKETS = 8192;
+	/**
+	 * The executor shared by all connections to read and write the chunks of transfers, so blocking sources and disks
+	 * never stall an event loop.
+	 */
+	public static final Executor DEFAULT_TRANSFER_EXECUTOR = Executors.newCachedThreadPool(new DefaultThreadFactory("prokyo-transfer-io", true));
+	private static final PacketPriority[] PRIORITIES = PacketPriority.values();
+
+	/**
+	 * The policy applied if the queue is full.
+	 */
+	@Getter @Setter private volatile SlowConsumerPolicy policy;
+	/**
+	 * The amount of packets which can be queued before the policy is applied.
+	 */
+	@Getter @Setter private volatile int maxQueuedPackets;
+	/**
+	 * The time in milliseconds the channel may stay unwritable before it is closed by the
+	 * {@link SlowConsumerPolicy#DISCONNECT} policy (0 = unlimited).
+	 */
+	@Getter @Setter private volatile long maxUnwritableMillis;
+	/**
+	 * The executor reading the chunks of transfers, so blocking sources never stall the event loop.
+	 */
+	@Getter @Setter private volatile Executor transferExecutor = DEFAULT_TRANSFER_EXECUTOR;
+	@Getter private volatile int queuedPackets;
+	private final Lane[] lanes = new Lane[PRIORITIES.length];
+	private final Lane bulkLane;
+	private final Deque<OutgoingTransfer> transfers = new ArrayDeque<>();
+	private final AtomicInteger transferIds = new AtomicInteger();
+	private final Map<Object, Entry> conflationEntries = new HashMap<>();
+	private final LongAdder droppedPackets = new LongAdder();
+	private final Object writabilityLock = new Object();
+	private volatile ChannelHandlerContext context;
+	private long unwritableSince;
+	private boolean transferTurn;
+	private boolean draining;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param policy The policy applied if the queue is full
+	 * @param maxQueuedPackets The amount of packets which can be queued before the policy is applied
+	 * @param maxUnwritableMillis The time the channel may stay unwritable before it is closed by the
+	 *                            {@link SlowConsumerPolicy#DISCONNECT} policy (0 = unlimited)
+	 */
+	public OutboundQueue(SlowConsumerPolicy policy, int maxQueuedPackets, long maxUnwritableMillis) {
+		if (policy == null) throw new IllegalArgumentException("The policy cannot be null");
+		if (maxQueuedPackets <= 0) throw new IllegalArgumentException("The amount of queued packets has to be positive.");
+
+		this.policy = policy;
+		this.maxQueuedPackets = maxQueuedPackets;
+		this.maxUnwritableMillis = maxUnwritableMillis;
+		for (int i = 0; i < this.lanes.length; i++) this.lanes[i] = new Lane(PRIORITIES[i].getWeight());
+		this.bulkLane = this.lanes[PacketPriority.BULK.ordinal()];
+	}
+
+	/**
+	 * Sends the content of the given input stream as a sequence of chunks in the bulk lane.<br>
+	 * The input stream is read on the event loop of the channel whenever the next chunk is scheduled and closed
+	 * afterwards. This method can be called by any thread.
+	 *
+	 * @param input The input stream
+	 * @return A future completed after the last chunk was written.
+	 */
+	public CompletableFuture<Void> sendStream(InputStream input) {
+		return this.addTransfer(new OutgoingStream(this.transferIds.incrementAndGet(), input, OutgoingStream.DEFAULT_CHUNK_SIZE));
+	}
+
+	/**
+	 * Sends the given region of a file in the bulk lane.<br>
+	 * The file is sent by the kernel without copying it into the heap, as long as the packets of the channel are
+	 * neither compressed nor encrypted. Otherwise its chunks are read into pooled buffers by the
+	 * {@link #getTransferExecutor() transfer executor}.
+	 * This method can be called by any thread.
+	 *
+	 * @param file The file
+	 * @param offset The position of the first byte to send
+	 * @param length The amount of bytes to send
+	 * @return A future completed after the last chunk was written.
+	 */
+	public CompletableFuture<Void> sendFile(Path file, long offset, long length) {
+		return this.addTransfer(new OutgoingFile(this.transferIds.incrementAndGet(), file, offset, length, OutgoingFile.DEFAULT_CHUNK_SIZE));
+	}
+
+	/**
+	 * Returns the amount of packets currently queued in the lane of the given priority.
+	 *
+	 * @param priority The priority
+	 * @return The amount of queued packets.
+	 */
+	public int getQueuedPackets(PacketPriority priority) {
+		return this.lanes[priority.ordinal()].size;
+	}
+
+	/**
+	 * Returns the average time the packets of the given priority spent in the queue until they were written.<br>
+	 * Packets passed through directly are not included.
+	 *
+	 * @param priority The priority
+	 * @return The average queue latency in nanoseconds.
+	 */
+	public long getAverageQueueLatencyNanos(PacketPriority priority) {
+		Lane lane = this.lanes[priority.ordinal()];
+		long writtenPackets = lane.writtenPackets;
+		return writtenPackets == 0 ? 0 : lane.totalLatencyNanos / writtenPackets;
+	}
+
+	/**
+	 * Returns the maximum time a packet of the given priority spent in the queue until it was written.
+	 *
+	 * @param priority The priority
+	 * @return The maximum queue latency in nanoseconds.
+	 */
+	public long getMaxQueueLatencyNanos(PacketPriority priority) {
+		return this.lanes[priority.ordinal()].maxLatencyNanos;
+	}
+
+	/**
+	 * Returns the amount of packets dropped by the policy since the connection was established.
+	 *
+	 * @return The amount of dropped packets.
+	 */
+	public long getDroppedPackets() {
+		return this.droppedPackets.sum();
+	}
+
+	/**
+	 * Returns the amount of bytes written to the channel which are not sent yet.<br>
+	 * The packets still being queued by this handler are not included, as they are not encoded yet.
+	 *
+	 * @return The amount of pending bytes.
+	 */
+	public long getPendingWriteBytes() {
+		ChannelHandlerContext ctx = this.context;
+		ChannelOutboundBuffer buffer = ctx != null ? ctx.channel().unsafe().outboundBuffer() : null;
+		return buffer != null ? buffer.totalPendingWriteBytes() : 0;
+	}
+
+	/**
+	 * Blocks the current thread until the channel is writable, if the {@link SlowConsumerPolicy#BLOCK} policy is used.<br>
+	 * It returns immediately if it's called by the event loop of the channel or if the channel is closed.
+	 */
+	public void awaitWritable() {
+		ChannelHandlerContext ctx = this.context;
+		if (this.policy != SlowConsumerPolicy.BLOCK || ctx == null || ctx.executor().inEventLoop()) return;
+
+		Channel channel = ctx.channel();
+
+		synchronized (this.writabilityLock) {
+			while (!channel.isWritable() && channel.isActive()) {
+				try {
+					this.writabilityLock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	@Override
+	public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+		this.context = ctx;
+	}
+
+	@Override
+	public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+		this.clear();
+	}
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+		Packet packet;
+		PacketPriority priority;
+		if (msg instanceof PrioritizedPacket) {
+			packet = ((PrioritizedPacket) msg).getPacket();
+			priority = ((PrioritizedPacket) msg).getPriority();
+		} else if (msg instanceof Packet) {
+			packet = (Packet) msg;
+			priority = PacketPriority.NORMAL;
+		} else {
+			ctx.write(msg, promise);
+			return;
+		}
+
+		// a closed channel fails the write immediately instead of leaving it in the queue forever
+		if (!this.hasPending() && (ctx.channel().isWritable() || !ctx.channel().isOpen())) {
+			ctx.write(packet, promise);
+			return;
+		}
+
+		this.enqueue(ctx, packet, priority, promise);
+		this.drain(ctx, false);
+	}
+
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+		if (ctx.channel().isWritable()) {
+			this.unwritableSince = 0;
+			this.drain(ctx, true);
+			this.signalWaiters();
+		} else if (this.unwritableSince == 0) {
+			this.unwritableSince = System.nanoTime();
+			this.scheduleDisconnect(ctx, this.unwritableSince);
+		}
+
+		ctx.fireChannelWritabilityChanged();
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		// a reliable session keeps the queued packets, so they are sent once the session is resumed
+		if (ctx.pipeline().get(ReliableSessionHandler.class) != null) {
+			for (Lane lane : this.lanes) {
+				while (lane.size > 0) {
+					Entry entry = this.poll(lane);
+					ctx.write(entry.packet, entry.promise);
+				}
+			}
+		}
+
+		this.clear();
+		ctx.fireChannelInactive();
+	}
+
+	/**
+	 * Adds the given transfer to the bulk lane on the event loop of the channel.
+	 *
+	 * @param transfer The transfer
+	 * @return The future of the transfer.
+	 */
+	private CompletableFuture<Void> addTransfer(OutgoingTransfer transfer) {
+		ChannelHandlerContext ctx = this.context;
+		if (ctx == null) {
+			transfer.fail(new IllegalStateException("The outbound queue is not added to a channel."));
+			return transfer.getFuture();
+		}
+
+		try {
+			ctx.executor().execute(() -> {
+				if (!ctx.channel().isActive()) {
+					transfer.fail(new ClosedChannelException());
+					return;
+				}
+
+				transfer.prepareNextChunk(ctx, this.transferExecutor, () -> this.schedule(ctx, transfer));
+			});
+		} catch (RejectedExecutionException e) {
+			transfer.fail(e);
+		}
+		return transfer.getFuture();
+	}
+
+	/**
+	 * Adds the given packet to the queue and applies the policy if the queue is full.
+	 *
+	 * @param ctx The context of this handler
+	 * @param packet The packet
+	 * @param priority The priority of the packet
+	 * @param promise The promise of the write
+	 */
+	private void enqueue(ChannelHandlerContext ctx, Packet packet, PacketPriority priority, ChannelPromise promise) {
+		SlowConsumerPolicy policy = this.policy;
+		Object conflationKey = OutboundQueue.getConflationKey(packet, policy);
+
+		if (conflationKey != null) {
+			Entry entry = this.conflationEntries.get(conflationKey);
+			if (entry != null) {
+				this.drop(entry.promise);
+				entry.packet = packet;
+				entry.promise = promise;
+				return;
+			}
+		}
+
+		if (policy != SlowConsumerPolicy.UNBOUNDED && this.queuedPackets >= this.maxQueuedPackets) {
+			switch (policy) {
+				case BLOCK:
+					// only the event loop itself can get here, as all other threads wait until the channel is writable
+					break;
+
+				case DROP_NEWEST:
+					this.drop(promise);
+					return;
+
+				case DISCONNECT:
+					this.drop(promise);
+					ctx.close();
+					return;
+
+				default:
+					// the oldest packet of the lowest priority makes room, so bulk transfers can't push out important packets
+					this.drop(this.pollLowestPriority().promise);
+					break;
+			}
+		}
+
+		Lane lane = this.lanes[priority.ordinal()];
+		Entry entry = new Entry(packet, promise, conflationKey, lane, System.nanoTime());
+		lane.entries.add(entry);
+		lane.size++;
+		if (conflationKey != null) this.conflationEntries.put(conflationKey, entry);
+		this.queuedPackets++;
+	}
+
+	/**
+	 * Returns the key identifying the queued packet the given packet replaces.
+	 *
+	 * @param packet The packet
+	 * @param policy The current policy
+	 * @return The conflation key or null if the packet doesn't replace other packets.
+	 */
+	private static Object getConflationKey(Packet packet, SlowConsumerPolicy policy) {
+		if (packet instanceof Conflatable) {
+			Object key = ((Conflatable) packet).getConflationKey();
+			if (key != null) return new ConflationKey(packet.getClass(), key);
+		}
+
+		return policy == SlowConsumerPolicy.CONFLATE ? packet.getClass() : null;
+	}
+
+	/**
+	 * Writes the queued packets as long as the channel is writable.<br>
+	 * Flushing may make the channel writable again immediately, which calls this method recursively. These calls
+	 * return immediately and the running call continues instead, so large streams can't overflow the stack.
+	 *
+	 * @param ctx The context of this handler
+	 * @param flush Whether the channel shall be flushed if anything was written
+	 */
+	private void drain(ChannelHandlerContext ctx, boolean flush) {
+		if (this.draining) return;
+
+		this.draining = true;
+		try {
+			boolean written;
+			do {
+				written = false;
+				while (this.hasPending() && ctx.channel().isWritable()) {
+					this.writeNext(ctx);
+					written = true;
+				}
+
+				if (flush && written) ctx.flush();
+			} while (flush && written && this.hasPending() && ctx.channel().isWritable());
+		} finally {
+			this.draining = false;
+		}
+	}
+
+	/**
+	 * Returns whether there are queued packets or transfers.<br>
+	 * Packets written past the queue would overtake them.
+	 *
+	 * @return Whether anything is left to write.
+	 */
+	public boolean hasPending() {
+		return this.queuedPackets > 0 || !this.transfers.isEmpty();
+	}
+
+	/**
+	 * Writes the next packet or chunk selected by the weighted round robin.
+	 *
+	 * @param ctx The context of this handler
+	 */
+	private void writeNext(ChannelHandlerContext ctx) {
+		Lane lane = this.nextLane();
+
+		// the bulk lane alternates between its packets and the transfers
+		if (lane == this.bulkLane && !this.transfers.isEmpty()) {
+			this.transferTurn = !this.transferTurn;
+			if (lane.size == 0 || this.transferTurn) {
+				this.writeChunk(ctx);
+				return;
+			}
+		}
+
+		Entry entry = this.poll(lane);
+		entry.lane.recordLatency(System.nanoTime() - entry.enqueuedAt);
+		ctx.write(entry.packet, entry.promise);
+	}
+
+	/**
+	 * Writes the next chunk of the first transfer and schedules the transfer again once its following chunk was
+	 * prepared, if it isn't finished yet.<br>
+	 * Sequential transfers prepare their following chunk after their chunk was sent instead.
+	 * A failed write fails the transfer itself.
+	 *
+	 * @param ctx The context of this handler
+	 */
+	private void writeChunk(ChannelHandlerContext ctx) {
+		OutgoingTransfer transfer = this.transfers.poll();
+		// a transfer is failed by the write of an earlier chunk
+		if (transfer.isFinished()) return;
+
+		ChannelFuture write = transfer.writeNextChunk(ctx);
+		if (transfer.isFinished()) return;
+
+		if (!transfer.isSequential()) {
+			transfer.prepareNextChunk(ctx, this.transferExecutor, () -> this.schedule(ctx, transfer));
+			return;
+		}
+
+		// the chunk doesn't make the channel unwritable, so the transfer is scheduled again once the chunk was sent
+		write.addListener(future -> {
+			if (future.isSuccess()) transfer.prepareNextChunk(ctx, this.transferExecutor, () -> this.schedule(ctx, transfer));
+		});
+	}
+
+	/**
+	 * Adds the given transfer, whose next chunk is ready, to the end of the transfers and drains the queue.
+	 *
+	 * @param ctx The context of this handler
+	 * @param transfer The transfer
+	 */
+	private void schedule(ChannelHandlerContext ctx, OutgoingTransfer transfer) {
+		if (!ctx.channel().isActive() || ctx.isRemoved()) {
+			transfer.fail(new ClosedChannelException());
+			return;
+		}
+
+		this.transfers.add(transfer);
+		this.drain(ctx, true);
+	}
+
+	/**
+	 * Selects the lane the next packet is written from using a weighted round robin.<br>
+	 * Every round each lane may send up to its weight of packets, starting with the highest priority.
+	 * The queue must not be empty.
+	 *
+	 * @return The selected lane.
+	 */
+	private Lane nextLane() {
+		while (true) {
+			for (Lane lane : this.lanes) {
+				if ((lane.size > 0 || (lane == this.bulkLane && !this.transfers.isEmpty())) && lane.credits > 0) {
+					lane.credits--;
+					return lane;
+				}
+			}
+
+			// every lane with packets used up its credits, so the next round starts
+			for (Lane lane : this.lanes) lane.credits = lane.weight;
+		}
+	}
+
+	/**
+	 * Removes the oldest packet of the lowest priority lane containing packets.
+	 *
+	 * @return The removed entry.
+	 */
+	private Entry pollLowestPriority() {
+		for (int i = this.lanes.length - 1; i > 0; i--) if (this.lanes[i].size > 0) return this.poll(this.lanes[i]);
+		return this.poll(this.lanes[0]);
+	}
+
+	/**
+	 * Removes the first packet of the given lane.
+	 *
+	 * @param lane The lane
+	 * @return The removed entry.
+	 */
+	private Entry poll(Lane lane) {
+		Entry entry = lane.entries.poll();
+		lane.size--;
+		if (entry.conflationKey != null) this.conflationEntries.remove(entry.conflationKey);
+		this.queuedPackets--;
+		return entry;
+	}
+
+	/**
+	 * Cancels the write of a dropped packet.
+	 *
+	 * @param promise The promise of the write
+	 */
+	private void drop(ChannelPromise promise) {
+		promise.cancel(false);
+		this.droppedPackets.increment();
+	}
+
+	/**
+	 * Closes the channel after the maximum unwritable time, if it didn't become writable in the meantime.
+	 *
+	 * @param ctx The context of this handler
+	 * @param unwritableSince The time the channel became unwritable
+	 */
+	private void scheduleDisconnect(ChannelHandlerContext ctx, long unwritableSince) {
+		long maxUnwritableMillis = this.maxUnwritableMillis;
+		if (this.policy != SlowConsumerPolicy.DISCONNECT || maxUnwritableMillis <= 0) return;
+
+		ctx.executor().schedule(() -> {
+			if (this.unwritableSince == unwritableSince) ctx.close();
+		}, maxUnwritableMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Cancels all queued writes, fails all transfers and wakes up all blocked threads.
+	 */
+	private void clear() {
+		for (Lane lane : this.lanes) {
+			for (Entry entry : lane.entries) entry.promise.cancel(false);
+			lane.entries.clear();
+			lane.size = 0;
+		}
+		this.conflationEntries.clear();
+		this.queuedPackets = 0;
+
+		ClosedChannelException cause = new ClosedChannelException();
+		for (OutgoingTransfer transfer : this.transfers) transfer.fail(cause);
+		this.transfers.clear();
+		this.signalWaiters();
+	}
+
+	/**
+	 * Wakes up all threads waiting for the channel to become writable.
+	 */
+	private void signalWaiters() {
+		synchronized (this.writabilityLock) {
+			this.writabilityLock.notifyAll();
+		}
+	}
+
+	/**
+	 * A queued packet.
+	 */
+	private static class Entry {
+
+		private Packet packet;
+		private ChannelPromise promise;
+		private final Object conflationKey;
+		private final Lane lane;
+		private final long enqueuedAt;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param packet The packet
+		 * @param promise The promise of the write
+		 * @param conflationKey The key of the packet in the conflation map or null
+		 * @param lane The lane the packet is queued in
+		 * @param enqueuedAt The time the packet was queued in nanoseconds
+		 */
+		Entry(Packet packet, ChannelPromise promise, Object conflationKey, Lane lane, long enqueuedAt) {
+			this.packet = packet;
+			this.promise = promise;
+			this.conflationKey = conflationKey;
+			this.lane = lane;
+			this.enqueuedAt = enqueuedAt;
+		}
+
+	}
+
+	/**
+	 * The queue of one priority including its metrics.<br>
+	 * It is only modified by the event loop, the metrics are volatile so they can be read by any thread.
+	 */
+	private static class Lane {
+
+		private final Deque<Entry> entries = new ArrayDeque<>();
+		private final int weight;
+		private int credits;
+		private volatile int size;
+		private volatile long writtenPackets;
+		private volatile long totalLatencyNanos;
+		private volatile long maxLatencyNanos;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param weight The amount of packets sent from this lane per round
+		 */
+		Lane(int weight) {
+			this.weight = weight;
+			this.credits = weight;
+		}
+
+		/**
+		 * Records the time a packet of this lane spent in the queue.
+		 *
+		 * @param latencyNanos The time in nanoseconds
+		 */
+		void recordLatency(long latencyNanos) {
+			this.writtenPackets++;
+			this.totalLatencyNanos += latencyNanos;
+			if (latencyNanos > this.maxLatencyNanos) this.maxLatencyNanos = latencyNanos;
+		}
+
+	}
+
+	/**
+	 * The conflation key of a {@link Conflatable} packet combined with its type.
+	 */
+	@Data
+	private static class ConflationKey {
+
+		private final Class<?> type;
+		private final Object key;
+
+	}
+
+}
@@ -2,6 +2,7 @@ package de.prokyo.network.common.pipeline;
 
 import de.prokyo.network.common.buffer.PacketBuffer;
 import de.prokyo.network.common.exception.DecodingException;
+import de.prokyo.network.common.packet.DecodedPacket;
 import de.prokyo.network.common.packet.Packet;
 import de.prokyo.network.common.packet.PacketRegistry;
 import io.netty.buffer.ByteBuf;
@@ -10,25 +11,48 @@ import io.netty.handler.codec.ByteToMessageDecoder;
 import java.util.List;
 
 /**
- * Decodes the encoded data and creates a new instance of the packet containing the information for the next handlers.
+ * Decodes the encoded data and creates a new instance of the packet containing the information for the next handlers.<br>
+ * The packets are passed on as {@link DecodedPacket} including their packet id.
  */
 public class PacketDecoder extends ByteToMessageDecoder {
 
+	/**
+	 * The default maximum size of a frame in bytes.
+	 * Larger payloads should be sent as stream, see {@link de.prokyo.network.common.connection.Connection#sendStream(java.io.InputStream)}.
+	 */
+	public static final int DEFAULT_MAX_FRAME_SIZE = 1024 * 1024;
 
 	@Override
 	protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
 		PacketBuffer buffer = new PacketBuffer(in);
 
 		int packetId = buffer.readInt();
+		out.add(new DecodedPacket(packetId, PacketDecoder.readPacket(packetId, buffer)));
+	}
+
+	/**
+	 * Reads the packet with the given id from the given buffer.<br>
+	 * This is exactly what the decoder reads for every packet after reading its id, so packets can be nested into
+	 * other packets, see {@link PacketEncoder#writePacket(Packet, io.netty.buffer.ByteBuf)}.
+	 *
+	 * @param packetId The id of the packet
+	 * @param buffer The buffer containing the encoded data of the packet
+	 * @return The decoded packet.
+	 */
+	public static Packet readPacket(int packetId, PacketBuffer buffer) {
 		if (packetId < 0 && !PacketRegistry.INSTANCE.isReservedPacket(packetId))
 			throw new DecodingException("A packet id can't be lower than zero.");
 
-		Packet packet = PacketRegistry.INSTANCE.newInstance(packetId);
+		Packet packet;
+		try {
+			packet = PacketRegistry.INSTANCE.newInstance(packetId);
+		} catch (InstantiationException | IllegalAccessException e) {
+			throw new DecodingException("The packet " + packetId + " can't be instantiated.", e);
+		}
 		if (packet == null) throw new DecodingException("Unknown packet id: " + packetId);
 
 		packet.decode(buffer);
-
-		out.add(packet);
+		return packet;
 	}
 
 }
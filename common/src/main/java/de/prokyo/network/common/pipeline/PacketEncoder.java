@@ -15,6 +15,17 @@ public class PacketEncoder extends MessageToByteEncoder<Packet> {
 
 	@Override
 	protected void encode(ChannelHandlerContext channelHandlerContext, Packet packet, ByteBuf byteBuf) throws Exception {
+		PacketEncoder.writePacket(packet, byteBuf);
+	}
+
+	/**
+	 * Writes the packet id and the encoded data of the given packet to the given buffer.<br>
+	 * This is exactly what the encoder writes for every packet passing the pipeline.
+	 *
+	 * @param packet The packet to encode
+	 * @param byteBuf The buffer the encoded packet is written to
+	 */
+	public static void writePacket(Packet packet, ByteBuf byteBuf) {
 		PacketBuffer buffer = new PacketBuffer(byteBuf);
 
 		int packetId = PacketRegistry.INSTANCE.getPacketId(packet.getClass());
@@ -22,6 +22,17 @@ public class ProkyoCompressor extends MessageToMessageEncoder<ByteBuf> {
 
 	@Override
 	protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+		out.add(ProkyoCompressor.compress(msg));
+	}
+
+	/**
+	 * Compresses the given encoded packet the same way the compressor does for every packet passing the pipeline.<br>
+	 * The given buffer is not released.
+	 *
+	 * @param msg The encoded packet including its packet id
+	 * @return A new buffer containing the compressed packet.
+	 */
+	public static PacketBuffer compress(ByteBuf msg) {
 		PacketBuffer original = new PacketBuffer(msg);
 		original.resetReaderIndex();
 		int packetId = original.readInt();
@@ -50,7 +61,7 @@ public class ProkyoCompressor extends MessageToMessageEncoder<ByteBuf> {
 			buffer.writeBytes(compressedData);
 		}
 
-		out.add(buffer);
+		return buffer;
 	}
 
 }
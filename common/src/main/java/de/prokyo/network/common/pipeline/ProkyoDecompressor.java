@@ -25,7 +25,6 @@ public class ProkyoDecompressor extends MessageToMessageDecoder<ByteBuf> {
 		PacketBuffer buffer;
 		if (informationByte == 0) {
 			buffer = new PacketBuffer(4 + original.readableBytes());
-			original.writerIndex(original.readerIndex());
 			buffer.writeInt(packetId);
 			buffer.writeBytes(original);
 		} else {
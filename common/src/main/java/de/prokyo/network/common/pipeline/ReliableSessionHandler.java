@@ -0,0 +1,342 @@
+package de.prokyo.network.common.pipeline;
+
+import de.prokyo.network.common.connection.Connection;
+import de.prokyo.network.common.connection.ReliableSession;
+import de.prokyo.network.common.connection.SessionRegistry;
+import de.prokyo.network.common.event.EventManager;
+import de.prokyo.network.common.event.SessionEstablishedEvent;
+import de.prokyo.network.common.packet.DecodedPacket;
+import de.prokyo.network.common.packet.FileChunkPacket;
+import de.prokyo.network.common.packet.FileTransferPacket;
+import de.prokyo.network.common.packet.KeepAlivePacket;
+import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.common.packet.PacketRegistry;
+import de.prokyo.network.common.packet.SequencedPacket;
+import de.prokyo.network.common.packet.SessionAckPacket;
+import de.prokyo.network.common.packet.SessionHandshakePacket;
+import de.prokyo.network.common.packet.TimeSyncPacket;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.ScheduledFuture;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends and receives the packets of a connection within a {@link ReliableSession}.<br>
+ * It is added between the encoder and the {@link OutboundQueue}, so the packets are numbered in the order they are
+ * actually written, after they were prioritized, conflated or dropped by the queue.
+ *
+ * <p>The client starts the session handshake once the connection is active. Packets written before the handshake
+ * is completed are held back and sent after the packets resent to resume the session. A client which doesn't use
+ * sessions is detected by the server, once it sends another packet first or doesn't send the handshake within
+ * {@link #HANDSHAKE_TIMEOUT_MILLIS}. The packets are passed through unchanged in that case. Packets still queued by the
+ * {@link OutboundQueue} when the connection is closed are handed to the session as well. Files are not covered by
+ * the session.</p>
+ *
+ * <p>Once a client resumed its session over a new connection, the server side handler of the previous connection
+ * doesn't assign sequence numbers anymore. Packets still written to it are handed to the new connection instead and
+ * sent after the resent packets. Packets have to be received in order, a gap closes the connection, so the session
+ * is resumed with the missing packets.</p>
+ */
+public class ReliableSessionHandler extends ChannelDuplexHandler {
+
+	public static final int ACK_THRESHOLD = 64;
+	public static final long ACK_INTERVAL_MILLIS = 100;
+	public static final long HANDSHAKE_TIMEOUT_MILLIS = 1000;
+
+	private final Connection connection;
+	private final EventManager eventManager;
+	private final SessionRegistry registry;
+	private final List<PendingWrite> pendingWrites = new ArrayList<>();
+	private ReliableSession session;
+	private boolean established;
+	private boolean passThrough;
+	private int receivedSinceAck;
+	private ScheduledFuture<?> ackTask;
+	private ScheduledFuture<?> handshakeTimeout;
+
+	/**
+	 * Constructor of the client side.
+	 *
+	 * @param session The session, which is kept by the client across its connections
+	 * @param connection The connection
+	 * @param eventManager The event manager the {@link SessionEstablishedEvent} is fired with
+	 */
+	public ReliableSessionHandler(ReliableSession session, Connection connection, EventManager eventManager) {
+		this(session, null, connection, eventManager);
+	}
+
+	/**
+	 * Constructor of the server side.
+	 *
+	 * @param registry The sessions of the server
+	 * @param connection The connection
+	 * @param eventManager The event manager the {@link SessionEstablishedEvent} is fired with
+	 */
+	public ReliableSessionHandler(SessionRegistry registry, Connection connection, EventManager eventManager) {
+		this(null, registry, connection, eventManager);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param session The session of the client or null on the server side
+	 * @param registry The sessions of the server or null on the client side
+	 * @param connection The connection
+	 * @param eventManager The event manager the {@link SessionEstablishedEvent} is fired with
+	 */
+	private ReliableSessionHandler(ReliableSession session, SessionRegistry registry, Connection connection, EventManager eventManager) {
+		this.session = session;
+		this.registry = registry;
+		this.connection = connection;
+		this.eventManager = eventManager;
+	}
+
+	@Override
+	public void channelActive(ChannelHandlerContext ctx) throws Exception {
+		if (this.registry == null) {
+			ctx.writeAndFlush(new SessionHandshakePacket(this.session.getSessionId(), this.session.getToken(),
+					this.session.getLastReceivedSequence(), false));
+		} else {
+			this.handshakeTimeout = ctx.executor().schedule(() -> this.passThrough(ctx), HANDSHAKE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+		}
+		this.ackTask = ctx.executor().scheduleAtFixedRate(() -> this.sendAcknowledgement(ctx),
+				ACK_INTERVAL_MILLIS, ACK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+
+		ctx.fireChannelActive();
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		if (this.ackTask != null) this.ackTask.cancel(false);
+		if (this.handshakeTimeout != null) this.handshakeTimeout.cancel(false);
+		if (this.registry != null && this.session != null) this.registry.detach(this.session, ctx.channel());
+
+		// packets of an established session are kept, so they are sent once the session is resumed
+		boolean keep = this.session != null && (this.established || this.registry == null);
+		ClosedChannelException cause = new ClosedChannelException();
+		for (PendingWrite write : this.pendingWrites) {
+			if (keep) this.session.sequence(write.packet);
+			write.promise.tryFailure(cause);
+		}
+		this.pendingWrites.clear();
+
+		ctx.fireChannelInactive();
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+		Packet packet = msg instanceof DecodedPacket ? ((DecodedPacket) msg).getPacket() : null;
+
+		if (packet instanceof SessionHandshakePacket) {
+			if (this.registry != null) this.acceptHandshake(ctx, (SessionHandshakePacket) packet);
+			else this.completeHandshake(ctx, (SessionHandshakePacket) packet);
+		} else if (packet instanceof SessionAckPacket) {
+			if (this.session != null) this.session.acknowledge(((SessionAckPacket) packet).getAcknowledged());
+		} else if (packet instanceof SequencedPacket && this.session != null) {
+			SequencedPacket sequenced = (SequencedPacket) packet;
+			this.session.acknowledge(sequenced.getAcknowledged());
+			try {
+				if (!this.session.receive(sequenced.getSequence())) return;
+			} catch (IllegalStateException e) {
+				ctx.close();
+				return;
+			}
+
+			this.receivedSinceAck++;
+			Packet nested = sequenced.getPacket();
+			ctx.fireChannelRead(new DecodedPacket(PacketRegistry.INSTANCE.getPacketId(nested.getClass()), nested));
+		} else {
+			// the client would have sent the handshake first
+			if (this.registry != null && this.session == null) this.passThrough(ctx);
+			ctx.fireChannelRead(msg);
+		}
+	}
+
+	@Override
+	public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+		if (this.receivedSinceAck >= ACK_THRESHOLD) this.sendAcknowledgement(ctx);
+
+		ctx.fireChannelReadComplete();
+	}
+
+	@Override
+	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+		if (!(msg instanceof Packet) || !this.isSequenced((Packet) msg)) {
+			ctx.write(msg, promise);
+			return;
+		}
+
+		if (!this.established && !this.passThrough && ctx.channel().isActive()) {
+			this.pendingWrites.add(new PendingWrite((Packet) msg, promise));
+			return;
+		}
+
+		if (this.session == null || this.passThrough) {
+			ctx.write(msg, promise);
+			return;
+		}
+
+		// a closed connection fails the write, but the packet is kept and sent once the session is resumed
+		SequencedPacket sequenced = this.registry != null
+				? this.session.sequence((Packet) msg, ctx.channel()) : this.session.sequence((Packet) msg);
+		if (sequenced != null) ctx.write(sequenced, promise);
+		else this.forward((Packet) msg, promise);
+	}
+
+	/**
+	 * Returns the session of the connection.
+	 *
+	 * @return The session or null if the server didn't receive the handshake yet.
+	 */
+	public ReliableSession getSession() {
+		return this.session;
+	}
+
+	/**
+	 * Resumes the session presented by the client or starts a new one and sends the result to the client.
+	 *
+	 * @param ctx The context of this handler
+	 * @param handshake The handshake of the client
+	 */
+	private void acceptHandshake(ChannelHandlerContext ctx, SessionHandshakePacket handshake) {
+		ReliableSession resumed = handshake.getSessionId() != 0
+				? this.registry.resume(handshake.getSessionId(), handshake.getToken(), ctx.channel()) : null;
+		List<SequencedPacket> resend = resumed != null ? resumed.getPacketsToResend(handshake.getLastReceivedSequence()) : null;
+		if (resumed != null && resend == null) {
+			this.registry.remove(resumed);
+			resumed = null;
+		}
+
+		this.session = resumed != null ? resumed : this.registry.create(ctx.channel());
+		ctx.write(new SessionHandshakePacket(this.session.getSessionId(), this.session.getToken(),
+				this.session.getLastReceivedSequence(), resumed != null));
+		this.established(ctx, resend, resumed != null);
+	}
+
+	/**
+	 * Handles the answer of the server to the handshake of the client.<br>
+	 * The connection is closed, if the server resumed the session, but the client dropped packets the server
+	 * didn't receive yet. The client starts a new session with the next connection in that case.
+	 *
+	 * @param ctx The context of this handler
+	 * @param handshake The handshake of the server
+	 */
+	private void completeHandshake(ChannelHandlerContext ctx, SessionHandshakePacket handshake) {
+		if (!handshake.isResumed() || handshake.getSessionId() != this.session.getSessionId()) {
+			this.session.reset(handshake.getSessionId(), handshake.getToken());
+			this.established(ctx, null, false);
+			return;
+		}
+
+		List<SequencedPacket> resend = this.session.getPacketsToResend(handshake.getLastReceivedSequence());
+		if (resend == null) {
+			this.session.reset(0, 0);
+			ctx.close();
+			return;
+		}
+		this.established(ctx, resend, true);
+	}
+
+	/**
+	 * Sends the packets to resend and the packets held back during the handshake and fires the
+	 * {@link SessionEstablishedEvent}.
+	 *
+	 * @param ctx The context of this handler
+	 * @param resend The packets the remote host didn't receive yet or null
+	 * @param resumed Whether the session was resumed
+	 */
+	private void established(ChannelHandlerContext ctx, List<SequencedPacket> resend, boolean resumed) {
+		this.established = true;
+		this.passThrough = false;
+		if (this.handshakeTimeout != null) this.handshakeTimeout.cancel(false);
+		for (SequencedPacket packet : resend != null ? resend : Collections.<SequencedPacket>emptyList()) ctx.write(packet);
+		for (PendingWrite write : this.pendingWrites) ctx.write(this.session.sequence(write.packet), write.promise);
+		this.pendingWrites.clear();
+		ctx.flush();
+
+		this.eventManager.fire(new SessionEstablishedEvent(this.connection, this.session, resumed));
+	}
+
+	/**
+	 * Sends the packets held back for the handshake unchanged and passes all further packets through, because the
+	 * client doesn't use sessions. A handshake sent by a slow client nevertheless starts the session.
+	 *
+	 * @param ctx The context of this handler
+	 */
+	private void passThrough(ChannelHandlerContext ctx) {
+		if (this.established || this.passThrough) return;
+
+		this.passThrough = true;
+		for (PendingWrite write : this.pendingWrites) ctx.write(write.packet, write.promise);
+		this.pendingWrites.clear();
+		ctx.flush();
+	}
+
+	/**
+	 * Hands a packet written after the session was resumed by another connection over to that connection, where
+	 * it gets its sequence number after the resent packets. The write to this connection fails like any write to a
+	 * closed connection.
+	 *
+	 * @param packet The packet
+	 * @param promise The promise of the write
+	 */
+	private void forward(Packet packet, ChannelPromise promise) {
+		Channel channel = this.session.getChannel();
+		if (channel != null) channel.writeAndFlush(packet, channel.voidPromise());
+		promise.tryFailure(new ClosedChannelException());
+	}
+
+	/**
+	 * Sends the acknowledgement of the received packets, if it wasn't attached to a sent packet in the meantime.
+	 *
+	 * @param ctx The context of this handler
+	 */
+	private void sendAcknowledgement(ChannelHandlerContext ctx) {
+		this.receivedSinceAck = 0;
+		if (!this.established) return;
+
+		long acknowledged = this.session.takeAcknowledgement();
+		if (acknowledged >= 0) ctx.writeAndFlush(new SessionAckPacket(acknowledged));
+	}
+
+	/**
+	 * Returns whether the given packet is sent within the session.<br>
+	 * The packets of the session itself, keep alive and time sync packets and files are sent as they are.
+	 *
+	 * @param packet The packet
+	 * @return Whether the packet gets a sequence number.
+	 */
+	private boolean isSequenced(Packet packet) {
+		return !(packet instanceof SessionHandshakePacket || packet instanceof SessionAckPacket || packet instanceof SequencedPacket
+				|| packet instanceof KeepAlivePacket || packet instanceof TimeSyncPacket || packet instanceof FileTransferPacket
+				|| packet instanceof FileChunkPacket);
+	}
+
+	/**
+	 * A packet written before the handshake was completed.
+	 */
+	private static class PendingWrite {
+
+		private final Packet packet;
+		private final ChannelPromise promise;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param packet The packet
+		 * @param promise The promise of the write
+		 */
+		PendingWrite(Packet packet, ChannelPromise promise) {
+			this.packet = packet;
+			this.promise = promise;
+		}
+
+	}
+
+}
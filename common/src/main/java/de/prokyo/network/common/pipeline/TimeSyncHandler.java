@@ -0,0 +1,81 @@
+package de.prokyo.network.common.pipeline;
+
+import de.prokyo.network.common.connection.PacketPriority;
+import de.prokyo.network.common.connection.TimeSync;
+import de.prokyo.network.common.packet.DecodedPacket;
+import de.prokyo.network.common.packet.PrioritizedPacket;
+import de.prokyo.network.common.packet.TimeSyncPacket;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers the time sync requests of the remote host and samples the clock offset of the connection periodically,
+ * see {@link TimeSync}.<br>
+ * The packets are sent in the high lane of the {@link OutboundQueue}, so they are delayed by queued packets as
+ * little as possible.
+ */
+public class TimeSyncHandler extends ChannelDuplexHandler {
+
+	private final TimeSync timeSync;
+	private final long intervalMillis;
+	private ScheduledFuture<?> sampleTask;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param timeSync The estimate updated with the samples
+	 * @param intervalMillis The time in milliseconds between two samples (0 = only answer the requests of the remote host)
+	 */
+	public TimeSyncHandler(TimeSync timeSync, long intervalMillis) {
+		if (intervalMillis < 0) throw new IllegalArgumentException("The interval cannot be negative.");
+
+		this.timeSync = timeSync;
+		this.intervalMillis = intervalMillis;
+	}
+
+	@Override
+	public void channelActive(ChannelHandlerContext ctx) throws Exception {
+		if (this.intervalMillis > 0) {
+			this.sampleTask = ctx.executor().scheduleAtFixedRate(() -> this.send(ctx, new TimeSyncPacket(TimeSync.currentTimeNanos(), 0, 0)),
+					0, this.intervalMillis, TimeUnit.MILLISECONDS);
+		}
+
+		ctx.fireChannelActive();
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		if (this.sampleTask != null) this.sampleTask.cancel(false);
+
+		ctx.fireChannelInactive();
+	}
+
+	@Override
+	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+		if (!(msg instanceof DecodedPacket) || !(((DecodedPacket) msg).getPacket() instanceof TimeSyncPacket)) {
+			ctx.fireChannelRead(msg);
+			return;
+		}
+
+		long now = TimeSync.currentTimeNanos();
+		TimeSyncPacket packet = (TimeSyncPacket) ((DecodedPacket) msg).getPacket();
+		if (packet.isAnswer()) {
+			this.timeSync.sample(packet.getOriginateTime(), packet.getReceiveTime(), packet.getTransmitTime(), now);
+		} else {
+			this.send(ctx, new TimeSyncPacket(packet.getOriginateTime(), now, TimeSync.currentTimeNanos()));
+		}
+	}
+
+	/**
+	 * Sends the given packet in the high lane.
+	 *
+	 * @param ctx The context of this handler
+	 * @param packet The packet
+	 */
+	private void send(ChannelHandlerContext ctx, TimeSyncPacket packet) {
+		ctx.writeAndFlush(new PrioritizedPacket(packet, PacketPriority.HIGH), ctx.voidPromise());
+	}
+
+}
@@ -0,0 +1,198 @@
+package de.prokyo.network.common.stream;
+
+import io.netty.buffer.ByteBuf;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A file sent by the remote host, which is written straight to a {@link FileChannel} while its chunks arrive.<br>
+ * The chunks are written in order by the transfer executor, so the event loop of the connection never waits for the
+ * disk. They aren't copied into the heap, as long as the connection uses direct buffers. Reading from the connection is
+ * paused as long as more than {@link #MAX_BUFFERED_BYTES} wait to be written. A file nobody transfers to a channel is
+ * discarded.
+ */
+public class IncomingFile {
+
+	public static final int MAX_BUFFERED_BYTES = 4 * 1024 * 1024;
+	private static final Logger LOGGER = LogManager.getLogger(IncomingFile.class);
+
+	@Getter private final int transferId;
+	@Getter private final long length;
+	/**
+	 * The future completed after all bytes were written to the target channel.
+	 */
+	@Getter private final CompletableFuture<Void> future = new CompletableFuture<>();
+	private final StreamReceiver receiver;
+	private final Executor executor;
+	private final AtomicLong bufferedBytes = new AtomicLong();
+	private CompletableFuture<Void> writes = CompletableFuture.completedFuture(null);
+	private FileChannel target;
+	private long position;
+	private boolean closeTarget;
+	private boolean discarded;
+	private boolean paused;
+	private long receivedBytes;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param receiver The receiver of the connection, which is paused while the writes fall behind
+	 * @param transferId The id of the transfer
+	 * @param length The amount of bytes of the file
+	 * @param executor The executor writing the chunks
+	 */
+	IncomingFile(StreamReceiver receiver, int transferId, long length, Executor executor) {
+		this.receiver = receiver;
+		this.transferId = transferId;
+		this.length = length;
+		this.executor = executor;
+	}
+
+	/**
+	 * Writes the file to the given channel starting at the given position.<br>
+	 * It has to be called by a handler of the {@link de.prokyo.network.common.event.IncomingFileEvent}.
+	 * The channel is not closed afterwards.
+	 *
+	 * @param channel The channel
+	 * @param position The position the first byte is written to
+	 */
+	public void transferTo(FileChannel channel, long position) {
+		if (channel == null) throw new IllegalArgumentException("The channel cannot be null");
+		if (this.target != null) throw new IllegalStateException("The file is already transferred to a channel.");
+
+		this.target = channel;
+		this.position = position;
+	}
+
+	/**
+	 * Writes the file to the given path, which is created or truncated and closed after the transfer.<br>
+	 * It has to be called by a handler of the {@link de.prokyo.network.common.event.IncomingFileEvent}.
+	 *
+	 * @param file The path
+	 * @throws IOException If the file can't be opened.
+	 */
+	public void transferTo(Path file) throws IOException {
+		this.transferTo(FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), 0);
+		this.closeTarget = true;
+	}
+
+	/**
+	 * Discards this file if nobody transferred it to a channel.
+	 */
+	void discardIfUnconsumed() {
+		if (this.target == null) this.discarded = true;
+	}
+
+	/**
+	 * Writes the data of a received chunk to the target channel on the transfer executor.<br>
+	 * The transfer fails if writing fails, the remaining chunks are discarded in that case.
+	 *
+	 * @param data The data, which is released after it was written
+	 */
+	void receive(ByteBuf data) {
+		int length = data.readableBytes();
+		this.receivedBytes += length;
+		if (this.discarded || this.future.isDone()) {
+			data.release();
+			return;
+		}
+
+		long position = this.position;
+		this.position += length;
+		if (this.bufferedBytes.addAndGet(length) > MAX_BUFFERED_BYTES) this.updatePaused();
+		this.writes = this.writes.thenRunAsync(() -> {
+			try {
+				if (!this.future.isDone()) this.write(data, position);
+			} finally {
+				data.release();
+				if (this.bufferedBytes.addAndGet(-length) <= MAX_BUFFERED_BYTES / 2) this.updatePaused();
+			}
+		}, this.executor);
+	}
+
+	/**
+	 * Returns whether all bytes of the file were received.
+	 *
+	 * @return Whether the file is complete.
+	 */
+	boolean isComplete() {
+		return this.receivedBytes >= this.length;
+	}
+
+	/**
+	 * Completes this transfer once all received chunks were written.
+	 */
+	void complete() {
+		this.writes.whenComplete((result, cause) -> {
+			this.closeTarget();
+			this.future.complete(null);
+		});
+	}
+
+	/**
+	 * Aborts this transfer. The target channel is closed once the pending writes returned.
+	 *
+	 * @param cause The reason
+	 */
+	void abort(Throwable cause) {
+		this.future.completeExceptionally(cause);
+		this.writes.whenComplete((result, failure) -> {
+			this.closeTarget();
+			this.updatePaused();
+		});
+	}
+
+	/**
+	 * Writes the given data to the target channel and fails this transfer if writing fails.
+	 *
+	 * @param data The data
+	 * @param position The position in the target channel
+	 */
+	private void write(ByteBuf data, long position) {
+		try {
+			int length = data.readableBytes();
+			int written = 0;
+			while (written < length) written += data.getBytes(data.readerIndex() + written, this.target, position + written, length - written);
+		} catch (IOException e) {
+			this.future.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Pauses or resumes reading from the connection depending on the amount of bytes waiting to be written.<br>
+	 * It resumes once less than half of the maximum is waiting or the transfer failed, so it doesn't toggle for every
+	 * chunk.
+	 */
+	private synchronized void updatePaused() {
+		long bufferedBytes = this.bufferedBytes.get();
+		boolean pause = !this.future.isDone()
+				&& (this.paused ? bufferedBytes > MAX_BUFFERED_BYTES / 2 : bufferedBytes > MAX_BUFFERED_BYTES);
+
+		if (pause == this.paused) return;
+		this.paused = pause;
+		if (pause) this.receiver.pause();
+		else this.receiver.resume();
+	}
+
+	/**
+	 * Closes the target channel, if it was opened by this transfer.
+	 */
+	private void closeTarget() {
+		if (!this.closeTarget) return;
+
+		try {
+			this.target.close();
+		} catch (IOException e) {
+			LOGGER.warn("Failed to close the target of file transfer " + this.transferId + ".", e);
+		}
+	}
+
+}
@@ -0,0 +1,192 @@
+package de.prokyo.network.common.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+
+/**
+ * A stream sent by the remote host, which is delivered incrementally while its chunks arrive.<br>
+ * It is either consumed by a {@link StreamListener} on the event loop or by reading its {@link #getInputStream()}
+ * from another thread. In the latter case reading from the connection is paused as long as more than
+ * {@link #MAX_BUFFERED_BYTES} are buffered, so a slow reader can't exhaust the memory.
+ */
+public class IncomingStream {
+
+	public static final int MAX_BUFFERED_BYTES = 1024 * 1024;
+	private static final byte[] END = new byte[0];
+	private static final StreamListener DISCARD = data -> { };
+
+	@Getter private final int streamId;
+	private final StreamReceiver receiver;
+	private final BlockingQueue<byte[]> chunks = new LinkedBlockingQueue<>();
+	private final AtomicLong bufferedBytes = new AtomicLong();
+	private StreamListener listener;
+	private InputStream inputStream;
+	private volatile Throwable failure;
+	private boolean paused;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param receiver The receiver of the connection
+	 * @param streamId The id of the stream
+	 */
+	IncomingStream(StreamReceiver receiver, int streamId) {
+		this.receiver = receiver;
+		this.streamId = streamId;
+	}
+
+	/**
+	 * Consumes this stream with the given listener.<br>
+	 * It has to be called by a handler of the {@link de.prokyo.network.common.event.IncomingStreamEvent}.
+	 *
+	 * @param listener The listener
+	 */
+	public void setListener(StreamListener listener) {
+		if (listener == null) throw new IllegalArgumentException("The listener cannot be null");
+		if (this.inputStream != null) throw new IllegalStateException("The stream is already consumed as input stream.");
+
+		this.listener = listener;
+	}
+
+	/**
+	 * Returns an input stream returning the data of this stream as it arrives.<br>
+	 * It has to be requested by a handler of the {@link de.prokyo.network.common.event.IncomingStreamEvent},
+	 * but it can be read by any thread. Reading blocks until the next chunk arrived and throws an {@link IOException}
+	 * if the stream was aborted.
+	 *
+	 * @return The input stream.
+	 */
+	public InputStream getInputStream() {
+		if (this.listener != null) throw new IllegalStateException("The stream is already consumed by a listener.");
+
+		if (this.inputStream == null) this.inputStream = new ChunkInputStream();
+		return this.inputStream;
+	}
+
+	/**
+	 * Discards this stream if nobody consumed it.
+	 */
+	void discardIfUnconsumed() {
+		if (this.listener == null && this.inputStream == null) this.listener = DISCARD;
+	}
+
+	/**
+	 * Delivers the data of a received chunk.
+	 *
+	 * @param data The data
+	 */
+	void receive(byte[] data) {
+		if (this.listener != null) {
+			this.listener.onData(data);
+			return;
+		}
+
+		this.chunks.add(data);
+		if (this.bufferedBytes.addAndGet(data.length) > MAX_BUFFERED_BYTES) this.updatePaused();
+	}
+
+	/**
+	 * Completes this stream.
+	 */
+	void complete() {
+		if (this.listener != null) this.listener.onComplete();
+		else this.chunks.add(END);
+	}
+
+	/**
+	 * Aborts this stream.
+	 *
+	 * @param cause The reason
+	 */
+	void abort(Throwable cause) {
+		if (this.listener != null) {
+			this.listener.onError(cause);
+			return;
+		}
+
+		this.failure = cause;
+		this.chunks.add(END);
+		this.updatePaused();
+	}
+
+	/**
+	 * Pauses or resumes reading from the connection depending on the amount of buffered bytes.<br>
+	 * It resumes once less than half of the maximum is buffered, so it doesn't toggle for every chunk.
+	 */
+	private synchronized void updatePaused() {
+		long bufferedBytes = this.bufferedBytes.get();
+		boolean pause = this.failure == null
+				&& (this.paused ? bufferedBytes > MAX_BUFFERED_BYTES / 2 : bufferedBytes > MAX_BUFFERED_BYTES);
+
+		if (pause == this.paused) return;
+		this.paused = pause;
+		if (pause) this.receiver.pause();
+		else this.receiver.resume();
+	}
+
+	/**
+	 * The input stream returning the buffered chunks.
+	 */
+	private class ChunkInputStream extends InputStream {
+
+		private byte[] current = new byte[0];
+		private int position;
+
+		@Override
+		public int read() throws IOException {
+			if (!this.nextChunk()) return -1;
+			return this.current[this.position++] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			if (length == 0) return 0;
+			if (!this.nextChunk()) return -1;
+
+			int read = Math.min(length, this.current.length - this.position);
+			System.arraycopy(this.current, this.position, bytes, offset, read);
+			this.position += read;
+			return read;
+		}
+
+		@Override
+		public int available() {
+			return this.current.length - this.position;
+		}
+
+		/**
+		 * Waits for the next chunk if the current one is completely read.
+		 *
+		 * @return Whether there is data left or false if the stream ended.
+		 * @throws IOException If the stream was aborted or the thread was interrupted.
+		 */
+		private boolean nextChunk() throws IOException {
+			while (this.position == this.current.length) {
+				if (this.current == END) {
+					Throwable failure = IncomingStream.this.failure;
+					if (failure != null) throw new IOException("The stream was aborted.", failure);
+					return false;
+				}
+
+				try {
+					this.current = IncomingStream.this.chunks.take();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for the next chunk.", e);
+				}
+				this.position = 0;
+
+				if (IncomingStream.this.bufferedBytes.addAndGet(-this.current.length) <= MAX_BUFFERED_BYTES / 2) {
+					IncomingStream.this.updatePaused();
+				}
+			}
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,213 @@
+package de.prokyo.network.common.stream;
+
+import de.prokyo.network.common.buffer.PacketBuffer;
+import de.prokyo.network.common.packet.FileChunkPacket;
+import de.prokyo.network.common.packet.FileTransferPacket;
+import de.prokyo.network.common.packet.PacketRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.ssl.SslHandler;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A region of a file sent as a {@link FileTransferPacket} followed by a sequence of {@link FileChunkPacket}s.<br>
+ * If the packets of the channel are neither compressed nor encrypted, the header of every chunk is encoded manually and
+ * its data is written as {@link DefaultFileRegion}, which is sent by the kernel using {@code sendfile} on epoll without
+ * copying the file into the heap. Otherwise the chunks are read into pooled buffers by the transfer executor of the
+ * outbound queue and passed through the encoders. The file is checked by the transfer executor as well, so the event
+ * loop never waits for the disk.
+ *
+ * <p>A file which can't be read completely after the first chunk was written closes the connection in zero copy mode,
+ * as the frame of the chunk can't be completed anymore. Enabling the compression during a zero copy transfer aborts
+ * it.</p>
+ */
+public class OutgoingFile extends OutgoingTransfer {
+
+	/**
+	 * The default amount of bytes per chunk, which leaves enough room for the chunk header in the default frame size.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 512 * 1024;
+	private static final Logger LOGGER = LogManager.getLogger(OutgoingFile.class);
+
+	private final Path file;
+	private final long offset;
+	private final long length;
+	private final int chunkSize;
+	private long position;
+	private boolean started;
+	private volatile boolean zeroCopy;
+	private volatile FileChannel fileChannel;
+	private volatile ByteBuf chunk;
+	private volatile IOException readFailure;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param transferId The id of the transfer, which has to be unique per connection
+	 * @param file The file
+	 * @param offset The position of the first byte to send
+	 * @param length The amount of bytes to send
+	 * @param chunkSize The maximum amount of bytes per chunk
+	 */
+	public OutgoingFile(int transferId, Path file, long offset, long length, int chunkSize) {
+		super(transferId);
+		if (file == null) throw new IllegalArgumentException("The file cannot be null");
+		if (offset < 0 || length < 0) throw new IllegalArgumentException("The offset and the length cannot be negative.");
+		if (chunkSize <= 0) throw new IllegalArgumentException("The chunk size has to be positive.");
+
+		this.file = file;
+		this.offset = offset;
+		this.length = length;
+		this.chunkSize = chunkSize;
+	}
+
+	@Override
+	public ChannelFuture writeNextChunk(ChannelHandlerContext ctx) {
+		if (!this.started) return this.start(ctx);
+
+		if (this.readFailure != null) {
+			this.fail(this.readFailure);
+			return this.write(ctx, new FileTransferPacket(this.getTransferId(), FileTransferPacket.ABORTED));
+		}
+
+		int length = (int) Math.min(this.chunkSize, this.length - this.position);
+		ChannelFuture write;
+		if (this.zeroCopy) {
+			write = this.writeRegion(ctx, length);
+		} else {
+			ByteBuf data = this.chunk;
+			this.chunk = null;
+			// the data is copied into the frame by the encoder before the write completes
+			write = this.write(ctx, new FileChunkPacket(this.getTransferId(), data)).addListener(future -> data.release());
+		}
+
+		this.position += length;
+		if (this.position == this.length) this.finish(write);
+		return write;
+	}
+
+	@Override
+	public boolean isSequential() {
+		return this.zeroCopy;
+	}
+
+	@Override
+	protected boolean isBlocking() {
+		return !this.zeroCopy;
+	}
+
+	@Override
+	protected void readChunk(ChannelHandlerContext ctx) {
+		try {
+			if (!this.started) {
+				this.open(ctx);
+				return;
+			}
+
+			int length = (int) Math.min(this.chunkSize, this.length - this.position);
+			ByteBuf data = ctx.alloc().ioBuffer(length);
+			try {
+				while (data.isWritable()) {
+					if (data.writeBytes(this.fileChannel, this.offset + this.position + data.readableBytes(), data.writableBytes()) < 0)
+						throw new IOException("The file " + this.file + " ended before the region was sent.");
+				}
+			} catch (IOException e) {
+				data.release();
+				throw e;
+			}
+			this.chunk = data;
+		} catch (IOException e) {
+			this.readFailure = e;
+		}
+	}
+
+	@Override
+	protected void close() {
+		if (this.chunk != null) {
+			this.chunk.release();
+			this.chunk = null;
+		}
+		if (this.fileChannel == null) return;
+
+		try {
+			this.fileChannel.close();
+		} catch (IOException e) {
+			LOGGER.warn("Failed to close the file " + this.file + ".", e);
+		}
+	}
+
+	/**
+	 * Checks the file and selects the way the chunks are sent. The file is opened if its chunks are read into buffers.
+	 *
+	 * @param ctx The context of the outbound queue
+	 * @throws IOException If the file can't be read or is too small.
+	 */
+	private void open(ChannelHandlerContext ctx) throws IOException {
+		if (this.offset + this.length > Files.size(this.file))
+			throw new IOException("The region exceeds the size of the file " + this.file + ".");
+
+		this.zeroCopy = ctx.pipeline().get("prokyoCompressor") == null && ctx.pipeline().get(SslHandler.class) == null
+				&& ctx.pipeline().context("frame-prepender") != null;
+		if (!this.zeroCopy) this.fileChannel = FileChannel.open(this.file, StandardOpenOption.READ);
+	}
+
+	/**
+	 * Writes the header of the transfer, once the file was checked.
+	 *
+	 * @param ctx The context of the outbound queue
+	 * @return The write of the header.
+	 */
+	private ChannelFuture start(ChannelHandlerContext ctx) {
+		this.started = true;
+		if (this.readFailure != null) {
+			this.fail(this.readFailure);
+			return ctx.newFailedFuture(this.readFailure);
+		}
+
+		ChannelFuture write = this.write(ctx, new FileTransferPacket(this.getTransferId(), this.length));
+		if (this.length == 0) this.finish(write);
+		return write;
+	}
+
+	/**
+	 * Writes the header of a chunk followed by the region of the file containing its data.<br>
+	 * Both are written in front of the frame prepender, so the header includes the length field of the frame.
+	 *
+	 * @param ctx The context of the outbound queue
+	 * @param length The amount of bytes of the chunk
+	 * @return The write of the region.
+	 */
+	private ChannelFuture writeRegion(ChannelHandlerContext ctx, int length) {
+		ChannelHandlerContext prepender = ctx.pipeline().context("frame-prepender");
+		if (prepender == null) {
+			// the pipeline is already torn down
+			IOException cause = new IOException("The channel is closed.");
+			this.fail(cause);
+			return ctx.newFailedFuture(cause);
+		}
+
+		if (ctx.pipeline().get("prokyoCompressor") != null) {
+			// the remote host would try to decompress the raw chunks
+			this.fail(new IllegalStateException("The compression was enabled during the transfer."));
+			return this.write(ctx, new FileTransferPacket(this.getTransferId(), FileTransferPacket.ABORTED));
+		}
+
+		ByteBuf header = ctx.alloc().buffer(16);
+		header.writeInt(0);
+		header.writeInt(PacketRegistry.INSTANCE.getPacketId(FileChunkPacket.class));
+		new PacketBuffer(header).writeVarInt(this.getTransferId());
+		header.setInt(0, header.readableBytes() - 4 + length);
+
+		this.write(prepender, header);
+		return this.write(prepender, new DefaultFileRegion(this.file.toFile(), this.offset + this.position, length));
+	}
+
+}
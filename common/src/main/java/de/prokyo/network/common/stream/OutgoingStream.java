@@ -0,0 +1,94 @@
+package de.prokyo.network.common.stream;
+
+import de.prokyo.network.common.packet.StreamChunkPacket;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A payload read from an input stream and sent as a sequence of {@link StreamChunkPacket}s.<br>
+ * The input stream is read ahead by the transfer executor of the outbound queue, so a blocking source doesn't stall
+ * the event loop of the connection.
+ */
+public class OutgoingStream extends OutgoingTransfer {
+
+	public static final int DEFAULT_CHUNK_SIZE = 32 * 1024;
+	private static final Logger LOGGER = LogManager.getLogger(OutgoingStream.class);
+
+	private final InputStream source;
+	private final int chunkSize;
+	private boolean started;
+	private volatile byte[] chunk;
+	private volatile IOException readFailure;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param streamId The id of the stream, which has to be unique per connection
+	 * @param source The source of the payload, which is closed after the stream finished
+	 * @param chunkSize The maximum amount of bytes per chunk
+	 */
+	public OutgoingStream(int streamId, InputStream source, int chunkSize) {
+		super(streamId);
+		if (source == null) throw new IllegalArgumentException("The source cannot be null");
+		if (chunkSize <= 0) throw new IllegalArgumentException("The chunk size has to be positive.");
+
+		this.source = source;
+		this.chunkSize = chunkSize;
+	}
+
+	@Override
+	public ChannelFuture writeNextChunk(ChannelHandlerContext ctx) {
+		byte flags = this.started ? 0 : StreamChunkPacket.FLAG_FIRST;
+		this.started = true;
+
+		if (this.readFailure != null) {
+			this.fail(this.readFailure);
+			return this.write(ctx, new StreamChunkPacket(this.getTransferId(), (byte) (flags | StreamChunkPacket.FLAG_ABORT), new byte[0]));
+		}
+
+		byte[] data = this.chunk;
+		this.chunk = null;
+		// a partially filled chunk means that the end of the source was reached
+		if (data.length == this.chunkSize) return this.write(ctx, new StreamChunkPacket(this.getTransferId(), flags, data));
+
+		flags |= StreamChunkPacket.FLAG_LAST;
+		ChannelFuture write = this.write(ctx, new StreamChunkPacket(this.getTransferId(), flags, data));
+		this.finish(write);
+		return write;
+	}
+
+	@Override
+	protected boolean isBlocking() {
+		return true;
+	}
+
+	@Override
+	protected void readChunk(ChannelHandlerContext ctx) {
+		byte[] data = new byte[this.chunkSize];
+		int length = 0;
+		try {
+			int read;
+			while (length < data.length && (read = this.source.read(data, length, data.length - length)) != -1) length += read;
+		} catch (IOException e) {
+			this.readFailure = e;
+			return;
+		}
+		this.chunk = length == data.length ? data : Arrays.copyOf(data, length);
+	}
+
+	@Override
+	protected void close() {
+		this.chunk = null;
+		try {
+			this.source.close();
+		} catch (IOException e) {
+			LOGGER.warn("Failed to close the source of stream " + this.getTransferId() + ".", e);
+		}
+	}
+
+}
@@ -0,0 +1,166 @@
+package de.prokyo.network.common.stream;
+
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import lombok.Getter;
+
+/**
+ * A payload sent in chunks, which are written one at a time whenever the
+ * {@link de.prokyo.network.common.pipeline.OutboundQueue} schedules the next chunk of this transfer.<br>
+ * So at most one chunk of every transfer is held in memory besides the chunk being sent, no matter how big the
+ * payload is. Chunks which have to be read from a blocking source are read ahead by the transfer executor of the
+ * outbound queue, so the event loop never waits for the source. All methods except {@link #fail(Throwable)} and {@link #readChunk(ChannelHandlerContext)} are called on
+ * the event loop of the connection.
+ */
+public abstract class OutgoingTransfer {
+
+	@Getter private final int transferId;
+	@Getter private final CompletableFuture<Void> future = new CompletableFuture<>();
+	@Getter private volatile boolean finished;
+	private volatile boolean reading;
+	private final ChannelFutureListener failureListener = write -> {
+		if (!write.isSuccess()) this.fail(write.cause());
+	};
+
+	/**
+	 * Constructor.
+	 *
+	 * @param transferId The id of the transfer, which has to be unique per connection
+	 */
+	protected OutgoingTransfer(int transferId) {
+		this.transferId = transferId;
+	}
+
+	/**
+	 * Writes the next chunk of this transfer without flushing it.<br>
+	 * The transfer has to be finished after writing its last chunk.
+	 *
+	 * @param ctx The context of the outbound queue
+	 * @return The write of the chunk.
+	 */
+	public abstract ChannelFuture writeNextChunk(ChannelHandlerContext ctx);
+
+	/**
+	 * Returns whether the next chunk may only be written after the previous one was sent.<br>
+	 * This is required for chunks which are not counted by the write buffer watermarks of the channel,
+	 * like {@link io.netty.channel.FileRegion}s, as the channel would never become unwritable otherwise.
+	 *
+	 * @return Whether the chunks are written one after another.
+	 */
+	public boolean isSequential() {
+		return false;
+	}
+
+	/**
+	 * Prepares the next chunk and runs the given callback on the event loop once it can be written.<br>
+	 * If the chunk has to be read from a blocking source, it is read by {@link #readChunk(ChannelHandlerContext)} on the given executor.
+	 * Otherwise the callback is run immediately.
+	 *
+	 * @param ctx The context of the outbound queue
+	 * @param executor The executor reading the chunk
+	 * @param ready The callback scheduling the transfer again, which is not run if the transfer fails meanwhile
+	 */
+	public void prepareNextChunk(ChannelHandlerContext ctx, Executor executor, Runnable ready) {
+		if (!this.isBlocking()) {
+			ready.run();
+			return;
+		}
+
+		this.reading = true;
+		try {
+			executor.execute(() -> {
+				this.readChunk(ctx);
+				try {
+					ctx.executor().execute(() -> this.chunkRead(ready));
+				} catch (RejectedExecutionException e) {
+					this.reading = false;
+					this.fail(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			this.reading = false;
+			this.fail(e);
+		}
+	}
+
+	/**
+	 * Fails this transfer and closes its source, if it isn't closed yet.<br>
+	 * If a chunk is read at the moment, the source is closed once the read returned.
+	 *
+	 * @param cause The reason
+	 */
+	public void fail(Throwable cause) {
+		boolean close = !this.finished && !this.reading;
+		this.finished = true;
+		if (close) this.close();
+		this.future.completeExceptionally(cause);
+	}
+
+	/**
+	 * Returns whether the next chunk has to be read by {@link #readChunk(ChannelHandlerContext)} before it can be written.
+	 *
+	 * @return Whether reading the next chunk may block.
+	 */
+	protected boolean isBlocking() {
+		return false;
+	}
+
+	/**
+	 * Reads the next chunk from the source of this transfer on the executor passed to
+	 * {@link #prepareNextChunk(ChannelHandlerContext, Executor, Runnable)}.<br>
+	 * It is never called concurrently with other methods of this transfer except {@link #fail(Throwable)}, so failures
+	 * have to be kept until the next chunk is written instead of being thrown.
+	 *
+	 * @param ctx The context of the outbound queue, which may only be used to allocate buffers and to inspect the
+	 *            pipeline
+	 */
+	protected void readChunk(ChannelHandlerContext ctx) {
+	}
+
+	/**
+	 * Writes a chunk of this transfer and fails the transfer if the write fails.
+	 *
+	 * @param ctx The context the chunk is written to
+	 * @param chunk The chunk
+	 * @return The write of the chunk.
+	 */
+	protected ChannelFuture write(ChannelHandlerContext ctx, Object chunk) {
+		return ctx.write(chunk).addListener(this.failureListener);
+	}
+
+	/**
+	 * Marks this transfer as finished after its last chunk was written.
+	 *
+	 * @param lastWrite The write of the last chunk, which completes the future of this transfer
+	 */
+	protected void finish(ChannelFuture lastWrite) {
+		this.finished = true;
+		this.close();
+		lastWrite.addListener(write -> {
+			if (write.isSuccess()) this.future.complete(null);
+			else this.future.completeExceptionally(write.cause());
+		});
+	}
+
+	/**
+	 * Closes the source of this transfer and releases the chunk read ahead.
+	 */
+	protected abstract void close();
+
+	/**
+	 * Called on the event loop once the next chunk was read.
+	 *
+	 * @param ready The callback scheduling the transfer again
+	 */
+	private void chunkRead(Runnable ready) {
+		this.reading = false;
+		// the transfer failed during the read, so the source wasn't closed yet
+		if (this.finished) this.close();
+		else ready.run();
+	}
+
+}
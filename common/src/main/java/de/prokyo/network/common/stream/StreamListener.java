@@ -0,0 +1,30 @@
+package de.prokyo.network.common.stream;
+
+/**
+ * Receives the chunks of an {@link IncomingStream} as soon as they arrive.<br>
+ * All methods are called on the event loop of the connection, so they must not block.
+ */
+public interface StreamListener {
+
+	/**
+	 * Called for every received chunk of the stream.
+	 *
+	 * @param data The data of the chunk
+	 */
+	void onData(byte[] data);
+
+	/**
+	 * Called after the last chunk of the stream was received.
+	 */
+	default void onComplete() {
+	}
+
+	/**
+	 * Called if the stream was aborted by the remote host or the connection was closed before the stream completed.
+	 *
+	 * @param cause The reason
+	 */
+	default void onError(Throwable cause) {
+	}
+
+}
@@ -0,0 +1,160 @@
+package de.prokyo.network.common.stream;
+
+import de.prokyo.network.common.connection.Connection;
+import de.prokyo.network.common.event.EventManager;
+import de.prokyo.network.common.event.IncomingFileEvent;
+import de.prokyo.network.common.event.IncomingStreamEvent;
+import de.prokyo.network.common.packet.FileChunkPacket;
+import de.prokyo.network.common.packet.FileTransferPacket;
+import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.common.packet.StreamChunkPacket;
+import de.prokyo.network.common.pipeline.OutboundQueue;
+import io.netty.channel.Channel;
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assembles the received {@link StreamChunkPacket}s of a connection into {@link IncomingStream}s and writes the
+ * received {@link FileChunkPacket}s to their {@link IncomingFile}s.<br>
+ * Chunks are handled on the event loop of the connection. Reading from the connection is paused while at least one
+ * stream buffers too many bytes for its reader or one file falls behind writing its chunks.
+ */
+public class StreamReceiver {
+
+	private final Channel channel;
+	private final Connection connection;
+	private final EventManager eventManager;
+	private final Map<Integer, IncomingStream> streams = new HashMap<>();
+	private final Map<Integer, IncomingFile> files = new HashMap<>();
+	private int pausedStreams;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param channel The channel of the connection
+	 * @param connection The connection
+	 * @param eventManager The event manager the {@link IncomingStreamEvent} and {@link IncomingFileEvent} are fired with
+	 */
+	public StreamReceiver(Channel channel, Connection connection, EventManager eventManager) {
+		this.channel = channel;
+		this.connection = connection;
+		this.eventManager = eventManager;
+	}
+
+	/**
+	 * Handles the given packet, if it belongs to a stream or a file transfer.
+	 *
+	 * @param packet The packet
+	 * @return Whether the packet was handled.
+	 */
+	public boolean receive(Packet packet) {
+		if (packet instanceof StreamChunkPacket) this.receiveChunk((StreamChunkPacket) packet);
+		else if (packet instanceof FileTransferPacket) this.receiveFile((FileTransferPacket) packet);
+		else if (packet instanceof FileChunkPacket) this.receiveFileChunk((FileChunkPacket) packet);
+		else return false;
+
+		return true;
+	}
+
+	/**
+	 * Aborts all incomplete streams and files, because the connection was closed.
+	 */
+	public void close() {
+		for (IncomingStream stream : this.streams.values()) stream.abort(new ClosedChannelException());
+		this.streams.clear();
+		for (IncomingFile file : this.files.values()) file.abort(new ClosedChannelException());
+		this.files.clear();
+	}
+
+	/**
+	 * Pauses reading from the connection on behalf of a stream or a file.
+	 */
+	synchronized void pause() {
+		if (this.pausedStreams++ == 0) this.channel.config().setAutoRead(false);
+	}
+
+	/**
+	 * Resumes reading from the connection on behalf of a stream or a file, if no other one is paused.
+	 */
+	synchronized void resume() {
+		if (--this.pausedStreams == 0) this.channel.config().setAutoRead(true);
+	}
+
+	/**
+	 * Handles the given stream chunk.
+	 *
+	 * @param chunk The chunk
+	 */
+	private void receiveChunk(StreamChunkPacket chunk) {
+		IncomingStream stream;
+		if (chunk.isFirst()) {
+			stream = new IncomingStream(this, chunk.getStreamId());
+			this.streams.put(chunk.getStreamId(), stream);
+			try {
+				this.eventManager.fire(new IncomingStreamEvent(this.connection, stream));
+			} finally {
+				stream.discardIfUnconsumed();
+			}
+		} else {
+			stream = this.streams.get(chunk.getStreamId());
+			if (stream == null) return;
+		}
+
+		if (chunk.isAborted()) {
+			this.streams.remove(chunk.getStreamId());
+			stream.abort(new IOException("The stream was aborted by the remote host."));
+			return;
+		}
+
+		stream.receive(chunk.getData());
+		if (chunk.isLast()) {
+			this.streams.remove(chunk.getStreamId());
+			stream.complete();
+		}
+	}
+
+	/**
+	 * Handles the header of a file transfer.
+	 *
+	 * @param header The header
+	 */
+	private void receiveFile(FileTransferPacket header) {
+		if (header.isAborted()) {
+			IncomingFile file = this.files.remove(header.getTransferId());
+			if (file != null) file.abort(new IOException("The file transfer was aborted by the remote host."));
+			return;
+		}
+
+		IncomingFile file = new IncomingFile(this, header.getTransferId(), header.getLength(), OutboundQueue.DEFAULT_TRANSFER_EXECUTOR);
+		try {
+			this.eventManager.fire(new IncomingFileEvent(this.connection, file));
+		} finally {
+			file.discardIfUnconsumed();
+		}
+
+		if (file.isComplete()) file.complete();
+		else this.files.put(header.getTransferId(), file);
+	}
+
+	/**
+	 * Passes the data of the given file chunk to its file, which releases it after it was written.
+	 *
+	 * @param chunk The chunk
+	 */
+	private void receiveFileChunk(FileChunkPacket chunk) {
+		IncomingFile file = this.files.get(chunk.getTransferId());
+		if (file == null) {
+			chunk.getData().release();
+			return;
+		}
+
+		file.receive(chunk.getData());
+		if (file.isComplete()) {
+			this.files.remove(chunk.getTransferId());
+			file.complete();
+		}
+	}
+
+}
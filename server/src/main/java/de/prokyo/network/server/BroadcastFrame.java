@@ -0,0 +1,108 @@
+package de.prokyo.network.server;
+
+import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.common.pipeline.PacketEncoder;
+import de.prokyo.network.common.pipeline.ProkyoCompressor;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Getter;
+
+/**
+ * A packet encoded once into complete frames (including the length field) for sending it to many connections.<br>
+ * The frames are created lazily by the first thread needing them, so the compressed frame is only created if at
+ * least one receiver uses compression. The buffers are released as soon as every holder of this frame released it.
+ */
+class BroadcastFrame {
+
+	@Getter private final Packet packet;
+	private final AtomicInteger references = new AtomicInteger(1);
+	private ByteBuf encoded;
+	private volatile ByteBuf frame;
+	private volatile ByteBuf compressedFrame;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param packet The packet to send
+	 */
+	BroadcastFrame(Packet packet) {
+		this.packet = packet;
+	}
+
+	/**
+	 * Returns the frame for the given connection.<br>
+	 * The frame is shared between all connections, so it has to be written as duplicate.
+	 *
+	 * @param connection The receiving connection
+	 * @return The frame matching the compression setting of the connection.
+	 */
+	ByteBuf get(ClientConnection connection) {
+		boolean compressed = connection.isCompressionEnabled();
+		ByteBuf frame = compressed ? this.compressedFrame : this.frame;
+		return frame != null ? frame : this.create(compressed);
+	}
+
+	/**
+	 * Adds a holder of this frame.
+	 */
+	void retain() {
+		this.references.incrementAndGet();
+	}
+
+	/**
+	 * Removes a holder of this frame and releases all buffers if it was the last one.<br>
+	 * The duplicates written to the connections stay valid until they are written.
+	 */
+	void release() {
+		if (this.references.decrementAndGet() != 0) return;
+
+		synchronized (this) {
+			if (this.encoded != null) this.encoded.release();
+			if (this.frame != null) this.frame.release();
+			if (this.compressedFrame != null) this.compressedFrame.release();
+		}
+	}
+
+	/**
+	 * Creates the requested frame if no other thread did it in the meantime.
+	 *
+	 * @param compressed Whether the compressed frame is requested
+	 * @return The requested frame.
+	 */
+	private synchronized ByteBuf create(boolean compressed) {
+		if (this.encoded == null) {
+			this.encoded = ByteBufAllocator.DEFAULT.buffer();
+			PacketEncoder.writePacket(this.packet, this.encoded);
+		}
+
+		if (compressed) {
+			if (this.compressedFrame == null) {
+				ByteBuf compressedData = ProkyoCompressor.compress(this.encoded.duplicate());
+				try {
+					this.compressedFrame = BroadcastFrame.toFrame(compressedData);
+				} finally {
+					compressedData.release();
+				}
+			}
+			return this.compressedFrame;
+		}
+
+		if (this.frame == null) this.frame = BroadcastFrame.toFrame(this.encoded);
+		return this.frame;
+	}
+
+	/**
+	 * Prepends the length field to the given data just like the frame prepender of the pipeline does.
+	 *
+	 * @param data The data of the frame
+	 * @return A new buffer containing the frame.
+	 */
+	private static ByteBuf toFrame(ByteBuf data) {
+		ByteBuf frame = ByteBufAllocator.DEFAULT.directBuffer(4 + data.readableBytes());
+		frame.writeInt(data.readableBytes());
+		frame.writeBytes(data, data.readerIndex(), data.readableBytes());
+		return frame;
+	}
+
+}
@@ -1,33 +1,49 @@
 package de.prokyo.network.server;
 
+import de.prokyo.network.common.pipeline.HeartbeatHandler;
+import de.prokyo.network.common.pipeline.OutboundQueue;
 import de.prokyo.network.common.pipeline.PacketDecoder;
 import de.prokyo.network.common.pipeline.PacketEncoder;
+import de.prokyo.network.common.pipeline.ReliableSessionHandler;
+import de.prokyo.network.common.pipeline.TimeSyncHandler;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
-import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
-import io.netty.handler.timeout.ReadTimeoutHandler;
 import lombok.RequiredArgsConstructor;
 
 /**
- * Class for initializing socket channels of clients.
+ * Class for initializing the tcp or unix domain socket channels of clients.
  */
 @RequiredArgsConstructor
-public class ClientChannelInitializer extends ChannelInitializer<SocketChannel> {
+public class ClientChannelInitializer extends ChannelInitializer<Channel> {
 
 	private final ProkyoServer prokyoServer;
 
 	@Override
-	protected void initChannel(SocketChannel ch) throws Exception {
+	protected void initChannel(Channel ch) throws Exception {
 		ClientConnection connection = new ClientConnection(ch);
 
 		ch.pipeline()
-				.addLast("timeout", new ReadTimeoutHandler(30))
-				.addLast("frame-decoder", new LengthFieldBasedFrameDecoder(Integer.MAX_VALUE, 0, 4, 0, 4))
+				.addLast("frame-decoder", new LengthFieldBasedFrameDecoder(this.prokyoServer.getMaxFrameSize(), 0, 4, 0, 4))
 				.addLast("prokyoDecoder", new PacketDecoder())
 				.addLast("frame-prepender", new LengthFieldPrepender(4))
 				.addLast("prokyoEncoder", new PacketEncoder())
+				.addLast("prokyoOutboundQueue", new OutboundQueue(this.prokyoServer.getSlowConsumerPolicy(),
+						this.prokyoServer.getMaxQueuedPackets(), this.prokyoServer.getMaxUnwritableMillis()))
+				.addLast("prokyoTimeSync", new TimeSyncHandler(connection.getTimeSync(), this.prokyoServer.getTimeSyncIntervalMillis()))
 				.addLast("prokyoPacketHandler", new ProkyoDuplexHandler(this.prokyoServer, connection));
+		long heartbeatInterval = this.prokyoServer.getHeartbeatIntervalMillis();
+		if (heartbeatInterval > 0) {
+			ch.pipeline()
+					.addFirst("timeout", HeartbeatHandler.newIdleStateHandler(heartbeatInterval))
+					.addBefore("prokyoPacketHandler", "prokyoHeartbeat",
+							new HeartbeatHandler(heartbeatInterval, this.prokyoServer.getHeartbeatTimeoutMillis()));
+		}
+		if (this.prokyoServer.getSessionRegistry() != null) {
+			ch.pipeline().addBefore("prokyoOutboundQueue", "prokyoSession",
+					new ReliableSessionHandler(this.prokyoServer.getSessionRegistry(), connection, this.prokyoServer.getEventManager()));
+		}
 
 		ch.attr(ClientConnection.ATTRIBUTE_KEY).set(connection);
 	}
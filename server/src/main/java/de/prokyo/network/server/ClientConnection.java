@@ -1,11 +1,30 @@
 package de.prokyo.network.server;
 
 import de.prokyo.network.common.connection.Connection;
+import de.prokyo.network.common.connection.LogicalStream;
+import de.prokyo.network.common.connection.PacketPriority;
+import de.prokyo.network.common.connection.ReliableSession;
+import de.prokyo.network.common.connection.RequestManager;
+import de.prokyo.network.common.connection.TimeSync;
 import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.common.packet.PrioritizedPacket;
+import de.prokyo.network.common.pipeline.HeartbeatHandler;
+import de.prokyo.network.common.pipeline.OutboundQueue;
 import de.prokyo.network.common.pipeline.ProkyoCompressor;
 import de.prokyo.network.common.pipeline.ProkyoDecompressor;
+import de.prokyo.network.common.pipeline.ReliableSessionHandler;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.util.AttributeKey;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 /**
@@ -16,7 +35,11 @@ public class ClientConnection implements Connection {
 
 	public static final AttributeKey<ClientConnection> ATTRIBUTE_KEY = AttributeKey.newInstance("PROKYO_CLIENT");
 
-	private final Channel channel;
+	@Getter private final Channel channel;
+	@Getter private volatile boolean compressionEnabled;
+	@Getter private final TimeSync timeSync = new TimeSync();
+	@Getter(AccessLevel.PACKAGE) private final Set<Object> topics = ConcurrentHashMap.newKeySet();
+	private volatile OutboundQueue outboundQueue;
 
 	/**
 	 * Add the {@link ProkyoCompressor} and the {@link ProkyoDecompressor} to the channel pipeline.
@@ -25,6 +48,7 @@ public class ClientConnection implements Connection {
 		this.channel.pipeline()
 				.addBefore("prokyoEncoder", "prokyoCompressor", new ProkyoCompressor())
 				.addBefore("prokyoDecoder", "prokyoDecompressor", new ProkyoDecompressor());
+		this.compressionEnabled = true;
 	}
 
 	/**
@@ -33,11 +57,146 @@ public class ClientConnection implements Connection {
 	public void disableCompression() {
 		this.channel.pipeline().remove(ProkyoCompressor.class);
 		this.channel.pipeline().remove(ProkyoDecompressor.class);
+		this.compressionEnabled = false;
+	}
+
+	/**
+	 * Returns the queue holding back outgoing packets while the client doesn't read them fast enough.<br>
+	 * It allows changing the slow consumer policy of this connection and provides the queue metrics.
+	 *
+	 * @return The outbound queue or null if the channel has no such handler.
+	 */
+	public OutboundQueue getOutboundQueue() {
+		OutboundQueue outboundQueue = this.outboundQueue;
+		if (outboundQueue == null) {
+			// the handler is looked up once, as it is needed for every packet sent
+			outboundQueue = (OutboundQueue) this.channel.pipeline().get("prokyoOutboundQueue");
+			this.outboundQueue = outboundQueue;
+		}
+		return outboundQueue;
+	}
+
+	/**
+	 * Returns the requests of this connection waiting for their response.
+	 *
+	 * @return The request manager or null if the channel has no packet handler.
+	 */
+	public RequestManager getRequestManager() {
+		ProkyoDuplexHandler handler = (ProkyoDuplexHandler) this.channel.pipeline().get("prokyoPacketHandler");
+		return handler != null ? handler.getRequestManager() : null;
+	}
+
+	/**
+	 * Returns the reliable session of this connection.
+	 *
+	 * @return The session or null if reliable sessions are disabled or the client didn't start its session yet.
+	 */
+	public ReliableSession getSession() {
+		ReliableSessionHandler handler = (ReliableSessionHandler) this.channel.pipeline().get("prokyoSession");
+		return handler != null ? handler.getSession() : null;
+	}
+
+	@Override
+	public long getRttNanos() {
+		HeartbeatHandler handler = (HeartbeatHandler) this.channel.pipeline().get("prokyoHeartbeat");
+		return handler != null ? handler.getRttNanos() : -1;
+	}
+
+	@Override
+	public long getRttJitterNanos() {
+		HeartbeatHandler handler = (HeartbeatHandler) this.channel.pipeline().get("prokyoHeartbeat");
+		return handler != null ? handler.getRttJitterNanos() : -1;
+	}
+
+	/**
+	 * Opens a new logical stream multiplexed over this connection.<br>
+	 * The stream has its own ordering and flow control window, see {@link LogicalStream}.
+	 *
+	 * @return The stream.
+	 */
+	public LogicalStream openLogicalStream() {
+		ProkyoDuplexHandler handler = (ProkyoDuplexHandler) this.channel.pipeline().get("prokyoPacketHandler");
+		if (handler == null) throw new IllegalStateException("The channel has no packet handler.");
+
+		return handler.getLogicalStreamManager().openStream();
 	}
 
 	@Override
 	public void sendPacket(Packet packet) {
+		OutboundQueue outboundQueue = this.getOutboundQueue();
+		if (outboundQueue != null) outboundQueue.awaitWritable();
+
 		this.channel.writeAndFlush(packet);
 	}
 
+	@Override
+	public void sendPacket(Packet packet, PacketPriority priority) {
+		if (priority == PacketPriority.NORMAL) {
+			this.sendPacket(packet);
+			return;
+		}
+
+		OutboundQueue outboundQueue = this.getOutboundQueue();
+		if (outboundQueue != null) outboundQueue.awaitWritable();
+
+		this.channel.writeAndFlush(new PrioritizedPacket(packet, priority));
+	}
+
+	@Override
+	public <R extends Packet> CompletableFuture<R> request(Packet request, Class<R> responseType, long timeout, TimeUnit unit) {
+		RequestManager requestManager = this.getRequestManager();
+		if (requestManager == null) throw new IllegalStateException("The channel has no packet handler.");
+
+		return requestManager.request(request, responseType, timeout, unit);
+	}
+
+	@Override
+	public CompletableFuture<Void> sendStream(InputStream input) {
+		OutboundQueue outboundQueue = this.getOutboundQueue();
+		if (outboundQueue == null) throw new IllegalStateException("The channel has no outbound queue.");
+
+		return outboundQueue.sendStream(input);
+	}
+
+	@Override
+	public CompletableFuture<Void> sendFile(Path file, long offset, long length) {
+		OutboundQueue outboundQueue = this.getOutboundQueue();
+		if (outboundQueue == null) throw new IllegalStateException("The channel has no outbound queue.");
+
+		return outboundQueue.sendFile(file, offset, length);
+	}
+
+	/**
+	 * Returns whether an already encoded frame can be written to the channel, see {@link #writeFrame(ByteBuf, boolean)}.<br>
+	 * Packets of a reliable session have to pass the session handler to get their sequence numbers, packets still
+	 * queued by the {@link OutboundQueue} must not be overtaken and an unwritable channel has to apply the slow
+	 * consumer policy, so the packet has to be written to the pipeline in these cases.
+	 *
+	 * @return Whether the frame can skip the pipeline.
+	 */
+	boolean canWriteFrame() {
+		if (!this.channel.isWritable() || this.channel.pipeline().get("prokyoSession") != null) return false;
+
+		OutboundQueue outboundQueue = this.getOutboundQueue();
+		return outboundQueue == null || !outboundQueue.hasPending();
+	}
+
+	/**
+	 * Writes an already encoded frame (including its length field) to the channel, skipping the encoders of the pipeline.
+	 *
+	 * @param frame The frame, which will be released after writing it
+	 * @param flush Whether the channel shall be flushed afterwards
+	 */
+	void writeFrame(ByteBuf frame, boolean flush) {
+		ChannelHandlerContext context = this.channel.pipeline().context("frame-prepender");
+		if (context == null) {
+			// the pipeline is already torn down
+			frame.release();
+			return;
+		}
+
+		if (flush) context.writeAndFlush(frame, context.voidPromise());
+		else context.write(frame, context.voidPromise());
+	}
+
 }
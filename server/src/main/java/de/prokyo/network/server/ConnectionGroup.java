@@ -0,0 +1,128 @@
+package de.prokyo.network.server;
+
+import de.prokyo.network.common.event.EventManager;
+import de.prokyo.network.common.event.OutgoingPacketEvent;
+import de.prokyo.network.common.packet.Packet;
+import io.netty.channel.EventLoop;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Predicate;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A group of connections grouped by the event loop owning their channel.<br>
+ * Sending a packet to the group encodes it once and submits a single task per event loop, which writes the frame to
+ * all of its connections and flushes them afterwards, instead of submitting one cross thread write per connection.
+ *
+ * <p>The sets of the event loops are concurrent sets and never removed, so adding and removing connections
+ * never blocks sending packets. The amount of event loops is fixed, so the empty sets don't pile up.</p>
+ */
+@RequiredArgsConstructor
+class ConnectionGroup {
+
+	private final Map<EventLoop, Set<ClientConnection>> connections = new ConcurrentHashMap<>();
+	private final EventManager eventManager;
+
+	/**
+	 * Adds the given connection to this group.
+	 *
+	 * @param connection The connection
+	 */
+	void add(ClientConnection connection) {
+		this.connections.computeIfAbsent(connection.getChannel().eventLoop(), loop -> ConcurrentHashMap.newKeySet()).add(connection);
+	}
+
+	/**
+	 * Removes the given connection from this group.
+	 *
+	 * @param connection The connection
+	 */
+	void remove(ClientConnection connection) {
+		Set<ClientConnection> loopConnections = this.connections.get(connection.getChannel().eventLoop());
+		if (loopConnections != null) loopConnections.remove(connection);
+	}
+
+	/**
+	 * Returns whether this group contains no connections.
+	 *
+	 * @return Whether this group contains no connections.
+	 */
+	boolean isEmpty() {
+		for (Set<ClientConnection> loopConnections : this.connections.values()) if (!loopConnections.isEmpty()) return false;
+		return true;
+	}
+
+	/**
+	 * Sends the given packet to all connections of this group matching the given filter.<br>
+	 * The filter and the {@link OutgoingPacketEvent} handlers are called on the event loops of the connections.
+	 *
+	 * @param packet The packet to send
+	 * @param filter The filter selecting the receivers or null to send the packet to all connections
+	 */
+	void send(Packet packet, Predicate<ClientConnection> filter) {
+		BroadcastFrame frame = new BroadcastFrame(packet);
+		boolean fireOutgoingEvent = this.eventManager.hasHandlers(OutgoingPacketEvent.class);
+
+		try {
+			for (Map.Entry<EventLoop, Set<ClientConnection>> entry : this.connections.entrySet()) {
+				Set<ClientConnection> loopConnections = entry.getValue();
+				if (loopConnections.isEmpty()) continue;
+
+				frame.retain();
+				try {
+					entry.getKey().execute(() -> this.write(loopConnections, frame, filter, fireOutgoingEvent));
+				} catch (RejectedExecutionException e) {
+					// the event loop is shutting down, so its connections are closed anyway
+					frame.release();
+				}
+			}
+		} finally {
+			frame.release();
+		}
+	}
+
+	/**
+	 * Writes the frame to the given connections and flushes the ones written to afterwards.<br>
+	 * This method is called on the event loop of the connections.
+	 *
+	 * @param loopConnections The connections of one event loop
+	 * @param frame The frame to write
+	 * @param filter The filter selecting the receivers or null to send the packet to all connections
+	 * @param fireOutgoingEvent Whether the {@link OutgoingPacketEvent} shall be fired for every receiver
+	 */
+	private void write(Set<ClientConnection> loopConnections, BroadcastFrame frame, Predicate<ClientConnection> filter,
+					boolean fireOutgoingEvent) {
+		List<ClientConnection> written = new ArrayList<>();
+		try {
+			for (ClientConnection connection : loopConnections) {
+				if (filter != null && !filter.test(connection)) continue;
+
+				if (!connection.canWriteFrame()) {
+					// let the pipeline sequence the packet or the outbound queue keep the order and apply the slow
+					// consumer policy, the handlers fire the event on their own
+					connection.getChannel().write(frame.getPacket(), connection.getChannel().voidPromise());
+					written.add(connection);
+					continue;
+				}
+
+				if (fireOutgoingEvent) {
+					OutgoingPacketEvent event = new OutgoingPacketEvent(frame.getPacket(), connection);
+					this.eventManager.fire(event);
+					if (event.isCancelled()) continue;
+				}
+
+				connection.writeFrame(frame.get(connection).retainedDuplicate(), false);
+				written.add(connection);
+			}
+
+			for (ClientConnection connection : written) connection.getChannel().flush();
+		} finally {
+			frame.release();
+		}
+	}
+
+}
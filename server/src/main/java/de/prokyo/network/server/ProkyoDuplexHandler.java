@@ -1,54 +1,137 @@
 package de.prokyo.network.server;
 
+import de.prokyo.network.common.connection.LogicalStreamManager;
+import de.prokyo.network.common.connection.RequestManager;
 import de.prokyo.network.common.event.OutgoingPacketEvent;
+import de.prokyo.network.common.event.PacketBatchEvent;
 import de.prokyo.network.common.event.PacketIncomingEvent;
+import de.prokyo.network.common.packet.DecodedPacket;
 import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.common.packet.PrioritizedPacket;
+import de.prokyo.network.common.stream.StreamReceiver;
 import de.prokyo.network.server.event.ConnectionClosedEvent;
 import de.prokyo.network.server.event.ConnectionEstablishedEvent;
+import de.prokyo.network.server.event.ConnectionWritabilityChangedEvent;
+import de.prokyo.network.server.inbox.PacketInbox;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
-import lombok.RequiredArgsConstructor;
+import lombok.AccessLevel;
+import lombok.Getter;
 
 /**
  * Represents a packet handler for triggering events.
  */
-@RequiredArgsConstructor
 public class ProkyoDuplexHandler extends ChannelDuplexHandler {
 
 	private final ProkyoServer prokyoServer;
 	private final ClientConnection connection;
+	private final PacketBatchEvent batchEvent;
+	private StreamReceiver streamReceiver;
+	@Getter(AccessLevel.PACKAGE) private RequestManager requestManager;
+	@Getter(AccessLevel.PACKAGE) private LogicalStreamManager logicalStreamManager;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param prokyoServer The server the connection belongs to
+	 * @param connection The connection this handler handles
+	 */
+	public ProkyoDuplexHandler(ProkyoServer prokyoServer, ClientConnection connection) {
+		this.prokyoServer = prokyoServer;
+		this.connection = connection;
+		this.batchEvent = prokyoServer.isInboundBatching() ? new PacketBatchEvent(connection) : null;
+	}
+
+	@Override
+	public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+		this.streamReceiver = new StreamReceiver(ctx.channel(), this.connection, this.prokyoServer.getEventManager());
+		this.requestManager = new RequestManager(ctx.channel(), this.connection, this.prokyoServer.getEventManager());
+		this.logicalStreamManager = new LogicalStreamManager(ctx.channel(), this.connection, this.prokyoServer.getEventManager(), false);
+	}
 
 	@Override
 	public void channelActive(ChannelHandlerContext ctx) throws Exception {
+		this.prokyoServer.addConnection(this.connection);
 		this.prokyoServer.getEventManager().fire(new ConnectionEstablishedEvent(this.connection));
 	}
 
 	@Override
 	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		this.prokyoServer.removeConnection(this.connection);
+		this.fireBatch();
+		this.streamReceiver.close();
+		this.requestManager.close();
+		this.logicalStreamManager.close();
 		this.prokyoServer.getEventManager().fire(new ConnectionClosedEvent(this.connection));
 	}
 
 	@Override
 	public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-		if (!(msg instanceof Packet)) return;
+		if (!(msg instanceof DecodedPacket)) return;
 
+		DecodedPacket decodedPacket = (DecodedPacket) msg;
 		try {
-			this.prokyoServer.getEventManager().fire((Packet) msg);
-			this.prokyoServer.getEventManager().fire(new PacketIncomingEvent((Packet) msg, this.connection));
+			if (this.streamReceiver.receive(decodedPacket.getPacket())) return;
+			if (this.requestManager.receive(decodedPacket.getPacket())) return;
+			if (this.logicalStreamManager.receive(decodedPacket.getPacket())) return;
+
+			PacketIncomingEvent event = new PacketIncomingEvent(decodedPacket.getPacket(), this.connection);
+			this.prokyoServer.getEventManager().fire(event);
+			if (event.isCancelled()) return;
+
+			PacketInbox inbox = this.prokyoServer.getPacketInbox();
+			if (this.batchEvent != null && inbox == null) this.batchEvent.getPackets().add(decodedPacket.getPacket());
+			else if (inbox != null) inbox.offer(this.connection, decodedPacket.getPacketId(), decodedPacket.getPacket());
+			else this.prokyoServer.getEventManager().getPacketDispatcher().dispatch(decodedPacket.getPacketId(), decodedPacket.getPacket());
 		} finally {
 			super.channelRead(ctx, msg);
 		}
 	}
 
+	@Override
+	public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+		try {
+			this.fireBatch();
+		} finally {
+			super.channelReadComplete(ctx);
+		}
+	}
+
+	@Override
+	public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+		try {
+			this.prokyoServer.getEventManager().fire(new ConnectionWritabilityChangedEvent(this.connection, ctx.channel().isWritable()));
+		} finally {
+			super.channelWritabilityChanged(ctx);
+		}
+	}
+
 	@Override
 	public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
-		if (!(msg instanceof Packet)) return;
+		Packet packet = msg instanceof PrioritizedPacket ? ((PrioritizedPacket) msg).getPacket() : null;
+		if (packet == null && msg instanceof Packet) packet = (Packet) msg;
+		if (packet == null) return;
+
+		OutgoingPacketEvent event = new OutgoingPacketEvent(packet, this.connection);
+		try {
+			this.prokyoServer.getEventManager().fire(event);
+		} finally {
+			if (event.isCancelled()) promise.cancel(false);
+			else super.write(ctx, msg, promise);
+		}
+	}
+
+	/**
+	 * Fires the {@link PacketBatchEvent} containing all packets collected since the last call, if there are any.
+	 */
+	private void fireBatch() {
+		if (this.batchEvent == null || this.batchEvent.getPackets().isEmpty()) return;
 
 		try {
-			this.prokyoServer.getEventManager().fire(new OutgoingPacketEvent((Packet) msg, this.connection));
+			this.prokyoServer.getEventManager().fire(this.batchEvent);
 		} finally {
-			super.write(ctx, msg, promise);
+			this.batchEvent.getPackets().clear();
 		}
 	}
 
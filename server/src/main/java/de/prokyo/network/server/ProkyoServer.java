@@ -1,16 +1,37 @@
 package de.prokyo.network.server;
 
+import de.prokyo.network.common.connection.SessionRegistry;
+import de.prokyo.network.common.connection.SlowConsumerPolicy;
+import de.prokyo.network.common.connection.SocketOptions;
+import de.prokyo.network.common.connection.TimeSync;
+import de.prokyo.network.common.connection.Transport;
 import de.prokyo.network.common.event.EventManager;
+import de.prokyo.network.common.event.OutgoingPacketEvent;
+import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.common.pipeline.HeartbeatHandler;
+import de.prokyo.network.common.pipeline.OutboundQueue;
+import de.prokyo.network.common.pipeline.PacketDecoder;
 import de.prokyo.network.server.event.ServerStartEvent;
+import de.prokyo.network.server.inbox.PacketInbox;
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.epoll.Epoll;
-import io.netty.channel.epoll.EpollEventLoopGroup;
-import io.netty.channel.epoll.EpollServerSocketChannel;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
 import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import lombok.Getter;
+import lombok.Setter;
 
 /**
  * Represents a server handling connections to clients.
@@ -19,8 +40,88 @@ public class ProkyoServer {
 
 	@Getter private final EventManager eventManager = new EventManager();
 	@Getter private InetSocketAddress localHost;
+	/**
+	 * The path of the unix domain socket the server is bound to, if it was started by {@link #startUnix(Path)}.
+	 */
+	@Getter private Path unixSocketPath;
+	/**
+	 * The inbox incoming packets are handed over to instead of calling their handlers on the netty threads.<br>
+	 * The {@link de.prokyo.network.common.event.PacketIncomingEvent} is still fired on the netty threads, so
+	 * filtering handlers can drop packets before they are handed over.
+	 */
+	@Getter @Setter private volatile PacketInbox packetInbox;
+	/**
+	 * Whether all packets decoded in one socket read shall be delivered at once as a
+	 * {@link de.prokyo.network.common.event.PacketBatchEvent} instead of firing the handlers of every packet.<br>
+	 * The {@link de.prokyo.network.common.event.PacketIncomingEvent} is still fired for every packet and cancelled packets
+	 * are left out of the batch.<br>
+	 * It only affects connections established afterwards and has no effect while a {@link PacketInbox} is set.
+	 */
+	@Getter @Setter private volatile boolean inboundBatching;
+	/**
+	 * The amount of server channels bound to the same port using SO_REUSEPORT, so the kernel spreads
+	 * the incoming connections across multiple acceptor threads.<br>
+	 * This is only supported by epoll, all other transports always bind a single server channel.
+	 */
+	@Getter @Setter private int reusePortAcceptors = 1;
+	/**
+	 * The transport of the server or null to use the preferred available transport, see {@link Transport#best()}.<br>
+	 * It has to be set before starting the server.
+	 */
+	@Getter @Setter private Transport transport;
+	/**
+	 * The socket and channel options of the server and its connections, including the write buffer watermarks.<br>
+	 * They have to be set before starting the server.
+	 */
+	@Getter @Setter private SocketOptions socketOptions = new SocketOptions();
+	/**
+	 * The maximum size of a received frame in bytes, larger frames are discarded and raise a
+	 * {@link io.netty.handler.codec.TooLongFrameException}.<br>
+	 * It has to be set before starting the server.
+	 */
+	@Getter @Setter private int maxFrameSize = PacketDecoder.DEFAULT_MAX_FRAME_SIZE;
+	/**
+	 * The policy applied to connections not reading their packets fast enough.<br>
+	 * It only affects connections established afterwards, see {@link ClientConnection#getOutboundQueue()}.
+	 */
+	@Getter @Setter private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.UNBOUNDED;
+	/**
+	 * The amount of packets queued per unwritable connection before the {@link #slowConsumerPolicy} is applied.
+	 */
+	@Getter @Setter private int maxQueuedPackets = OutboundQueue.DEFAULT_MAX_QUEUED_PACKETS;
+	/**
+	 * The time in milliseconds a connection may stay unwritable before it is closed by the
+	 * {@link SlowConsumerPolicy#DISCONNECT} policy (0 = unlimited).
+	 */
+	@Getter @Setter private long maxUnwritableMillis;
+	/**
+	 * The time in milliseconds without receiving anything after which a heartbeat is sent to a client (0 = disabled).<br>
+	 * It only affects connections established afterwards, see {@link HeartbeatHandler}.
+	 */
+	@Getter @Setter private long heartbeatIntervalMillis = HeartbeatHandler.DEFAULT_INTERVAL_MILLIS;
+	/**
+	 * The time in milliseconds without receiving anything after which a connection is closed.<br>
+	 * It only affects connections established afterwards and is ignored while heartbeats are disabled.
+	 */
+	@Getter @Setter private long heartbeatTimeoutMillis = HeartbeatHandler.DEFAULT_TIMEOUT_MILLIS;
+	/**
+	 * The time in milliseconds between two samples of the clock offset of a client (0 = disabled).<br>
+	 * The requests of the clients are always answered, so usually only the clients sample the offset, see
+	 * {@link TimeSync}. It only affects connections established afterwards.
+	 */
+	@Getter @Setter private long timeSyncIntervalMillis;
+	/**
+	 * The sessions clients can resume after reconnecting or null if reliable sessions are disabled.<br>
+	 * Clients have to enable reliable sessions as well, see {@link #enableReliableSessions(int, long)}.
+	 */
+	@Getter private volatile SessionRegistry sessionRegistry;
+	private final List<Channel> serverChannels = new ArrayList<>();
+	private final Set<ClientConnection> connections = ConcurrentHashMap.newKeySet();
+	private final ConnectionGroup connectionGroup = new ConnectionGroup(this.eventManager);
+	private final TopicRegistry topicRegistry = new TopicRegistry(this.eventManager);
+	private EventLoopGroup bossGroup;
 	private EventLoopGroup workerGroup;
-	private boolean started;
+	private volatile boolean started;
 
 	/**
 	 * Starts a server with the given host address and port with the given amount of threads.<br>
@@ -38,6 +139,7 @@ public class ProkyoServer {
 	/**
 	 * Starts a server with the given host address and port with the given amount of threads.<br>
 	 * This method <b>will block</b> the current thread.
+	 * The connections are accepted by a single thread.
 	 *
 	 * @param host    The remote host
 	 * @param port    The port of the remote server
@@ -45,18 +147,226 @@ public class ProkyoServer {
 	 * @throws InterruptedException If the thread is interrupted by another thread.
 	 */
 	public void start(String host, int port, int threads) throws InterruptedException {
-		this.localHost = new InetSocketAddress(host, port);
-		boolean epoll = Epoll.isAvailable();
-		this.workerGroup = epoll ? new EpollEventLoopGroup(threads) : new NioEventLoopGroup(threads);
+		this.start(host, port, 1, threads);
+	}
+
+	/**
+	 * Starts a server with the given host address and port with separate threads for accepting connections
+	 * and for handling the connections.<br>
+	 * This method <b>will block</b> the current thread.
+	 * If more than one reuse port acceptor is configured, the boss group gets at least one thread per acceptor.
+	 *
+	 * @param host          The remote host
+	 * @param port          The port of the remote server
+	 * @param bossThreads   The amount of threads accepting connections (0 = evaluated by netty)
+	 * @param workerThreads The amount of threads handling the connections (0 = evaluated by netty)
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	public void start(String host, int port, int bossThreads, int workerThreads) throws InterruptedException {
+		List<ChannelFuture> bindFutures = this.bind(host, port, bossThreads, workerThreads);
+		for (ChannelFuture bindFuture : bindFutures) bindFuture.sync();
+
+		this.started(bindFutures);
+	}
+
+	/**
+	 * Starts a server with the given host address and port without blocking the current thread.<br>
+	 * The amount of threads will be evaluated by netty.
+	 *
+	 * @param host The remote host
+	 * @param port The port of the remote server
+	 * @return A future completed with this server once it is started.
+	 */
+	public CompletableFuture<ProkyoServer> startAsync(String host, int port) {
+		return this.startAsync(host, port, 1, 0);
+	}
+
+	/**
+	 * Starts a server with the given host address and port with separate threads for accepting connections
+	 * and for handling the connections without blocking the current thread.<br>
+	 * The {@link ServerStartEvent} is fired by a thread of the boss group. If the server can't be bound, its threads are
+	 * stopped and the future fails.
+	 *
+	 * @param host          The remote host
+	 * @param port          The port of the remote server
+	 * @param bossThreads   The amount of threads accepting connections (0 = evaluated by netty)
+	 * @param workerThreads The amount of threads handling the connections (0 = evaluated by netty)
+	 * @return A future completed with this server once it is started.
+	 */
+	public CompletableFuture<ProkyoServer> startAsync(String host, int port, int bossThreads, int workerThreads) {
+		CompletableFuture<ProkyoServer> future = new CompletableFuture<>();
+		List<ChannelFuture> bindFutures = this.bind(host, port, bossThreads, workerThreads);
+		AtomicInteger pendingBinds = new AtomicInteger(bindFutures.size());
+
+		for (ChannelFuture bindFuture : bindFutures) {
+			bindFuture.addListener(bound -> {
+				if (!bound.isSuccess()) {
+					if (future.completeExceptionally(bound.cause())) {
+						this.bossGroup.shutdownGracefully();
+						this.workerGroup.shutdownGracefully();
+					}
+				} else if (pendingBinds.decrementAndGet() == 0 && !future.isDone()) {
+					this.started(bindFutures);
+					future.complete(this);
+				}
+			});
+		}
+		return future;
+	}
+
+	/**
+	 * Starts a server bound to a unix domain socket at the given path, which avoids the tcp stack for clients
+	 * on the same machine.<br>
+	 * This method <b>will block</b> the current thread.
+	 * The amount of threads will be evaluated by netty.
+	 *
+	 * @param path The path of the socket file, which must not exist yet
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	public void startUnix(Path path) throws InterruptedException {
+		this.startUnix(path, 0);
+	}
+
+	/**
+	 * Starts a server bound to a unix domain socket at the given path, which avoids the tcp stack for clients
+	 * on the same machine.<br>
+	 * This method <b>will block</b> the current thread.
+	 * Unix domain sockets are only supported by the epoll transport, so the configured transport is ignored.
+	 * The socket file is deleted again once the server is shut down.
+	 *
+	 * @param path    The path of the socket file, which must not exist yet
+	 * @param threads The amount of threads handling the connections (0 = evaluated by netty)
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	public void startUnix(Path path, int threads) throws InterruptedException {
+		if (path == null) throw new IllegalArgumentException("The path cannot be null");
+		if (!Transport.EPOLL.isAvailable()) throw new IllegalStateException("Unix domain sockets require the epoll transport.");
+
+		this.unixSocketPath = path;
+		this.bossGroup = Transport.EPOLL.newEventLoopGroup(1);
+		this.workerGroup = Transport.EPOLL.newEventLoopGroup(threads);
 
 		ServerBootstrap serverBootstrap = new ServerBootstrap()
-				.group(this.workerGroup)
-				.channel(epoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class)
-				.localAddress(this.localHost);
+				.group(this.bossGroup, this.workerGroup)
+				.channel(EpollServerDomainSocketChannel.class)
+				.localAddress(new DomainSocketAddress(path.toFile()))
+				.childHandler(new ClientChannelInitializer(this));
+		this.socketOptions.applyToDomainSocket(serverBootstrap);
 
-		serverBootstrap.childHandler(new ClientChannelInitializer(this)).bind().sync();
-		this.eventManager.fire(new ServerStartEvent(this));
-		this.started = true;
+		ChannelFuture bindFuture = serverBootstrap.bind().sync();
+		this.started(Collections.singletonList(bindFuture));
+	}
+
+	/**
+	 * Sends the packets of all connections established afterwards within reliable sessions, which the clients can
+	 * resume after reconnecting, so no packet is lost.<br>
+	 * Packets sent by {@link #broadcast(Packet)} and {@link #publish(Object, Packet)} are covered by the sessions as
+	 * well, but they are encoded for every connection using a session, because every connection numbers its
+	 * packets on its own.
+	 *
+	 * @param maxUnacknowledgedPackets The maximum amount of packets a session keeps until the client acknowledged them
+	 * @param sessionTimeoutMillis The time in milliseconds a session can be resumed after its connection was closed
+	 */
+	public void enableReliableSessions(int maxUnacknowledgedPackets, long sessionTimeoutMillis) {
+		this.sessionRegistry = new SessionRegistry(maxUnacknowledgedPackets, sessionTimeoutMillis);
+	}
+
+	/**
+	 * Sends the given packet to all connected clients.<br>
+	 * See {@link #broadcast(Packet, Predicate)}.
+	 *
+	 * @param packet The packet to send
+	 */
+	public void broadcast(Packet packet) {
+		this.broadcast(packet, null);
+	}
+
+	/**
+	 * Sends the given packet to all connected clients matching the given filter.<br>
+	 * The packet is encoded (and compressed) only once and the resulting frame is shared by all receivers.
+	 * Connections using reliable sessions are the exception, they encode the packet on their own, so it is sent
+	 * within the session, see {@link #enableReliableSessions(int, long)}.
+	 * The frame is written by a single task per event loop, which flushes its connections after writing to all of them.
+	 * The filter and the {@link OutgoingPacketEvent} (if anyone listens to it) are called on the event loops.
+	 *
+	 * @param packet The packet to send
+	 * @param filter The filter selecting the receivers or null to send the packet to all clients
+	 */
+	public void broadcast(Packet packet, Predicate<ClientConnection> filter) {
+		this.connectionGroup.send(packet, filter);
+	}
+
+	/**
+	 * Subscribes the given connection to the given topic (e.g. a room or an area of a map).<br>
+	 * The connection is unsubscribed from all of its topics automatically when it is closed.
+	 *
+	 * @param connection The connection
+	 * @param topic The topic, which has to implement {@link Object#equals(Object)} and {@link Object#hashCode()}
+	 */
+	public void subscribe(ClientConnection connection, Object topic) {
+		this.topicRegistry.subscribe(connection, topic);
+	}
+
+	/**
+	 * Unsubscribes the given connection from the given topic.
+	 *
+	 * @param connection The connection
+	 * @param topic The topic
+	 */
+	public void unsubscribe(ClientConnection connection, Object topic) {
+		this.topicRegistry.unsubscribe(connection, topic);
+	}
+
+	/**
+	 * Sends the given packet to all connections subscribed to the given topic.<br>
+	 * Just like {@link #broadcast(Packet, Predicate)} the packet is encoded only once and written
+	 * by a single task per event loop.
+	 *
+	 * @param topic The topic
+	 * @param packet The packet to send
+	 */
+	public void publish(Object topic, Packet packet) {
+		this.topicRegistry.publish(topic, packet);
+	}
+
+	/**
+	 * Returns whether at least one connection is subscribed to the given topic.
+	 *
+	 * @param topic The topic
+	 * @return Whether the topic has at least one subscriber.
+	 */
+	public boolean hasSubscribers(Object topic) {
+		return this.topicRegistry.hasSubscribers(topic);
+	}
+
+	/**
+	 * Returns all currently connected clients.
+	 *
+	 * @return An unmodifiable live view of the connected clients.
+	 */
+	public Set<ClientConnection> getConnections() {
+		return Collections.unmodifiableSet(this.connections);
+	}
+
+	/**
+	 * Adds the given connection to the connected clients.
+	 *
+	 * @param connection The connection
+	 */
+	void addConnection(ClientConnection connection) {
+		this.connections.add(connection);
+		this.connectionGroup.add(connection);
+	}
+
+	/**
+	 * Removes the given connection from the connected clients and from all topics.
+	 *
+	 * @param connection The connection
+	 */
+	void removeConnection(ClientConnection connection) {
+		this.connections.remove(connection);
+		this.connectionGroup.remove(connection);
+		this.topicRegistry.unsubscribeAll(connection);
 	}
 
 	/**
@@ -65,7 +375,9 @@ public class ProkyoServer {
 	public void shutdown() {
 		if (this.started) {
 			try {
+				this.bossGroup.shutdownGracefully().sync();
 				this.workerGroup.shutdownGracefully().sync();
+				this.serverChannels.clear();
 				this.started = false;
 			} catch (InterruptedException e) {
 				e.printStackTrace();
@@ -78,9 +390,55 @@ public class ProkyoServer {
 	 */
 	public void shutdownAsync() {
 		if (this.started) {
+			this.bossGroup.shutdownGracefully();
 			this.workerGroup.shutdownGracefully();
+			this.serverChannels.clear();
 			this.started = false;
 		}
 	}
 
+	/**
+	 * Creates the event loop groups and binds the server channels.
+	 *
+	 * @param host          The remote host
+	 * @param port          The port of the remote server
+	 * @param bossThreads   The amount of threads accepting connections (0 = evaluated by netty)
+	 * @param workerThreads The amount of threads handling the connections (0 = evaluated by netty)
+	 * @return The futures of the bind operations, one per acceptor.
+	 */
+	private List<ChannelFuture> bind(String host, int port, int bossThreads, int workerThreads) {
+		this.localHost = new InetSocketAddress(host, port);
+		Transport transport = Transport.resolve(this.transport);
+		int acceptors = transport == Transport.EPOLL ? Math.max(1, this.reusePortAcceptors) : 1;
+		if (acceptors > 1) bossThreads = Math.max(bossThreads, acceptors);
+
+		this.bossGroup = transport.newEventLoopGroup(bossThreads);
+		this.workerGroup = transport.newEventLoopGroup(workerThreads);
+
+		ServerBootstrap serverBootstrap = new ServerBootstrap()
+				.group(this.bossGroup, this.workerGroup)
+				.channel(transport.getServerSocketChannelClass())
+				.localAddress(this.localHost)
+				.childHandler(new ClientChannelInitializer(this));
+		if (acceptors > 1) serverBootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+		this.socketOptions.applyTo(serverBootstrap, transport);
+
+		// every bind registers a new server channel on the next event loop of the boss group
+		List<ChannelFuture> bindFutures = new ArrayList<>();
+		for (int i = 0; i < acceptors; i++) bindFutures.add(serverBootstrap.bind());
+		return bindFutures;
+	}
+
+	/**
+	 * Remembers the bound server channels and fires the {@link ServerStartEvent}.
+	 *
+	 * @param bindFutures The completed futures of the bind operations
+	 */
+	private void started(List<ChannelFuture> bindFutures) {
+		for (ChannelFuture bindFuture : bindFutures) this.serverChannels.add(bindFuture.channel());
+
+		this.eventManager.fire(new ServerStartEvent(this));
+		this.started = true;
+	}
+
 }
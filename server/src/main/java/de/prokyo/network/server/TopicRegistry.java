@@ -0,0 +1,84 @@
+package de.prokyo.network.server;
+
+import de.prokyo.network.common.event.EventManager;
+import de.prokyo.network.common.packet.Packet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps track of the connections subscribed to a topic.<br>
+ * Every topic is a {@link ConnectionGroup}, so publishing a packet to it encodes it once and batches the writes
+ * per event loop. Subscribing and unsubscribing only lock the bin of the topic inside the map,
+ * while publishing doesn't lock at all.
+ */
+@RequiredArgsConstructor
+class TopicRegistry {
+
+	private final Map<Object, ConnectionGroup> topics = new ConcurrentHashMap<>();
+	private final EventManager eventManager;
+
+	/**
+	 * Subscribes the given connection to the given topic.
+	 *
+	 * @param connection The connection
+	 * @param topic The topic
+	 */
+	void subscribe(ClientConnection connection, Object topic) {
+		connection.getTopics().add(topic);
+		this.topics.compute(topic, (key, group) -> {
+			if (group == null) group = new ConnectionGroup(this.eventManager);
+			group.add(connection);
+			return group;
+		});
+
+		// the connection may have been closed and cleaned up in the meantime
+		if (!connection.getChannel().isActive()) this.unsubscribe(connection, topic);
+	}
+
+	/**
+	 * Unsubscribes the given connection from the given topic.<br>
+	 * Topics without any subscribers are removed.
+	 *
+	 * @param connection The connection
+	 * @param topic The topic
+	 */
+	void unsubscribe(ClientConnection connection, Object topic) {
+		connection.getTopics().remove(topic);
+		this.topics.computeIfPresent(topic, (key, group) -> {
+			group.remove(connection);
+			return group.isEmpty() ? null : group;
+		});
+	}
+
+	/**
+	 * Unsubscribes the given connection from all of its topics.
+	 *
+	 * @param connection The connection
+	 */
+	void unsubscribeAll(ClientConnection connection) {
+		for (Object topic : connection.getTopics()) this.unsubscribe(connection, topic);
+	}
+
+	/**
+	 * Sends the given packet to all subscribers of the given topic.
+	 *
+	 * @param topic The topic
+	 * @param packet The packet to send
+	 */
+	void publish(Object topic, Packet packet) {
+		ConnectionGroup group = this.topics.get(topic);
+		if (group != null) group.send(packet, null);
+	}
+
+	/**
+	 * Returns whether the given topic has at least one subscriber.
+	 *
+	 * @param topic The topic
+	 * @return Whether the topic has at least one subscriber.
+	 */
+	boolean hasSubscribers(Object topic) {
+		return this.topics.containsKey(topic);
+	}
+
+}
@@ -0,0 +1,17 @@
+package de.prokyo.network.server.event;
+
+import de.prokyo.network.common.event.Event;
+import de.prokyo.network.server.ClientConnection;
+import lombok.Data;
+
+/**
+ * Event that will be called when the writability of a connection changed, i.e. the bytes waiting to be sent crossed
+ * the high write buffer watermark (not writable) or fell below the low write buffer watermark (writable again).
+ */
+@Data
+public class ConnectionWritabilityChangedEvent implements Event {
+
+	private final ClientConnection clientConnection;
+	private final boolean writable;
+
+}
@@ -0,0 +1,52 @@
+package de.prokyo.network.server.inbox;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Blocks the consumer on a condition until a producer published a packet.<br>
+ * This strategy uses no CPU while waiting. The producers only have to lock while the consumer is actually waiting.
+ */
+public class BlockingWaitStrategy implements WaitStrategy {
+
+	private final Lock lock = new ReentrantLock();
+	private final Condition notEmpty = this.lock.newCondition();
+	private final AtomicInteger waiters = new AtomicInteger();
+
+	@Override
+	public boolean waitFor(PacketInbox inbox, long timeoutNanos) throws InterruptedException {
+		if (!inbox.isEmpty()) return true;
+
+		this.lock.lock();
+		try {
+			this.waiters.incrementAndGet();
+			try {
+				long remaining = timeoutNanos;
+				while (inbox.isEmpty()) {
+					if (remaining <= 0) return false;
+					remaining = this.notEmpty.awaitNanos(remaining);
+				}
+				return true;
+			} finally {
+				this.waiters.decrementAndGet();
+			}
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public void signalAll() {
+		if (this.waiters.get() == 0) return;
+
+		this.lock.lock();
+		try {
+			this.notEmpty.signalAll();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+}
@@ -0,0 +1,23 @@
+package de.prokyo.network.server.inbox;
+
+/**
+ * Spins in a busy loop until packets are available.<br>
+ * This strategy has the lowest latency, but burns a whole core while waiting.
+ */
+public class BusySpinWaitStrategy implements WaitStrategy {
+
+	@Override
+	public boolean waitFor(PacketInbox inbox, long timeoutNanos) throws InterruptedException {
+		long deadline = System.nanoTime() + timeoutNanos;
+		while (inbox.isEmpty()) {
+			if (Thread.interrupted()) throw new InterruptedException();
+			if (System.nanoTime() - deadline >= 0) return false;
+		}
+		return true;
+	}
+
+	@Override
+	public void signalAll() {
+	}
+
+}
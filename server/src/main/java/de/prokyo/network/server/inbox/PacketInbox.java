@@ -0,0 +1,186 @@
+package de.prokyo.network.server.inbox;
+
+import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.server.ClientConnection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+
+/**
+ * A bounded ring buffer handing received packets over from the netty threads to a single consumer thread,
+ * e.g. the tick thread of a game server.
+ *
+ * <p>All slots are allocated once, so publishing and draining packets neither allocates nor locks.
+ * The producers claim slots with a CAS and the consumer drains all published packets in one batch using
+ * {@link #drainTo(PacketInboxHandler, int)}. How the consumer waits for new packets is defined by the
+ * {@link WaitStrategy}.</p>
+ *
+ * <p>Packets are dropped if the inbox is full, so the capacity should be chosen big enough to hold
+ * all packets received between two drains.</p>
+ */
+public class PacketInbox {
+
+	private final int mask;
+	private final AtomicLongArray sequences;
+	private final ClientConnection[] connections;
+	private final int[] packetIds;
+	private final Packet[] packets;
+	private final AtomicLong tail = new AtomicLong();
+	private final LongAdder droppedPackets = new LongAdder();
+	@Getter private final int capacity;
+	@Getter private final WaitStrategy waitStrategy;
+	private long head;
+
+	/**
+	 * Constructor.<br>
+	 * The consumer waits using the {@link BlockingWaitStrategy}.
+	 *
+	 * @param capacity The minimum amount of packets the inbox can hold, rounded up to the next power of two
+	 */
+	public PacketInbox(int capacity) {
+		this(capacity, new BlockingWaitStrategy());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity The minimum amount of packets the inbox can hold, rounded up to the next power of two
+	 * @param waitStrategy The strategy the consumer uses to wait for new packets
+	 */
+	public PacketInbox(int capacity, WaitStrategy waitStrategy) {
+		if (capacity <= 0 || capacity > 1 << 30) throw new IllegalArgumentException("The capacity has to be between 1 and 2^30.");
+		if (waitStrategy == null) throw new IllegalArgumentException("The wait strategy cannot be null");
+
+		this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+		this.mask = this.capacity - 1;
+		this.waitStrategy = waitStrategy;
+		this.connections = new ClientConnection[this.capacity];
+		this.packetIds = new int[this.capacity];
+		this.packets = new Packet[this.capacity];
+
+		// the sequence of a slot tells whether it's free for the producer (= position) or readable for the consumer (= position + 1)
+		this.sequences = new AtomicLongArray(this.capacity);
+		for (int i = 0; i < this.capacity; i++) this.sequences.set(i, i);
+	}
+
+	/**
+	 * Publishes the given packet to the consumer.<br>
+	 * This method is thread safe and can be called by any amount of producers.
+	 *
+	 * @param connection The connection the packet was received from
+	 * @param packetId The id of the packet
+	 * @param packet The packet
+	 * @return Whether the packet was published or dropped because the inbox is full.
+	 */
+	public boolean offer(ClientConnection connection, int packetId, Packet packet) {
+		long position = this.tail.get();
+		int index;
+
+		while (true) {
+			index = (int) position & this.mask;
+			long difference = this.sequences.get(index) - position;
+
+			if (difference == 0) {
+				if (this.tail.compareAndSet(position, position + 1)) break;
+				position = this.tail.get();
+			} else if (difference < 0) {
+				// the consumer didn't free this slot yet, so the inbox is full
+				this.droppedPackets.increment();
+				return false;
+			} else {
+				position = this.tail.get();
+			}
+		}
+
+		this.connections[index] = connection;
+		this.packetIds[index] = packetId;
+		this.packets[index] = packet;
+		this.sequences.set(index, position + 1);
+
+		this.waitStrategy.signalAll();
+		return true;
+	}
+
+	/**
+	 * Passes up to <i>maxPackets</i> packets to the given handler in the order they were published.<br>
+	 * This method never blocks and must only be called by one consumer thread at a time.
+	 *
+	 * @param handler The handler handling the packets
+	 * @param maxPackets The maximum amount of packets to drain
+	 * @return The amount of drained packets.
+	 */
+	public int drainTo(PacketInboxHandler handler, int maxPackets) {
+		int drained = 0;
+
+		while (drained < maxPackets) {
+			long position = this.head;
+			int index = (int) position & this.mask;
+			if (this.sequences.get(index) != position + 1) break;
+
+			ClientConnection connection = this.connections[index];
+			int packetId = this.packetIds[index];
+			Packet packet = this.packets[index];
+			this.connections[index] = null;
+			this.packets[index] = null;
+
+			// hand the slot back to the producers before calling the handler
+			this.sequences.lazySet(index, position + this.capacity);
+			this.head = position + 1;
+			drained++;
+
+			handler.handle(connection, packetId, packet);
+		}
+
+		return drained;
+	}
+
+	/**
+	 * Waits until packets are available or the timeout elapsed using the {@link WaitStrategy} of this inbox and
+	 * passes up to <i>maxPackets</i> packets to the given handler afterwards.<br>
+	 * This method must only be called by one consumer thread at a time.
+	 *
+	 * @param handler The handler handling the packets
+	 * @param maxPackets The maximum amount of packets to drain
+	 * @param timeout The maximum time to wait
+	 * @param unit The unit of the timeout
+	 * @return The amount of drained packets.
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	public int awaitAndDrainTo(PacketInboxHandler handler, int maxPackets, long timeout, TimeUnit unit)
+			throws InterruptedException {
+		if (!this.waitStrategy.waitFor(this, unit.toNanos(timeout))) return 0;
+		return this.drainTo(handler, maxPackets);
+	}
+
+	/**
+	 * Returns whether the inbox contains no packets.<br>
+	 * This method must only be called by the consumer thread.
+	 *
+	 * @return Whether the inbox contains no packets.
+	 */
+	public boolean isEmpty() {
+		long position = this.head;
+		return this.sequences.get((int) position & this.mask) != position + 1;
+	}
+
+	/**
+	 * Returns the approximate amount of packets waiting to be drained.
+	 *
+	 * @return The approximate amount of packets in the inbox.
+	 */
+	public int size() {
+		return (int) Math.max(0, Math.min(this.capacity, this.tail.get() - this.head));
+	}
+
+	/**
+	 * Returns the amount of packets dropped because the inbox was full.
+	 *
+	 * @return The amount of dropped packets.
+	 */
+	public long getDroppedPackets() {
+		return this.droppedPackets.sum();
+	}
+
+}
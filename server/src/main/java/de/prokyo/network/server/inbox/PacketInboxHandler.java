@@ -0,0 +1,20 @@
+package de.prokyo.network.server.inbox;
+
+import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.server.ClientConnection;
+
+/**
+ * Handles the packets drained from a {@link PacketInbox}.
+ */
+public interface PacketInboxHandler {
+
+	/**
+	 * Handles a packet received by the server.
+	 *
+	 * @param connection The connection the packet was received from
+	 * @param packetId The id of the packet
+	 * @param packet The packet
+	 */
+	void handle(ClientConnection connection, int packetId, Packet packet);
+
+}
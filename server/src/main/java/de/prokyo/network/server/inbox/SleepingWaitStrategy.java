@@ -0,0 +1,47 @@
+package de.prokyo.network.server.inbox;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Parks the consumer for a fixed time between checking for new packets.<br>
+ * The producers never have to wake up the consumer, so they don't pay anything for this strategy.
+ */
+public class SleepingWaitStrategy implements WaitStrategy {
+
+	private final long sleepNanos;
+
+	/**
+	 * Constructor.<br>
+	 * The consumer sleeps 100 microseconds between the checks.
+	 */
+	public SleepingWaitStrategy() {
+		this(100_000);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param sleepNanos The time in nanoseconds the consumer sleeps between the checks
+	 */
+	public SleepingWaitStrategy(long sleepNanos) {
+		this.sleepNanos = sleepNanos;
+	}
+
+	@Override
+	public boolean waitFor(PacketInbox inbox, long timeoutNanos) throws InterruptedException {
+		long deadline = System.nanoTime() + timeoutNanos;
+		while (inbox.isEmpty()) {
+			if (Thread.interrupted()) throw new InterruptedException();
+
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) return false;
+			LockSupport.parkNanos(Math.min(remaining, this.sleepNanos));
+		}
+		return true;
+	}
+
+	@Override
+	public void signalAll() {
+	}
+
+}
@@ -0,0 +1,30 @@
+package de.prokyo.network.server.inbox;
+
+/**
+ * Defines how the consumer of a {@link PacketInbox} waits for new packets.
+ *
+ * @see BlockingWaitStrategy
+ * @see SleepingWaitStrategy
+ * @see YieldingWaitStrategy
+ * @see BusySpinWaitStrategy
+ */
+public interface WaitStrategy {
+
+	/**
+	 * Waits until the given inbox contains at least one packet or the timeout elapsed.<br>
+	 * This method is only called by the consumer thread of the inbox.
+	 *
+	 * @param inbox The inbox to wait for
+	 * @param timeoutNanos The maximum time to wait in nanoseconds
+	 * @return Whether the inbox contains packets.
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	boolean waitFor(PacketInbox inbox, long timeoutNanos) throws InterruptedException;
+
+	/**
+	 * Wakes up the waiting consumer.<br>
+	 * This method is called by the producers every time they published a packet.
+	 */
+	void signalAll();
+
+}
@@ -0,0 +1,29 @@
+package de.prokyo.network.server.inbox;
+
+/**
+ * Spins for a short time and yields the thread afterwards until packets are available.<br>
+ * This strategy has a low latency without completely blocking a core, if other threads need it.
+ */
+public class YieldingWaitStrategy implements WaitStrategy {
+
+	private static final int SPIN_TRIES = 100;
+
+	@Override
+	public boolean waitFor(PacketInbox inbox, long timeoutNanos) throws InterruptedException {
+		long deadline = System.nanoTime() + timeoutNanos;
+		int tries = SPIN_TRIES;
+		while (inbox.isEmpty()) {
+			if (Thread.interrupted()) throw new InterruptedException();
+			if (System.nanoTime() - deadline >= 0) return false;
+
+			if (tries > 0) tries--;
+			else Thread.yield();
+		}
+		return true;
+	}
+
+	@Override
+	public void signalAll() {
+	}
+
+}
@@ -0,0 +1,96 @@
+package de.prokyo.network;
+
+import de.prokyo.network.client.ProkyoClient;
+import de.prokyo.network.common.connection.Connection;
+import de.prokyo.network.common.packet.PacketRegistry;
+import de.prokyo.network.server.ProkyoServer;
+import java.net.ConnectException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for starting servers and connecting clients without blocking.
+ */
+public class AsyncConnectionTest {
+
+	private static final int PORT = 1356;
+	private static final int UNUSED_PORT = 1357;
+
+	/**
+	 * Starts a server and connects a client asynchronously and sends a packet over the connection the future was
+	 * completed with.
+	 *
+	 * @throws Exception If the futures fail or the thread is interrupted.
+	 */
+	@Test
+	public void testConnectAsync() throws Exception {
+		PacketRegistry.INSTANCE.register(PingPacket.class, 0x20);
+
+		List<Long> received = new CopyOnWriteArrayList<>();
+		ProkyoServer server = new ProkyoServer();
+		server.getEventManager().register(PingPacket.class, packet -> received.add(packet.getTime()));
+		ProkyoClient client = new ProkyoClient();
+
+		try {
+			Assert.assertSame(server, server.startAsync("127.0.0.1", PORT, 1, 1).get(5, TimeUnit.SECONDS));
+			Connection connection = client.connectAsync("127.0.0.1", PORT, 1).get(5, TimeUnit.SECONDS);
+			Assert.assertSame(client, connection);
+			Assert.assertTrue(client.isActive());
+
+			connection.sendPacket(new PingPacket(PingPacket.Sender.CLIENT, 1));
+			long deadline = System.currentTimeMillis() + 5000;
+			while (received.isEmpty() && System.currentTimeMillis() < deadline) Thread.sleep(5);
+			Assert.assertEquals(1, received.size());
+			Assert.assertEquals(1, (long) received.get(0));
+		} finally {
+			client.shutdown();
+			server.shutdown();
+		}
+	}
+
+	/**
+	 * Connects a client to a port nothing listens on and checks that the future fails.
+	 *
+	 * @throws Exception If the thread is interrupted.
+	 */
+	@Test
+	public void testConnectAsyncFailure() throws Exception {
+		ProkyoClient client = new ProkyoClient();
+		CompletableFuture<Connection> future = client.connectAsync("127.0.0.1", UNUSED_PORT, 1);
+
+		try {
+			future.get(5, TimeUnit.SECONDS);
+			Assert.fail("The future didn't fail.");
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof ConnectException);
+		}
+		Assert.assertFalse(client.isActive());
+		Assert.assertFalse(client.isConnecting());
+	}
+
+	/**
+	 * Starts a server on a port which is already bound and checks that the future fails.
+	 *
+	 * @throws Exception If the first server can't be started or the thread is interrupted.
+	 */
+	@Test
+	public void testStartAsyncFailure() throws Exception {
+		ProkyoServer server = new ProkyoServer();
+		server.start("127.0.0.1", PORT, 1, 1);
+
+		try {
+			new ProkyoServer().startAsync("127.0.0.1", PORT, 1, 1).get(5, TimeUnit.SECONDS);
+			Assert.fail("The future didn't fail.");
+		} catch (ExecutionException e) {
+			Assert.assertNotNull(e.getCause());
+		} finally {
+			server.shutdown();
+		}
+	}
+
+}
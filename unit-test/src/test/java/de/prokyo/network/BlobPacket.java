@@ -0,0 +1,28 @@
+package de.prokyo.network;
+
+import de.prokyo.network.common.buffer.PacketBuffer;
+import de.prokyo.network.common.packet.Packet;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Test packet containing an arbitrary payload in a single frame.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+public class BlobPacket implements Packet {
+
+	@Getter private byte[] data;
+
+	@Override
+	public void encode(PacketBuffer buffer) {
+		buffer.writeByteArray(this.data);
+	}
+
+	@Override
+	public void decode(PacketBuffer buffer) {
+		this.data = buffer.readByteArray();
+	}
+
+}
@@ -0,0 +1,191 @@
+package de.prokyo.network;
+
+import de.prokyo.network.common.compression.CompressionUtil;
+import de.prokyo.network.common.connection.SlowConsumerPolicy;
+import de.prokyo.network.common.packet.PacketRegistry;
+import de.prokyo.network.common.pipeline.OutboundQueue;
+import de.prokyo.network.common.pipeline.PacketDecoder;
+import de.prokyo.network.common.pipeline.PacketEncoder;
+import de.prokyo.network.server.ClientConnection;
+import de.prokyo.network.server.ProkyoDuplexHandler;
+import de.prokyo.network.server.ProkyoServer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for broadcasting packets to multiple connections.
+ */
+public class BroadcastTest {
+
+	private final ProkyoServer server = new ProkyoServer();
+	private final Map<Channel, ClientConnection> connections = new HashMap<>();
+
+	/**
+	 * Broadcasts a packet to a plain and a compressed connection and checks that both receive exactly the bytes
+	 * the normal pipeline produces, while a filtered connection receives nothing and isn't flushed.
+	 */
+	@Test
+	public void testBroadcast() {
+		PacketRegistry.INSTANCE.register(CompressionPingPacket.class, 0x01);
+		CompressionUtil.init(CompressionUtil.CompressionType.LZ4_FASTEST);
+
+		EmbeddedChannel plain = this.newChannel(false);
+		EmbeddedChannel compressed = this.newChannel(true);
+		EmbeddedChannel filtered = this.newChannel(false);
+		Assert.assertEquals(3, this.server.getConnections().size());
+		AtomicInteger filteredFlushes = new AtomicInteger();
+		filtered.pipeline().addFirst(new ChannelOutboundHandlerAdapter() {
+			@Override
+			public void flush(ChannelHandlerContext ctx) throws Exception {
+				filteredFlushes.incrementAndGet();
+				super.flush(ctx);
+			}
+		});
+
+		CompressionPingPacket packet = new CompressionPingPacket(CompressionPingPacket.Sender.SERVER, new byte[512]);
+		this.server.broadcast(packet, connection -> connection.getChannel() != filtered);
+		this.runPendingTasks();
+
+		EmbeddedChannel plainReference = this.newChannel(false);
+		EmbeddedChannel compressedReference = this.newChannel(true);
+		this.connections.get(plainReference).sendPacket(packet);
+		this.connections.get(compressedReference).sendPacket(packet);
+
+		Assert.assertEquals(ByteBufUtil.hexDump(this.readOutbound(plainReference)), ByteBufUtil.hexDump(this.readOutbound(plain)));
+		Assert.assertEquals(ByteBufUtil.hexDump(this.readOutbound(compressedReference)),
+				ByteBufUtil.hexDump(this.readOutbound(compressed)));
+		Assert.assertNull(filtered.readOutbound());
+		Assert.assertEquals(0, filteredFlushes.get());
+
+		plain.finish();
+		this.server.getConnections().forEach(connection -> connection.getChannel().close());
+		Assert.assertTrue(this.server.getConnections().isEmpty());
+	}
+
+	/**
+	 * Publishes packets to a topic and checks that only its subscribers receive them
+	 * and that closed connections are removed from the topic.
+	 */
+	@Test
+	public void testTopics() {
+		PacketRegistry.INSTANCE.register(CompressionPingPacket.class, 0x01);
+		CompressionUtil.init(CompressionUtil.CompressionType.LZ4_FASTEST);
+
+		EmbeddedChannel first = this.newChannel(false);
+		EmbeddedChannel second = this.newChannel(true);
+		EmbeddedChannel other = this.newChannel(false);
+		this.server.subscribe(this.connections.get(first), "room");
+		this.server.subscribe(this.connections.get(second), "room");
+		this.server.subscribe(this.connections.get(other), "other room");
+
+		this.server.publish("room", new CompressionPingPacket(CompressionPingPacket.Sender.SERVER, new byte[64]));
+		this.runPendingTasks();
+		Assert.assertTrue(this.readOutbound(first).isReadable());
+		Assert.assertTrue(this.readOutbound(second).isReadable());
+		Assert.assertFalse(this.readOutbound(other).isReadable());
+
+		this.server.unsubscribe(this.connections.get(first), "room");
+		this.server.publish("room", new CompressionPingPacket(CompressionPingPacket.Sender.SERVER, new byte[64]));
+		this.runPendingTasks();
+		Assert.assertFalse(this.readOutbound(first).isReadable());
+		Assert.assertTrue(this.readOutbound(second).isReadable());
+
+		second.close();
+		other.close();
+		Assert.assertFalse(this.server.hasSubscribers("room"));
+		Assert.assertFalse(this.server.hasSubscribers("other room"));
+		first.finish();
+	}
+
+	/**
+	 * Broadcasts a packet while the outbound queue of a connection still holds packets sent before and checks that
+	 * the broadcast doesn't overtake them.
+	 */
+	@Test
+	public void testQueuedPackets() {
+		PacketRegistry.INSTANCE.register(CompressionPingPacket.class, 0x01);
+		CompressionUtil.init(CompressionUtil.CompressionType.LZ4_FASTEST);
+
+		EmbeddedChannel channel = this.newChannel(false);
+		channel.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+		channel.runPendingTasks();
+		this.connections.get(channel).sendPacket(new CompressionPingPacket(CompressionPingPacket.Sender.SERVER, new byte[1]));
+		Assert.assertTrue(this.connections.get(channel).getOutboundQueue().hasPending());
+
+		// the broadcast is written before the queue notices that the channel is writable again
+		this.server.broadcast(new CompressionPingPacket(CompressionPingPacket.Sender.SERVER, new byte[2]));
+		channel.unsafe().outboundBuffer().setUserDefinedWritability(1, true);
+		this.runPendingTasks();
+
+		EmbeddedChannel reference = this.newChannel(false);
+		this.connections.get(reference).sendPacket(new CompressionPingPacket(CompressionPingPacket.Sender.SERVER, new byte[1]));
+		this.connections.get(reference).sendPacket(new CompressionPingPacket(CompressionPingPacket.Sender.SERVER, new byte[2]));
+		Assert.assertEquals(ByteBufUtil.hexDump(this.readOutbound(reference)), ByteBufUtil.hexDump(this.readOutbound(channel)));
+
+		channel.finish();
+		reference.finish();
+	}
+
+	/**
+	 * Runs the pending tasks of all channels, which includes the write tasks of broadcasts.
+	 */
+	private void runPendingTasks() {
+		for (Channel channel : this.connections.keySet()) ((EmbeddedChannel) channel).runPendingTasks();
+	}
+
+	/**
+	 * Creates a channel with the same pipeline the server uses.
+	 *
+	 * @param compression Whether compression shall be enabled
+	 * @return The channel.
+	 */
+	private EmbeddedChannel newChannel(boolean compression) {
+		EmbeddedChannel channel = new EmbeddedChannel(new ChannelInitializer<Channel>() {
+			@Override
+			protected void initChannel(Channel channel) {
+				ClientConnection connection = new ClientConnection(channel);
+				BroadcastTest.this.connections.put(channel, connection);
+				channel.pipeline()
+						.addLast("frame-decoder", new LengthFieldBasedFrameDecoder(Integer.MAX_VALUE, 0, 4, 0, 4))
+						.addLast("prokyoDecoder", new PacketDecoder())
+						.addLast("frame-prepender", new LengthFieldPrepender(4))
+						.addLast("prokyoEncoder", new PacketEncoder())
+						.addLast("prokyoOutboundQueue", new OutboundQueue(SlowConsumerPolicy.UNBOUNDED, 1024, 0))
+						.addLast("prokyoPacketHandler", new ProkyoDuplexHandler(BroadcastTest.this.server, connection));
+			}
+		});
+
+		if (compression) this.connections.get(channel).enableCompression();
+		return channel;
+	}
+
+	/**
+	 * Reads all outbound buffers of the given channel into one buffer.
+	 *
+	 * @param channel The channel
+	 * @return The written bytes.
+	 */
+	private ByteBuf readOutbound(EmbeddedChannel channel) {
+		ByteBuf result = Unpooled.buffer();
+		ByteBuf buffer;
+		while ((buffer = channel.readOutbound()) != null) {
+			result.writeBytes(buffer);
+			buffer.release();
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,108 @@
+package de.prokyo.network;
+
+import de.prokyo.network.client.ProkyoClient;
+import de.prokyo.network.client.ProkyoClientFactory;
+import de.prokyo.network.common.connection.Connection;
+import de.prokyo.network.server.ProkyoServer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Benchmark comparing clients with their own event loop group to clients created by a {@link ProkyoClientFactory}.
+ */
+public class ClientFactoryBenchmark {
+
+	private static final int CLIENTS = 500;
+
+	/**
+	 * Connects many clients to a server, once with an event loop group per client and once sharing the event loop
+	 * group of a factory, and prints the connects per second and the amount of live threads.
+	 *
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	@Ignore("Takes to long. Can be started manually.")
+	@Test
+	public void benchmarkSharedEventLoopGroup() throws InterruptedException {
+		ProkyoServer server = new ProkyoServer();
+		server.start("127.0.0.1", 1343, 1, 0);
+
+		try {
+			System.out.printf("Own event loop groups:    %s%n", this.measure(ProkyoClient::new));
+
+			ProkyoClientFactory factory = new ProkyoClientFactory();
+			System.out.printf("Shared event loop group:  %s%n", this.measure(factory::newClient));
+			factory.shutdown();
+		} finally {
+			server.shutdown();
+		}
+	}
+
+	/**
+	 * Connects many clients sharing the event loop group of a factory, once one after another and once all at the
+	 * same time, and prints the time it took until all clients were connected.
+	 *
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	@Ignore("Takes to long. Can be started manually.")
+	@Test
+	public void benchmarkParallelConnect() throws InterruptedException {
+		ProkyoServer server = new ProkyoServer();
+		server.startAsync("127.0.0.1", 1344).join();
+		ProkyoClientFactory factory = new ProkyoClientFactory();
+
+		try {
+			List<ProkyoClient> clients = new ArrayList<>();
+			long start = System.nanoTime();
+			for (int i = 0; i < CLIENTS; i++) {
+				ProkyoClient client = factory.newClient();
+				client.connect("127.0.0.1", 1344);
+				clients.add(client);
+			}
+			System.out.printf("connect:      %.1f ms%n", (System.nanoTime() - start) / 1e6);
+			for (ProkyoClient client : clients) client.shutdown();
+
+			clients.clear();
+			List<CompletableFuture<Connection>> futures = new ArrayList<>();
+			start = System.nanoTime();
+			for (int i = 0; i < CLIENTS; i++) {
+				ProkyoClient client = factory.newClient();
+				futures.add(client.connectAsync("127.0.0.1", 1344));
+				clients.add(client);
+			}
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+			System.out.printf("connectAsync: %.1f ms%n", (System.nanoTime() - start) / 1e6);
+			for (ProkyoClient client : clients) client.shutdown();
+		} finally {
+			factory.shutdown();
+			server.shutdown();
+		}
+	}
+
+	/**
+	 * Connects {@value #CLIENTS} clients created by the given supplier, shuts them down and returns the results.
+	 *
+	 * @param clientSupplier The supplier creating the clients
+	 * @return The connects per second and the amount of live threads while all clients were connected.
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	private String measure(Supplier<ProkyoClient> clientSupplier) throws InterruptedException {
+		List<ProkyoClient> clients = new ArrayList<>();
+
+		long start = System.nanoTime();
+		for (int i = 0; i < CLIENTS; i++) {
+			ProkyoClient client = clientSupplier.get();
+			client.connect("127.0.0.1", 1343, 1);
+			clients.add(client);
+		}
+		long elapsed = System.nanoTime() - start;
+		int threads = Thread.activeCount();
+
+		for (ProkyoClient client : clients) client.shutdown();
+		return String.format("%.0f connects/s, %d threads", CLIENTS / (elapsed / 1e9), threads);
+	}
+
+}
@@ -0,0 +1,113 @@
+package de.prokyo.network;
+
+import de.prokyo.network.client.ProkyoClient;
+import de.prokyo.network.client.ProkyoClientFactory;
+import de.prokyo.network.common.packet.PacketRegistry;
+import de.prokyo.network.server.ProkyoServer;
+import io.netty.buffer.AbstractByteBufAllocator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledDirectByteBuf;
+import io.netty.buffer.UnpooledHeapByteBuf;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for clients sharing the event loop group and the allocator of a factory.
+ */
+public class ClientFactoryTest {
+
+	private static final int PORT = 1353;
+
+	private final ProkyoServer server = new ProkyoServer();
+	private final AtomicInteger received = new AtomicInteger();
+	private final Set<Thread> allocatingThreads = ConcurrentHashMap.newKeySet();
+	private final ProkyoClientFactory factory = new ProkyoClientFactory(1, new AbstractByteBufAllocator(false) {
+		@Override
+		public boolean isDirectBufferPooled() {
+			return false;
+		}
+
+		@Override
+		protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+			ClientFactoryTest.this.allocatingThreads.add(Thread.currentThread());
+			return new UnpooledHeapByteBuf(this, initialCapacity, maxCapacity);
+		}
+
+		@Override
+		protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+			ClientFactoryTest.this.allocatingThreads.add(Thread.currentThread());
+			return new UnpooledDirectByteBuf(this, initialCapacity, maxCapacity);
+		}
+	});
+
+	/**
+	 * Starts the server.
+	 *
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	@Before
+	public void start() throws InterruptedException {
+		PacketRegistry.INSTANCE.register(PingPacket.class, 0x20);
+		this.server.getEventManager().register(PingPacket.class, packet -> this.received.incrementAndGet());
+		this.server.start("127.0.0.1", PORT, 1, 1);
+	}
+
+	/**
+	 * Shuts the factory and the server down.
+	 */
+	@After
+	public void shutdown() {
+		this.factory.shutdown();
+		this.server.shutdown();
+	}
+
+	/**
+	 * Connects two clients of the factory and checks that they allocate their buffers with the allocator of the
+	 * factory on its only thread, that shutting one client down leaves the other one working and that shutting the
+	 * factory down releases the threads.
+	 *
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	@Test
+	public void testSharedResources() throws InterruptedException {
+		ProkyoClient first = this.factory.newClient();
+		ProkyoClient second = this.factory.newClient();
+		first.connect("127.0.0.1", PORT);
+		second.connect("127.0.0.1", PORT);
+
+		first.sendPacket(new PingPacket(PingPacket.Sender.CLIENT, 1));
+		second.sendPacket(new PingPacket(PingPacket.Sender.CLIENT, 2));
+		this.awaitReceived(2);
+		Assert.assertEquals(1, this.allocatingThreads.size());
+		Assert.assertTrue(this.factory.getEventLoopGroup().next().inEventLoop(this.allocatingThreads.iterator().next()));
+
+		first.shutdown();
+		Assert.assertFalse(first.isActive());
+		Assert.assertFalse(this.factory.getEventLoopGroup().isShuttingDown());
+		second.sendPacket(new PingPacket(PingPacket.Sender.CLIENT, 3));
+		this.awaitReceived(3);
+		Assert.assertTrue(second.isActive());
+
+		this.factory.shutdown();
+		Assert.assertTrue(this.factory.getEventLoopGroup().isTerminated());
+		Assert.assertFalse(second.isActive());
+	}
+
+	/**
+	 * Waits until the server received the given amount of packets.
+	 *
+	 * @param packets The amount of packets
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	private void awaitReceived(int packets) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (this.received.get() < packets && System.currentTimeMillis() < deadline) Thread.sleep(5);
+		Assert.assertEquals(packets, this.received.get());
+	}
+
+}
@@ -0,0 +1,216 @@
+package de.prokyo.network;
+
+import de.prokyo.network.client.LoadBalancingStrategy;
+import de.prokyo.network.client.ProkyoClientFactory;
+import de.prokyo.network.client.ProkyoClientPool;
+import de.prokyo.network.client.ReconnectPolicy;
+import de.prokyo.network.common.connection.SlowConsumerPolicy;
+import de.prokyo.network.common.event.PacketIncomingEvent;
+import de.prokyo.network.common.packet.PacketRegistry;
+import de.prokyo.network.server.ClientConnection;
+import de.prokyo.network.server.ProkyoServer;
+import java.net.InetSocketAddress;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit test for spreading packets across the connections of a client pool.
+ */
+public class ClientPoolTest {
+
+	private static final int PORT = 1345;
+	private static final int SIZE = 4;
+
+	private final ProkyoServer server = new ProkyoServer();
+	private final ProkyoClientPool pool = new ProkyoClientPool(SIZE, new InetSocketAddress("127.0.0.1", PORT));
+	private final Map<ClientConnection, AtomicInteger> received = new ConcurrentHashMap<>();
+
+	/**
+	 * Starts the server and connects the pool.
+	 *
+	 * @throws Exception If the server can't be started or the pool can't connect.
+	 */
+	@Before
+	public void connect() throws Exception {
+		PacketRegistry.INSTANCE.register(PingPacket.class, 0x20);
+		this.server.getEventManager().register(PacketIncomingEvent.class, event ->
+				this.received.computeIfAbsent((ClientConnection) event.getConnection(), connection -> new AtomicInteger()).incrementAndGet());
+		this.server.start("127.0.0.1", PORT, 1, 1);
+
+		this.pool.setHealthCheckIntervalMillis(50);
+		this.pool.connectAsync().get(5, TimeUnit.SECONDS);
+		Assert.assertEquals(SIZE, this.pool.getActiveConnections());
+	}
+
+	/**
+	 * Shuts the pool and the server down.
+	 */
+	@After
+	public void shutdown() {
+		this.pool.shutdown();
+		this.server.shutdown();
+	}
+
+	/**
+	 * Checks that round robin uses every connection equally and that packets with the same key use one connection.
+	 *
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	@Test
+	public void testLoadBalancing() throws InterruptedException {
+		for (int i = 0; i < 10 * SIZE; i++) this.pool.sendPacket(new PingPacket(PingPacket.Sender.CLIENT, i));
+		this.awaitReceived(10 * SIZE);
+		Assert.assertEquals(SIZE, this.received.size());
+		for (AtomicInteger count : this.received.values()) Assert.assertEquals(10, count.get());
+
+		this.received.clear();
+		for (int i = 0; i < 100; i++) this.pool.sendPacket("key", new PingPacket(PingPacket.Sender.CLIENT, i));
+		this.awaitReceived(100);
+		Assert.assertEquals(1, this.received.size());
+
+		this.received.clear();
+		this.pool.setStrategy(LoadBalancingStrategy.LEAST_PENDING_BYTES);
+		for (int i = 0; i < 100; i++) this.pool.sendPacket(new PingPacket(PingPacket.Sender.CLIENT, i));
+		this.awaitReceived(100);
+	}
+
+	/**
+	 * Closes connections on the server side and checks that the pool keeps sending and replaces them.
+	 *
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	@Test
+	public void testHealthCheck() throws InterruptedException {
+		Set<ClientConnection> closed = new HashSet<>(this.server.getConnections());
+		for (ClientConnection connection : closed) connection.getChannel().close().sync();
+
+		// the pool notices the closed connections only after the client side was closed as well
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!this.isReplaced(closed) && System.currentTimeMillis() < deadline) Thread.sleep(10);
+		Assert.assertTrue(this.isReplaced(closed));
+
+		for (int i = 0; i < SIZE; i++) this.pool.sendPacket(new PingPacket(PingPacket.Sender.CLIENT, i));
+		this.awaitReceived(SIZE);
+	}
+
+	/**
+	 * Shuts down a pool using a shared factory while its health check runs and checks that no connection is replaced
+	 * afterwards, as the clients would outlive the pool on the shared threads.
+	 *
+	 * @throws Exception If the pool can't connect or the thread is interrupted.
+	 */
+	@Test
+	public void testNoReplacementAfterShutdown() throws Exception {
+		this.awaitConnections(SIZE);
+		Set<ClientConnection> existing = new HashSet<>(this.server.getConnections());
+		ProkyoClientFactory factory = new ProkyoClientFactory(1);
+		try {
+			ProkyoClientPool pool = new ProkyoClientPool(factory, SIZE, new InetSocketAddress("127.0.0.1", PORT));
+			pool.setHealthCheckIntervalMillis(1);
+			pool.connectAsync().get(5, TimeUnit.SECONDS);
+			this.awaitConnections(2 * SIZE);
+			for (ClientConnection connection : this.server.getConnections()) {
+				if (!existing.contains(connection)) connection.getChannel().close();
+			}
+
+			pool.shutdown();
+			Thread.sleep(200);
+			Assert.assertEquals(0, pool.getActiveConnections());
+			Assert.assertEquals(existing, new HashSet<>(this.server.getConnections()));
+		} finally {
+			factory.shutdown();
+		}
+	}
+
+	/**
+	 * Closes the connections of a pool whose clients reconnect on their own and checks that the health check
+	 * doesn't replace the reconnecting clients.
+	 *
+	 * @throws Exception If the pool can't connect or the thread is interrupted.
+	 */
+	@Test
+	public void testReconnectingClientsAreKept() throws Exception {
+		this.awaitConnections(SIZE);
+		Set<ClientConnection> existing = new HashSet<>(this.server.getConnections());
+		AtomicInteger created = new AtomicInteger();
+		ProkyoClientPool pool = new ProkyoClientPool(SIZE, new InetSocketAddress("127.0.0.1", PORT));
+		pool.setHealthCheckIntervalMillis(1);
+		pool.setClientConfigurer(client -> {
+			client.setReconnectPolicy(new ReconnectPolicy(200, 200, 0, 100, SlowConsumerPolicy.DROP_OLDEST));
+			created.incrementAndGet();
+		});
+
+		try {
+			pool.connectAsync().get(5, TimeUnit.SECONDS);
+			this.awaitConnections(2 * SIZE);
+			for (ClientConnection connection : this.server.getConnections()) {
+				if (!existing.contains(connection)) connection.getChannel().close();
+			}
+
+			// the clients are still waiting for their first reconnect attempt
+			Thread.sleep(100);
+			long deadline = System.currentTimeMillis() + 5000;
+			while (pool.getActiveConnections() < SIZE && System.currentTimeMillis() < deadline) Thread.sleep(5);
+			Assert.assertEquals(SIZE, pool.getActiveConnections());
+			Assert.assertEquals(SIZE, created.get());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Waits until the server accepted the given amount of connections.
+	 *
+	 * @param connections The amount of connections
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	private void awaitConnections(int connections) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (this.server.getConnections().size() < connections && System.currentTimeMillis() < deadline) Thread.sleep(5);
+		Assert.assertEquals(connections, this.server.getConnections().size());
+	}
+
+	/**
+	 * Returns whether all given connections were replaced by new active connections of the pool.
+	 *
+	 * @param closed The connections closed by the server
+	 * @return Whether the connections were replaced.
+	 */
+	private boolean isReplaced(Set<ClientConnection> closed) {
+		Set<ClientConnection> connections = new HashSet<>(this.server.getConnections());
+		connections.removeAll(closed);
+		return connections.size() == SIZE && this.pool.getActiveConnections() == SIZE;
+	}
+
+	/**
+	 * Waits until the server received the given amount of packets.
+	 *
+	 * @param packets The amount of packets
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	private void awaitReceived(int packets) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (this.countReceived() < packets && System.currentTimeMillis() < deadline) Thread.sleep(5);
+		Assert.assertEquals(packets, this.countReceived());
+	}
+
+	/**
+	 * Returns the amount of packets received by the server.
+	 *
+	 * @return The amount of packets.
+	 */
+	private int countReceived() {
+		int count = 0;
+		for (AtomicInteger received : this.received.values()) count += received.get();
+		return count;
+	}
+
+}
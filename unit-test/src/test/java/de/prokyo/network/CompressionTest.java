@@ -0,0 +1,66 @@
+package de.prokyo.network;
+
+import de.prokyo.network.common.compression.CompressionUtil;
+import de.prokyo.network.common.pipeline.ProkyoCompressor;
+import de.prokyo.network.common.pipeline.ProkyoDecompressor;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for the compression of encoded packets.
+ */
+public class CompressionTest {
+
+	/**
+	 * Passes a packet below the compression threshold through the compressor and the decompressor and checks that
+	 * its payload is kept.
+	 */
+	@Test
+	public void testUncompressedPacket() {
+		this.roundTrip(100);
+	}
+
+	/**
+	 * Passes a packet above the compression threshold through the compressor and the decompressor and checks that
+	 * its payload is restored.
+	 */
+	@Test
+	public void testCompressedPacket() {
+		this.roundTrip(4096);
+	}
+
+	/**
+	 * Compresses and decompresses an encoded packet with a random payload of the given size.
+	 *
+	 * @param size The size of the payload
+	 */
+	private void roundTrip(int size) {
+		CompressionUtil.init(CompressionUtil.CompressionType.LZ4_FASTEST);
+		byte[] payload = new byte[size];
+		new Random(size).nextBytes(payload);
+
+		ByteBuf encoded = Unpooled.buffer();
+		encoded.writeInt(0x20);
+		encoded.writeBytes(payload);
+
+		EmbeddedChannel sender = new EmbeddedChannel(new ProkyoCompressor());
+		EmbeddedChannel receiver = new EmbeddedChannel(new ProkyoDecompressor());
+		sender.writeOutbound(encoded);
+		receiver.writeInbound((Object) sender.readOutbound());
+
+		ByteBuf decompressed = receiver.readInbound();
+		try {
+			Assert.assertEquals(0x20, decompressed.readInt());
+			byte[] received = new byte[decompressed.readableBytes()];
+			decompressed.readBytes(received);
+			Assert.assertArrayEquals(payload, received);
+		} finally {
+			decompressed.release();
+		}
+	}
+
+}
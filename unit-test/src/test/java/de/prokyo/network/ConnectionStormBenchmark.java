@@ -0,0 +1,79 @@
+package de.prokyo.network;
+
+import de.prokyo.network.server.ProkyoServer;
+import de.prokyo.network.server.event.ConnectionEstablishedEvent;
+import io.netty.channel.epoll.Epoll;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Benchmark measuring how many connections per second the server accepts during a connection storm.
+ */
+public class ConnectionStormBenchmark {
+
+	private static final int CONNECTIONS = 10_000;
+	private static final int CLIENT_THREADS = 8;
+
+	/**
+	 * Lets multiple threads connect to the server as fast as possible, once with a single acceptor and
+	 * once with one SO_REUSEPORT acceptor per core (epoll only), and prints the accepted connections per second.
+	 *
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	@Ignore("Takes to long. Can be started manually.")
+	@Test
+	public void benchmarkConnectionStorm() throws InterruptedException {
+		int cores = Runtime.getRuntime().availableProcessors();
+
+		System.out.printf("1 acceptor: %.0f accepts/s%n", this.measure(1, 1339));
+		if (Epoll.isAvailable()) System.out.printf("%d acceptors: %.0f accepts/s%n", cores, this.measure(cores, 1340));
+		else System.out.println("Epoll is not available, skipping the SO_REUSEPORT run.");
+	}
+
+	/**
+	 * Starts a server with the given amount of acceptors and measures the accepted connections per second.
+	 *
+	 * @param acceptors The amount of SO_REUSEPORT acceptors
+	 * @param port The port of the server
+	 * @return The accepted connections per second.
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	private double measure(int acceptors, int port) throws InterruptedException {
+		AtomicInteger accepted = new AtomicInteger();
+		ProkyoServer server = new ProkyoServer();
+		server.setReusePortAcceptors(acceptors);
+		server.getEventManager().register(ConnectionEstablishedEvent.class, event -> accepted.incrementAndGet());
+		server.start("127.0.0.1", port, acceptors, 0);
+
+		List<Thread> threads = new ArrayList<>();
+		long start = System.nanoTime();
+		for (int i = 0; i < CLIENT_THREADS; i++) {
+			Thread thread = new Thread(() -> {
+				for (int n = 0; n < CONNECTIONS / CLIENT_THREADS; n++) {
+					try (Socket socket = new Socket("127.0.0.1", port)) {
+						socket.setSoLinger(true, 0);
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+
+		for (Thread thread : threads) thread.join();
+		while (accepted.get() < CONNECTIONS) Thread.sleep(1);
+		long elapsed = System.nanoTime() - start;
+
+		server.shutdown();
+		Assert.assertEquals(CONNECTIONS, accepted.get());
+		return CONNECTIONS / (elapsed / 1e9);
+	}
+
+}
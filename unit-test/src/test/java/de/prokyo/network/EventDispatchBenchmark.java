@@ -0,0 +1,78 @@
+package de.prokyo.network;
+
+import de.prokyo.network.common.event.Event;
+import de.prokyo.network.common.event.EventHandler;
+import de.prokyo.network.common.event.EventManager;
+import de.prokyo.network.common.event.Subscribe;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Benchmark comparing the dispatch cost of manually registered handlers and annotated listeners.
+ */
+public class EventDispatchBenchmark {
+
+	private static final int WARMUP_ITERATIONS = 5_000_000;
+	private static final int ITERATIONS = 50_000_000;
+
+	private long counter;
+
+	/**
+	 * Fires the same event through a manually registered method reference and through an annotated listener
+	 * and prints the average time per fired event.
+	 */
+	@Ignore("Takes to long. Can be started manually.")
+	@Test
+	public void benchmarkDispatch() {
+		EventManager manual = new EventManager();
+		EventHandler<BenchmarkEvent> handler = this::onEvent;
+		manual.register(BenchmarkEvent.class, handler);
+
+		EventManager annotated = new EventManager();
+		annotated.registerListener(new BenchmarkListener());
+
+		BenchmarkEvent event = new BenchmarkEvent();
+		for (int round = 0; round < 3; round++) {
+			long manualNanos = this.measure(manual, event);
+			long annotatedNanos = this.measure(annotated, event);
+
+			System.out.printf("round %d: manual %.2f ns/event, annotated %.2f ns/event%n", round,
+					(double) manualNanos / ITERATIONS, (double) annotatedNanos / ITERATIONS);
+		}
+
+		Assert.assertTrue(this.counter > 0);
+	}
+
+	/**
+	 * Fires the given event repeatedly and returns the elapsed time of the measured iterations.
+	 *
+	 * @param eventManager The event manager to fire the event with
+	 * @param event The event
+	 * @return The elapsed time in nanoseconds.
+	 */
+	private long measure(EventManager eventManager, BenchmarkEvent event) {
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) eventManager.fire(event);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) eventManager.fire(event);
+		return System.nanoTime() - start;
+	}
+
+	public void onEvent(BenchmarkEvent event) {
+		this.counter++;
+	}
+
+	public static class BenchmarkEvent implements Event {
+	}
+
+	public class BenchmarkListener {
+
+		@Subscribe
+		public void onEvent(BenchmarkEvent event) {
+			EventDispatchBenchmark.this.counter++;
+		}
+
+	}
+
+}
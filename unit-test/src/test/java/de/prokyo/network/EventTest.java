@@ -1,8 +1,15 @@
 package de.prokyo.network;
 
+import de.prokyo.network.common.event.Cancellable;
 import de.prokyo.network.common.event.Event;
 import de.prokyo.network.common.event.EventHandler;
 import de.prokyo.network.common.event.EventManager;
+import de.prokyo.network.common.event.EventPriority;
+import de.prokyo.network.common.event.Subscribe;
+import de.prokyo.network.common.packet.PacketRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -28,6 +35,72 @@ public class EventTest {
 		Assert.assertFalse(this.eventFired);
 	}
 
+	@Test
+	public void testPriority() {
+		EventManager eventManager = new EventManager();
+		List<String> calls = new ArrayList<>();
+
+		eventManager.register(TestEvent.class, event -> calls.add("normal1"));
+		eventManager.register(TestEvent.class, event -> calls.add("lowest"), EventPriority.LOWEST);
+		eventManager.register(TestEvent.class, event -> calls.add("highest"), EventPriority.HIGHEST);
+		eventManager.register(TestEvent.class, event -> calls.add("normal2"));
+		eventManager.fire(new TestEvent());
+
+		Assert.assertEquals(Arrays.asList("highest", "normal1", "normal2", "lowest"), calls);
+	}
+
+	@Test
+	public void testCancellation() {
+		EventManager eventManager = new EventManager();
+		List<String> calls = new ArrayList<>();
+
+		eventManager.register(CancellableTestEvent.class, event -> calls.add("low"), EventPriority.LOW);
+		eventManager.register(CancellableTestEvent.class, event -> {
+			calls.add("filter");
+			event.setCancelled(true);
+		}, EventPriority.HIGH);
+
+		CancellableTestEvent event = new CancellableTestEvent();
+		eventManager.fire(event);
+
+		Assert.assertTrue(event.isCancelled());
+		Assert.assertEquals(Arrays.asList("filter"), calls);
+	}
+
+	@Test
+	public void testListener() {
+		EventManager eventManager = new EventManager();
+		TestListener listener = new TestListener();
+
+		eventManager.registerListener(listener);
+		eventManager.fire(new TestEvent());
+		eventManager.fire(new CancellableTestEvent());
+		Assert.assertEquals(Arrays.asList("high", "normal", "cancellable"), listener.calls);
+
+		listener.calls.clear();
+		eventManager.unregisterListener(listener);
+		eventManager.fire(new TestEvent());
+		Assert.assertTrue(listener.calls.isEmpty());
+	}
+
+	@Test
+	public void testPacketDispatcher() {
+		PacketRegistry.INSTANCE.register(PingPacket.class, 0x01);
+		EventManager eventManager = new EventManager();
+		List<String> calls = new ArrayList<>();
+
+		eventManager.register(PingPacket.class, packet -> calls.add("first"));
+		eventManager.getPacketDispatcher().dispatch(0x01, new PingPacket());
+		Assert.assertEquals(Arrays.asList("first"), calls);
+
+		// registering another handler has to invalidate the already resolved handlers
+		calls.clear();
+		eventManager.register(PingPacket.class, packet -> calls.add("second"), EventPriority.HIGH);
+		eventManager.getPacketDispatcher().dispatch(0x01, new PingPacket());
+		eventManager.getPacketDispatcher().dispatch(0x02, new PingPacket());
+		Assert.assertEquals(Arrays.asList("second", "first"), calls);
+	}
+
 	public void handleTestEvent(TestEvent event) {
 		this.eventFired = true;
 	}
@@ -35,4 +108,41 @@ public class EventTest {
 	public static class TestEvent implements Event {
 	}
 
+	public static class CancellableTestEvent implements Event, Cancellable {
+
+		private boolean cancelled;
+
+		@Override
+		public boolean isCancelled() {
+			return this.cancelled;
+		}
+
+		@Override
+		public void setCancelled(boolean cancelled) {
+			this.cancelled = cancelled;
+		}
+
+	}
+
+	public static class TestListener {
+
+		private final List<String> calls = new ArrayList<>();
+
+		@Subscribe
+		public void onTestEvent(TestEvent event) {
+			this.calls.add("normal");
+		}
+
+		@Subscribe(priority = EventPriority.HIGH)
+		public void onTestEventFirst(TestEvent event) {
+			this.calls.add("high");
+		}
+
+		@Subscribe
+		public void onCancellableTestEvent(CancellableTestEvent event) {
+			this.calls.add("cancellable");
+		}
+
+	}
+
 }
@@ -0,0 +1,134 @@
+package de.prokyo.network;
+
+import de.prokyo.network.client.ProkyoClient;
+import de.prokyo.network.common.event.IncomingFileEvent;
+import de.prokyo.network.common.packet.PacketRegistry;
+import de.prokyo.network.server.ProkyoServer;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Benchmark comparing the throughput and the heap usage of sending a file with {@code sendFile}
+ * and as a single packet containing the whole file.
+ */
+public class FileTransferBenchmark {
+
+	private static final int FILE_SIZE = 64 * 1024 * 1024;
+	private static final int RUNS = 5;
+
+	private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+	/**
+	 * Sends a file from the client to the server over the loopback interface in both ways and prints the throughput
+	 * and the peak heap usage above the heap used before the transfer.
+	 *
+	 * @throws Exception If the files can't be accessed or the connection fails.
+	 */
+	@Ignore("Takes to long. Can be started manually.")
+	@Test
+	public void benchmarkFileTransfer() throws Exception {
+		PacketRegistry.INSTANCE.register(BlobPacket.class, 0x22);
+		Path source = Files.createTempFile("prokyo-benchmark-source", ".bin");
+		Path target = Files.createTempFile("prokyo-benchmark-target", ".bin");
+		byte[] content = new byte[FILE_SIZE];
+		new Random(0).nextBytes(content);
+		Files.write(source, content);
+		content = null;
+
+		ProkyoServer server = new ProkyoServer();
+		server.setMaxFrameSize(FILE_SIZE + 16);
+		server.start("127.0.0.1", 1341, 1, 1);
+		ProkyoClient client = new ProkyoClient();
+		client.connect("127.0.0.1", 1341, 1);
+
+		AtomicReference<CompletableFuture<Void>> received = new AtomicReference<>();
+		server.getEventManager().register(IncomingFileEvent.class, event -> {
+			try {
+				event.getFile().transferTo(target);
+				event.getFile().getFuture().whenComplete((result, cause) -> received.get().complete(null));
+			} catch (IOException e) {
+				received.get().completeExceptionally(e);
+			}
+		});
+		server.getEventManager().register(BlobPacket.class, packet -> {
+			try {
+				Files.write(target, packet.getData());
+				received.get().complete(null);
+			} catch (IOException e) {
+				received.get().completeExceptionally(e);
+			}
+		});
+
+		try {
+			for (int run = 0; run < RUNS; run++) {
+				this.measure("sendFile", received, () -> client.sendFile(source));
+				this.measure("packet", received, () -> client.sendPacket(new BlobPacket(Files.readAllBytes(source))));
+			}
+		} finally {
+			client.shutdown();
+			server.shutdown();
+			Files.deleteIfExists(source);
+			Files.deleteIfExists(target);
+		}
+	}
+
+	/**
+	 * Runs the given transfer and prints its throughput and peak heap usage.
+	 *
+	 * @param name The name of the transfer
+	 * @param received The reference to the future completed once the server wrote the file
+	 * @param transfer The transfer
+	 * @throws Exception If the transfer fails.
+	 */
+	private void measure(String name, AtomicReference<CompletableFuture<Void>> received, Transfer transfer) throws Exception {
+		received.set(new CompletableFuture<>());
+		System.gc();
+		long baseline = this.memory.getHeapMemoryUsage().getUsed();
+		AtomicLong peak = new AtomicLong(baseline);
+		Thread sampler = new Thread(() -> {
+			while (!Thread.currentThread().isInterrupted()) {
+				peak.accumulateAndGet(this.memory.getHeapMemoryUsage().getUsed(), Math::max);
+				try {
+					Thread.sleep(1);
+				} catch (InterruptedException e) {
+					return;
+				}
+			}
+		});
+		sampler.start();
+
+		long start = System.nanoTime();
+		transfer.run();
+		received.get().get();
+		long elapsed = System.nanoTime() - start;
+		sampler.interrupt();
+		sampler.join();
+
+		System.out.printf("%-8s %8.1f MiB/s, peak heap +%d MiB%n", name, FILE_SIZE / (1024.0 * 1024.0) / (elapsed / 1e9),
+				(peak.get() - baseline) / (1024 * 1024));
+	}
+
+	/**
+	 * A single transfer of the file.
+	 */
+	private interface Transfer {
+
+		/**
+		 * Starts the transfer.
+		 *
+		 * @throws IOException If the file can't be read.
+		 */
+		void run() throws IOException;
+
+	}
+
+}
@@ -0,0 +1,194 @@
+package de.prokyo.network;
+
+import de.prokyo.network.common.compression.CompressionUtil;
+import de.prokyo.network.common.connection.SlowConsumerPolicy;
+import de.prokyo.network.common.event.IncomingFileEvent;
+import de.prokyo.network.common.pipeline.OutboundQueue;
+import de.prokyo.network.common.pipeline.PacketDecoder;
+import de.prokyo.network.common.pipeline.PacketEncoder;
+import de.prokyo.network.common.pipeline.ProkyoCompressor;
+import de.prokyo.network.common.pipeline.ProkyoDecompressor;
+import de.prokyo.network.server.ClientConnection;
+import de.prokyo.network.server.ProkyoDuplexHandler;
+import de.prokyo.network.server.ProkyoServer;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.FileRegion;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for sending files with and without zero copy.
+ */
+public class FileTransferTest {
+
+	private final ProkyoServer server = new ProkyoServer();
+	private final OutboundQueue outboundQueue = new OutboundQueue(SlowConsumerPolicy.BLOCK, 1024, 0);
+	private final EmbeddedChannel sender = new EmbeddedChannel();
+	private final EmbeddedChannel receiver = new EmbeddedChannel();
+	private final Path source;
+	private final Path target;
+	private int fileRegions;
+
+	/**
+	 * Constructor.
+	 *
+	 * @throws IOException If the temporary files can't be created.
+	 */
+	public FileTransferTest() throws IOException {
+		this.source = Files.createTempFile("prokyo-source", ".bin");
+		this.target = Files.createTempFile("prokyo-target", ".bin");
+
+		byte[] content = new byte[3 * PacketDecoder.DEFAULT_MAX_FRAME_SIZE + 123];
+		new Random(content.length).nextBytes(content);
+		Files.write(this.source, content);
+		// the embedded event loop is not thread safe, so the chunks are read on the calling thread
+		this.outboundQueue.setTransferExecutor(Runnable::run);
+
+		this.sender.pipeline()
+				.addLast("frame-prepender", new LengthFieldPrepender(4))
+				.addLast("prokyoEncoder", new PacketEncoder())
+				.addLast("prokyoOutboundQueue", this.outboundQueue);
+		this.receiver.pipeline()
+				.addLast("frame-decoder", new LengthFieldBasedFrameDecoder(PacketDecoder.DEFAULT_MAX_FRAME_SIZE, 0, 4, 0, 4))
+				.addLast("prokyoDecoder", new PacketDecoder())
+				.addLast("prokyoPacketHandler", new ProkyoDuplexHandler(this.server, new ClientConnection(this.receiver)));
+	}
+
+	/**
+	 * Deletes the temporary files.
+	 *
+	 * @throws IOException If a file can't be deleted.
+	 */
+	@After
+	public void deleteFiles() throws IOException {
+		Files.deleteIfExists(this.source);
+		Files.deleteIfExists(this.target);
+	}
+
+	/**
+	 * Sends a region of the file as file regions and checks that it is written to the target file.
+	 *
+	 * @throws Exception If a file can't be read or the target file isn't written in time.
+	 */
+	@Test
+	public void testZeroCopy() throws Exception {
+		this.transfer(1000, 2 * PacketDecoder.DEFAULT_MAX_FRAME_SIZE + 5);
+		Assert.assertTrue(this.fileRegions > 0);
+	}
+
+	/**
+	 * Sends the file over a compressed connection, which requires the fallback reading the chunks into buffers.
+	 *
+	 * @throws Exception If a file can't be read or the target file isn't written in time.
+	 */
+	@Test
+	public void testCompressedFallback() throws Exception {
+		CompressionUtil.init(CompressionUtil.CompressionType.LZ4_FASTEST);
+		this.sender.pipeline().addBefore("prokyoEncoder", "prokyoCompressor", new ProkyoCompressor());
+		this.receiver.pipeline().addBefore("prokyoDecoder", "prokyoDecompressor", new ProkyoDecompressor());
+
+		this.transfer(0, Files.size(this.source));
+		Assert.assertEquals(0, this.fileRegions);
+	}
+
+	/**
+	 * Checks that an unconsumed file is discarded and that a region exceeding the file fails.
+	 *
+	 * @throws IOException If a file can't be read.
+	 */
+	@Test
+	public void testDiscardAndInvalidRegion() throws IOException {
+		CompletableFuture<Void> future = this.outboundQueue.sendFile(this.source, 0, Files.size(this.source));
+		this.pump();
+		Assert.assertTrue(future.isDone() && !future.isCompletedExceptionally());
+		Assert.assertEquals(0, Files.size(this.target));
+
+		future = this.outboundQueue.sendFile(this.source, 1, Files.size(this.source));
+		this.pump();
+		Assert.assertTrue(future.isCompletedExceptionally());
+	}
+
+	/**
+	 * Sends the given region of the source file and checks that the target file contains exactly that region.
+	 *
+	 * @param offset The offset of the region
+	 * @param length The length of the region
+	 * @throws Exception If a file can't be read or the target file isn't written in time.
+	 */
+	private void transfer(long offset, long length) throws Exception {
+		AtomicReference<CompletableFuture<Void>> received = new AtomicReference<>();
+		this.server.getEventManager().register(IncomingFileEvent.class, event -> {
+			try {
+				event.getFile().transferTo(this.target);
+				received.set(event.getFile().getFuture());
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		});
+
+		CompletableFuture<Void> sent = this.outboundQueue.sendFile(this.source, offset, length);
+		this.pump();
+
+		Assert.assertTrue(sent.isDone() && !sent.isCompletedExceptionally());
+		// the chunks are written to the target file by the transfer executor
+		received.get().get(5, TimeUnit.SECONDS);
+		byte[] expected = Arrays.copyOfRange(Files.readAllBytes(this.source), (int) offset, (int) (offset + length));
+		Assert.assertArrayEquals(expected, Files.readAllBytes(this.target));
+	}
+
+	/**
+	 * Moves all frames written by the sender to the receiver until the sender has nothing left to write.<br>
+	 * File regions are read into buffers, as the embedded channel can't transfer them.
+	 *
+	 * @throws IOException If a file region can't be read.
+	 */
+	private void pump() throws IOException {
+		boolean moved = true;
+		while (moved) {
+			this.sender.runPendingTasks();
+			moved = false;
+
+			Object msg;
+			while ((msg = this.sender.readOutbound()) != null) {
+				if (msg instanceof FileRegion) msg = Unpooled.wrappedBuffer(this.read((FileRegion) msg));
+				this.receiver.writeInbound(msg);
+				moved = true;
+			}
+		}
+	}
+
+	/**
+	 * Reads the given file region and releases it.
+	 *
+	 * @param region The region
+	 * @return The content of the region.
+	 * @throws IOException If the region can't be read.
+	 */
+	private byte[] read(FileRegion region) throws IOException {
+		this.fileRegions++;
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		WritableByteChannel channel = Channels.newChannel(out);
+		try {
+			while (region.transferred() < region.count()) region.transferTo(channel, region.transferred());
+		} finally {
+			region.release();
+		}
+		return out.toByteArray();
+	}
+
+}
@@ -0,0 +1,100 @@
+package de.prokyo.network;
+
+import de.prokyo.network.common.connection.SlowConsumerPolicy;
+import de.prokyo.network.common.pipeline.HeartbeatHandler;
+import de.prokyo.network.common.pipeline.OutboundQueue;
+import de.prokyo.network.common.pipeline.PacketDecoder;
+import de.prokyo.network.common.pipeline.PacketEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.handler.timeout.IdleStateEvent;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for the heartbeats measuring the round trip time and detecting dead connections.
+ */
+public class HeartbeatTest {
+
+	private final HeartbeatHandler firstHeartbeat = new HeartbeatHandler(100, 300);
+	private final HeartbeatHandler secondHeartbeat = new HeartbeatHandler(100, 300);
+	private final EmbeddedChannel first = this.createChannel(this.firstHeartbeat);
+	private final EmbeddedChannel second = this.createChannel(this.secondHeartbeat);
+
+	/**
+	 * Checks that a single heartbeat measures the round trip time on both sides.
+	 */
+	@Test
+	public void testRoundTripTime() {
+		Assert.assertEquals(-1, this.firstHeartbeat.getRttNanos());
+		Assert.assertEquals(-1, this.secondHeartbeat.getRttNanos());
+
+		this.first.pipeline().fireUserEventTriggered(IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT);
+		this.pump();
+
+		Assert.assertTrue(this.firstHeartbeat.getRttNanos() > 0);
+		Assert.assertTrue(this.firstHeartbeat.getRttJitterNanos() >= 0);
+		Assert.assertTrue(this.secondHeartbeat.getRttNanos() > 0);
+		Assert.assertTrue(this.secondHeartbeat.getRttJitterNanos() >= 0);
+		Assert.assertNull(this.first.readOutbound());
+		Assert.assertNull(this.second.readOutbound());
+	}
+
+	/**
+	 * Checks that the connection is closed once nothing was received for the timeout and that receiving anything
+	 * starts over.
+	 */
+	@Test
+	public void testTimeout() {
+		this.first.pipeline().fireUserEventTriggered(IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT);
+		this.first.pipeline().fireUserEventTriggered(IdleStateEvent.READER_IDLE_STATE_EVENT);
+		Assert.assertTrue(this.first.isOpen());
+
+		this.first.pipeline().fireUserEventTriggered(IdleStateEvent.FIRST_READER_IDLE_STATE_EVENT);
+		this.first.pipeline().fireUserEventTriggered(IdleStateEvent.READER_IDLE_STATE_EVENT);
+		Assert.assertTrue(this.first.isOpen());
+
+		this.first.pipeline().fireUserEventTriggered(IdleStateEvent.READER_IDLE_STATE_EVENT);
+		Assert.assertFalse(this.first.isOpen());
+	}
+
+	/**
+	 * Creates a channel with the handlers of a connection and the given heartbeat handler.
+	 *
+	 * @param heartbeat The heartbeat handler
+	 * @return The channel.
+	 */
+	private EmbeddedChannel createChannel(HeartbeatHandler heartbeat) {
+		EmbeddedChannel channel = new EmbeddedChannel();
+		channel.pipeline()
+				.addLast("frame-decoder", new LengthFieldBasedFrameDecoder(PacketDecoder.DEFAULT_MAX_FRAME_SIZE, 0, 4, 0, 4))
+				.addLast("prokyoDecoder", new PacketDecoder())
+				.addLast("frame-prepender", new LengthFieldPrepender(4))
+				.addLast("prokyoEncoder", new PacketEncoder())
+				.addLast("prokyoOutboundQueue", new OutboundQueue(SlowConsumerPolicy.BLOCK, 1024, 0))
+				.addLast("prokyoHeartbeat", heartbeat);
+		return channel;
+	}
+
+	/**
+	 * Moves all frames between both channels until neither has anything left to write.
+	 */
+	private void pump() {
+		boolean moved = true;
+		while (moved) {
+			moved = false;
+			ByteBuf frame;
+			while ((frame = this.first.readOutbound()) != null) {
+				this.second.writeInbound(frame);
+				moved = true;
+			}
+			while ((frame = this.second.readOutbound()) != null) {
+				this.first.writeInbound(frame);
+				moved = true;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,178 @@
+package de.prokyo.network;
+
+import de.prokyo.network.client.ProkyoClient;
+import de.prokyo.network.common.connection.LogicalStream;
+import de.prokyo.network.common.connection.SlowConsumerPolicy;
+import de.prokyo.network.common.event.IncomingRequestEvent;
+import de.prokyo.network.common.event.LogicalStreamClosedEvent;
+import de.prokyo.network.common.event.LogicalStreamOpenedEvent;
+import de.prokyo.network.common.event.PacketIncomingEvent;
+import de.prokyo.network.common.packet.PacketRegistry;
+import de.prokyo.network.common.pipeline.OutboundQueue;
+import de.prokyo.network.common.pipeline.PacketDecoder;
+import de.prokyo.network.common.pipeline.PacketEncoder;
+import de.prokyo.network.server.ClientConnection;
+import de.prokyo.network.server.ProkyoServer;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for logical streams multiplexed over a single connection.
+ */
+public class LogicalStreamTest {
+
+	private final ProkyoServer server = new ProkyoServer();
+	private final ProkyoClient client = new ProkyoClient();
+	private final EmbeddedChannel serverChannel = new EmbeddedChannel();
+	private final EmbeddedChannel clientChannel = new EmbeddedChannel();
+	private final ClientConnection connection = new ClientConnection(this.serverChannel);
+	private final Map<Integer, LogicalStream> clientStreams = new HashMap<>();
+	private final Map<Integer, List<Long>> received = new HashMap<>();
+
+	/**
+	 * Constructor.
+	 */
+	public LogicalStreamTest() {
+		PacketRegistry.INSTANCE.register(PingPacket.class, 0x20);
+
+		this.initPipeline(this.serverChannel, new de.prokyo.network.server.ProkyoDuplexHandler(this.server, this.connection));
+		this.initPipeline(this.clientChannel, new de.prokyo.network.client.ProkyoDuplexHandler(this.client));
+
+		this.client.getEventManager().register(LogicalStreamOpenedEvent.class, event ->
+				this.clientStreams.put(event.getStream().getStreamId(), event.getStream()));
+		this.client.getEventManager().register(PacketIncomingEvent.class, event -> {
+			int streamId = ((LogicalStream) event.getConnection()).getStreamId();
+			this.received.computeIfAbsent(streamId, id -> new ArrayList<>()).add(((PingPacket) event.getPacket()).getTime());
+		});
+	}
+
+	/**
+	 * Pauses one stream and checks that the other stream isn't blocked, that the paused stream respects its window
+	 * and that it delivers all packets in order after it was resumed.
+	 */
+	@Test
+	public void testIndependentStreams() {
+		LogicalStream stalled = this.connection.openLogicalStream();
+		LogicalStream other = this.connection.openLogicalStream();
+
+		stalled.sendPacket(new PingPacket(PingPacket.Sender.SERVER, 0));
+		this.pump();
+		this.clientStreams.get(stalled.getStreamId()).setPaused(true);
+
+		for (int i = 1; i < 1000; i++) stalled.sendPacket(new PingPacket(PingPacket.Sender.SERVER, i));
+		for (int i = 0; i < 10; i++) other.sendPacket(new PingPacket(PingPacket.Sender.SERVER, i));
+		this.pump();
+
+		Assert.assertEquals(10, this.received.get(other.getStreamId()).size());
+		Assert.assertEquals(1, this.received.get(stalled.getStreamId()).size());
+		Assert.assertEquals(1000 - LogicalStream.INITIAL_WINDOW, stalled.getQueuedPackets());
+
+		this.clientStreams.get(stalled.getStreamId()).setPaused(false);
+		this.pump();
+
+		List<Long> times = this.received.get(stalled.getStreamId());
+		Assert.assertEquals(1000, times.size());
+		for (int i = 0; i < times.size(); i++) Assert.assertEquals(i, (long) times.get(i));
+		Assert.assertEquals(0, stalled.getQueuedPackets());
+	}
+
+	/**
+	 * Sends a request over a stream, which is answered over the same stream, and closes the stream afterwards.
+	 *
+	 * @throws Exception If the request fails.
+	 */
+	@Test
+	public void testRequestAndClose() throws Exception {
+		List<LogicalStream> closed = new ArrayList<>();
+		this.client.getEventManager().register(LogicalStreamClosedEvent.class, event -> closed.add(event.getStream()));
+		this.client.getEventManager().register(IncomingRequestEvent.class, event -> {
+			Assert.assertTrue(event.getConnection() instanceof LogicalStream);
+			event.respond(event.getRequest());
+		});
+
+		LogicalStream stream = this.connection.openLogicalStream();
+		CompletableFuture<PingPacket> future = stream.request(new PingPacket(PingPacket.Sender.SERVER, 42), PingPacket.class, 10, TimeUnit.SECONDS);
+		this.pump();
+		Assert.assertEquals(42, future.get(5, TimeUnit.SECONDS).getTime());
+
+		stream.close();
+		this.pump();
+		Assert.assertTrue(stream.isClosed());
+		Assert.assertEquals(1, closed.size());
+		Assert.assertTrue(closed.get(0).isClosed());
+	}
+
+	/**
+	 * Opens two streams and sends over the second one first, which mustn't prevent the first one from being opened
+	 * afterwards.
+	 */
+	@Test
+	public void testOutOfOrderOpen() {
+		LogicalStream first = this.connection.openLogicalStream();
+		LogicalStream second = this.connection.openLogicalStream();
+
+		second.sendPacket(new PingPacket(PingPacket.Sender.SERVER, 2));
+		this.pump();
+		first.sendPacket(new PingPacket(PingPacket.Sender.SERVER, 1));
+		this.pump();
+
+		Assert.assertEquals(2, this.clientStreams.size());
+		Assert.assertEquals(1, this.received.get(first.getStreamId()).size());
+		Assert.assertEquals(1, this.received.get(second.getStreamId()).size());
+	}
+
+	/**
+	 * Adds the handlers of a connection to the given channel.
+	 *
+	 * @param channel The channel
+	 * @param packetHandler The packet handler of the connection
+	 */
+	private void initPipeline(EmbeddedChannel channel, ChannelHandler packetHandler) {
+		channel.pipeline()
+				.addLast("frame-prepender", new LengthFieldPrepender(4))
+				.addLast("prokyoEncoder", new PacketEncoder())
+				.addLast("prokyoOutboundQueue", new OutboundQueue(SlowConsumerPolicy.BLOCK, 1024, 0))
+				.addLast("frame-decoder", new LengthFieldBasedFrameDecoder(PacketDecoder.DEFAULT_MAX_FRAME_SIZE, 0, 4, 0, 4))
+				.addLast("prokyoDecoder", new PacketDecoder())
+				.addLast("prokyoPacketHandler", packetHandler);
+	}
+
+	/**
+	 * Moves all frames between both channels until neither has anything left to write.
+	 */
+	private void pump() {
+		boolean moved = true;
+		while (moved) {
+			moved = this.move(this.serverChannel, this.clientChannel) | this.move(this.clientChannel, this.serverChannel);
+		}
+	}
+
+	/**
+	 * Moves all frames written by the given sender to the given receiver.
+	 *
+	 * @param sender The sender
+	 * @param receiver The receiver
+	 * @return Whether any frame was moved.
+	 */
+	private boolean move(EmbeddedChannel sender, EmbeddedChannel receiver) {
+		boolean moved = false;
+		ByteBuf frame;
+		while ((frame = sender.readOutbound()) != null) {
+			receiver.writeInbound(frame);
+			moved = true;
+		}
+		return moved;
+	}
+
+}
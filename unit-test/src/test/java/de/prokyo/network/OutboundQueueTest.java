@@ -0,0 +1,205 @@
+package de.prokyo.network;
+
+import de.prokyo.network.common.connection.PacketPriority;
+import de.prokyo.network.common.connection.SlowConsumerPolicy;
+import de.prokyo.network.common.packet.PrioritizedPacket;
+import de.prokyo.network.common.pipeline.OutboundQueue;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for the slow consumer policies and the priority lanes of the outbound queue.
+ */
+public class OutboundQueueTest {
+
+	/**
+	 * Checks that packets are passed through while the channel is writable and queued and drained in order otherwise.
+	 */
+	@Test
+	public void testQueueAndDrain() {
+		OutboundQueue queue = new OutboundQueue(SlowConsumerPolicy.DROP_NEWEST, 4, 0);
+		EmbeddedChannel channel = new EmbeddedChannel(queue);
+
+		channel.writeAndFlush(new PingPacket(PingPacket.Sender.SERVER, 0));
+		Assert.assertEquals(0, ((PingPacket) channel.readOutbound()).getTime());
+
+		this.setWritable(channel, false);
+		for (int i = 1; i <= 3; i++) channel.writeAndFlush(new PingPacket(PingPacket.Sender.SERVER, i));
+		Assert.assertNull(channel.readOutbound());
+		Assert.assertEquals(3, queue.getQueuedPackets());
+
+		this.setWritable(channel, true);
+		Assert.assertEquals(0, queue.getQueuedPackets());
+		Assert.assertEquals(3, this.readTimes(channel).size());
+		channel.finish();
+	}
+
+	/**
+	 * Fills the queue with the drop policies and checks which packets are sent afterwards.
+	 */
+	@Test
+	public void testDropPolicies() {
+		Assert.assertEquals(this.times(0, 1, 2, 3), this.overflow(SlowConsumerPolicy.DROP_NEWEST));
+		Assert.assertEquals(this.times(6, 7, 8, 9), this.overflow(SlowConsumerPolicy.DROP_OLDEST));
+		// all ping packets have the same type, so only the last one is left
+		Assert.assertEquals(this.times(9), this.overflow(SlowConsumerPolicy.CONFLATE));
+	}
+
+	/**
+	 * Checks that the unbounded policy, which is the default, keeps every packet beyond the limit.
+	 */
+	@Test
+	public void testUnbounded() {
+		OutboundQueue queue = new OutboundQueue(SlowConsumerPolicy.UNBOUNDED, 4, 0);
+		EmbeddedChannel channel = new EmbeddedChannel(queue);
+		this.setWritable(channel, false);
+
+		for (int i = 0; i < 10; i++) channel.writeAndFlush(new PingPacket(PingPacket.Sender.SERVER, i));
+		Assert.assertEquals(10, queue.getQueuedPackets());
+
+		this.setWritable(channel, true);
+		Assert.assertEquals(this.times(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), this.readTimes(channel));
+		Assert.assertEquals(0, queue.getDroppedPackets());
+		channel.finish();
+	}
+
+	/**
+	 * Sends many position updates of a few entities to an unwritable channel and checks that the queue holds
+	 * at most one packet per entity, while only the latest positions are sent in their original order.
+	 */
+	@Test
+	public void testConflation() {
+		OutboundQueue queue = new OutboundQueue(SlowConsumerPolicy.DROP_NEWEST, 64, 0);
+		EmbeddedChannel channel = new EmbeddedChannel(queue);
+		this.setWritable(channel, false);
+
+		ChannelFuture ping = channel.writeAndFlush(new PingPacket(PingPacket.Sender.SERVER, 0));
+		for (int update = 0; update < 10_000; update++) {
+			for (int entity = 0; entity < 10; entity++) channel.writeAndFlush(new PositionPacket(entity, update));
+			Assert.assertTrue(queue.getQueuedPackets() <= 11);
+		}
+		Assert.assertEquals(11, queue.getQueuedPackets());
+		Assert.assertEquals(9_999 * 10, queue.getDroppedPackets());
+
+		this.setWritable(channel, true);
+		Assert.assertTrue(ping.isSuccess());
+		Assert.assertTrue(channel.readOutbound() instanceof PingPacket);
+		for (int entity = 0; entity < 10; entity++) {
+			PositionPacket packet = channel.readOutbound();
+			Assert.assertEquals(entity, packet.getEntityId());
+			Assert.assertEquals(9_999, packet.getPosition());
+		}
+		Assert.assertNull(channel.readOutbound());
+		channel.finish();
+	}
+
+	/**
+	 * Queues a bulk transfer in front of high priority packets and checks that the lanes are interleaved
+	 * by their weights, while a full queue drops bulk packets first.
+	 */
+	@Test
+	public void testPriorityLanes() {
+		OutboundQueue queue = new OutboundQueue(SlowConsumerPolicy.DROP_OLDEST, 60, 0);
+		EmbeddedChannel channel = new EmbeddedChannel(queue);
+		this.setWritable(channel, false);
+
+		for (int i = 0; i < 40; i++) channel.write(new PrioritizedPacket(new PingPacket(PingPacket.Sender.SERVER, -1), PacketPriority.BULK));
+		for (int i = 0; i < 30; i++) channel.write(new PrioritizedPacket(new PingPacket(PingPacket.Sender.SERVER, i), PacketPriority.HIGH));
+		channel.flush();
+		Assert.assertEquals(30, queue.getQueuedPackets(PacketPriority.BULK));
+		Assert.assertEquals(30, queue.getQueuedPackets(PacketPriority.HIGH));
+		Assert.assertEquals(10, queue.getDroppedPackets());
+
+		this.setWritable(channel, true);
+		List<Long> times = this.readTimes(channel);
+		Assert.assertEquals(60, times.size());
+		// every round sends 16 high priority packets and a single bulk packet
+		Assert.assertEquals(this.times(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, -1), times.subList(0, 17));
+		Assert.assertEquals(this.times(16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, -1), times.subList(17, 32));
+		Assert.assertTrue(queue.getMaxQueueLatencyNanos(PacketPriority.BULK) > 0);
+		Assert.assertEquals(0, queue.getQueuedPackets());
+		channel.finish();
+	}
+
+	/**
+	 * Checks that the channel is closed if the queue is full and that queued writes are cancelled.
+	 */
+	@Test
+	public void testDisconnect() {
+		OutboundQueue queue = new OutboundQueue(SlowConsumerPolicy.DISCONNECT, 2, 0);
+		EmbeddedChannel channel = new EmbeddedChannel(queue);
+		this.setWritable(channel, false);
+
+		ChannelFuture queued = channel.writeAndFlush(new PingPacket(PingPacket.Sender.SERVER, 0));
+		channel.writeAndFlush(new PingPacket(PingPacket.Sender.SERVER, 1));
+		Assert.assertTrue(channel.isActive());
+
+		channel.writeAndFlush(new PingPacket(PingPacket.Sender.SERVER, 2));
+		Assert.assertFalse(channel.isActive());
+		Assert.assertTrue(queued.isCancelled());
+		Assert.assertEquals(0, queue.getQueuedPackets());
+		Assert.assertEquals(1, queue.getDroppedPackets());
+	}
+
+	/**
+	 * Writes ten packets to an unwritable channel with a queue of four packets.
+	 *
+	 * @param policy The policy of the queue
+	 * @return The times of the packets sent after the channel became writable again.
+	 */
+	private List<Long> overflow(SlowConsumerPolicy policy) {
+		OutboundQueue queue = new OutboundQueue(policy, 4, 0);
+		EmbeddedChannel channel = new EmbeddedChannel(queue);
+		this.setWritable(channel, false);
+
+		for (int i = 0; i < 10; i++) channel.writeAndFlush(new PingPacket(PingPacket.Sender.SERVER, i));
+		Assert.assertTrue(queue.getQueuedPackets() <= 4);
+
+		this.setWritable(channel, true);
+		List<Long> times = this.readTimes(channel);
+		Assert.assertEquals(10 - times.size(), queue.getDroppedPackets());
+		channel.finish();
+		return times;
+	}
+
+	/**
+	 * Changes the writability of the given channel and runs the resulting writability changed event.
+	 *
+	 * @param channel The channel
+	 * @param writable Whether the channel shall be writable
+	 */
+	private void setWritable(EmbeddedChannel channel, boolean writable) {
+		channel.unsafe().outboundBuffer().setUserDefinedWritability(1, writable);
+		channel.runPendingTasks();
+	}
+
+	/**
+	 * Reads the times of all written ping packets.
+	 *
+	 * @param channel The channel
+	 * @return The times of the packets.
+	 */
+	private List<Long> readTimes(EmbeddedChannel channel) {
+		List<Long> times = new ArrayList<>();
+		PingPacket packet;
+		while ((packet = channel.readOutbound()) != null) times.add(packet.getTime());
+		return times;
+	}
+
+	/**
+	 * Creates a list of the given times.
+	 *
+	 * @param times The times
+	 * @return The list.
+	 */
+	private List<Long> times(long... times) {
+		List<Long> list = new ArrayList<>();
+		for (long time : times) list.add(time);
+		return list;
+	}
+
+}
@@ -0,0 +1,74 @@
+package de.prokyo.network;
+
+import de.prokyo.network.common.event.PacketBatchEvent;
+import de.prokyo.network.common.event.PacketIncomingEvent;
+import de.prokyo.network.common.packet.DecodedPacket;
+import de.prokyo.network.common.packet.Packet;
+import de.prokyo.network.server.ClientConnection;
+import de.prokyo.network.server.ProkyoDuplexHandler;
+import de.prokyo.network.server.ProkyoServer;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for the inbound batch mode.
+ */
+public class PacketBatchTest {
+
+	/**
+	 * Reads two packets in one read cycle and checks that they are delivered as one batch.
+	 */
+	@Test
+	public void testBatchPerRead() {
+		ProkyoServer server = new ProkyoServer();
+		server.setInboundBatching(true);
+
+		List<Integer> batchSizes = new ArrayList<>();
+		server.getEventManager().register(PacketBatchEvent.class, event -> batchSizes.add(event.getPackets().size()));
+		server.getEventManager().register(PingPacket.class, packet -> Assert.fail("Packets must only be delivered as batch."));
+
+		EmbeddedChannel channel = new EmbeddedChannel();
+		channel.pipeline().addLast(new ProkyoDuplexHandler(server, new ClientConnection(channel)));
+
+		channel.writeInbound(new DecodedPacket(0x01, new PingPacket()), new DecodedPacket(0x01, new PingPacket()));
+		channel.writeInbound(new DecodedPacket(0x01, new PingPacket()));
+		channel.finish();
+
+		Assert.assertEquals(2, batchSizes.size());
+		Assert.assertEquals(2, (int) batchSizes.get(0));
+		Assert.assertEquals(1, (int) batchSizes.get(1));
+	}
+
+	/**
+	 * Checks that the {@link PacketIncomingEvent} is fired for every packet and cancelled packets are left out of
+	 * the batch.
+	 */
+	@Test
+	public void testCancelledPacketsAreFiltered() {
+		ProkyoServer server = new ProkyoServer();
+		server.setInboundBatching(true);
+
+		List<Long> batched = new ArrayList<>();
+		server.getEventManager().register(PacketIncomingEvent.class, event -> {
+			if (((PingPacket) event.getPacket()).getTime() == 1) event.setCancelled(true);
+		});
+		server.getEventManager().register(PacketBatchEvent.class, event -> {
+			for (Packet packet : event.getPackets()) batched.add(((PingPacket) packet).getTime());
+		});
+
+		EmbeddedChannel channel = new EmbeddedChannel();
+		channel.pipeline().addLast(new ProkyoDuplexHandler(server, new ClientConnection(channel)));
+
+		channel.writeInbound(new DecodedPacket(0x01, new PingPacket(PingPacket.Sender.CLIENT, 0)),
+				new DecodedPacket(0x01, new PingPacket(PingPacket.Sender.CLIENT, 1)),
+				new DecodedPacket(0x01, new PingPacket(PingPacket.Sender.CLIENT, 2)));
+		channel.finish();
+
+		Assert.assertEquals(Arrays.asList(0L, 2L), batched);
+	}
+
+}
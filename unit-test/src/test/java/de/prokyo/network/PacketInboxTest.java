@@ -0,0 +1,78 @@
+package de.prokyo.network;
+
+import de.prokyo.network.server.inbox.PacketInbox;
+import de.prokyo.network.server.inbox.SleepingWaitStrategy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for the packet inbox.
+ */
+public class PacketInboxTest {
+
+	/**
+	 * Tests that packets are drained in order, in batches and that packets are dropped if the inbox is full.
+	 */
+	@Test
+	public void testOfferAndDrain() {
+		PacketInbox inbox = new PacketInbox(3);
+		Assert.assertEquals(4, inbox.getCapacity());
+		Assert.assertTrue(inbox.isEmpty());
+
+		for (int i = 0; i < 4; i++) Assert.assertTrue(inbox.offer(null, i, new PingPacket()));
+		Assert.assertFalse(inbox.offer(null, 4, new PingPacket()));
+		Assert.assertEquals(1, inbox.getDroppedPackets());
+
+		List<Integer> packetIds = new ArrayList<>();
+		Assert.assertEquals(3, inbox.drainTo((connection, packetId, packet) -> packetIds.add(packetId), 3));
+		Assert.assertTrue(inbox.offer(null, 5, new PingPacket()));
+		Assert.assertEquals(2, inbox.drainTo((connection, packetId, packet) -> packetIds.add(packetId), 10));
+
+		Assert.assertTrue(inbox.isEmpty());
+		Assert.assertEquals(0, inbox.drainTo((connection, packetId, packet) -> packetIds.add(packetId), 10));
+		Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 5), packetIds);
+	}
+
+	/**
+	 * Tests that no packet gets lost or reordered with multiple producers and one waiting consumer.
+	 *
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	@Test
+	public void testMultipleProducers() throws InterruptedException {
+		int producers = 4;
+		int packetsPerProducer = 100_000;
+		PacketInbox inbox = new PacketInbox(1024, new SleepingWaitStrategy(10_000));
+
+		List<Thread> threads = new ArrayList<>();
+		for (int producer = 0; producer < producers; producer++) {
+			int id = producer;
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < packetsPerProducer; i++) {
+					// encode the producer into the packet id, so the consumer can check the order of every producer
+					while (!inbox.offer(null, id * packetsPerProducer + i, null)) Thread.yield();
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+
+		int[] next = new int[producers];
+		int received = 0;
+		while (received < producers * packetsPerProducer) {
+			received += inbox.awaitAndDrainTo((connection, packetId, packet) -> {
+				int producer = packetId / packetsPerProducer;
+				Assert.assertEquals(next[producer]++, packetId % packetsPerProducer);
+			}, 256, 1, TimeUnit.SECONDS);
+		}
+
+		for (Thread thread : threads) thread.join();
+		Assert.assertTrue(inbox.isEmpty());
+		for (int producer = 0; producer < producers; producer++) Assert.assertEquals(packetsPerProducer, next[producer]);
+	}
+
+}
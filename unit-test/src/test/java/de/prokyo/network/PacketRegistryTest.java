@@ -0,0 +1,43 @@
+package de.prokyo.network;
+
+import de.prokyo.network.common.packet.PacketRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for the mapping between packet classes and packet ids.
+ */
+public class PacketRegistryTest {
+
+	/**
+	 * Registers another class with a taken id and checks that the replaced class loses its id instead of keeping
+	 * an id decoded as the other class.
+	 */
+	@Test
+	public void testIdClash() {
+		PacketRegistry registry = new PacketRegistry(false);
+		registry.register(PingPacket.class, 0x01);
+		registry.register(CompressionPingPacket.class, 0x01);
+
+		Assert.assertEquals(CompressionPingPacket.class, registry.getPacketClass(0x01));
+		Assert.assertEquals(0x01, registry.getPacketId(CompressionPingPacket.class));
+		Assert.assertEquals(-404, registry.getPacketId(PingPacket.class));
+	}
+
+	/**
+	 * Registers a class again with another id and checks that its old id is released.
+	 */
+	@Test
+	public void testReregistration() {
+		PacketRegistry registry = new PacketRegistry(false);
+		registry.register(PingPacket.class, 0x01);
+		registry.register(PingPacket.class, 0x01);
+		Assert.assertEquals(0x01, registry.getPacketId(PingPacket.class));
+
+		registry.register(PingPacket.class, 0x20);
+		Assert.assertEquals(0x20, registry.getPacketId(PingPacket.class));
+		Assert.assertNull(registry.getPacketClass(0x01));
+		Assert.assertEquals(PingPacket.class, registry.getPacketClass(0x20));
+	}
+
+}
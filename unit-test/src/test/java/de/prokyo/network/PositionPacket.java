@@ -0,0 +1,36 @@
+package de.prokyo.network;
+
+import de.prokyo.network.common.buffer.PacketBuffer;
+import de.prokyo.network.common.packet.Conflatable;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Test packet containing the latest position of an entity.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+public class PositionPacket implements Conflatable {
+
+	@Getter private int entityId;
+	@Getter private long position;
+
+	@Override
+	public void encode(PacketBuffer buffer) {
+		buffer.writeVarInt(this.entityId);
+		buffer.writeLong(this.position);
+	}
+
+	@Override
+	public void decode(PacketBuffer buffer) {
+		this.entityId = buffer.readVarInt();
+		this.position = buffer.readLong();
+	}
+
+	@Override
+	public Object getConflationKey() {
+		return this.entityId;
+	}
+
+}
@@ -0,0 +1,157 @@
+package de.prokyo.network;
+
+import de.prokyo.network.client.ProkyoClient;
+import de.prokyo.network.client.ReconnectPolicy;
+import de.prokyo.network.common.compression.CompressionUtil;
+import de.prokyo.network.common.connection.SlowConsumerPolicy;
+import de.prokyo.network.common.packet.PacketRegistry;
+import de.prokyo.network.server.ClientConnection;
+import de.prokyo.network.server.ProkyoServer;
+import de.prokyo.network.server.event.ConnectionEstablishedEvent;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for reconnecting a client after the server was restarted.
+ */
+public class ReconnectTest {
+
+	private static final int PORT = 1346;
+
+	/**
+	 * Restarts the server and checks that the client reconnects and sends the packets buffered in the meantime in
+	 * order, dropping the oldest ones exceeding the buffer.
+	 *
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	@Test
+	public void testReconnect() throws InterruptedException {
+		PacketRegistry.INSTANCE.register(PingPacket.class, 0x20);
+
+		ProkyoServer server = new ProkyoServer();
+		server.start("127.0.0.1", PORT, 1, 1);
+		ProkyoClient client = new ProkyoClient();
+		client.setReconnectPolicy(new ReconnectPolicy(10, 100, 0, 100, SlowConsumerPolicy.DROP_OLDEST));
+		client.connect("127.0.0.1", PORT, 1);
+
+		try {
+			server.shutdown();
+			this.await(client::isReconnecting);
+
+			for (int i = 0; i < 150; i++) client.sendPacket(new PingPacket(PingPacket.Sender.CLIENT, i));
+			Assert.assertEquals(100, client.getBufferedPackets());
+			Assert.assertEquals(50, client.getDroppedPackets());
+
+			List<Long> received = new CopyOnWriteArrayList<>();
+			server = new ProkyoServer();
+			server.getEventManager().register(PingPacket.class, packet -> received.add(packet.getTime()));
+			server.start("127.0.0.1", PORT, 1, 1);
+
+			this.await(() -> received.size() == 100);
+			for (int i = 0; i < received.size(); i++) Assert.assertEquals(50 + i, (long) received.get(i));
+			Assert.assertFalse(client.isReconnecting());
+			Assert.assertEquals(1, client.getReconnects());
+			Assert.assertTrue(client.getLastReconnectLatencyMillis() > 0);
+			Assert.assertEquals(0, client.getBufferedPackets());
+		} finally {
+			client.shutdown();
+			server.shutdown();
+		}
+	}
+
+	/**
+	 * Reconnects a client whose connection was compressed and checks that the new connection starts uncompressed on
+	 * both ends, so the buffered packets are readable by the server, and that compression can be enabled again.
+	 *
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	@Test
+	public void testReconnectWithCompression() throws InterruptedException {
+		PacketRegistry.INSTANCE.register(CompressionPingPacket.class, 0x01);
+		CompressionUtil.init(CompressionUtil.CompressionType.LZ4_FASTEST);
+
+		List<ClientConnection> connections = new CopyOnWriteArrayList<>();
+		ProkyoServer server = new ProkyoServer();
+		server.getEventManager().register(ConnectionEstablishedEvent.class, event -> connections.add(event.getClientConnection()));
+		server.start("127.0.0.1", PORT, 1, 1);
+		ProkyoClient client = new ProkyoClient();
+		client.setReconnectPolicy(new ReconnectPolicy(10, 100, 0, 100, SlowConsumerPolicy.DROP_OLDEST));
+		client.connect("127.0.0.1", PORT, 1);
+
+		try {
+			this.await(() -> connections.size() == 1);
+			connections.get(0).enableCompression();
+			client.enableCompression();
+
+			server.shutdown();
+			this.await(client::isReconnecting);
+			client.sendPacket(new CompressionPingPacket(CompressionPingPacket.Sender.CLIENT, new byte[512]));
+
+			List<Integer> received = new CopyOnWriteArrayList<>();
+			server = new ProkyoServer();
+			server.getEventManager().register(ConnectionEstablishedEvent.class, event -> connections.add(event.getClientConnection()));
+			server.getEventManager().register(CompressionPingPacket.class, packet -> received.add(packet.getData().length));
+			server.start("127.0.0.1", PORT, 1, 1);
+
+			this.await(() -> received.size() == 1);
+			Assert.assertFalse(client.isCompressionEnabled());
+			Assert.assertFalse(connections.get(1).isCompressionEnabled());
+
+			connections.get(1).enableCompression();
+			client.enableCompression();
+			client.sendPacket(new CompressionPingPacket(CompressionPingPacket.Sender.CLIENT, new byte[1024]));
+			this.await(() -> received.size() == 2);
+			Assert.assertEquals(1024, (int) received.get(1));
+		} finally {
+			client.shutdown();
+			server.shutdown();
+		}
+	}
+
+	/**
+	 * Lets the client give up reconnecting and checks that shutting it down still stops its threads.
+	 *
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	@Test
+	public void testShutdownAfterGivingUp() throws InterruptedException {
+		ProkyoServer server = new ProkyoServer();
+		server.start("127.0.0.1", PORT, 1, 1);
+		Set<Thread> threads = new HashSet<>(Thread.getAllStackTraces().keySet());
+		ProkyoClient client = new ProkyoClient();
+		client.setReconnectPolicy(new ReconnectPolicy(200, 200, 2, 100, SlowConsumerPolicy.DROP_OLDEST));
+		client.connect("127.0.0.1", PORT, 1);
+
+		Set<Thread> clientThreads = new HashSet<>(Thread.getAllStackTraces().keySet());
+		clientThreads.removeAll(threads);
+		clientThreads.removeIf(thread -> !thread.getName().contains("EventLoopGroup"));
+		Assert.assertFalse(clientThreads.isEmpty());
+
+		server.shutdownAsync();
+		this.await(client::isReconnecting);
+		client.sendPacket(new PingPacket(PingPacket.Sender.CLIENT, 0));
+		// the buffered packet is dropped once the client gives up
+		this.await(() -> !client.isReconnecting() && client.getDroppedPackets() == 1);
+
+		client.shutdown();
+		this.await(() -> clientThreads.stream().noneMatch(Thread::isAlive));
+	}
+
+	/**
+	 * Waits up to five seconds for the given condition.
+	 *
+	 * @param condition The condition
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	private void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) Thread.sleep(5);
+		Assert.assertTrue(condition.getAsBoolean());
+	}
+
+}
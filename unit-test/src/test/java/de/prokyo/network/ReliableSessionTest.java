@@ -0,0 +1,256 @@
+package de.prokyo.network;
+
+import de.prokyo.network.client.ProkyoClient;
+import de.prokyo.network.client.ReconnectPolicy;
+import de.prokyo.network.common.connection.ReliableSession;
+import de.prokyo.network.common.connection.SessionRegistry;
+import de.prokyo.network.common.connection.SlowConsumerPolicy;
+import de.prokyo.network.common.event.EventManager;
+import de.prokyo.network.common.event.PacketIncomingEvent;
+import de.prokyo.network.common.event.SessionEstablishedEvent;
+import de.prokyo.network.common.packet.DecodedPacket;
+import de.prokyo.network.common.packet.PacketRegistry;
+import de.prokyo.network.common.packet.SequencedPacket;
+import de.prokyo.network.common.packet.SessionHandshakePacket;
+import de.prokyo.network.common.pipeline.OutboundQueue;
+import de.prokyo.network.common.pipeline.ReliableSessionHandler;
+import de.prokyo.network.server.ClientConnection;
+import de.prokyo.network.server.ProkyoServer;
+import de.prokyo.network.server.event.ConnectionEstablishedEvent;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for resuming a reliable session after the connection was lost.
+ */
+public class ReliableSessionTest {
+
+	private static final int PORT = 1347;
+	private static final int PLAIN_CLIENT_PORT = 1354;
+	private static final int BROADCAST_PORT = 1355;
+	private static final int PACKETS = 10_000;
+
+	/**
+	 * Closes the connection while the client is sending and checks that the server receives every packet exactly
+	 * once and in order after the client resumed its session.
+	 *
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	@Test
+	public void testResume() throws InterruptedException {
+		PacketRegistry.INSTANCE.register(PingPacket.class, 0x20);
+
+		List<Long> received = new CopyOnWriteArrayList<>();
+		List<Boolean> established = new CopyOnWriteArrayList<>();
+		ProkyoServer server = new ProkyoServer();
+		server.enableReliableSessions(PACKETS, SessionRegistry.DEFAULT_SESSION_TIMEOUT_MILLIS);
+		server.getEventManager().register(SessionEstablishedEvent.class, event -> established.add(event.isResumed()));
+		server.getEventManager().register(PacketIncomingEvent.class, event -> {
+			received.add(((PingPacket) event.getPacket()).getTime());
+			// drops everything the client sent after this packet and didn't arrive yet
+			if (received.size() == PACKETS / 10) ((ClientConnection) event.getConnection()).getChannel().close();
+		});
+		server.start("127.0.0.1", PORT, 1, 1);
+
+		ProkyoClient client = new ProkyoClient();
+		client.setReliableSession(true);
+		client.setMaxUnacknowledgedPackets(PACKETS);
+		client.setReconnectPolicy(new ReconnectPolicy(10, 100, 0, PACKETS, SlowConsumerPolicy.DROP_OLDEST));
+		client.connect("127.0.0.1", PORT, 1);
+
+		try {
+			for (int i = 0; i < PACKETS; i++) client.sendPacket(new PingPacket(PingPacket.Sender.CLIENT, i));
+
+			this.await(() -> received.size() >= PACKETS);
+			Assert.assertEquals(PACKETS, received.size());
+			for (int i = 0; i < PACKETS; i++) Assert.assertEquals(i, (long) received.get(i));
+
+			Assert.assertEquals(1, client.getReconnects());
+			Assert.assertEquals(2, established.size());
+			Assert.assertFalse(established.get(0));
+			Assert.assertTrue(established.get(1));
+			this.await(() -> client.getSession().getUnacknowledgedPackets() == 0);
+		} finally {
+			client.shutdown();
+			server.shutdown();
+		}
+	}
+
+	/**
+	 * Connects a client without reliable sessions to a server using them and checks that the packets of the server
+	 * are delivered, both the ones sent before the client sent anything and the answers to its packets.
+	 *
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	@Test
+	public void testPlainClient() throws InterruptedException {
+		PacketRegistry.INSTANCE.register(PingPacket.class, 0x20);
+
+		ProkyoServer server = new ProkyoServer();
+		server.enableReliableSessions(PACKETS, SessionRegistry.DEFAULT_SESSION_TIMEOUT_MILLIS);
+		server.getEventManager().register(ConnectionEstablishedEvent.class, event ->
+				event.getClientConnection().sendPacket(new PingPacket(PingPacket.Sender.SERVER, 0)));
+		server.getEventManager().register(PacketIncomingEvent.class, event ->
+				event.getConnection().sendPacket(new PingPacket(PingPacket.Sender.SERVER, ((PingPacket) event.getPacket()).getTime())));
+		server.start("127.0.0.1", PLAIN_CLIENT_PORT, 1, 1);
+
+		List<Long> received = new CopyOnWriteArrayList<>();
+		ProkyoClient client = new ProkyoClient();
+		client.getEventManager().register(PingPacket.class, packet -> received.add(packet.getTime()));
+		client.connect("127.0.0.1", PLAIN_CLIENT_PORT, 1);
+
+		try {
+			// the welcome packet is held back until the server gives up waiting for the handshake
+			this.await(() -> received.size() == 1);
+
+			client.sendPacket(new PingPacket(PingPacket.Sender.CLIENT, 1));
+			this.await(() -> received.size() == 2);
+			Assert.assertEquals(1, (long) received.get(1));
+		} finally {
+			client.shutdown();
+			server.shutdown();
+		}
+	}
+
+	/**
+	 * Broadcasts and publishes packets to a client using a session and checks that they are sent within the session,
+	 * so they are resent after reconnecting.
+	 *
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	@Test
+	public void testBroadcast() throws InterruptedException {
+		PacketRegistry.INSTANCE.register(PingPacket.class, 0x20);
+
+		ProkyoServer server = new ProkyoServer();
+		server.enableReliableSessions(PACKETS, SessionRegistry.DEFAULT_SESSION_TIMEOUT_MILLIS);
+		server.getEventManager().register(ConnectionEstablishedEvent.class, event -> server.subscribe(event.getClientConnection(), "topic"));
+		server.start("127.0.0.1", BROADCAST_PORT, 1, 1);
+
+		List<Long> received = new CopyOnWriteArrayList<>();
+		ProkyoClient client = new ProkyoClient();
+		client.setReliableSession(true);
+		client.getEventManager().register(PingPacket.class, packet -> received.add(packet.getTime()));
+		client.connect("127.0.0.1", BROADCAST_PORT, 1);
+
+		try {
+			this.await(() -> client.getSession().getSessionId() != 0 && server.hasSubscribers("topic"));
+			server.broadcast(new PingPacket(PingPacket.Sender.SERVER, 0));
+			server.publish("topic", new PingPacket(PingPacket.Sender.SERVER, 1));
+
+			this.await(() -> received.size() == 2);
+			Assert.assertEquals(2, client.getSession().getLastReceivedSequence());
+		} finally {
+			client.shutdown();
+			server.shutdown();
+		}
+	}
+
+	/**
+	 * Resumes a session while the previous server side connection isn't closed yet and still has packets queued and
+	 * checks that these packets are sent over the new connection after the resent packets without a gap.
+	 */
+	@Test
+	public void testResumeWithQueuedPackets() {
+		SessionRegistry registry = new SessionRegistry(PACKETS, SessionRegistry.DEFAULT_SESSION_TIMEOUT_MILLIS);
+		DeferredClose deferredClose = new DeferredClose();
+		EmbeddedChannel previous = this.newServerChannel(registry, deferredClose);
+		previous.writeInbound(new DecodedPacket(0, new SessionHandshakePacket(0, 0, 0, false)));
+		SessionHandshakePacket handshake = previous.readOutbound();
+		previous.writeOutbound(new PingPacket(PingPacket.Sender.SERVER, 0));
+		Assert.assertEquals(1, ((SequencedPacket) previous.readOutbound()).getSequence());
+
+		// the packets stay in the outbound queue of the previous connection
+		previous.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+		previous.writeAndFlush(new PingPacket(PingPacket.Sender.SERVER, 1));
+		previous.writeAndFlush(new PingPacket(PingPacket.Sender.SERVER, 2));
+
+		EmbeddedChannel channel = this.newServerChannel(registry, new DeferredClose());
+		channel.writeInbound(new DecodedPacket(0, new SessionHandshakePacket(handshake.getSessionId(), handshake.getToken(), 1, false)));
+		Assert.assertTrue(((SessionHandshakePacket) channel.readOutbound()).isResumed());
+
+		// the previous connection notices only now that it was closed
+		deferredClose.closeNow();
+		previous.runPendingTasks();
+		channel.writeAndFlush(new PingPacket(PingPacket.Sender.SERVER, 3));
+
+		ReliableSession client = new ReliableSession(PACKETS);
+		client.receive(1);
+		for (int i = 1; i <= 3; i++) {
+			SequencedPacket packet = channel.readOutbound();
+			Assert.assertTrue(client.receive(packet.getSequence()));
+			Assert.assertEquals(i, ((PingPacket) packet.getPacket()).getTime());
+		}
+		Assert.assertNull(channel.readOutbound());
+		channel.finish();
+	}
+
+	/**
+	 * Checks that a packet received after a gap is rejected instead of acknowledging the missing packets.
+	 */
+	@Test(expected = IllegalStateException.class)
+	public void testGap() {
+		ReliableSession session = new ReliableSession(PACKETS);
+		Assert.assertTrue(session.receive(1));
+		Assert.assertFalse(session.receive(1));
+		session.receive(3);
+	}
+
+	/**
+	 * Creates a server side channel of a connection using reliable sessions.
+	 *
+	 * @param registry The sessions of the server
+	 * @param deferredClose The handler holding back the close of the channel
+	 * @return The channel.
+	 */
+	private EmbeddedChannel newServerChannel(SessionRegistry registry, DeferredClose deferredClose) {
+		EmbeddedChannel channel = new EmbeddedChannel();
+		channel.pipeline().addLast(deferredClose);
+		channel.pipeline().addLast(new ReliableSessionHandler(registry, new ClientConnection(channel), new EventManager()));
+		channel.pipeline().addLast(new OutboundQueue(SlowConsumerPolicy.UNBOUNDED, PACKETS, 0));
+		return channel;
+	}
+
+	/**
+	 * Waits up to five seconds for the given condition.
+	 *
+	 * @param condition The condition
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	private void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) Thread.sleep(5);
+		Assert.assertTrue(condition.getAsBoolean());
+	}
+
+	/**
+	 * Holds back the close of a channel, like a connection that didn't notice yet that its client is gone.
+	 */
+	private static class DeferredClose extends ChannelOutboundHandlerAdapter {
+
+		private ChannelHandlerContext ctx;
+		private ChannelPromise promise;
+
+		@Override
+		public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
+			this.ctx = ctx;
+			this.promise = promise;
+		}
+
+		/**
+		 * Closes the channel.
+		 */
+		void closeNow() {
+			this.ctx.close(this.promise);
+		}
+
+	}
+
+}
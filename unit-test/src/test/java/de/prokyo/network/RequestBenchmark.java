@@ -0,0 +1,78 @@
+package de.prokyo.network;
+
+import de.prokyo.network.client.ProkyoClient;
+import de.prokyo.network.common.event.IncomingRequestEvent;
+import de.prokyo.network.common.packet.PacketRegistry;
+import de.prokyo.network.server.ProkyoServer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Benchmark measuring the request throughput over the loopback interface with different amounts of
+ * requests in flight.
+ */
+public class RequestBenchmark {
+
+	private static final int REQUESTS = 1_000_000;
+	private static final int[] IN_FLIGHT = {1, 16, 256, 4096, 65536};
+
+	/**
+	 * Sends requests from the client to the server, which echoes them, and prints the requests per second
+	 * for every amount of requests in flight.
+	 *
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	@Ignore("Takes to long. Can be started manually.")
+	@Test
+	public void benchmarkPipelinedRequests() throws InterruptedException {
+		PacketRegistry.INSTANCE.register(PingPacket.class, 0x20);
+
+		ProkyoServer server = new ProkyoServer();
+		server.getEventManager().register(IncomingRequestEvent.class, event -> event.respond(event.getRequest()));
+		server.start("127.0.0.1", 1342, 1, 1);
+		ProkyoClient client = new ProkyoClient();
+		client.connect("127.0.0.1", 1342, 1);
+
+		try {
+			for (int inFlight : IN_FLIGHT) {
+				int requests = inFlight == 1 ? REQUESTS / 20 : REQUESTS;
+				System.out.printf("%5d in flight: %.0f requests/s%n", inFlight, this.measure(client, requests, inFlight));
+			}
+		} finally {
+			client.shutdown();
+			server.shutdown();
+		}
+	}
+
+	/**
+	 * Sends the given amount of requests while never exceeding the given amount of requests in flight.
+	 *
+	 * @param client The client
+	 * @param requests The amount of requests
+	 * @param inFlight The maximum amount of requests in flight
+	 * @return The requests per second.
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	private double measure(ProkyoClient client, int requests, int inFlight) throws InterruptedException {
+		Semaphore window = new Semaphore(inFlight);
+		CountDownLatch completed = new CountDownLatch(requests);
+
+		long start = System.nanoTime();
+		for (int i = 0; i < requests; i++) {
+			window.acquire();
+			CompletableFuture<PingPacket> future = client.request(new PingPacket(PingPacket.Sender.CLIENT, i), PingPacket.class, 30, TimeUnit.SECONDS);
+			future.whenComplete((response, cause) -> {
+				if (cause != null) cause.printStackTrace();
+				window.release();
+				completed.countDown();
+			});
+		}
+		completed.await();
+		return requests / ((System.nanoTime() - start) / 1e9);
+	}
+
+}
@@ -0,0 +1,170 @@
+package de.prokyo.network;
+
+import de.prokyo.network.common.connection.SlowConsumerPolicy;
+import de.prokyo.network.common.event.IncomingRequestEvent;
+import de.prokyo.network.common.exception.RequestFailedException;
+import de.prokyo.network.common.packet.PacketRegistry;
+import de.prokyo.network.common.pipeline.OutboundQueue;
+import de.prokyo.network.common.pipeline.PacketDecoder;
+import de.prokyo.network.common.pipeline.PacketEncoder;
+import de.prokyo.network.server.ClientConnection;
+import de.prokyo.network.server.ProkyoDuplexHandler;
+import de.prokyo.network.server.ProkyoServer;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for requests and their responses.
+ */
+public class RequestTest {
+
+	private final ProkyoServer requesterServer = new ProkyoServer();
+	private final ProkyoServer responderServer = new ProkyoServer();
+	private final EmbeddedChannel requesterChannel = new EmbeddedChannel();
+	private final EmbeddedChannel responderChannel = new EmbeddedChannel();
+	private final ClientConnection requester = new ClientConnection(this.requesterChannel);
+
+	/**
+	 * Constructor.
+	 */
+	public RequestTest() {
+		PacketRegistry.INSTANCE.register(PingPacket.class, 0x20);
+		PacketRegistry.INSTANCE.register(PositionPacket.class, 0x21);
+
+		this.initPipeline(this.requesterChannel, this.requesterServer, this.requester);
+		this.initPipeline(this.responderChannel, this.responderServer, new ClientConnection(this.responderChannel));
+	}
+
+	/**
+	 * Sends many requests before the first response arrives and checks that every future is completed with
+	 * the response to its own request.
+	 *
+	 * @throws Exception If a request fails.
+	 */
+	@Test
+	public void testPipelinedRequests() throws Exception {
+		this.responderServer.getEventManager().register(IncomingRequestEvent.class, event ->
+				event.respond(new PingPacket(PingPacket.Sender.SERVER, ((PingPacket) event.getRequest()).getTime() * 2)));
+
+		List<CompletableFuture<PingPacket>> futures = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			futures.add(this.requester.request(new PingPacket(PingPacket.Sender.CLIENT, i), PingPacket.class, 10, TimeUnit.SECONDS));
+		}
+		Assert.assertEquals(1000, this.requester.getRequestManager().getPendingRequests());
+
+		this.pump();
+		for (int i = 0; i < futures.size(); i++) Assert.assertEquals(i * 2, futures.get(i).get().getTime());
+		Assert.assertEquals(0, this.requester.getRequestManager().getPendingRequests());
+	}
+
+	/**
+	 * Checks that failed requests, responses of the wrong type and unanswered requests fail their futures.
+	 *
+	 * @throws Exception If the thread is interrupted.
+	 */
+	@Test
+	public void testFailures() throws Exception {
+		this.responderServer.getEventManager().register(IncomingRequestEvent.class, event -> {
+			long time = ((PingPacket) event.getRequest()).getTime();
+			if (time == 0) event.fail("failed");
+			else if (time == 1) event.respond(new PositionPacket(1, 1));
+		});
+
+		CompletableFuture<PingPacket> failed = this.requester.request(new PingPacket(PingPacket.Sender.CLIENT, 0), PingPacket.class, 10, TimeUnit.SECONDS);
+		CompletableFuture<PingPacket> wrongType = this.requester.request(new PingPacket(PingPacket.Sender.CLIENT, 1), PingPacket.class, 10, TimeUnit.SECONDS);
+		CompletableFuture<PingPacket> unanswered = this.requester.request(new PingPacket(PingPacket.Sender.CLIENT, 2), PingPacket.class, 50, TimeUnit.MILLISECONDS);
+		this.pump();
+
+		Assert.assertTrue(this.getCause(failed) instanceof RequestFailedException);
+		Assert.assertTrue(this.getCause(wrongType) instanceof ClassCastException);
+		Assert.assertTrue(this.getCause(unanswered) instanceof TimeoutException);
+		Assert.assertEquals(0, this.requester.getRequestManager().getPendingRequests());
+	}
+
+	/**
+	 * Checks that pending requests fail once the connection is closed.
+	 *
+	 * @throws Exception If the thread is interrupted.
+	 */
+	@Test
+	public void testClose() throws Exception {
+		CompletableFuture<PingPacket> future = this.requester.request(new PingPacket(PingPacket.Sender.CLIENT, 0), PingPacket.class, 10, TimeUnit.SECONDS);
+		this.requesterChannel.close();
+
+		Assert.assertTrue(this.getCause(future) instanceof ClosedChannelException);
+	}
+
+	/**
+	 * Adds the handlers of a connection to the given channel.
+	 *
+	 * @param channel The channel
+	 * @param server The server whose event manager is used
+	 * @param connection The connection of the channel
+	 */
+	private void initPipeline(EmbeddedChannel channel, ProkyoServer server, ClientConnection connection) {
+		channel.pipeline()
+				.addLast("frame-prepender", new LengthFieldPrepender(4))
+				.addLast("prokyoEncoder", new PacketEncoder())
+				.addLast("prokyoOutboundQueue", new OutboundQueue(SlowConsumerPolicy.BLOCK, 1024, 0))
+				.addLast("frame-decoder", new LengthFieldBasedFrameDecoder(PacketDecoder.DEFAULT_MAX_FRAME_SIZE, 0, 4, 0, 4))
+				.addLast("prokyoDecoder", new PacketDecoder())
+				.addLast("prokyoPacketHandler", new ProkyoDuplexHandler(server, connection));
+	}
+
+	/**
+	 * Moves all frames between both channels until neither has anything left to write.
+	 */
+	private void pump() {
+		boolean moved = true;
+		while (moved) {
+			moved = this.move(this.requesterChannel, this.responderChannel) | this.move(this.responderChannel, this.requesterChannel);
+		}
+	}
+
+	/**
+	 * Moves all frames written by the given sender to the given receiver.
+	 *
+	 * @param sender The sender
+	 * @param receiver The receiver
+	 * @return Whether any frame was moved.
+	 */
+	private boolean move(EmbeddedChannel sender, EmbeddedChannel receiver) {
+		boolean moved = false;
+		ByteBuf frame;
+		while ((frame = sender.readOutbound()) != null) {
+			receiver.writeInbound(frame);
+			moved = true;
+		}
+		return moved;
+	}
+
+	/**
+	 * Waits for the given future to fail.
+	 *
+	 * @param future The future
+	 * @return The reason the future failed.
+	 * @throws Exception If the future didn't fail in time.
+	 */
+	private Throwable getCause(CompletableFuture<?> future) throws Exception {
+		try {
+			future.get(5, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			return e.getCause();
+		}
+
+		Assert.fail("The future didn't fail.");
+		return null;
+	}
+
+}
@@ -0,0 +1,87 @@
+package de.prokyo.network;
+
+import de.prokyo.network.common.connection.SocketOptions;
+import de.prokyo.network.common.connection.Transport;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for applying the socket options to the bootstraps.
+ */
+public class SocketOptionsTest {
+
+	/**
+	 * Checks the defaults and that epoll options are only applied to epoll bootstraps.
+	 */
+	@Test
+	public void testDefaults() {
+		Bootstrap nio = new Bootstrap();
+		new SocketOptions().applyTo(nio, Transport.NIO);
+		Map<ChannelOption<?>, Object> options = nio.config().options();
+		Assert.assertEquals(true, options.get(ChannelOption.TCP_NODELAY));
+		Assert.assertFalse(options.containsKey(EpollChannelOption.TCP_QUICKACK));
+		Assert.assertFalse(options.containsKey(ChannelOption.SO_SNDBUF));
+
+		Bootstrap epoll = new Bootstrap();
+		new SocketOptions().applyTo(epoll, Transport.EPOLL);
+		Assert.assertFalse(epoll.config().options().containsKey(EpollChannelOption.TCP_QUICKACK));
+		Assert.assertFalse(epoll.config().options().containsKey(EpollChannelOption.SO_BUSY_POLL));
+	}
+
+	/**
+	 * Checks that the options of a server are split into the options of the server channel and of its connections.
+	 */
+	@Test
+	public void testServerOptions() {
+		WriteBufferWaterMark waterMark = new WriteBufferWaterMark(1024, 4096);
+		SocketOptions socketOptions = new SocketOptions()
+				.tcpNoDelay(false)
+				.sendBufferSize(1 << 16)
+				.receiveBufferSize(1 << 17)
+				.backlog(512)
+				.writeBufferWaterMark(waterMark)
+				.allocator(UnpooledByteBufAllocator.DEFAULT)
+				.tcpFastOpen(16)
+				.tcpQuickAck(true)
+				.busyPollMicros(50)
+				.epollMode(EpollMode.LEVEL_TRIGGERED)
+				.option(ChannelOption.SO_KEEPALIVE, true)
+				.option(ChannelOption.TCP_NODELAY, true);
+
+		ServerBootstrap bootstrap = new ServerBootstrap();
+		socketOptions.applyTo(bootstrap, Transport.EPOLL);
+
+		Map<ChannelOption<?>, Object> options = bootstrap.config().options();
+		Assert.assertEquals(512, options.get(ChannelOption.SO_BACKLOG));
+		Assert.assertEquals(16, options.get(EpollChannelOption.TCP_FASTOPEN));
+		Assert.assertEquals(UnpooledByteBufAllocator.DEFAULT, options.get(ChannelOption.ALLOCATOR));
+
+		Map<ChannelOption<?>, Object> childOptions = bootstrap.config().childOptions();
+		Assert.assertEquals(true, childOptions.get(ChannelOption.TCP_NODELAY));
+		Assert.assertEquals(1 << 16, childOptions.get(ChannelOption.SO_SNDBUF));
+		Assert.assertEquals(1 << 17, childOptions.get(ChannelOption.SO_RCVBUF));
+		Assert.assertEquals(waterMark, childOptions.get(ChannelOption.WRITE_BUFFER_WATER_MARK));
+		Assert.assertEquals(true, childOptions.get(EpollChannelOption.TCP_QUICKACK));
+		Assert.assertEquals(50, childOptions.get(EpollChannelOption.SO_BUSY_POLL));
+		Assert.assertEquals(EpollMode.LEVEL_TRIGGERED, childOptions.get(EpollChannelOption.EPOLL_MODE));
+		Assert.assertEquals(true, childOptions.get(ChannelOption.SO_KEEPALIVE));
+		Assert.assertFalse(childOptions.containsKey(ChannelOption.SO_BACKLOG));
+	}
+
+	/**
+	 * Checks that invalid values are rejected.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidValue() {
+		new SocketOptions().sendBufferSize(-1);
+	}
+
+}
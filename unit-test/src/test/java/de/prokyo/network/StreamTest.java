@@ -0,0 +1,204 @@
+package de.prokyo.network;
+
+import de.prokyo.network.client.ProkyoClient;
+import de.prokyo.network.common.connection.SlowConsumerPolicy;
+import de.prokyo.network.common.event.IncomingStreamEvent;
+import de.prokyo.network.common.packet.PacketRegistry;
+import de.prokyo.network.common.pipeline.OutboundQueue;
+import de.prokyo.network.common.pipeline.PacketDecoder;
+import de.prokyo.network.common.pipeline.PacketEncoder;
+import de.prokyo.network.common.stream.IncomingStream;
+import de.prokyo.network.common.stream.StreamListener;
+import de.prokyo.network.server.ClientConnection;
+import de.prokyo.network.server.ProkyoDuplexHandler;
+import de.prokyo.network.server.ProkyoServer;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for sending large payloads as chunked streams.
+ */
+public class StreamTest {
+
+	private final ProkyoServer server = new ProkyoServer();
+	private final OutboundQueue outboundQueue = new OutboundQueue(SlowConsumerPolicy.BLOCK, 1024, 0);
+	private final EmbeddedChannel sender = new EmbeddedChannel();
+	private final EmbeddedChannel receiver = new EmbeddedChannel();
+
+	/**
+	 * Constructor.
+	 */
+	public StreamTest() {
+		PacketRegistry.INSTANCE.register(PingPacket.class, 0x20);
+		// the embedded event loop is not thread safe, so the chunks are read on the calling thread
+		this.outboundQueue.setTransferExecutor(Runnable::run);
+
+		this.sender.pipeline()
+				.addLast("frame-prepender", new LengthFieldPrepender(4))
+				.addLast("prokyoEncoder", new PacketEncoder())
+				.addLast("prokyoOutboundQueue", this.outboundQueue);
+		this.receiver.pipeline()
+				.addLast("frame-decoder", new LengthFieldBasedFrameDecoder(PacketDecoder.DEFAULT_MAX_FRAME_SIZE, 0, 4, 0, 4))
+				.addLast("prokyoDecoder", new PacketDecoder())
+				.addLast("prokyoPacketHandler", new ProkyoDuplexHandler(this.server, new ClientConnection(this.receiver)));
+	}
+
+	/**
+	 * Streams a payload larger than the maximum frame size to a listener and checks that a packet sent
+	 * while the stream is queued overtakes its chunks.
+	 */
+	@Test
+	public void testListener() {
+		byte[] payload = this.newPayload(3 * PacketDecoder.DEFAULT_MAX_FRAME_SIZE + 123);
+		ByteArrayOutputStream received = new ByteArrayOutputStream();
+		AtomicBoolean completed = new AtomicBoolean();
+		AtomicBoolean pingBeforeCompletion = new AtomicBoolean();
+
+		this.server.getEventManager().register(IncomingStreamEvent.class, event -> event.getStream().setListener(new StreamListener() {
+			@Override
+			public void onData(byte[] data) {
+				received.write(data, 0, data.length);
+			}
+
+			@Override
+			public void onComplete() {
+				completed.set(true);
+			}
+		}));
+		this.server.getEventManager().register(PingPacket.class, packet -> pingBeforeCompletion.set(!completed.get()));
+
+		this.sender.unsafe().outboundBuffer().setUserDefinedWritability(1, false);
+		CompletableFuture<Void> future = this.outboundQueue.sendStream(new ByteArrayInputStream(payload));
+		this.sender.runPendingTasks();
+		this.sender.writeAndFlush(new PingPacket(PingPacket.Sender.SERVER, 1));
+		this.sender.unsafe().outboundBuffer().setUserDefinedWritability(1, true);
+		this.pump();
+
+		Assert.assertTrue(future.isDone() && !future.isCompletedExceptionally());
+		Assert.assertTrue(completed.get());
+		Assert.assertTrue(pingBeforeCompletion.get());
+		Assert.assertArrayEquals(payload, received.toByteArray());
+	}
+
+	/**
+	 * Streams a payload to an input stream which is not read while receiving, so reading from the connection
+	 * has to be paused, and reads it afterwards.
+	 *
+	 * @throws IOException If reading the stream fails.
+	 */
+	@Test
+	public void testInputStream() throws IOException {
+		byte[] payload = this.newPayload(2 * IncomingStream.MAX_BUFFERED_BYTES);
+		AtomicReference<InputStream> input = new AtomicReference<>();
+		this.server.getEventManager().register(IncomingStreamEvent.class, event -> input.set(event.getStream().getInputStream()));
+
+		this.outboundQueue.sendStream(new ByteArrayInputStream(payload));
+		this.pump();
+		Assert.assertFalse(this.receiver.config().isAutoRead());
+
+		ByteArrayOutputStream received = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = input.get().read(buffer)) != -1) received.write(buffer, 0, read);
+
+		Assert.assertTrue(this.receiver.config().isAutoRead());
+		Assert.assertArrayEquals(payload, received.toByteArray());
+	}
+
+	/**
+	 * Checks that an unconsumed stream is discarded instead of pausing the connection.
+	 */
+	@Test
+	public void testDiscard() {
+		this.outboundQueue.sendStream(new ByteArrayInputStream(this.newPayload(2 * IncomingStream.MAX_BUFFERED_BYTES)));
+		this.pump();
+		Assert.assertTrue(this.receiver.config().isAutoRead());
+	}
+
+	/**
+	 * Streams from a source which blocks until it is released and checks that packets are still sent meanwhile, as
+	 * the source is not read on the event loop.
+	 *
+	 * @throws Exception If the stream fails or the thread is interrupted.
+	 */
+	@Test
+	public void testBlockingSource() throws Exception {
+		CountDownLatch released = new CountDownLatch(1);
+		CountDownLatch received = new CountDownLatch(1);
+		InputStream source = new InputStream() {
+			@Override
+			public int read() throws IOException {
+				try {
+					released.await();
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+				return -1;
+			}
+		};
+
+		ProkyoServer server = new ProkyoServer();
+		server.getEventManager().register(PingPacket.class, packet -> received.countDown());
+		server.start("127.0.0.1", 1352, 1, 1);
+		ProkyoClient client = new ProkyoClient();
+		client.connect("127.0.0.1", 1352, 1);
+
+		try {
+			CompletableFuture<Void> future = client.sendStream(source);
+			client.sendPacket(new PingPacket(PingPacket.Sender.CLIENT, 1));
+			Assert.assertTrue(received.await(5, TimeUnit.SECONDS));
+			Assert.assertFalse(future.isDone());
+
+			released.countDown();
+			future.get(5, TimeUnit.SECONDS);
+		} finally {
+			released.countDown();
+			client.shutdown();
+			server.shutdown();
+		}
+	}
+
+	/**
+	 * Moves all frames written by the sender to the receiver until the sender has nothing left to write.
+	 */
+	private void pump() {
+		boolean moved = true;
+		while (moved) {
+			this.sender.runPendingTasks();
+			moved = false;
+
+			ByteBuf frame;
+			while ((frame = this.sender.readOutbound()) != null) {
+				this.receiver.writeInbound(frame);
+				moved = true;
+			}
+		}
+	}
+
+	/**
+	 * Creates a random payload.
+	 *
+	 * @param size The size of the payload
+	 * @return The payload.
+	 */
+	private byte[] newPayload(int size) {
+		byte[] payload = new byte[size];
+		new Random(size).nextBytes(payload);
+		return payload;
+	}
+
+}
@@ -0,0 +1,86 @@
+package de.prokyo.network;
+
+import de.prokyo.network.common.connection.SlowConsumerPolicy;
+import de.prokyo.network.common.connection.TimeSync;
+import de.prokyo.network.common.pipeline.OutboundQueue;
+import de.prokyo.network.common.pipeline.PacketDecoder;
+import de.prokyo.network.common.pipeline.PacketEncoder;
+import de.prokyo.network.common.pipeline.TimeSyncHandler;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for the estimation of the clock offset between two hosts.
+ */
+public class TimeSyncTest {
+
+	/**
+	 * Checks that the offset is taken from the sample with the lowest round trip time of the last samples.
+	 */
+	@Test
+	public void testMinimumRttFilter() {
+		TimeSync timeSync = new TimeSync();
+		Assert.assertFalse(timeSync.isSynchronized());
+
+		// the remote clock is 1000 ahead, the way there took 10 and the way back 30
+		timeSync.sample(0, 1010, 1020, 50);
+		Assert.assertEquals(990, timeSync.getOffsetNanos());
+		Assert.assertEquals(40, timeSync.getRttNanos());
+
+		// symmetric sample with a lower round trip time
+		timeSync.sample(100, 1105, 1105, 110);
+		Assert.assertEquals(1000, timeSync.getOffsetNanos());
+		Assert.assertEquals(10, timeSync.getRttNanos());
+
+		// samples distorted by queueing are ignored until the best sample is dropped from the window
+		for (int i = 0; i < TimeSync.SAMPLES - 1; i++) timeSync.sample(200, 1250, 1250, 300);
+		Assert.assertEquals(1000, timeSync.getOffsetNanos());
+
+		timeSync.sample(200, 1250, 1250, 300);
+		Assert.assertEquals(1000, timeSync.getOffsetNanos());
+		Assert.assertEquals(100, timeSync.getRttNanos());
+	}
+
+	/**
+	 * Samples the offset between two channels of the same process, whose clocks are the same.
+	 */
+	@Test
+	public void testExchange() {
+		TimeSync sampling = new TimeSync();
+		TimeSync answering = new TimeSync();
+		EmbeddedChannel first = this.createChannel(new TimeSyncHandler(sampling, 60_000));
+		EmbeddedChannel second = this.createChannel(new TimeSyncHandler(answering, 0));
+
+		first.runPendingTasks();
+		ByteBuf frame;
+		while ((frame = first.readOutbound()) != null) second.writeInbound(frame);
+		while ((frame = second.readOutbound()) != null) first.writeInbound(frame);
+
+		Assert.assertTrue(sampling.isSynchronized());
+		Assert.assertFalse(answering.isSynchronized());
+		Assert.assertTrue(Math.abs(sampling.getOffsetNanos()) <= sampling.getRttNanos());
+		long remoteTime = sampling.estimatedRemoteTimeNanos();
+		Assert.assertTrue(Math.abs(remoteTime - TimeSync.currentTimeNanos()) <= sampling.getRttNanos() + 1_000_000);
+	}
+
+	/**
+	 * Creates an active channel with the handlers of a connection and the given time sync handler.
+	 *
+	 * @param handler The time sync handler
+	 * @return The channel.
+	 */
+	private EmbeddedChannel createChannel(TimeSyncHandler handler) {
+		return new EmbeddedChannel(
+				new LengthFieldBasedFrameDecoder(PacketDecoder.DEFAULT_MAX_FRAME_SIZE, 0, 4, 0, 4),
+				new PacketDecoder(),
+				new LengthFieldPrepender(4),
+				new PacketEncoder(),
+				new OutboundQueue(SlowConsumerPolicy.BLOCK, 1024, 0),
+				handler);
+	}
+
+}
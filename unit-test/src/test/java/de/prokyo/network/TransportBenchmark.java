@@ -0,0 +1,68 @@
+package de.prokyo.network;
+
+import de.prokyo.network.client.ProkyoClient;
+import de.prokyo.network.common.connection.SlowConsumerPolicy;
+import de.prokyo.network.common.connection.Transport;
+import de.prokyo.network.common.packet.PacketRegistry;
+import de.prokyo.network.server.ProkyoServer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Benchmark comparing the throughput of every transport supported by the local kernel.
+ */
+public class TransportBenchmark {
+
+	private static final int PACKETS = 2_000_000;
+
+	/**
+	 * Sends packets from a client to a server over the loopback interface with every available transport and
+	 * prints the packets per second.
+	 *
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	@Ignore("Takes to long. Can be started manually.")
+	@Test
+	public void benchmarkTransports() throws InterruptedException {
+		PacketRegistry.INSTANCE.register(PingPacket.class, 0x20);
+
+		for (Transport transport : Transport.values()) {
+			if (!transport.isAvailable()) System.out.printf("%-8s not available%n", transport);
+			else System.out.printf("%-8s %.0f packets/s%n", transport, this.measure(transport, 1348 + transport.ordinal()));
+		}
+	}
+
+	/**
+	 * Starts a server and a client using the given transport and measures the received packets per second.
+	 *
+	 * @param transport The transport
+	 * @param port The port of the server
+	 * @return The received packets per second.
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	private double measure(Transport transport, int port) throws InterruptedException {
+		CountDownLatch received = new CountDownLatch(PACKETS);
+		ProkyoServer server = new ProkyoServer();
+		server.setTransport(transport);
+		server.getEventManager().register(PingPacket.class, packet -> received.countDown());
+		server.start("127.0.0.1", port, 1, 1);
+		ProkyoClient client = new ProkyoClient();
+		client.setTransport(transport);
+		client.setSlowConsumerPolicy(SlowConsumerPolicy.BLOCK);
+		client.connect("127.0.0.1", port, 1);
+
+		try {
+			long start = System.nanoTime();
+			for (int i = 0; i < PACKETS; i++) client.sendPacket(new PingPacket(PingPacket.Sender.CLIENT, i));
+			Assert.assertTrue(received.await(1, TimeUnit.MINUTES));
+			return PACKETS / ((System.nanoTime() - start) / 1e9);
+		} finally {
+			client.shutdown();
+			server.shutdown();
+		}
+	}
+
+}
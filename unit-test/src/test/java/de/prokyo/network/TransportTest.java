@@ -0,0 +1,74 @@
+package de.prokyo.network;
+
+import de.prokyo.network.common.connection.Transport;
+import io.netty.channel.EventLoopGroup;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit test for the selection of the transport.
+ */
+public class TransportTest {
+
+	/**
+	 * Checks that the best transport is the first available one in the order of declaration and that it is used if
+	 * no transport is configured.
+	 */
+	@Test
+	public void testBest() {
+		Transport best = Transport.best();
+		Assert.assertTrue(best.isAvailable());
+		for (Transport transport : Transport.values()) {
+			if (transport == best) break;
+			Assert.assertFalse(transport.isAvailable());
+		}
+
+		Assert.assertSame(best, Transport.resolve(null));
+		Assert.assertSame(Transport.NIO, Transport.resolve(Transport.NIO));
+	}
+
+	/**
+	 * Checks that io_uring isn't selected without the incubator module on the class path and that using it fails
+	 * with an {@link IllegalStateException} instead of a linkage error.
+	 */
+	@Test
+	public void testUnavailableIoUring() {
+		Assert.assertFalse(Transport.IO_URING.isAvailable());
+		Assert.assertNotSame(Transport.IO_URING, Transport.best());
+
+		this.assertIllegalState(() -> Transport.resolve(Transport.IO_URING));
+		this.assertIllegalState(() -> Transport.IO_URING.newEventLoopGroup(1));
+		this.assertIllegalState(Transport.IO_URING::getSocketChannelClass);
+		this.assertIllegalState(Transport.IO_URING::getServerSocketChannelClass);
+	}
+
+	/**
+	 * Creates an event loop group of every available transport.
+	 */
+	@Test
+	public void testAvailableTransports() {
+		for (Transport transport : Transport.values()) {
+			if (!transport.isAvailable()) continue;
+
+			Assert.assertSame(transport, Transport.resolve(transport));
+			EventLoopGroup group = transport.newEventLoopGroup(1);
+			group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+		}
+	}
+
+	/**
+	 * Runs the given action and checks that it throws an {@link IllegalStateException}.
+	 *
+	 * @param action The action
+	 */
+	private void assertIllegalState(Runnable action) {
+		try {
+			action.run();
+			Assert.fail("Expected an IllegalStateException.");
+		} catch (IllegalStateException expected) {
+			// expected
+		}
+	}
+
+}
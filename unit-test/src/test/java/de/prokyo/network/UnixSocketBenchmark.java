@@ -0,0 +1,92 @@
+package de.prokyo.network;
+
+import de.prokyo.network.client.ProkyoClient;
+import de.prokyo.network.common.connection.SlowConsumerPolicy;
+import de.prokyo.network.common.event.IncomingRequestEvent;
+import de.prokyo.network.common.packet.PacketRegistry;
+import de.prokyo.network.server.ProkyoServer;
+import io.netty.channel.epoll.Epoll;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Benchmark comparing unix domain sockets to tcp over the loopback interface.
+ */
+public class UnixSocketBenchmark {
+
+	private static final int REQUESTS = 50_000;
+	private static final int PACKETS = 2_000_000;
+
+	/**
+	 * Measures the round trip latency of sequential requests and the packet throughput, once over tcp and once
+	 * over a unix domain socket, and prints the results.
+	 *
+	 * @throws Exception If the socket file can't be created or the thread is interrupted.
+	 */
+	@Ignore("Takes to long. Can be started manually.")
+	@Test
+	public void benchmarkUnixSocket() throws Exception {
+		PacketRegistry.INSTANCE.register(PingPacket.class, 0x20);
+		if (!Epoll.isAvailable()) {
+			System.out.println("Epoll is not available, unix domain sockets aren't supported.");
+			return;
+		}
+
+		this.measure("tcp ", null);
+		Path directory = Files.createTempDirectory("prokyo");
+		try {
+			this.measure("unix", directory.resolve("prokyo.sock"));
+		} finally {
+			Files.deleteIfExists(directory.resolve("prokyo.sock"));
+			Files.delete(directory);
+		}
+	}
+
+	/**
+	 * Starts a server and a client connected over tcp or the given unix domain socket and prints the average
+	 * request latency and the received packets per second.
+	 *
+	 * @param name The name of the run
+	 * @param path The path of the unix domain socket or null to use tcp
+	 * @throws Exception If the socket file can't be created or the thread is interrupted.
+	 */
+	private void measure(String name, Path path) throws Exception {
+		CountDownLatch received = new CountDownLatch(PACKETS);
+		ProkyoServer server = new ProkyoServer();
+		server.getEventManager().register(IncomingRequestEvent.class, event -> event.respond(event.getRequest()));
+		server.getEventManager().register(PingPacket.class, packet -> received.countDown());
+		ProkyoClient client = new ProkyoClient();
+		client.setSlowConsumerPolicy(SlowConsumerPolicy.BLOCK);
+		if (path == null) {
+			server.start("127.0.0.1", 1351, 1, 1);
+			client.connect("127.0.0.1", 1351, 1);
+		} else {
+			server.startUnix(path, 1);
+			client.connectUnix(path, 1);
+		}
+
+		try {
+			long start = System.nanoTime();
+			for (int i = 0; i < REQUESTS; i++) {
+				client.request(new PingPacket(PingPacket.Sender.CLIENT, i), PingPacket.class, 10, TimeUnit.SECONDS).get();
+			}
+			double latencyMicros = (System.nanoTime() - start) / 1e3 / REQUESTS;
+
+			start = System.nanoTime();
+			for (int i = 0; i < PACKETS; i++) client.sendPacket(new PingPacket(PingPacket.Sender.CLIENT, i));
+			Assert.assertTrue(received.await(1, TimeUnit.MINUTES));
+			double packetsPerSecond = PACKETS / ((System.nanoTime() - start) / 1e9);
+
+			System.out.printf("%s: %.1f us per request, %.0f packets/s%n", name, latencyMicros, packetsPerSecond);
+		} finally {
+			client.shutdown();
+			server.shutdown();
+		}
+	}
+
+}
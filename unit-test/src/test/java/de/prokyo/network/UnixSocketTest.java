@@ -0,0 +1,88 @@
+package de.prokyo.network;
+
+import de.prokyo.network.client.ProkyoClient;
+import de.prokyo.network.client.ReconnectPolicy;
+import de.prokyo.network.common.connection.SlowConsumerPolicy;
+import de.prokyo.network.common.event.IncomingRequestEvent;
+import de.prokyo.network.common.packet.PacketRegistry;
+import de.prokyo.network.server.ProkyoServer;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.unix.DomainSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Unit test for connections over unix domain sockets.
+ */
+public class UnixSocketTest {
+
+	/**
+	 * Connects a client to a server bound to a unix domain socket, exchanges packets, restarts the server at the
+	 * same path and checks that the client reconnects to it.
+	 *
+	 * @throws Exception If the socket file can't be created, a request fails or the thread is interrupted.
+	 */
+	@Test
+	public void testUnixSocket() throws Exception {
+		Assume.assumeTrue(Epoll.isAvailable());
+		PacketRegistry.INSTANCE.register(PingPacket.class, 0x20);
+
+		Path directory = Files.createTempDirectory("prokyo");
+		Path path = directory.resolve("prokyo.sock");
+		ProkyoServer server = new ProkyoServer();
+		server.getEventManager().register(IncomingRequestEvent.class, event -> event.respond(event.getRequest()));
+		server.startUnix(path, 1);
+		ProkyoClient client = new ProkyoClient();
+		client.setReconnectPolicy(new ReconnectPolicy(10, 100, 0, 100, SlowConsumerPolicy.DROP_OLDEST));
+
+		try {
+			client.connectUnix(path, 1);
+			Assert.assertEquals(path, client.getUnixSocketPath());
+			Assert.assertNull(client.getRemoteHost());
+			Assert.assertTrue(client.getRemoteAddress() instanceof DomainSocketAddress);
+
+			PingPacket response = client.request(new PingPacket(PingPacket.Sender.CLIENT, 1), PingPacket.class, 5, TimeUnit.SECONDS).get();
+			Assert.assertEquals(1, response.getTime());
+
+			server.shutdown();
+			Assert.assertFalse(Files.exists(path));
+			this.await(client::isReconnecting);
+			client.sendPacket(new PingPacket(PingPacket.Sender.CLIENT, 2));
+
+			List<Long> received = new CopyOnWriteArrayList<>();
+			server = new ProkyoServer();
+			server.getEventManager().register(PingPacket.class, packet -> received.add(packet.getTime()));
+			server.startUnix(path, 1);
+
+			this.await(() -> received.size() == 1);
+			Assert.assertEquals(2, (long) received.get(0));
+			Assert.assertFalse(client.isReconnecting());
+			Assert.assertEquals(1, client.getReconnects());
+		} finally {
+			client.shutdown();
+			server.shutdown();
+			Files.deleteIfExists(path);
+			Files.delete(directory);
+		}
+	}
+
+	/**
+	 * Waits up to five seconds for the given condition.
+	 *
+	 * @param condition The condition
+	 * @throws InterruptedException If the thread is interrupted by another thread.
+	 */
+	private void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) Thread.sleep(5);
+		Assert.assertTrue(condition.getAsBoolean());
+	}
+
+}